@@ -0,0 +1,170 @@
+#!/usr/bin/env escript
+%%
+%% Copyright 2012-2020 Sergey Ignatov
+%%
+%% Licensed under the Apache License, Version 2.0 (the "License");
+%% you may not use this file except in compliance with the License.
+%% You may obtain a copy of the License at
+%%
+%% http://www.apache.org/licenses/LICENSE-2.0
+%%
+%% Unless required by applicable law or agreed to in writing, software
+%% distributed under the License is distributed on an "AS IS" BASIS,
+%% WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+%% See the License for the specific language governing permissions and
+%% limitations under the License.
+%%
+
+%% Compile server of the Erlang JPS builder. It connects to the builder on the passed port and compiles
+%% modules until the builder sends 'stop' or closes the connection.
+%%
+%% Requests:  {compile, Id, OutDir, ErlcArgs, Files}
+%% Responses: {compiled, Id, [{error | warning, File, Line, Message}]}
+
+-mode(compile).
+
+main([PortText]) ->
+  Port = list_to_integer(PortText),
+  {ok, Socket} = gen_tcp:connect({127, 0, 0, 1}, Port, [binary, {packet, 4}, {active, once}]),
+  loop(#{socket => Socket, base_path => code:get_path(), code_path => [], running => 0, queue => []}).
+
+%% The code path is global to the node, so only requests with the same -pa/-pz arguments run at the same time.
+%% Requests with other arguments wait until the running ones finish, then the code path is reset to the one
+%% the node started with before theirs is added. This keeps targets from seeing each other's beams.
+loop(#{socket := Socket} = State) ->
+  receive
+    {tcp, Socket, Packet} ->
+      ok = inet:setopts(Socket, [{active, once}]),
+      case binary_to_term(Packet) of
+        {compile, Id, OutDir, Args, Files} ->
+          loop(schedule({Id, OutDir, Args, Files}, State));
+        stop ->
+          ok
+      end;
+    {tcp_closed, Socket} ->
+      ok;
+    {tcp_error, Socket, _Reason} ->
+      ok;
+    {'DOWN', _Ref, process, _Pid, _Reason} ->
+      loop(start_queued(State#{running := maps:get(running, State) - 1}))
+  end.
+
+schedule({Id, _OutDir, Args, _Files} = Request, #{socket := Socket, running := Running, code_path := Active, queue := Queue} = State) ->
+  try code_path_args(Args) of
+    CodePath when Running =:= 0 ->
+      start(Request, State#{code_path := set_code_path(State, CodePath)});
+    Active when Queue =:= [] ->
+      start(Request, State);
+    _ ->
+      State#{queue := Queue ++ [Request]}
+  catch
+    Class:Reason ->
+      send_failure(Socket, Id, Class, Reason),
+      State
+  end.
+
+start_queued(#{running := 0, queue := [{_, _, Args, _} | _] = Queue} = State) ->
+  CodePath = code_path_args(Args),
+  {Ready, Waiting} = lists:partition(fun({_, _, RequestArgs, _}) -> code_path_args(RequestArgs) =:= CodePath end, Queue),
+  lists:foldl(fun start/2, State#{code_path := set_code_path(State, CodePath), queue := Waiting}, Ready);
+start_queued(State) ->
+  State.
+
+start({Id, OutDir, Args, Files}, #{socket := Socket, running := Running} = State) ->
+  spawn_monitor(fun() -> compile_request(Socket, Id, OutDir, Args, Files) end),
+  State#{running := Running + 1}.
+
+set_code_path(#{base_path := BasePath}, CodePath) ->
+  true = code:set_path(BasePath),
+  [code:Function(Dir) || {Function, Dir} <- CodePath],
+  CodePath.
+
+send_failure(Socket, Id, Class, Reason) ->
+  Message = to_binary(io_lib:format("Compile server failure: ~p:~p", [Class, Reason])),
+  ok = gen_tcp:send(Socket, term_to_binary({compiled, Id, [{error, <<>>, -1, Message}]})).
+
+compile_request(Socket, Id, OutDir, Args, Files) ->
+  try
+    Options = parse_args(Args, []),
+    purge_modified_modules([normalize(Dir) || {_, Dir} <- code_path_args(Args)]),
+    Messages = lists:append([compile_file(File, OutDir, Options) || File <- Files]),
+    ok = gen_tcp:send(Socket, term_to_binary({compiled, Id, Messages}))
+  catch
+    Class:Reason ->
+      send_failure(Socket, Id, Class, Reason)
+  end.
+
+compile_file(File, OutDir, Options) ->
+  case compile:file(File, [{outdir, OutDir}, return_errors, return_warnings | Options]) of
+    {ok, _Module} -> [];
+    {ok, _Module, Warnings} -> messages(warning, Warnings);
+    {error, Errors, Warnings} -> messages(error, Errors) ++ messages(warning, Warnings);
+    error -> [{error, to_binary(File), -1, <<"Compilation failed">>}]
+  end.
+
+messages(Kind, FileMessages) ->
+  [{Kind, to_binary(File), line(Location), to_binary(Module:format_error(Descriptor))}
+   || {File, ErrorInfos} <- FileMessages, {Location, Module, Descriptor} <- ErrorInfos].
+
+line(Line) when is_integer(Line) -> Line;
+line({Line, _Column}) when is_integer(Line) -> Line;
+line(_) -> -1.
+
+to_binary(Chars) ->
+  unicode:characters_to_binary(io_lib:format("~ts", [Chars])).
+
+%% Translates erlc arguments to compile:file/2 options, code path arguments are handled by code_path_args/1.
+parse_args([], Options) ->
+  lists:reverse(Options);
+parse_args(["-I", Dir | Rest], Options) ->
+  parse_args(Rest, [{i, Dir} | Options]);
+parse_args(["-I" ++ Dir | Rest], Options) ->
+  parse_args(Rest, [{i, Dir} | Options]);
+parse_args(["-pa", _Dir | Rest], Options) ->
+  parse_args(Rest, Options);
+parse_args(["-pz", _Dir | Rest], Options) ->
+  parse_args(Rest, Options);
+parse_args(["-o", _Dir | Rest], Options) ->
+  parse_args(Rest, Options);
+parse_args(["-D" ++ Definition | Rest], Options) ->
+  parse_args(Rest, [macro_definition(Definition) | Options]);
+parse_args(["-Werror" | Rest], Options) ->
+  parse_args(Rest, [warnings_as_errors | Options]);
+parse_args(["+" ++ Term | Rest], Options) ->
+  parse_args(Rest, [parse_term(Term) | Options]);
+parse_args([_Ignored | Rest], Options) ->
+  parse_args(Rest, Options).
+
+%% Code path directories in the order erlc adds them.
+code_path_args(["-pa", Dir | Rest]) -> [{add_patha, Dir} | code_path_args(Rest)];
+code_path_args(["-pz", Dir | Rest]) -> [{add_pathz, Dir} | code_path_args(Rest)];
+code_path_args([_ | Rest]) -> code_path_args(Rest);
+code_path_args([]) -> [].
+
+macro_definition(Definition) ->
+  case lists:splitwith(fun(C) -> C =/= $= end, Definition) of
+    {Name, []} -> {d, list_to_atom(Name)};
+    {Name, [$= | Value]} -> {d, list_to_atom(Name), parse_term(Value)}
+  end.
+
+parse_term(Text) ->
+  {ok, Tokens, _} = erl_scan:string(Text ++ "."),
+  {ok, Term} = erl_parse:parse_term(Tokens),
+  Term.
+
+%% Modules compiled earlier in this build (parse transforms, behaviours) are reloaded from their new beams.
+%% Soft purge never kills a compilation which still runs the old code.
+purge_modified_modules(CodePath) ->
+  case erlang:function_exported(code, module_status, 1) of
+    true ->
+      [code:soft_purge(Module) andalso code:delete(Module)
+       || {Module, File} <- code:all_loaded(), is_list(File),
+          lists:member(normalize(filename:dirname(File)), CodePath),
+          code:module_status(Module) =:= modified],
+      ok;
+    false ->
+      ok
+  end.
+
+normalize(Dir) ->
+  filename:join([filename:absname(Dir)]).
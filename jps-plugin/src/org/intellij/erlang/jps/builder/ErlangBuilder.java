@@ -85,6 +85,11 @@ public class ErlangBuilder extends TargetBuilder<ErlangSourceRootDescriptor, Erl
     processAppConfigFiles(holder, outputConsumer, context, sourceOutput, testOutput);
   }
 
+  @Override
+  public void buildFinished(CompileContext context) {
+    ErlangCompileServer.stopAll(context);
+  }
+
   @NotNull
   @Override
   public String getPresentableName() {
@@ -177,7 +182,86 @@ public class ErlangBuilder extends TargetBuilder<ErlangSourceRootDescriptor, Erl
                               BuildOutputConsumer outputConsumer,
                               File outputDirectory,
                               boolean isTest) throws ProjectBuildException, IOException {
-    GeneralCommandLine commandLine = getErlcCommandLine(target, context, compilerOptions, outputDirectory, erlangModulePathsToCompile, isTest);
+    List<List<String>> levels = getCompileLevels(target.getBuildOrder(), erlangModulePathsToCompile);
+    int maxProcesses = levels != null ? getParallelErlcProcesses(compilerOptions) : 1;
+    if (levels == null) {
+      levels = Collections.singletonList(erlangModulePathsToCompile);
+    }
+    ErlangCompileServer compileServer = compilerOptions.myUseCompileServer ? getCompileServer(target, context) : null;
+    if (compileServer != null) {
+      reportMessage(context, "Compile with Erlang compile server.");
+    }
+    for (List<String> level : levels) {
+      List<List<String>> chunks = splitIntoChunks(level, maxProcesses);
+      if (compileServer != null) {
+        try {
+          compileWithServer(compileServer, target, context, compilerOptions, chunks, outputDirectory, isTest);
+          continue;
+        }
+        catch (IOException e) {
+          ErlangCompileServer.discard(context, compileServer, e);
+          compileServer = null;
+        }
+      }
+      compileWithErlc(target, context, compilerOptions, chunks, outputDirectory, isTest);
+    }
+    registerBeams(outputConsumer, erlangModulePathsToCompile, outputDirectory);
+  }
+
+  private static void compileWithErlc(ErlangTarget target,
+                                      CompileContext context,
+                                      ErlangCompilerOptions compilerOptions,
+                                      List<List<String>> chunks,
+                                      File outputDirectory,
+                                      boolean isTest) throws ProjectBuildException {
+    List<BaseOSProcessHandler> handlers = new ArrayList<>();
+    try {
+      for (List<String> chunk : chunks) {
+        handlers.add(startErlc(target, context, compilerOptions, chunk, outputDirectory, isTest));
+      }
+    }
+    catch (ProjectBuildException e) {
+      for (BaseOSProcessHandler handler : handlers) {
+        handler.destroyProcess();
+      }
+      throw e;
+    }
+    for (BaseOSProcessHandler handler : handlers) {
+      handler.waitFor();
+    }
+  }
+
+  private static void compileWithServer(ErlangCompileServer compileServer,
+                                        ErlangTarget target,
+                                        CompileContext context,
+                                        ErlangCompilerOptions compilerOptions,
+                                        List<List<String>> chunks,
+                                        File outputDirectory,
+                                        boolean isTest) throws ProjectBuildException, IOException {
+    GeneralCommandLine commandLine = new GeneralCommandLine();
+    addCompilerOptions(commandLine, target, context, compilerOptions, isTest);
+    List<ErlangCompilerError> errors = compileServer.compile(outputDirectory, commandLine.getParametersList().getList(), chunks);
+    for (ErlangCompilerError error : errors) {
+      context.processMessage(new CompilerMessage(NAME, error.getKind(), error.getErrorMessage(),
+                                                 StringUtil.nullize(error.getUrl()), -1L, -1L, -1L, error.getLine(), -1L));
+    }
+  }
+
+  @Nullable
+  private static ErlangCompileServer getCompileServer(@NotNull ErlangTarget target,
+                                                      @NotNull CompileContext context) throws ProjectBuildException {
+    JpsSdk<JpsDummyElement> sdk = ErlangTargetBuilderUtil.getSdk(context, target.getModule());
+    return ErlangCompileServer.getInstance(context, sdk.getHomePath());
+  }
+
+  @NotNull
+  private static BaseOSProcessHandler startErlc(ErlangTarget target,
+                                                CompileContext context,
+                                                ErlangCompilerOptions compilerOptions,
+                                                List<String> erlangModulePaths,
+                                                File outputDirectory,
+                                                boolean isTest) throws ProjectBuildException {
+    GeneralCommandLine commandLine = getErlcCommandLine(target, context, compilerOptions, outputDirectory, erlangModulePaths, isTest);
     Process process;
     LOG.debug("Run erlc compiler with command " + commandLine.getCommandLineString());
     try {
@@ -190,8 +274,40 @@ public class ErlangBuilder extends TargetBuilder<ErlangSourceRootDescriptor, Erl
     ProcessAdapter adapter = new ErlangCompilerProcessAdapter(context, NAME, "");
     handler.addProcessListener(adapter);
     handler.startNotify();
-    handler.waitFor();
-    registerBeams(outputConsumer, erlangModulePathsToCompile, outputDirectory);
+    return handler;
+  }
+
+  /**
+   * @return modules grouped by compile level in ascending level order, or null if levels of some modules are unknown.
+   */
+  @Nullable
+  static List<List<String>> getCompileLevels(@Nullable ErlangModuleBuildOrder buildOrder, @NotNull List<String> erlangModulePaths) {
+    if (buildOrder == null) return null;
+    TreeMap<Integer, List<String>> levels = new TreeMap<>();
+    for (String path : erlangModulePaths) {
+      Integer level = buildOrder.myCompileLevels.get(path);
+      if (level == null) return null;
+      levels.computeIfAbsent(level, l -> new ArrayList<>()).add(path);
+    }
+    return new ArrayList<>(levels.values());
+  }
+
+  @NotNull
+  static List<List<String>> splitIntoChunks(@NotNull List<String> erlangModulePaths, int maxChunks) {
+    int chunksCount = Math.max(1, Math.min(maxChunks, erlangModulePaths.size()));
+    List<List<String>> chunks = new ArrayList<>(chunksCount);
+    for (int i = 0; i < chunksCount; i++) {
+      chunks.add(new ArrayList<>());
+    }
+    for (int i = 0; i < erlangModulePaths.size(); i++) {
+      chunks.get(i % chunksCount).add(erlangModulePaths.get(i));
+    }
+    return chunks;
+  }
+
+  private static int getParallelErlcProcesses(@NotNull ErlangCompilerOptions compilerOptions) {
+    int processes = compilerOptions.myParallelErlcProcesses;
+    return processes > 0 ? processes : Runtime.getRuntime().availableProcessors();
   }
 
   private static GeneralCommandLine getErlcCommandLine(ErlangTarget target,
@@ -206,14 +322,23 @@ public class ErlangBuilder extends TargetBuilder<ErlangSourceRootDescriptor, Erl
     File executable = JpsErlangSdkType.getByteCodeCompilerExecutable(sdk.getHomePath());
     commandLine.withWorkDirectory(outputDirectory);
     commandLine.setExePath(executable.getAbsolutePath());
+    addCompilerOptions(commandLine, target, context, compilerOptions, isTest);
+    commandLine.addParameters(erlangModulePaths);
+    return commandLine;
+  }
+
+  private static void addCompilerOptions(GeneralCommandLine commandLine,
+                                         ErlangTarget target,
+                                         CompileContext context,
+                                         ErlangCompilerOptions compilerOptions,
+                                         boolean isTest) throws ProjectBuildException {
+    JpsModule module = target.getModule();
     addCodePath(commandLine, module, target, context);
     addParseTransforms(commandLine, module);
     addDebugInfo(commandLine, compilerOptions.myAddDebugInfoEnabled);
     addIncludePaths(commandLine, module);
     addMacroDefinitions(commandLine, isTest);
     commandLine.addParameters(compilerOptions.myAdditionalErlcArguments);
-    commandLine.addParameters(erlangModulePaths);
-    return commandLine;
   }
 
   private static void addMacroDefinitions(GeneralCommandLine commandLine, boolean isTests) {
@@ -1,12 +1,8 @@
 package org.intellij.erlang.jps.builder;
 
 import com.intellij.openapi.diagnostic.Logger;
-import com.intellij.openapi.util.JDOMUtil;
-import com.intellij.util.xmlb.XmlSerializer;
 import org.intellij.erlang.jps.model.ErlangCompilerOptions;
 import org.intellij.erlang.jps.model.JpsErlangCompilerOptionsExtension;
-import org.jdom.Document;
-import org.jdom.JDOMException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jps.incremental.CompileContext;
@@ -18,7 +14,11 @@ import java.io.IOException;
 
 public class ErlangBuilderUtil {
   public static final String BUILDER_DIRECTORY = "erlang-builder";
-  public static final String BUILD_ORDER_FILE_NAME = "deps-tree.xml";
+  public static final String BUILD_ORDER_FILE_NAME = "deps-tree.bin";
+  /**
+   * Human readable copy of the build order, written by the IDE only when debug logging is enabled.
+   */
+  public static final String BUILD_ORDER_DEBUG_FILE_NAME = "deps-tree.xml";
 
   static final Logger LOG = Logger.getInstance(ErlangBuilder.class);
 
@@ -26,25 +26,20 @@ public class ErlangBuilderUtil {
   }
 
   @Nullable
-  public static <T> T readFromXML(@NotNull CompileContext context, @NotNull String filename, @NotNull Class<T> tClass) {
+  public static ErlangProjectBuildOrder readBuildOrder(@NotNull CompileContext context) {
+    File file = getBuilderFile(context, BUILD_ORDER_FILE_NAME);
+    if (!file.exists()) return null;
     try {
-      File xmlFile = getXmlFile(context, filename);
-      if (!xmlFile.exists()) return null;
-
-      Document document = JDOMUtil.loadDocument(xmlFile);
-      return XmlSerializer.deserialize(document, tClass);
-    }
-    catch (JDOMException e) {
-      LOG.error("Can't read XML from " + filename, e);
+      return ErlangProjectBuildOrderSerializer.read(file);
     }
     catch (IOException e) {
-      LOG.warn("Can't read " + filename, e);
+      LOG.warn("Can't read " + BUILD_ORDER_FILE_NAME, e);
     }
     return null;
   }
 
   @NotNull
-  private static File getXmlFile(@NotNull CompileContext context, @NotNull String filename) {
+  private static File getBuilderFile(@NotNull CompileContext context, @NotNull String filename) {
     File dataStorageRoot = context.getProjectDescriptor().dataManager.getDataPaths().getDataStorageRoot();
     File parentDirectory = new File(dataStorageRoot, BUILDER_DIRECTORY);
     return new File(parentDirectory, filename);
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.jps.builder;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.BaseOSProcessHandler;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.jps.model.JpsErlangSdkType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.incremental.CompileContext;
+import org.jetbrains.jps.incremental.messages.BuildMessage;
+import org.jetbrains.jps.incremental.messages.CompilerMessage;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.intellij.erlang.jps.builder.ErlangBuilderUtil.LOG;
+
+/**
+ * Erlang node compiling modules for {@link ErlangBuilder}. The node is started on first use and lives until
+ * the end of the build, so the VM is booted once per build session instead of once per erlc invocation.
+ * Requests and responses are external term format packets prefixed with their size.
+ */
+public class ErlangCompileServer {
+  private static final Key<Map<String, ErlangCompileServer>> SERVERS_KEY = Key.create("ERLANG_COMPILE_SERVERS");
+  private static final String SCRIPT_NAME = "erlang_compile_server.erl";
+  private static final int CONNECT_TIMEOUT = 30000;
+  private static final int STOP_TIMEOUT = 5000;
+  private static final int COMPILE_TIMEOUT = 10 * 60 * 1000;
+
+  private final String mySdkHome;
+  private final BaseOSProcessHandler myProcessHandler;
+  private final Socket mySocket;
+  private final DataInputStream myInput;
+  private final OutputStream myOutput;
+  private long myLastRequestId;
+
+  private ErlangCompileServer(@NotNull String sdkHome,
+                              @NotNull BaseOSProcessHandler processHandler,
+                              @NotNull Socket socket) throws IOException {
+    mySdkHome = sdkHome;
+    myProcessHandler = processHandler;
+    mySocket = socket;
+    mySocket.setSoTimeout(COMPILE_TIMEOUT);
+    myInput = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    myOutput = new BufferedOutputStream(socket.getOutputStream());
+  }
+
+  /**
+   * @return compile server of the build session for the SDK, or null if it failed to start.
+   */
+  @Nullable
+  public static ErlangCompileServer getInstance(@NotNull CompileContext context, @NotNull String sdkHome) {
+    synchronized (SERVERS_KEY) {
+      Map<String, ErlangCompileServer> servers = getServers(context);
+      if (servers.containsKey(sdkHome)) return servers.get(sdkHome);
+
+      ErlangCompileServer server = null;
+      try {
+        server = start(sdkHome);
+      }
+      catch (IOException | ExecutionException e) {
+        String message = "Failed to start Erlang compile server, erlc will be used instead: " + e.getMessage();
+        LOG.warn(message, e);
+        context.processMessage(new CompilerMessage(ErlangBuilder.NAME, BuildMessage.Kind.WARNING, message));
+      }
+      servers.put(sdkHome, server);
+      return server;
+    }
+  }
+
+  /**
+   * Stops a server which failed to serve a request and forgets it, so the next request starts a new one.
+   */
+  public static void discard(@NotNull CompileContext context, @NotNull ErlangCompileServer server, @NotNull IOException cause) {
+    synchronized (SERVERS_KEY) {
+      Map<String, ErlangCompileServer> servers = getServers(context);
+      if (servers.get(server.mySdkHome) == server) {
+        servers.remove(server.mySdkHome);
+      }
+    }
+    String message = "Erlang compile server failed, falling back to erlc: " + cause.getMessage();
+    LOG.warn(message, cause);
+    context.processMessage(new CompilerMessage(ErlangBuilder.NAME, BuildMessage.Kind.WARNING, message));
+    server.stop();
+  }
+
+  public static void stopAll(@NotNull CompileContext context) {
+    synchronized (SERVERS_KEY) {
+      Map<String, ErlangCompileServer> servers = context.getUserData(SERVERS_KEY);
+      if (servers == null) return;
+      for (ErlangCompileServer server : ContainerUtil.skipNulls(servers.values())) {
+        server.stop();
+      }
+      context.putUserData(SERVERS_KEY, null);
+    }
+  }
+
+  /**
+   * Compiles each chunk in a separate Erlang process and waits for all of them.
+   *
+   * @param erlcArguments erlc command line arguments except source files, the server translates them to compiler options.
+   */
+  @NotNull
+  public synchronized List<ErlangCompilerError> compile(@NotNull File outputDirectory,
+                                                        @NotNull List<String> erlcArguments,
+                                                        @NotNull List<List<String>> chunks) throws IOException {
+    Set<Long> pendingRequests = new HashSet<>();
+    for (List<String> chunk : chunks) {
+      long requestId = ++myLastRequestId;
+      send(new OtpErlangTuple(new OtpErlangObject[]{
+        new OtpErlangAtom("compile"),
+        new OtpErlangLong(requestId),
+        new OtpErlangString(outputDirectory.getPath()),
+        toErlangList(erlcArguments),
+        toErlangList(chunk)
+      }));
+      pendingRequests.add(requestId);
+    }
+    myOutput.flush();
+
+    List<ErlangCompilerError> errors = new ArrayList<>();
+    while (!pendingRequests.isEmpty()) {
+      OtpErlangObject response = receive();
+      if (!(response instanceof OtpErlangTuple) || ((OtpErlangTuple) response).arity() != 3) {
+        throw new IOException("Unexpected compile server response: " + response);
+      }
+      OtpErlangTuple compiled = (OtpErlangTuple) response;
+      OtpErlangObject requestId = compiled.elementAt(1);
+      if (!(requestId instanceof OtpErlangLong) || !pendingRequests.remove(((OtpErlangLong) requestId).longValue())) {
+        throw new IOException("Unexpected compile server response: " + response);
+      }
+      OtpErlangObject messages = compiled.elementAt(2);
+      if (messages instanceof OtpErlangList) {
+        for (OtpErlangObject message : (OtpErlangList) messages) {
+          ContainerUtil.addIfNotNull(errors, createCompilerError(message));
+        }
+      }
+    }
+    return errors;
+  }
+
+  @NotNull
+  private static ErlangCompileServer start(@NotNull String sdkHome) throws IOException, ExecutionException {
+    File scriptDirectory = FileUtil.createTempDirectory("intellij_erlang_compile_server_", null, true);
+    File script = new File(scriptDirectory, SCRIPT_NAME);
+    try (InputStream scriptStream = ErlangCompileServer.class.getResourceAsStream("/compile_server/" + SCRIPT_NAME)) {
+      if (scriptStream == null) {
+        throw new IOException("Failed to locate " + SCRIPT_NAME);
+      }
+      FileUtil.writeToFile(script, FileUtil.loadBytes(scriptStream));
+    }
+
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      serverSocket.setSoTimeout(CONNECT_TIMEOUT);
+
+      GeneralCommandLine commandLine = new GeneralCommandLine();
+      commandLine.withWorkDirectory(scriptDirectory);
+      commandLine.setExePath(JpsErlangSdkType.getScriptInterpreterExecutable(sdkHome).getAbsolutePath());
+      commandLine.addParameters(script.getPath(), String.valueOf(serverSocket.getLocalPort()));
+      LOG.debug("Run Erlang compile server with command " + commandLine.getCommandLineString());
+
+      Process process = commandLine.createProcess();
+      BaseOSProcessHandler handler = new BaseOSProcessHandler(process, commandLine.getCommandLineString(), Charset.defaultCharset());
+      handler.addProcessListener(new ProcessAdapter() {
+        @Override
+        public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+          LOG.info("Erlang compile server: " + event.getText());
+        }
+      });
+      handler.startNotify();
+      try {
+        return new ErlangCompileServer(sdkHome, handler, serverSocket.accept());
+      }
+      catch (IOException e) {
+        handler.destroyProcess();
+        throw e;
+      }
+    }
+  }
+
+  private void stop() {
+    try {
+      send(new OtpErlangAtom("stop"));
+      myOutput.flush();
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+    }
+    finally {
+      try {
+        mySocket.close();
+      }
+      catch (IOException e) {
+        LOG.debug(e);
+      }
+      if (!myProcessHandler.waitFor(STOP_TIMEOUT)) {
+        myProcessHandler.destroyProcess();
+      }
+    }
+  }
+
+  @NotNull
+  private static Map<String, ErlangCompileServer> getServers(@NotNull CompileContext context) {
+    Map<String, ErlangCompileServer> servers = context.getUserData(SERVERS_KEY);
+    if (servers == null) {
+      servers = new HashMap<>();
+      context.putUserData(SERVERS_KEY, servers);
+    }
+    return servers;
+  }
+
+  private void send(@NotNull OtpErlangObject message) throws IOException {
+    byte[] bytes = new OtpOutputStream(message).toByteArray();
+    DataOutputStream out = new DataOutputStream(myOutput);
+    out.writeInt(1 + bytes.length);
+    out.write(OtpExternal.versionTag);
+    out.write(bytes);
+  }
+
+  @NotNull
+  private OtpErlangObject receive() throws IOException {
+    byte[] bytes = new byte[myInput.readInt()];
+    myInput.readFully(bytes);
+    try {
+      return new OtpInputStream(bytes).read_any();
+    }
+    catch (OtpErlangDecodeException e) {
+      throw new IOException("Failed to decode compile server response", e);
+    }
+  }
+
+  @NotNull
+  private static OtpErlangList toErlangList(@NotNull List<String> strings) {
+    return new OtpErlangList(ContainerUtil.map2Array(strings, OtpErlangObject.class, OtpErlangString::new));
+  }
+
+  @Nullable
+  private static ErlangCompilerError createCompilerError(@NotNull OtpErlangObject message) {
+    if (!(message instanceof OtpErlangTuple) || ((OtpErlangTuple) message).arity() != 4) return null;
+    OtpErlangTuple tuple = (OtpErlangTuple) message;
+    OtpErlangObject kind = tuple.elementAt(0);
+    OtpErlangObject file = tuple.elementAt(1);
+    OtpErlangObject line = tuple.elementAt(2);
+    OtpErlangObject details = tuple.elementAt(3);
+    if (!(kind instanceof OtpErlangAtom) || !(file instanceof OtpErlangBinary) ||
+        !(line instanceof OtpErlangLong) || !(details instanceof OtpErlangBinary)) {
+      return null;
+    }
+    boolean warning = "warning".equals(((OtpErlangAtom) kind).atomValue());
+    return ErlangCompilerError.create(decodeString((OtpErlangBinary) file), (int) ((OtpErlangLong) line).longValue(),
+                                      warning, decodeString((OtpErlangBinary) details));
+  }
+
+  @NotNull
+  private static String decodeString(@NotNull OtpErlangBinary binary) {
+    return new String(binary.binaryValue(), StandardCharsets.UTF_8);
+  }
+}
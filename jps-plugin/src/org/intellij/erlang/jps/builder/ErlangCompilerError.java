@@ -83,6 +83,12 @@ public class ErlangCompilerError {
     return createCompilerError(path.getPath(), line, warning, details);
   }
 
+  @NotNull
+  public static ErlangCompilerError create(@NotNull String filePath, int line, boolean warning, @NotNull String details) {
+    BuildMessage.Kind category = warning ? BuildMessage.Kind.WARNING : BuildMessage.Kind.ERROR;
+    return new ErlangCompilerError(details, filePath, line, category);
+  }
+
   @NotNull
   private static ErlangCompilerError createCompilerError(@NotNull String filePath,
                                                          @Nullable String line,
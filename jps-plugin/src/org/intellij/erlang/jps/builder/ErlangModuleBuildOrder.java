@@ -18,9 +18,16 @@ package org.intellij.erlang.jps.builder;
 
 import com.intellij.util.SmartList;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ErlangModuleBuildOrder {
   public final List<String> myOrderedErlangFilePaths = new SmartList<>();
   public final List<String> myOrderedErlangTestFilePaths = new SmartList<>();
+  /**
+   * Modules of the same level don't depend on each other and can be compiled concurrently
+   * once all modules of lower levels are compiled.
+   */
+  public final Map<String, Integer> myCompileLevels = new HashMap<>();
 }
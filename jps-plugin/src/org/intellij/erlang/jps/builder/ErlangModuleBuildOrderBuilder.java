@@ -75,8 +75,10 @@ public class ErlangModuleBuildOrderBuilder extends TargetBuilder<ErlangSourceRoo
     }
     else {
       LOG.debug("Search dirty modules.");
-      List<String> sortedDirtyModules = getSortedDirtyModules(projectBuildOrder, dirtyErlangFilePaths);
-      addFilesToBuildTarget(context, sortedDirtyModules);
+      Set<String> allDirtyFiles = getAllDirtyFiles(projectBuildOrder, dirtyErlangFilePaths);
+      List<String> sortedDirtyModules = getSortedDirtyModules(projectBuildOrder.myErlangFiles, allDirtyFiles);
+      Map<String, Integer> compileLevels = getCompileLevels(projectBuildOrder.myErlangFiles, allDirtyFiles);
+      addFilesToBuildTarget(context, sortedDirtyModules, compileLevels);
     }
   }
 
@@ -96,14 +98,7 @@ public class ErlangModuleBuildOrderBuilder extends TargetBuilder<ErlangSourceRoo
 
   @Nullable
   private static ErlangProjectBuildOrder loadProjectBuildOrder(@NotNull CompileContext context) {
-    return readFromXML(context, BUILD_ORDER_FILE_NAME, ErlangProjectBuildOrder.class);
-  }
-
-  @NotNull
-  private static List<String> getSortedDirtyModules(@NotNull ErlangProjectBuildOrder projectBuildOrder,
-                                                    @NotNull List<String> dirtyErlangFilePaths) {
-    Set<String> allDirtyFiles = getAllDirtyFiles(projectBuildOrder, dirtyErlangFilePaths);
-    return getSortedDirtyModules(projectBuildOrder.myErlangFiles, allDirtyFiles);
+    return readBuildOrder(context);
   }
 
   private static void addPrepareDependenciesFailedMessage(@NotNull CompileContext context) {
@@ -144,8 +139,35 @@ public class ErlangModuleBuildOrderBuilder extends TargetBuilder<ErlangSourceRoo
     return ContainerUtil.mapNotNull(sortedFiles, node -> isSource(node.myPath) && allDirtyFiles.contains(node.myPath) ? node.myPath : null);
   }
 
+  /**
+   * A dirty module's level is the highest level of dirty modules it depends on (directly or through headers) plus one,
+   * so parse transforms and behaviours are compiled before the modules using them.
+   */
+  @NotNull
+  static Map<String, Integer> getCompileLevels(@NotNull List<ErlangFileDescriptor> sortedFiles,
+                                                       @NotNull Set<String> allDirtyFiles) {
+    Map<String, Integer> availableAtLevel = new HashMap<>();
+    Map<String, Integer> compileLevels = new HashMap<>();
+    for (ErlangFileDescriptor node : sortedFiles) {
+      int level = 0;
+      for (String dependency : node.myDependencies) {
+        Integer dependencyLevel = availableAtLevel.get(dependency);
+        if (dependencyLevel != null) {
+          level = Math.max(level, dependencyLevel);
+        }
+      }
+      boolean compiled = isSource(node.myPath) && allDirtyFiles.contains(node.myPath);
+      if (compiled) {
+        compileLevels.put(node.myPath, level);
+      }
+      availableAtLevel.put(node.myPath, compiled ? level + 1 : level);
+    }
+    return compileLevels;
+  }
+
   private static void addFilesToBuildTarget(@NotNull CompileContext context,
-                                            @NotNull List<String> sortedDirtyErlangModules) {
+                                            @NotNull List<String> sortedDirtyErlangModules,
+                                            @NotNull Map<String, Integer> compileLevels) {
     List<ErlangTargetType> targetTypes = Collections.singletonList(ErlangTargetType.INSTANCE);
     BuildRootIndex buildRootIndex = context.getProjectDescriptor().getBuildRootIndex();
     for (String filePath : sortedDirtyErlangModules) {
@@ -168,6 +190,10 @@ public class ErlangModuleBuildOrderBuilder extends TargetBuilder<ErlangSourceRoo
       else {
         buildOrder.myOrderedErlangFilePaths.add(filePath);
       }
+      Integer level = compileLevels.get(filePath);
+      if (level != null) {
+        buildOrder.myCompileLevels.put(filePath, level);
+      }
     }
   }
 
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.jps.builder;
+
+import com.intellij.util.io.DataInputOutputUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary format of {@link ErlangProjectBuildOrder} passed from the IDE to the builder.
+ * <p/>
+ * Layout: magic, format version, a table of all paths, then the files in build order, each as the index of its path
+ * followed by the indices of its dependencies. Counts and indices are variable-length integers.
+ */
+public class ErlangProjectBuildOrderSerializer {
+  private static final int MAGIC = 0x45424f52; // "EBOR"
+  private static final int VERSION = 1;
+
+  private ErlangProjectBuildOrderSerializer() {
+  }
+
+  public static void write(@NotNull ErlangProjectBuildOrder buildOrder, @NotNull File file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      write(buildOrder, out);
+    }
+  }
+
+  @NotNull
+  public static ErlangProjectBuildOrder read(@NotNull File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      return read(in);
+    }
+  }
+
+  static void write(@NotNull ErlangProjectBuildOrder buildOrder, @NotNull DataOutput out) throws IOException {
+    List<String> paths = new ArrayList<>();
+    Map<String, Integer> pathIndices = new HashMap<>();
+    for (ErlangFileDescriptor descriptor : buildOrder.myErlangFiles) {
+      addPath(descriptor.myPath, paths, pathIndices);
+      for (String dependency : descriptor.myDependencies) {
+        addPath(dependency, paths, pathIndices);
+      }
+    }
+
+    out.writeInt(MAGIC);
+    DataInputOutputUtil.writeINT(out, VERSION);
+    DataInputOutputUtil.writeINT(out, paths.size());
+    for (String path : paths) {
+      out.writeUTF(path);
+    }
+    DataInputOutputUtil.writeINT(out, buildOrder.myErlangFiles.size());
+    for (ErlangFileDescriptor descriptor : buildOrder.myErlangFiles) {
+      DataInputOutputUtil.writeINT(out, pathIndices.get(descriptor.myPath));
+      DataInputOutputUtil.writeINT(out, descriptor.myDependencies.size());
+      for (String dependency : descriptor.myDependencies) {
+        DataInputOutputUtil.writeINT(out, pathIndices.get(dependency));
+      }
+    }
+  }
+
+  @NotNull
+  static ErlangProjectBuildOrder read(@NotNull DataInput in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not an Erlang build order file");
+    }
+    int version = DataInputOutputUtil.readINT(in);
+    if (version != VERSION) {
+      throw new IOException("Unsupported Erlang build order format version: " + version);
+    }
+    String[] paths = new String[DataInputOutputUtil.readINT(in)];
+    for (int i = 0; i < paths.length; i++) {
+      paths[i] = in.readUTF();
+    }
+    int filesCount = DataInputOutputUtil.readINT(in);
+    List<ErlangFileDescriptor> files = new ArrayList<>(filesCount);
+    for (int i = 0; i < filesCount; i++) {
+      String path = getPath(paths, DataInputOutputUtil.readINT(in));
+      int dependenciesCount = DataInputOutputUtil.readINT(in);
+      List<String> dependencies = new ArrayList<>(dependenciesCount);
+      for (int j = 0; j < dependenciesCount; j++) {
+        dependencies.add(getPath(paths, DataInputOutputUtil.readINT(in)));
+      }
+      files.add(new ErlangFileDescriptor(path, dependencies));
+    }
+    return new ErlangProjectBuildOrder(files);
+  }
+
+  private static void addPath(@NotNull String path, @NotNull List<String> paths, @NotNull Map<String, Integer> pathIndices) {
+    if (!pathIndices.containsKey(path)) {
+      pathIndices.put(path, paths.size());
+      paths.add(path);
+    }
+  }
+
+  @NotNull
+  private static String getPath(@NotNull String[] paths, int index) throws IOException {
+    if (index < 0 || index >= paths.length) {
+      throw new IOException("Invalid path index in Erlang build order: " + index);
+    }
+    return paths[index];
+  }
+}
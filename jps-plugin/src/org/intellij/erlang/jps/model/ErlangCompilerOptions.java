@@ -29,6 +29,8 @@ public class ErlangCompilerOptions {
   public ErlangCompilerOptions(ErlangCompilerOptions options) {
     myUseRebarCompiler = options.myUseRebarCompiler;
     myAddDebugInfoEnabled = options.myAddDebugInfoEnabled;
+    myParallelErlcProcesses = options.myParallelErlcProcesses;
+    myUseCompileServer = options.myUseCompileServer;
   }
 
   @Tag("useRebarCompiler")
@@ -37,6 +39,18 @@ public class ErlangCompilerOptions {
   @Tag("useDebugInfo")
   public boolean myAddDebugInfoEnabled = true;
 
+  /**
+   * Maximum number of erlc processes compiling a module concurrently, 0 stands for the number of available processors.
+   */
+  @Tag("parallelErlcProcesses")
+  public int myParallelErlcProcesses = 0;
+
+  /**
+   * Compile modules in a single Erlang node started once per build instead of launching erlc for every module chunk.
+   */
+  @Tag("useCompileServer")
+  public boolean myUseCompileServer = false;
+
   @Tag("additionalErlcArguments")
   @AbstractCollection(elementTag = "arg", elementTypes = String.class)
   public List<String> myAdditionalErlcArguments = new SmartList<>();
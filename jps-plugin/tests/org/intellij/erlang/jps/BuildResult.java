@@ -53,6 +53,12 @@ public class BuildResult implements MessageHandler {
     return myErrorMessages.isEmpty();
   }
 
+  public void assertHasInfoMessage(String text) {
+    Function<BuildMessage,String> toStringFunction = StringUtil.createToStringFunction(BuildMessage.class);
+    assertTrue("No info message '" + text + "'. \nInfo messages:\n" + StringUtil.join(myInfoMessages, toStringFunction, "\n"),
+               myInfoMessages.stream().anyMatch(message -> text.equals(message.getMessageText())));
+  }
+
   public void assertSuccessful() {
     Function<BuildMessage,String> toStringFunction = StringUtil.createToStringFunction(BuildMessage.class);
     assertTrue("Build failed. \nErrors:\n" + StringUtil.join(myErrorMessages, toStringFunction, "\n") +
@@ -18,6 +18,13 @@ package org.intellij.erlang.jps;
 
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.util.PathUtilRt;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.jps.builder.ErlangBuilderUtil;
+import org.intellij.erlang.jps.builder.ErlangFileDescriptor;
+import org.intellij.erlang.jps.builder.ErlangProjectBuildOrder;
+import org.intellij.erlang.jps.builder.ErlangProjectBuildOrderSerializer;
+import org.intellij.erlang.jps.model.ErlangCompilerOptions;
+import org.intellij.erlang.jps.model.JpsErlangCompilerOptionsExtension;
 import org.intellij.erlang.jps.model.JpsErlangModuleType;
 import org.intellij.erlang.jps.model.JpsErlangSdkType;
 import org.jetbrains.annotations.NotNull;
@@ -30,12 +37,51 @@ import org.jetbrains.jps.model.library.sdk.JpsSdk;
 import org.jetbrains.jps.util.JpsPathUtil;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 
 public class ErlangBuilderTest extends JpsBuildTestCase {
   public void testSimple() {
     doSingleFileTest("src/simple.erl", "-module(simple). foo() -> ok.", "simple.beam");
   }
 
+  public void testSimpleWithCompileServer() {
+    ErlangCompilerOptions options = new ErlangCompilerOptions();
+    options.myUseCompileServer = true;
+    myModel.getProject().getContainer().setChild(JpsErlangCompilerOptionsExtension.ROLE, new JpsErlangCompilerOptionsExtension(options));
+    BuildResult result = doSingleFileTest("src/simple.erl", "-module(simple). foo() -> ok.", "simple.beam");
+    result.assertHasInfoMessage("Compile with Erlang compile server.");
+  }
+
+  public void testParallelBuildWithBehaviourAndParseTransform() throws IOException {
+    String behaviour = createFile("src/behaviour.erl", "-module(behaviour).\n-callback handle(term()) -> term().");
+    String transform = createFile("src/transform.erl", "-module(transform).\n-export([parse_transform/2]).\n" +
+                                                       "parse_transform(Forms, _Options) -> Forms.");
+    String independent = createFile("src/independent.erl", "-module(independent).\n-export([foo/0]).\nfoo() -> ok.");
+    String implementation = createFile("src/implementation.erl", "-module(implementation).\n-behaviour(behaviour).\n" +
+                                                                 "-compile({parse_transform, transform}).\n" +
+                                                                 "-export([handle/1]).\nhandle(X) -> X.");
+    String transformed = createFile("src/transformed.erl", "-module(transformed).\n-compile({parse_transform, transform}).\n" +
+                                                           "-export([bar/0]).\nbar() -> ok.");
+    writeBuildOrder(new ErlangFileDescriptor(behaviour, Collections.emptyList()),
+                    new ErlangFileDescriptor(transform, Collections.emptyList()),
+                    new ErlangFileDescriptor(independent, Collections.emptyList()),
+                    new ErlangFileDescriptor(implementation, Arrays.asList(behaviour, transform)),
+                    new ErlangFileDescriptor(transformed, Collections.singletonList(transform)));
+    ErlangCompilerOptions options = new ErlangCompilerOptions();
+    options.myParallelErlcProcesses = 2;
+    myModel.getProject().getContainer().setChild(JpsErlangCompilerOptionsExtension.ROLE, new JpsErlangCompilerOptionsExtension(options));
+    String moduleName = "m";
+    addModule(moduleName, PathUtilRt.getParentPath(behaviour));
+
+    rebuildAll();
+
+    for (String name : Arrays.asList("behaviour", "transform", "independent", "implementation", "transformed")) {
+      assertCompiled(moduleName, name + ".beam");
+    }
+  }
+
   public void testAppFilesAreCopiedToOutputDirectory() {
     doSingleFileTest("src/simple.app", "", "simple.app");
   }
@@ -44,12 +90,23 @@ public class ErlangBuilderTest extends JpsBuildTestCase {
     doSingleFileTest("src/simple.app.src", "", "simple.app");
   }
 
-  private void doSingleFileTest(String relativePath, String text, String expectedOutputFileName) {
+  private BuildResult doSingleFileTest(String relativePath, String text, String expectedOutputFileName) {
     String depFile = createFile(relativePath, text);
     String moduleName = "m";
     addModule(moduleName, PathUtilRt.getParentPath(depFile));
-    rebuildAll();
+    BuildResult result = rebuildAll();
     assertCompiled(moduleName, expectedOutputFileName);
+    return result;
+  }
+
+  private void writeBuildOrder(@NotNull ErlangFileDescriptor... sortedFiles) throws IOException {
+    for (ErlangFileDescriptor file : sortedFiles) {
+      file.myPath = FileUtil.toSystemDependentName(file.myPath);
+      file.myDependencies = ContainerUtil.map(file.myDependencies, FileUtil::toSystemDependentName);
+    }
+    File buildOrderFile = new File(new File(getDataStorageRoot(), ErlangBuilderUtil.BUILDER_DIRECTORY), ErlangBuilderUtil.BUILD_ORDER_FILE_NAME);
+    FileUtil.createParentDirs(buildOrderFile);
+    ErlangProjectBuildOrderSerializer.write(new ErlangProjectBuildOrder(Arrays.asList(sortedFiles)), buildOrderFile);
   }
 
   private void assertCompiled(@NotNull String moduleName, @NotNull String fileName) {
@@ -178,8 +178,10 @@ public abstract class JpsBuildTestCase extends UsefulTestCase {
     return module;
   }
 
-  protected void rebuildAll() {
-    doBuild(CompileScopeTestBuilder.rebuild().all()).assertSuccessful();
+  protected BuildResult rebuildAll() {
+    BuildResult result = doBuild(CompileScopeTestBuilder.rebuild().all());
+    result.assertSuccessful();
+    return result;
   }
 
   private BuildResult doBuild(CompileScopeTestBuilder scope) {
@@ -233,6 +235,10 @@ public abstract class JpsBuildTestCase extends UsefulTestCase {
     return FileUtil.createTempDirectory("prj", null);
   }
 
+  protected File getDataStorageRoot() {
+    return myDataStorageRoot;
+  }
+
   protected String getAbsolutePath(String pathRelativeToProjectRoot) {
     return FileUtil.toSystemIndependentName(new File(getOrCreateProjectDir(), pathRelativeToProjectRoot).getAbsolutePath());
   }
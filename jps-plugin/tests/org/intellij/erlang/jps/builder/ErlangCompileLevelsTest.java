@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.jps.builder;
+
+import com.intellij.testFramework.UsefulTestCase;
+
+import java.util.*;
+
+public class ErlangCompileLevelsTest extends UsefulTestCase {
+  private static final String BEHAVIOUR = "/project/src/behaviour.erl";
+  private static final String TRANSFORM = "/project/src/transform.erl";
+  private static final String HEADER = "/project/include/transformed.hrl";
+  private static final String IMPLEMENTATION = "/project/src/implementation.erl";
+  private static final String TRANSFORMED = "/project/src/transformed.erl";
+  private static final String INDEPENDENT = "/project/src/independent.erl";
+  private static final String SECOND_LEVEL = "/project/src/second_level.erl";
+
+  private static final List<ErlangFileDescriptor> SORTED_FILES = Arrays.asList(
+    new ErlangFileDescriptor(BEHAVIOUR, Collections.emptyList()),
+    new ErlangFileDescriptor(TRANSFORM, Collections.emptyList()),
+    new ErlangFileDescriptor(HEADER, Collections.singletonList(TRANSFORM)),
+    new ErlangFileDescriptor(INDEPENDENT, Collections.emptyList()),
+    new ErlangFileDescriptor(IMPLEMENTATION, Arrays.asList(BEHAVIOUR, TRANSFORM)),
+    new ErlangFileDescriptor(TRANSFORMED, Collections.singletonList(HEADER)),
+    new ErlangFileDescriptor(SECOND_LEVEL, Collections.singletonList(IMPLEMENTATION))
+  );
+
+  public void testAllModulesDirty() {
+    Map<String, Integer> levels = getCompileLevels(BEHAVIOUR, TRANSFORM, HEADER, INDEPENDENT, IMPLEMENTATION, TRANSFORMED, SECOND_LEVEL);
+
+    assertEquals(Integer.valueOf(0), levels.get(BEHAVIOUR));
+    assertEquals(Integer.valueOf(0), levels.get(TRANSFORM));
+    assertEquals(Integer.valueOf(0), levels.get(INDEPENDENT));
+    assertEquals(Integer.valueOf(1), levels.get(IMPLEMENTATION));
+    assertEquals(Integer.valueOf(1), levels.get(TRANSFORMED));
+    assertEquals(Integer.valueOf(2), levels.get(SECOND_LEVEL));
+    assertFalse(levels.containsKey(HEADER));
+  }
+
+  public void testCleanDependenciesDoNotRaiseLevel() {
+    Map<String, Integer> levels = getCompileLevels(HEADER, TRANSFORMED, IMPLEMENTATION, SECOND_LEVEL);
+
+    assertEquals(Integer.valueOf(0), levels.get(TRANSFORMED));
+    assertEquals(Integer.valueOf(0), levels.get(IMPLEMENTATION));
+    assertEquals(Integer.valueOf(1), levels.get(SECOND_LEVEL));
+    assertSize(3, levels.keySet());
+  }
+
+  public void testModulesAreGroupedByLevel() {
+    ErlangModuleBuildOrder buildOrder = new ErlangModuleBuildOrder();
+    buildOrder.myCompileLevels.putAll(getCompileLevels(BEHAVIOUR, TRANSFORM, HEADER, INDEPENDENT, IMPLEMENTATION, TRANSFORMED, SECOND_LEVEL));
+    List<String> modules = Arrays.asList(BEHAVIOUR, TRANSFORM, INDEPENDENT, IMPLEMENTATION, TRANSFORMED, SECOND_LEVEL);
+
+    List<List<String>> levels = ErlangBuilder.getCompileLevels(buildOrder, modules);
+
+    assertNotNull(levels);
+    assertSize(3, levels);
+    assertOrderedEquals(levels.get(0), BEHAVIOUR, TRANSFORM, INDEPENDENT);
+    assertOrderedEquals(levels.get(1), IMPLEMENTATION, TRANSFORMED);
+    assertOrderedEquals(levels.get(2), SECOND_LEVEL);
+  }
+
+  public void testUnknownLevelDisablesGrouping() {
+    ErlangModuleBuildOrder buildOrder = new ErlangModuleBuildOrder();
+    buildOrder.myCompileLevels.put(BEHAVIOUR, 0);
+
+    assertNull(ErlangBuilder.getCompileLevels(buildOrder, Arrays.asList(BEHAVIOUR, IMPLEMENTATION)));
+    assertNull(ErlangBuilder.getCompileLevels(null, Collections.singletonList(BEHAVIOUR)));
+  }
+
+  public void testSplitIntoChunks() {
+    List<List<String>> chunks = ErlangBuilder.splitIntoChunks(Arrays.asList("a", "b", "c", "d", "e"), 2);
+
+    assertSize(2, chunks);
+    assertOrderedEquals(chunks.get(0), "a", "c", "e");
+    assertOrderedEquals(chunks.get(1), "b", "d");
+  }
+
+  public void testSplitIntoChunksNeverCreatesEmptyChunks() {
+    List<List<String>> chunks = ErlangBuilder.splitIntoChunks(Arrays.asList("a", "b"), 8);
+
+    assertSize(2, chunks);
+    assertOrderedEquals(chunks.get(0), "a");
+    assertOrderedEquals(chunks.get(1), "b");
+    assertSize(1, ErlangBuilder.splitIntoChunks(Arrays.asList("a", "b"), 0));
+  }
+
+  private static Map<String, Integer> getCompileLevels(String... dirtyFiles) {
+    return ErlangModuleBuildOrderBuilder.getCompileLevels(SORTED_FILES, new HashSet<>(Arrays.asList(dirtyFiles)));
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.jps.builder;
+
+import com.intellij.testFramework.UsefulTestCase;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ErlangProjectBuildOrderSerializerTest extends UsefulTestCase {
+  public void testRoundTrip() throws IOException {
+    ErlangProjectBuildOrder buildOrder = new ErlangProjectBuildOrder(Arrays.asList(
+      new ErlangFileDescriptor("/project/src/pt.erl", Collections.emptyList()),
+      new ErlangFileDescriptor("/project/include/header.hrl", Collections.emptyList()),
+      new ErlangFileDescriptor("/project/src/module.erl", Arrays.asList("/project/src/pt.erl", "/project/include/header.hrl")),
+      new ErlangFileDescriptor("/project/test/module_tests.erl", Arrays.asList("/project/src/module.erl", "/outside/pt.erl"))
+    ));
+
+    ErlangProjectBuildOrder readBuildOrder = readBack(buildOrder);
+
+    List<ErlangFileDescriptor> files = readBuildOrder.myErlangFiles;
+    assertSize(4, files);
+    for (int i = 0; i < files.size(); i++) {
+      assertEquals(buildOrder.myErlangFiles.get(i).myPath, files.get(i).myPath);
+      assertOrderedEquals(files.get(i).myDependencies, buildOrder.myErlangFiles.get(i).myDependencies);
+    }
+  }
+
+  public void testEmptyBuildOrder() throws IOException {
+    assertEmpty(readBack(new ErlangProjectBuildOrder(Collections.emptyList())).myErlangFiles);
+  }
+
+  public void testCorruptedInputIsRejected() {
+    try {
+      ErlangProjectBuildOrderSerializer.read(new DataInputStream(new ByteArrayInputStream(new byte[]{'<', '?', 'x', 'm', 'l'})));
+      fail("Expected an IOException to be thrown.");
+    }
+    catch (IOException ignored) {
+    }
+  }
+
+  private static ErlangProjectBuildOrder readBack(ErlangProjectBuildOrder buildOrder) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ErlangProjectBuildOrderSerializer.write(buildOrder, new DataOutputStream(bytes));
+    return ErlangProjectBuildOrderSerializer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+}
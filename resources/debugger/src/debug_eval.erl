@@ -2,7 +2,10 @@
 
 
 %% API
--export([eval_with_bindings/2, parse_expression/1, check_bindings/3]).
+-export([parse_expression/1, check_bindings/3, parse_condition/1, load_conditions/1]).
+
+-define(CONDITION_MODULE, debug_condition).
+-define(BINDINGS_VAR, '__Bindings').
 
 parse_expression(Expression) ->
   {ok,Scanned,_} = erl_scan:string(Expression),
@@ -25,23 +28,72 @@ check_bindings(Parsed, Bindings, CBindings) ->
   end.
 
 
-eval_with_bindings(Expression, Bindings) ->
-  case catch parse_expression(Expression) of
-    {ok, Parsed} ->
-      try
-        %% erl_eval only allow used Bind in Bindings
-        FixResult = check_bindings(Parsed, Bindings, []),
-        case FixResult of
-          {ok, NewBindings} ->
-            {value, V, _} = erl_eval:exprs(Parsed, NewBindings),
-            V;
-          _ ->
-            false
-        end
-      catch
-        _ ->
-          false
+%% Breakpoint conditions are compiled into functions of the debug_condition module once, when their breakpoints
+%% are set. The interpreter calls a condition function with bindings of the process on every hit, and the function
+%% looks up the variables it uses by name. A condition which fails or can't get its variables evaluates to false.
+
+%% returns {ok, {Exprs, Variables}} where Variables are the ones which should be taken from bindings
+parse_condition(Expression) ->
+  case erl_scan:string(Expression) of
+    {ok, Tokens, EndLocation} ->
+      case erl_parse:parse_exprs(ensure_dot(Tokens, EndLocation)) of
+        {ok, Exprs} -> free_variables(Exprs, []);
+        {error, {_, Mod, Error}} -> {error, lists:flatten(Mod:format_error(Error))}
+      end;
+    {error, {_, Mod, Error}, _} ->
+      {error, lists:flatten(Mod:format_error(Error))}
+  end.
+
+ensure_dot(Tokens, EndLocation) ->
+  case lists:reverse(Tokens) of
+    [{dot, _} | _] -> Tokens;
+    _ -> Tokens ++ [{dot, EndLocation}]
+  end.
+
+free_variables(Exprs, Variables) ->
+  case erl_eval:check_command(Exprs, [{Variable, undefined} || Variable <- Variables]) of
+    ok ->
+      {ok, {Exprs, lists:reverse(Variables)}};
+    {error, {_, erl_lint, {unbound_var, Variable}}} ->
+      free_variables(Exprs, [Variable | Variables]);
+    {error, {_, Mod, Error}} ->
+      {error, lists:flatten(Mod:format_error(Error))}
+  end.
+
+%% Conditions is [{FunctionName, {Exprs, Variables}}], the module is replaced on all connected nodes
+load_conditions(Conditions) ->
+  case compile:forms(condition_forms(Conditions), [binary, return_errors]) of
+    {ok, Module, Binary} ->
+      Nodes = [node() | nodes()],
+      %% unlike purge, soft_purge doesn't kill processes which still run the old code, e.g. ones evaluating
+      %% a condition right now, and loading then fails with not_purged
+      rpc:multicall(Nodes, code, soft_purge, [Module]),
+      {Results, _BadNodes} = rpc:multicall(Nodes, code, load_binary, [Module, atom_to_list(Module) ++ ".erl", Binary]),
+      case [Reason || {error, Reason} <- Results] of
+        [] -> ok;
+        [Reason | _] -> {error, lists:flatten(io_lib:format("Failed to load breakpoint conditions: ~p", [Reason]))}
       end;
-    _ ->
-      false
-  end.
\ No newline at end of file
+    {error, [{_File, [{_, Mod, Error} | _]} | _], _Warnings} ->
+      {error, lists:flatten(Mod:format_error(Error))}
+  end.
+
+condition_forms(Conditions) ->
+  [{attribute, 1, module, ?CONDITION_MODULE},
+   {attribute, 1, export, [{Name, 1} || {Name, _} <- Conditions]} |
+   [condition_function(Name, Exprs, Variables) || {Name, {Exprs, Variables}} <- Conditions]].
+
+%% Name(Bindings) ->
+%%   try
+%%     {value, Var} = int:get_binding('Var', Bindings), ...
+%%     begin Exprs end =:= true
+%%   catch _:_ -> false
+%%   end.
+condition_function(Name, Exprs, Variables) ->
+  L = 1,
+  Bindings = {var, L, ?BINDINGS_VAR},
+  Lookups = [{match, L, {tuple, L, [{atom, L, value}, {var, L, Variable}]},
+              {call, L, {remote, L, {atom, L, int}, {atom, L, get_binding}}, [{atom, L, Variable}, Bindings]}}
+             || Variable <- Variables],
+  Check = {op, L, '=:=', {block, L, Exprs}, {atom, L, true}},
+  CatchAll = {clause, L, [{tuple, L, [{var, L, '_'}, {var, L, '_'}, {var, L, '_'}]}], [], [{atom, L, false}]},
+  {function, L, Name, 1, [{clause, L, [Bindings], [], [{'try', L, Lookups ++ [Check], [], [CatchAll], []}]}]}.
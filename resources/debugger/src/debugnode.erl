@@ -3,7 +3,7 @@
 -export([main/1,cl_code/1]).
 
 main([PortText, DebugRoot]) ->
-  cl_code(DebugRoot),
+  ensure_compiled(DebugRoot),
   {ok, Host} = inet:gethostname(),
   try erlang:list_to_integer(PortText) of
     Port -> connect_and_run(Host, Port, DebugRoot)
@@ -36,6 +36,14 @@ stop_debugger() ->
   int:stop(),
   ok.
 
+%% the IDE puts modules compiled for the node's OTP release to the code path,
+%% sources are only compiled when they are missing
+ensure_compiled(Path) ->
+  case code:which(remote_debugger) of
+    non_existing -> cl_code(Path);
+    _ -> ok
+  end.
+
 -define(CODE_LIST, ["remote_debugger.erl", "remote_debugger_listener.erl", "remote_debugger_notifier.erl",
   "debug_eval.erl"]).
 cl_code(Path) ->
@@ -2,16 +2,23 @@
 
 % receives commands from remote debugger
 
--export([run/2, set_breakpoint/3]).
+-export([run/2, preview_bindings/1]).
 
 -include("process_names.hrl").
 -include("remote_debugger_messages.hrl").
 -include("trace_utils.hrl").
 
--record(state, {remote_need_interprete_modules = [] :: [module()], remote_node :: node(), debug_root :: string()}).
+-define(VALUE_HANDLE_TAG, '$value_handle').
+-define(VALUE_PAGE_SIZE, 100).
+-define(MAX_BINARY_PREVIEW_SIZE, 1024).
+-define(MAX_STRING_LENGTH, 65535).
+
+-record(state, {remote_need_interprete_modules = [] :: [module()], remote_node :: node(), debug_root :: string(),
+                conditions = [] :: [{atom(), term()}]}). % compiled breakpoint conditions, see debug_eval:parse_condition/1
 
 run(Debugger, DebugRoot) ->
   register(?RDEBUG_LISTENER, self()),
+  ets:new(?VALUE_HANDLES, [named_table, public, set]),
   Debugger ! #register_listener{pid = self()},
   loop(#state{debug_root = DebugRoot}).
 
@@ -34,6 +41,7 @@ uses_state(#interpret_modules{}) -> true;
 uses_state(#debug_remote_node{}) -> true;
 uses_state(#evaluate{}) -> true;
 uses_state(#set_breakpoint{}) -> true;
+uses_state(#remove_breakpoint{}) -> true;
 uses_state(_Message)             -> false.
 
 process_message({interpret_modules, NewModules},
@@ -52,22 +60,14 @@ process_message({debug_remote_node, Node, Cookie}, #state{remote_need_interprete
   debug_remote_node(Node, Cookie, Modules), State#state{remote_node = Node, remote_need_interprete_modules = []};
 
 % commands from remote debugger
-process_message({set_breakpoint, Module, Line, Condition}, #state{debug_root = DebugRoot}=State) when is_atom(Module),
+process_message({set_breakpoint, Module, Line, Condition}, #state{conditions = Conditions} = State) when is_atom(Module),
                                                      is_integer(Line), is_list(Condition) ->
-  set_breakpoint(Module, Line),
-  if
-    length(Condition) > 0 ->
-      ensure_condition(Condition, DebugRoot),
-      int:test_at_break(Module, Line, {debug_condition, list_to_atom(Condition)});
-    true ->
-      pass
-  end,
-  State.
-
+  State#state{conditions = set_breakpoint(Module, Line, Condition, Conditions)};
+process_message({remove_breakpoint, Module, Line}, #state{conditions = Conditions} = State) when is_atom(Module),
+                                                                                               is_integer(Line) ->
+  remove_breakpoint(Module, Line),
+  State#state{conditions = lists:keydelete(condition_name(Module, Line), 1, Conditions)}.
 
-process_message({remove_breakpoint, Module, Line}) when is_atom(Module),
-                                                        is_integer(Line) ->
-  remove_breakpoint(Module, Line);
 process_message({run_debugger, Module, Function, Args}) when is_atom(Module),
                                                              is_atom(Function),
                                                              is_list(Args) ->
@@ -80,6 +80,13 @@ process_message({step_out, Pid}) when is_pid(Pid) ->
   step_out(Pid);
 process_message({continue, Pid}) when is_pid(Pid) ->
   continue(Pid);
+process_message({get_stack, Pid}) when is_pid(Pid) ->
+  ?RDEBUG_NOTIFIER ! #process_stack{pid = Pid, stack = remote_debugger_notifier:get_stack(Pid)};
+process_message({get_bindings, Pid, StackPointer}) when is_pid(Pid), is_integer(StackPointer) ->
+  ?RDEBUG_NOTIFIER ! #frame_bindings{pid = Pid, stack_pointer = StackPointer,
+                                     bindings = preview_bindings(get_frame_bindings(Pid, StackPointer))};
+process_message({get_value_page, Id, From, Count}) when is_integer(Id), is_integer(From), is_integer(Count) ->
+  ?RDEBUG_NOTIFIER ! #value_page{id = Id, from = From, elements = get_value_page(Id, From, Count)};
 % responses from interpreter
 process_message({_Meta, {eval_rsp, EvalResponse}}) ->
   evaluate_response(EvalResponse);
@@ -97,14 +104,37 @@ set_breakpoint(Module, Line) ->
   },
   ?RDEBUG_NOTIFIER ! Response.
 
-set_breakpoint(Module, Line, Expression) ->
-  Response = #set_breakpoint_response{
-    module = Module,
-    line = Line,
-    status = int:test_at_break(Module, Line, {?MODULE, check_val})
-  },
-  put({break, Module, Line}, Expression),
-  ?RDEBUG_NOTIFIER ! Response.
+set_breakpoint(Module, Line, [], Conditions) ->
+  set_breakpoint(Module, Line),
+  lists:keydelete(condition_name(Module, Line), 1, Conditions);
+set_breakpoint(Module, Line, Expression, Conditions) ->
+  Name = condition_name(Module, Line),
+  OtherConditions = lists:keydelete(Name, 1, Conditions),
+  case add_condition(Name, Expression, OtherConditions) of
+    {ok, NewConditions} ->
+      set_breakpoint(Module, Line),
+      int:test_at_break(Module, Line, {debug_condition, Name}),
+      NewConditions;
+    {error, Reason} ->
+      ?RDEBUG_NOTIFIER ! #set_breakpoint_response{module = Module, line = Line, status = {error, Reason}},
+      OtherConditions
+  end.
+
+%% the condition is compiled here once, so the interpreter doesn't parse it on every hit
+add_condition(Name, Expression, Conditions) ->
+  case debug_eval:parse_condition(Expression) of
+    {ok, Condition} ->
+      NewConditions = [{Name, Condition} | Conditions],
+      case debug_eval:load_conditions(NewConditions) of
+        ok -> {ok, NewConditions};
+        Error -> Error
+      end;
+    Error ->
+      Error
+  end.
+
+condition_name(Module, Line) ->
+  list_to_atom(atom_to_list(Module) ++ ":" ++ integer_to_list(Line)).
 
 remove_breakpoint(Module, Line) ->
   int:delete_break(Module, Line).
@@ -141,12 +171,15 @@ continue(Pid) ->
 %% check if need send breakpoint_reached again, because continue only deal one pid
 %% but there may have more than one pid break
 update_break_state(ExceptPid) ->
-  Snapshots = remote_debugger_notifier:snapshot_with_stacks(),
-  Snapshots2 = [E||{Pid, _, _, _, _}=E<-Snapshots, Pid =/= ExceptPid],
+  %% values of the previous suspension are not displayed anymore
+  ets:delete_all_objects(?VALUE_HANDLES),
+  Snapshots = remote_debugger_notifier:snapshot(),
+  Snapshots2 = [E||{Pid, _, _, _}=E<-Snapshots, Pid =/= ExceptPid],
   case Snapshots2 of
-    [{_NewPid, _, _, _, _}|_] = Snapshot->
+    [{NewPid, _, _, _}|_] = Snapshot->
       %% set pid undefined to mark this is sync message not new
-      ?RDEBUG_NOTIFIER ! #breakpoint_reached{pid = undefined, snapshot = Snapshot};
+      ?RDEBUG_NOTIFIER ! #breakpoint_reached{pid = undefined,
+                                             snapshot = remote_debugger_notifier:snapshot_with_stack(NewPid, Snapshot)};
     _ ->
       pass
   end.
@@ -203,11 +236,100 @@ evaluate(Pid, Expression, MaybeStackPointer) ->
 get_bindings(Meta, SP) ->
   int:meta(Meta, bindings, SP).
 
+get_frame_bindings(Pid, StackPointer) ->
+  case dbg_iserver:safe_call({get_meta, Pid}) of
+    {ok, Meta} ->
+      case is_top_stack(Pid, StackPointer) of
+        true ->
+          get_bindings(Meta, StackPointer);
+        false ->
+          case int:meta(Meta, stack_frame, {up, StackPointer + 1}) of
+            {_SP, _Fun, Bindings} -> Bindings;
+            _ -> []
+          end
+      end;
+    _ ->
+      []
+  end.
+
 get_meta(Pid) ->
   dbg_iserver:call({get_meta, Pid}).
 
 evaluate_response(EvalResponse) ->
-  ?RDEBUG_NOTIFIER ! #evaluate_response{result = EvalResponse}.
+  ?RDEBUG_NOTIFIER ! #evaluate_response{result = preview(EvalResponse)}.
+
+%% Large terms are kept in the value handles table and sent as a handle with a preview, so that
+%% a huge list or binary is not transferred and decoded in full when a breakpoint is hit.
+preview_bindings(Bindings) when is_list(Bindings) ->
+  [{Name, preview(Value)} || {Name, Value} <- Bindings];
+preview_bindings(Bindings) ->
+  Bindings.
+
+preview(Value) when is_binary(Value), byte_size(Value) > ?MAX_BINARY_PREVIEW_SIZE ->
+  value_handle(binary, Value, byte_size(Value));
+preview(Value) when is_tuple(Value), tuple_size(Value) > ?VALUE_PAGE_SIZE ->
+  value_handle(tuple, Value, tuple_size(Value));
+preview(Value) when is_tuple(Value) ->
+  list_to_tuple([preview(E) || E <- tuple_to_list(Value)]);
+preview(Value) when is_map(Value), map_size(Value) > ?VALUE_PAGE_SIZE ->
+  value_handle(map, maps:to_list(Value), map_size(Value));
+preview(Value) when is_map(Value) ->
+  maps:from_list([{preview(K), preview(V)} || {K, V} <- maps:to_list(Value)]);
+preview(Value) when is_list(Value) ->
+  case list_length(Value) of
+    improper ->
+      Value;
+    Length ->
+      IsString = Length =< ?MAX_STRING_LENGTH andalso io_lib:printable_latin1_list(Value),
+      if
+        IsString -> Value;
+        Length > ?VALUE_PAGE_SIZE -> value_handle(list, Value, Length);
+        true -> [preview(E) || E <- Value]
+      end
+  end;
+preview(Value) ->
+  Value.
+
+value_handle(Kind, Value, Size) ->
+  Id = erlang:unique_integer([positive]),
+  ets:insert(?VALUE_HANDLES, {Id, Kind, Value}),
+  Preview = case Kind of
+              binary -> binary:part(Value, 0, ?MAX_BINARY_PREVIEW_SIZE);
+              _ -> page(Kind, Value, 0, ?VALUE_PAGE_SIZE)
+            end,
+  {?VALUE_HANDLE_TAG, Id, Kind, Size, Preview}.
+
+get_value_page(Id, From, Count) ->
+  case ets:lookup(?VALUE_HANDLES, Id) of
+    [{Id, Kind, Value}] -> page(Kind, Value, From, Count);
+    [] -> not_found
+  end.
+
+%% maps are stored as a list of pairs, so that all pages are taken in the same order
+page(_Kind, _Value, From, Count) when From < 0; Count =< 0 ->
+  [];
+page(binary, Binary, From, _Count) when From >= byte_size(Binary) ->
+  [];
+page(binary, Binary, From, Count) ->
+  binary_to_list(Binary, From + 1, min(From + Count, byte_size(Binary)));
+page(tuple, Tuple, From, _Count) when From >= tuple_size(Tuple) ->
+  [];
+page(tuple, Tuple, From, Count) ->
+  [preview(element(I, Tuple)) || I <- lists:seq(From + 1, min(From + Count, tuple_size(Tuple)))];
+page(map, Pairs, From, Count) ->
+  [{preview(K), preview(V)} || {K, V} <- safe_sublist(Pairs, From, Count)];
+page(list, List, From, Count) ->
+  [preview(E) || E <- safe_sublist(List, From, Count)].
+
+safe_sublist(List, From, _Count) when From >= length(List) ->
+  [];
+safe_sublist(List, From, Count) ->
+  lists:sublist(List, From + 1, Count).
+
+list_length(List) ->
+  try length(List)
+  catch error:badarg -> improper
+  end.
 
 parse_args(ArgsString) ->
   case erl_scan:string(ArgsString ++ ".") of
@@ -283,21 +405,3 @@ get_orignal_stack(Pid) ->
       io:format("Failed to obtain meta pid for ~p: ~p~n", [Pid, Error]),
       []
   end.
-
-
-ensure_condition(Condition, DebugRoot) ->
-  case erlang:function_exported(debug_condition, list_to_atom(Condition), 1) of
-    true ->
-      pass;
-    _ ->
-      add_condition(Condition,DebugRoot)
-  end.
-
-add_condition(Condition,DebugRoot) ->
-  FunString =  io_lib:format("'~s'(B) -> debug_eval:eval_with_bindings(\"~s\", B).\n",[Condition,Condition]),
-  ConditionFile = filename:append(DebugRoot, "debug_condition.erl"),
-  EvalFile = filename:append(DebugRoot, "debug_eval.erl"),
-  file:write_file(ConditionFile, FunString, [append]),
-  io:format("add condition ~s~n",[Condition]),
-  c:nc(EvalFile,[{outdir,DebugRoot}]),
-  c:nc(ConditionFile, [nowarn_export_all,{outdir,DebugRoot}]).
\ No newline at end of file
@@ -4,7 +4,7 @@
 -include("remote_debugger_messages.hrl").
 -include("trace_utils.hrl").
 
--export([run/1, breakpoint_reached/1, snapshot_with_stacks/0]).
+-export([run/1, breakpoint_reached/1, snapshot/0, snapshot_with_stack/2, get_stack/1]).
 
 run(Debugger) ->
   register(?RDEBUG_NOTIFIER, self()),
@@ -23,36 +23,49 @@ attach_process() ->
   int:auto_attach([break], {?MODULE, breakpoint_reached, []}).
 
 breakpoint_reached(Pid) ->
-  ?RDEBUG_NOTIFIER ! #breakpoint_reached{pid = Pid, snapshot = snapshot_with_stacks()}.
+  ?RDEBUG_NOTIFIER ! #breakpoint_reached{pid = Pid, snapshot = snapshot_with_stack(Pid, snapshot())}.
 
-snapshot_with_stacks() ->
-  [{Pid, Init, Status, Info, get_stack(Pid, Status)} || {Pid, Init, Status, Info} <- int:snapshot(), Status == break].
+snapshot() ->
+  [{Pid, Init, Status, Info} || {Pid, Init, Status, Info} <- int:snapshot(), Status == break].
 
-get_stack(Pid, break) ->
-  do_get_stackframes(Pid);
-get_stack(_, _) ->
-  [].
+%% Only the active process gets its stack, with the bindings of its top frame. Stacks of other processes
+%% and bindings of other frames are requested by the IDE when the user expands them.
+snapshot_with_stack(ActivePid, Snapshot) ->
+  [{Pid, Init, Status, Info, get_stack(Pid, ActivePid)} || {Pid, Init, Status, Info} <- Snapshot].
+
+get_stack(Pid, Pid) ->
+  do_get_stackframes(Pid, top);
+get_stack(_Pid, _ActivePid) ->
+  not_loaded.
+
+get_stack(Pid) ->
+  do_get_stackframes(Pid, none).
 
-do_get_stackframes(Pid) ->
+do_get_stackframes(Pid, BindingsToLoad) ->
   case dbg_iserver:safe_call({get_meta, Pid}) of
     {ok, MetaPid} ->
       Stack = int:meta(MetaPid, backtrace, all),
-      lists:reverse(get_stack_frame(MetaPid, Stack));
+      lists:reverse(get_stack_frame(MetaPid, Stack, BindingsToLoad));
     Error ->
       io:format("Failed to obtain meta pid for ~p: ~p~n", [Pid, Error]),
       []
   end.
 
 get_bindings(MetaPid, SP) ->
-  int:meta(MetaPid, bindings, SP).
+  remote_debugger_listener:preview_bindings(int:meta(MetaPid, bindings, SP)).
 
 
-get_stack_frame(MetaPid, [{SP, MFA}|Left]=_Stack) ->
-  get_stack_frame2(MetaPid, Left, [{SP, MFA, MFA, get_bindings(MetaPid, SP)}]).
+get_stack_frame(MetaPid, [{SP, MFA}|Left]=_Stack, BindingsToLoad) ->
+  Bindings = case BindingsToLoad of
+               top -> get_bindings(MetaPid, SP);
+               none -> not_loaded
+             end,
+  get_stack_frame2(MetaPid, Left, [{SP, MFA, MFA, Bindings}]);
+get_stack_frame(_MetaPid, []=_Stack, _BindingsToLoad) ->
+  [].
 
 get_stack_frame2(MetaPid, [{SP, MFA}|Left]=_Stack, Acc) ->
-  {_SP2, Fun, Bindings} = int:meta(MetaPid, stack_frame, {up, SP+1}),
-  get_stack_frame2(MetaPid, Left, [{SP, MFA, Fun, Bindings}|Acc]);
+  {_SP2, Fun, _Bindings} = int:meta(MetaPid, stack_frame, {up, SP+1}),
+  get_stack_frame2(MetaPid, Left, [{SP, MFA, Fun, not_loaded}|Acc]);
 get_stack_frame2(_MetaPid, []=_Stack, Acc) ->
   Acc.
-
@@ -0,0 +1,123 @@
+-module(dialyzer_server).
+
+% Long-lived dialyzer node started by the IDE once per project, so that annotating a file
+% doesn't start a new VM and load dialyzer again.
+%
+% Requests:  {analyze, Id, File, IncludeDirs, Plt} where Plt is "" when none is configured.
+% Responses: {warnings, Id, [{Line, Column, Message}]} | {error, Id, Message}, Column is 0 when unknown.
+
+-export([main/1]).
+
+-define(INCREMENTAL_APPS, [erts, kernel, stdlib]).
+
+-record(state, {incremental_plt :: string(), beam_dir :: string(), files = [] :: [{string(), [string()]}]}).
+
+main([PortText, IncrementalPlt]) ->
+  Port = list_to_integer(PortText),
+  State = #state{incremental_plt = IncrementalPlt, beam_dir = filename:rootname(IncrementalPlt) ++ "_beams"},
+  case gen_tcp:connect({127, 0, 0, 1}, Port, [binary, {packet, 4}, {active, false}]) of
+    {ok, Socket} -> loop(Socket, State);
+    {error, Reason} -> io:format("Connection failed: ~p~n", [Reason])
+  end,
+  halt().
+
+loop(Socket, State) ->
+  case gen_tcp:recv(Socket, 0) of
+    {ok, Packet} ->
+      {Response, NewState} = handle_request(binary_to_term(Packet), State),
+      ok = gen_tcp:send(Socket, term_to_binary(Response)),
+      loop(Socket, NewState);
+    {error, _} ->
+      ok
+  end.
+
+handle_request({analyze, Id, File, IncludeDirs, Plt}, State) ->
+  AbsFile = filename:absname(File),
+  try
+    {Options, NewState} = options(AbsFile, IncludeDirs, Plt, State),
+    {{warnings, Id, file_warnings(AbsFile, dialyzer:run(Options))}, NewState}
+  catch
+    throw:{dialyzer_error, Reason} -> {{error, Id, lists:flatten(io_lib:format("~s", [Reason]))}, State};
+    throw:{compile_error, Message} -> {{error, Id, Message}, State};
+    _:Reason -> {{error, Id, lists:flatten(io_lib:format("~p", [Reason]))}, State}
+  end;
+handle_request(Request, State) ->
+  {{error, undefined, lists:flatten(io_lib:format("Unknown request: ~p", [Request]))}, State}.
+
+% Incremental analysis keeps the results for unchanged modules in its own PLT, so all files analyzed so far
+% are passed to it and only the changed ones are analyzed again. It can't start from a classic PLT,
+% so it is only used when no PLT is configured. Instead of the default PLT it analyzes the basic OTP
+% applications once, those are only available as byte code, so the project files are compiled as well.
+options(File, IncludeDirs, "", #state{incremental_plt = IncrementalPlt, beam_dir = BeamDir, files = Files} = State) ->
+  case incremental_supported() of
+    true ->
+      NewFiles = [{F, Dirs} || {F, Dirs} <- lists:keystore(File, 1, Files, {File, IncludeDirs}), filelib:is_regular(F)],
+      Beams = [Beam || {F, Dirs} <- NewFiles, {ok, Beam} <- [compile_beam(F, Dirs, BeamDir, F =:= File)]],
+      {[{analysis_type, incremental}, {init_plt, IncrementalPlt}, {apps, ?INCREMENTAL_APPS},
+        {files, Beams}, {from, byte_code}],
+       State#state{files = NewFiles}};
+    false ->
+      {common_options([File], IncludeDirs), State}
+  end;
+options(File, IncludeDirs, Plt, State) ->
+  {[{init_plt, Plt} | common_options([File], IncludeDirs)], State}.
+
+common_options(Files, IncludeDirs) ->
+  [{files, Files}, {from, src_code}, {include_dirs, IncludeDirs}].
+
+incremental_supported() ->
+  case catch list_to_integer(erlang:system_info(otp_release)) of
+    Release when is_integer(Release) -> Release >= 26;
+    _ -> false
+  end.
+
+% the requested file is always compiled since the headers it includes might have changed,
+% other files are compiled when they are newer than their beams and skipped if they don't compile
+compile_beam(File, IncludeDirs, BeamDir, Requested) ->
+  OutDir = filename:join(BeamDir, integer_to_list(erlang:phash2(File))),
+  case filelib:wildcard(filename:join(OutDir, "*.beam")) of
+    [Beam] when not Requested ->
+      case filelib:last_modified(Beam) >= filelib:last_modified(File) of
+        true -> {ok, Beam};
+        false -> compile_beam(File, IncludeDirs, OutDir)
+      end;
+    _ when Requested ->
+      case compile_beam(File, IncludeDirs, OutDir) of
+        {ok, Beam} -> {ok, Beam};
+        {error, Message} -> throw({compile_error, Message})
+      end;
+    _ ->
+      compile_beam(File, IncludeDirs, OutDir)
+  end.
+
+compile_beam(File, IncludeDirs, OutDir) ->
+  ok = filelib:ensure_dir(filename:join(OutDir, "beam")),
+  [ok = file:delete(Beam) || Beam <- filelib:wildcard(filename:join(OutDir, "*.beam"))],
+  Options = [debug_info, return_errors, {outdir, OutDir} | [{i, Dir} || Dir <- IncludeDirs]],
+  case compile:file(File, Options) of
+    {ok, Module} -> {ok, filename:join(OutDir, atom_to_list(Module) ++ ".beam")};
+    {error, Errors, _Warnings} -> {error, compile_error_message(Errors)}
+  end.
+
+compile_error_message([{File, [{Location, Module, Description} | _]} | _]) ->
+  lists:flatten(io_lib:format("~s:~p: ~s", [filename:basename(File), Location, Module:format_error(Description)]));
+compile_error_message(_) ->
+  "Compilation failed".
+
+file_warnings(File, Warnings) ->
+  [{Line, Column, message(Warning)} || {_Tag, Info, _Message} = Warning <- Warnings,
+                                       {WarningFile, Line, Column} <- [location(Info)],
+                                       filename:absname(WarningFile) =:= File].
+
+location({File, {Line, Column}}) -> {File, Line, Column};
+location({File, {Line, Column}, _Origin}) -> {File, Line, Column};
+location({File, Line, _Origin}) -> {File, Line, 0};
+location({File, Line}) -> {File, Line, 0}.
+
+% the formatted warning starts with "File:Line: "
+message(Warning) ->
+  Formatted = string:strip(lists:flatten(dialyzer:format_warning(Warning, basename)), right, $\n),
+  case string:str(Formatted, ": ") of
+    0 -> Formatted;
+    Index -> lists:nthtail(Index + 1, Formatted)
+  end.
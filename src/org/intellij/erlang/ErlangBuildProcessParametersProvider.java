@@ -16,6 +16,7 @@
 
 package org.intellij.erlang;
 
+import com.ericsson.otp.erlang.OtpErlangObject;
 import com.intellij.compiler.server.BuildProcessParametersProvider;
 import com.intellij.execution.ExecutionException;
 import com.intellij.openapi.application.PathManager;
@@ -28,6 +29,7 @@ public class ErlangBuildProcessParametersProvider extends BuildProcessParameters
   @NotNull
   @Override
   public List<String> getClassPath() {
-    return ContainerUtil.immutableList(PathManager.getJarPathForClass(ExecutionException.class));
+    return ContainerUtil.immutableList(PathManager.getJarPathForClass(ExecutionException.class),
+                                       PathManager.getJarPathForClass(OtpErlangObject.class));
   }
 }
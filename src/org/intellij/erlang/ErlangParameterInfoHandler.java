@@ -26,6 +26,7 @@ import com.intellij.psi.ResolveResult;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.bif.ErlangBifCatalog;
 import org.intellij.erlang.bif.ErlangBifDescriptor;
 import org.intellij.erlang.bif.ErlangBifTable;
 import org.intellij.erlang.psi.*;
@@ -100,13 +101,15 @@ public class ErlangParameterInfoHandler implements ParameterInfoHandler<ErlangAr
           ErlangModuleRef moduleRef = erlGlobalFunctionCall.getModuleRef();
           String moduleName = moduleRef.getText();
           String functionName = erlFunctionCall.getName();
-          List<ErlangBifDescriptor> moduleInfo = functionName.equals(ErlangBifTable.MODULE_INFO) ? ErlangBifTable.getBifs("", functionName) : Collections.emptyList();
-          context.setItemsToShow(ArrayUtil.toObjectArray(ContainerUtil.concat(ErlangBifTable.getBifs(moduleName, functionName), moduleInfo)));
+          ErlangBifCatalog bifs = ErlangBifTable.getCatalog(erlFunctionCall);
+          List<ErlangBifDescriptor> moduleInfo = functionName.equals(ErlangBifTable.MODULE_INFO) ? bifs.getBifs("", functionName) : Collections.emptyList();
+          context.setItemsToShow(ArrayUtil.toObjectArray(ContainerUtil.concat(bifs.getBifs(moduleName, functionName), moduleInfo)));
           context.showHint(args, args.getTextRange().getStartOffset(), this);
         }
         else {
           String name = erlFunctionCall.getName();
-          context.setItemsToShow(ArrayUtil.toObjectArray(ContainerUtil.concat(ErlangBifTable.getBifs("erlang", name), ErlangBifTable.getBifs("", name))));
+          ErlangBifCatalog bifs = ErlangBifTable.getCatalog(erlFunctionCall);
+          context.setItemsToShow(ArrayUtil.toObjectArray(ContainerUtil.concat(bifs.getBifs("erlang", name), bifs.getBifs("", name))));
           context.showHint(args, args.getTextRange().getStartOffset(), this);
         }
       }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.bif;
+
+import com.intellij.util.containers.ContainerUtil;
+import gnu.trove.THashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Immutable set of BIF descriptors hashed by module, by module and name, and by (module, name, arity).
+ */
+public final class ErlangBifCatalog {
+  private final Map<String, ErlangBifDescriptor> myBifs = new THashMap<>();
+  private final Map<String, List<ErlangBifDescriptor>> myBifsByModule = new THashMap<>();
+  private final Map<String, List<ErlangBifDescriptor>> myBifsByFunction = new THashMap<>();
+
+  ErlangBifCatalog(@NotNull Collection<ErlangBifDescriptor> bifs) {
+    for (ErlangBifDescriptor bif : new TreeSet<>(bifs)) {
+      myBifs.put(createKey(bif.getModule(), bif.getName(), bif.getArity()), bif);
+      myBifsByModule.computeIfAbsent(bif.getModule(), m -> new ArrayList<>()).add(bif);
+      myBifsByFunction.computeIfAbsent(createKey(bif.getModule(), bif.getName()), f -> new ArrayList<>()).add(bif);
+    }
+  }
+
+  @NotNull
+  public Collection<ErlangBifDescriptor> getBifs(@NotNull String moduleName) {
+    return Collections.unmodifiableList(ContainerUtil.notNullize(myBifsByModule.get(moduleName)));
+  }
+
+  @NotNull
+  public Collection<ErlangBifDescriptor> getAutoimportedBifs(@NotNull String moduleName) {
+    return ContainerUtil.filter(getBifs(moduleName), ErlangBifDescriptor::isAutoImported);
+  }
+
+  @NotNull
+  public List<ErlangBifDescriptor> getBifs(@NotNull String moduleName, @NotNull String functionName) {
+    return Collections.unmodifiableList(ContainerUtil.notNullize(myBifsByFunction.get(createKey(moduleName, functionName))));
+  }
+
+  @Nullable
+  public ErlangBifDescriptor getBif(@NotNull String moduleName, @NotNull String functionName, int arity) {
+    return myBifs.get(createKey(moduleName, functionName, arity));
+  }
+
+  public boolean isBif(@NotNull String moduleName, @NotNull String functionName, int arity) {
+    return myBifs.containsKey(createKey(moduleName, functionName, arity));
+  }
+
+  @NotNull
+  Collection<ErlangBifDescriptor> getAllBifs() {
+    return Collections.unmodifiableCollection(myBifs.values());
+  }
+
+  @NotNull
+  private static String createKey(@NotNull String moduleName, @NotNull String functionName) {
+    return moduleName + ":" + functionName;
+  }
+
+  @NotNull
+  private static String createKey(@NotNull String moduleName, @NotNull String functionName, int arity) {
+    return moduleName + ":" + functionName + "/" + arity;
+  }
+}
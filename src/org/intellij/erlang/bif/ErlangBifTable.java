@@ -16,17 +16,38 @@
 
 package org.intellij.erlang.bif;
 
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.containers.MultiMap;
+import org.intellij.erlang.sdk.ErlangSdkRelease;
+import org.intellij.erlang.sdk.ErlangSdkType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.TreeSet;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class ErlangBifTable {
+  private static final Logger LOG = Logger.getInstance(ErlangBifTable.class);
+  private static final String ERLANG_MODULE = "erlang";
+  private static final Map<String, ErlangBifCatalog> ourSdkCatalogs = new ConcurrentHashMap<>();
+  private static final SimpleModificationTracker ourSdkCatalogsTracker = new SimpleModificationTracker();
+  private static final Set<String> ourRequestedSdkCatalogs = ContainerUtil.newConcurrentSet();
+  private static volatile File ourSdkCatalogsDirectory = new File(PathManager.getSystemPath(), "erlang/bifs");
+
   private static final MultiMap<String, ErlangBifDescriptor> bifMap = new MultiMap<String, ErlangBifDescriptor>() {
     @NotNull
     @Override
@@ -34,6 +55,7 @@ public final class ErlangBifTable {
       return new TreeSet<>();
     }
   };
+  private static final ErlangBifCatalog STATIC_CATALOG;
 
   static {
     bifMap.putValue("erlang", new ErlangBifDescriptor("erlang", "abs", 1, "Int", true));
@@ -405,6 +427,7 @@ public final class ErlangBifTable {
 
     putLagerFunctionsToBifMap();
     putGeneratedInfo();
+    STATIC_CATALOG = new ErlangBifCatalog(bifMap.values());
   }
 
   public static final String MODULE_INFO = "module_info";
@@ -437,44 +460,137 @@ public final class ErlangBifTable {
 
   @NotNull
   public static Collection<ErlangBifDescriptor> getBifs(@NotNull String moduleName) {
-    return bifMap.get(moduleName);
+    return STATIC_CATALOG.getBifs(moduleName);
   }
 
   @NotNull
   public static Collection<ErlangBifDescriptor> getAutoimportedBifs(@NotNull String moduleName) {
-    return ContainerUtil.filter(bifMap.get(moduleName), ErlangBifDescriptor::isAutoImported);
+    return STATIC_CATALOG.getAutoimportedBifs(moduleName);
   }
 
   @NotNull
   public static List<ErlangBifDescriptor> getBifs(@NotNull String moduleName, @NotNull String functionName) {
-    List<ErlangBifDescriptor> bifDescriptors = new ArrayList<>();
-    for (ErlangBifDescriptor bifDescriptor : bifMap.get(moduleName)) {
-      if (functionName.equals(bifDescriptor.getName())) {
-        bifDescriptors.add(bifDescriptor);
-      }
-    }
-    return bifDescriptors;
+    return STATIC_CATALOG.getBifs(moduleName, functionName);
   }
 
   @Nullable
   public static ErlangBifDescriptor getBif(@NotNull String moduleName, @NotNull String functionName, int arity) {
-    for (ErlangBifDescriptor bifDescriptor : getBifs(moduleName, functionName)) {
-      if (arity == bifDescriptor.getArity()) {
-        return bifDescriptor;
-      }
+    return STATIC_CATALOG.getBif(moduleName, functionName, arity);
+  }
+
+  public static boolean isBif(@NotNull String moduleName, @NotNull String functionName, int arity) {
+    return STATIC_CATALOG.isBif(moduleName, functionName, arity);
+  }
+
+  /**
+   * @return the catalog for the SDK release of the file containing {@code context}, or the static table
+   * if no catalog was generated for it yet. A missing catalog is requested in background once per session.
+   */
+  @NotNull
+  public static ErlangBifCatalog getCatalog(@NotNull PsiElement context) {
+    PsiFile file = context.getContainingFile();
+    if (file == null) return STATIC_CATALOG;
+    Pair<ErlangSdkRelease, ErlangBifCatalog> releaseCatalog = CachedValuesManager.getCachedValue(file, () -> {
+      ErlangSdkRelease release = ErlangSdkType.getRelease(file);
+      return CachedValueProvider.Result.create(Pair.create(release, getCatalog(release)),
+                                               ProjectRootModificationTracker.getInstance(file.getProject()),
+                                               ourSdkCatalogsTracker);
+    });
+    ErlangSdkRelease release = releaseCatalog.first;
+    if (release != null && releaseCatalog.second == STATIC_CATALOG && ourRequestedSdkCatalogs.add(release.toString())) {
+      ErlangSdkType.generateBifCatalogInBackground(file, release);
     }
-    return null;
+    return releaseCatalog.second;
   }
 
+  @NotNull
+  public static ErlangBifCatalog getCatalog(@Nullable ErlangSdkRelease release) {
+    if (release == null) return STATIC_CATALOG;
+    return ourSdkCatalogs.computeIfAbsent(release.toString(), r -> loadSdkCatalog(release));
+  }
 
-  public static boolean isBif(@NotNull String moduleName, @NotNull String functionName, int arity) {
-    Collection<ErlangBifDescriptor> erlangBifDescriptors = bifMap.get(moduleName);
-    for (ErlangBifDescriptor bifDescriptor : erlangBifDescriptors) {
-      if (bifDescriptor.getModule().equals(moduleName) && bifDescriptor.getName().equals(functionName) &&
-        bifDescriptor.getArity() == arity) {
-        return true;
-      }
+  /**
+   * Stores the catalog for {@code release} on disk.
+   *
+   * @param sdkBifs lines of {@code name arity autoImported} for every function exported by the SDK's
+   *                {@code erlang} module.
+   */
+  public static void storeSdkCatalog(@NotNull ErlangSdkRelease release, @NotNull List<String> sdkBifs) {
+    try {
+      FileUtil.writeToFile(getSdkCatalogFile(release), StringUtil.join(sdkBifs, "\n"));
+    }
+    catch (IOException e) {
+      LOG.warn("Failed to store BIF catalog for " + release, e);
+    }
+    ourSdkCatalogs.put(release.toString(), createSdkCatalog(sdkBifs));
+    ourSdkCatalogsTracker.incModificationCount();
+  }
+
+  @NotNull
+  private static ErlangBifCatalog loadSdkCatalog(@NotNull ErlangSdkRelease release) {
+    File catalogFile = getSdkCatalogFile(release);
+    if (!catalogFile.isFile()) return STATIC_CATALOG;
+    try {
+      return createSdkCatalog(FileUtil.loadLines(catalogFile));
+    }
+    catch (IOException e) {
+      LOG.warn("Failed to load BIF catalog for " + release, e);
+      return STATIC_CATALOG;
     }
-    return false;
+  }
+
+  /**
+   * {@code erlang} module BIFs come from the SDK, parameter names are taken from the static table where known.
+   * BIFs of other modules are always taken from the static table.
+   */
+  @NotNull
+  private static ErlangBifCatalog createSdkCatalog(@NotNull List<String> sdkBifs) {
+    List<ErlangBifDescriptor> bifs = new ArrayList<>();
+    for (ErlangBifDescriptor bif : STATIC_CATALOG.getAllBifs()) {
+      if (!ERLANG_MODULE.equals(bif.getModule())) bifs.add(bif);
+    }
+    for (String line : sdkBifs) {
+      List<String> parts = StringUtil.split(line, " ");
+      if (parts.size() != 3) continue;
+      String name = parts.get(0);
+      int arity = StringUtil.parseInt(parts.get(1), -1);
+      if (arity < 0 || MODULE_INFO.equals(name)) continue;
+      ErlangBifDescriptor staticBif = STATIC_CATALOG.getBif(ERLANG_MODULE, name, arity);
+      String params = staticBif != null ? staticBif.getParams() : createParams(arity);
+      bifs.add(new ErlangBifDescriptor(ERLANG_MODULE, name, arity, params, Boolean.parseBoolean(parts.get(2))));
+    }
+    return new ErlangBifCatalog(bifs);
+  }
+
+  @NotNull
+  private static String createParams(int arity) {
+    List<String> params = new ArrayList<>(arity);
+    for (int i = 1; i <= arity; i++) {
+      params.add("P" + i);
+    }
+    return StringUtil.join(params, ", ");
+  }
+
+  @NotNull
+  private static File getSdkCatalogFile(@NotNull ErlangSdkRelease release) {
+    String fileName = FileUtil.sanitizeFileName(release.getOtpRelease() + "-" + release.getErtsVersion()) + ".txt";
+    return new File(ourSdkCatalogsDirectory, fileName);
+  }
+
+  /**
+   * Makes catalogs stored in and loaded from {@code directory}, and drops the loaded ones.
+   */
+  @TestOnly
+  public static void setSdkCatalogsDirectory(@NotNull File directory) {
+    ourSdkCatalogsDirectory = directory;
+    ourSdkCatalogs.clear();
+    ourRequestedSdkCatalogs.clear();
+    ourSdkCatalogsTracker.incModificationCount();
+  }
+
+  @TestOnly
+  @NotNull
+  public static File getSdkCatalogsDirectory() {
+    return ourSdkCatalogsDirectory;
   }
 }
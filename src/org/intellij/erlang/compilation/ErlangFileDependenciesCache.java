@@ -0,0 +1,186 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.compilation;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Dependencies declared by Erlang files, persisted between builds. An entry stays valid while the file's time stamp
+ * and length don't change, so preparing the build order doesn't parse files which weren't modified.
+ * <p/>
+ * Parse transforms and behaviours are stored as module names and resolved on every build through the module index,
+ * includes are stored resolved as resolving them needs the PSI. The cache is dropped when project roots, include
+ * directories or SDKs change.
+ */
+class ErlangFileDependenciesCache {
+  static final String CACHE_FILE_NAME = "deps-cache.dat";
+
+  private static final Logger LOG = Logger.getInstance(ErlangFileDependenciesCache.class);
+  private static final int VERSION = 2;
+
+  private final int myRootsHash;
+  private final Map<String, Entry> myEntries = new HashMap<>();
+  private final Set<String> myHeaders = new HashSet<>();
+
+  ErlangFileDependenciesCache(int rootsHash) {
+    myRootsHash = rootsHash;
+  }
+
+  int getRootsHash() {
+    return myRootsHash;
+  }
+
+  @Nullable
+  Entry getUpToDate(@NotNull String path, long timeStamp, long length) {
+    Entry entry = myEntries.get(path);
+    return entry != null && entry.myTimeStamp == timeStamp && entry.myLength == length ? entry : null;
+  }
+
+  void put(@NotNull String path, @NotNull Entry entry) {
+    myEntries.put(path, entry);
+  }
+
+  /**
+   * Drops entries of removed files and entries whose includes may now resolve differently: the ones including
+   * a removed header, and after headers were added, the ones with unresolved includes or includes of headers
+   * with the same names as the added ones.
+   * <p/>
+   * Added headers are the ones of the compiled modules which weren't seen by previous builds. Headers outside
+   * of the compiled modules are remembered while they exist, so building a part of the project doesn't make
+   * them look added again on the next build.
+   */
+  void invalidate(@NotNull Condition<String> fileExists, @NotNull Collection<String> headerPaths) {
+    Map<String, Boolean> existingFiles = new HashMap<>();
+    Condition<String> exists = path -> existingFiles.computeIfAbsent(path, fileExists::value);
+    Set<String> addedHeaderNames = new HashSet<>();
+    for (String headerPath : headerPaths) {
+      if (!myHeaders.contains(headerPath)) addedHeaderNames.add(new File(headerPath).getName());
+    }
+    myHeaders.removeIf(path -> !exists.value(path));
+    myHeaders.addAll(headerPaths);
+    myEntries.entrySet().removeIf(pathAndEntry -> {
+      Entry entry = pathAndEntry.getValue();
+      if (!exists.value(pathAndEntry.getKey())) return true;
+      if (!addedHeaderNames.isEmpty()) {
+        if (entry.myHasUnresolvedIncludes) return true;
+        if (ContainerUtil.exists(entry.myIncludes, include -> addedHeaderNames.contains(new File(include).getName()))) return true;
+      }
+      return !ContainerUtil.and(entry.myIncludes, exists);
+    });
+  }
+
+  @NotNull
+  static ErlangFileDependenciesCache load(@NotNull File file) {
+    if (!file.exists()) return new ErlangFileDependenciesCache(0);
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != VERSION) return new ErlangFileDependenciesCache(0);
+      ErlangFileDependenciesCache cache = new ErlangFileDependenciesCache(in.readInt());
+      cache.myHeaders.addAll(Entry.readStrings(in));
+      int size = in.readInt();
+      for (int i = 0; i < size; i++) {
+        String path = in.readUTF();
+        cache.myEntries.put(path, Entry.read(in));
+      }
+      return cache;
+    }
+    catch (IOException e) {
+      LOG.warn("Failed to read Erlang dependencies cache from " + file.getPath(), e);
+      return new ErlangFileDependenciesCache(0);
+    }
+  }
+
+  void save(@NotNull File file) throws IOException {
+    FileUtil.createParentDirs(file);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(VERSION);
+      out.writeInt(myRootsHash);
+      Entry.writeStrings(out, new ArrayList<>(myHeaders));
+      out.writeInt(myEntries.size());
+      for (Map.Entry<String, Entry> pathAndEntry : myEntries.entrySet()) {
+        out.writeUTF(pathAndEntry.getKey());
+        pathAndEntry.getValue().write(out);
+      }
+    }
+  }
+
+  static final class Entry {
+    final long myTimeStamp;
+    final long myLength;
+    @NotNull final List<String> myParseTransforms;
+    @NotNull final List<String> myBehaviours;
+    @NotNull final List<String> myIncludes;
+    final boolean myHasUnresolvedIncludes;
+
+    Entry(long timeStamp,
+          long length,
+          @NotNull Collection<String> parseTransforms,
+          @NotNull Collection<String> behaviours,
+          @NotNull Collection<String> includes,
+          boolean hasUnresolvedIncludes) {
+      myTimeStamp = timeStamp;
+      myLength = length;
+      myParseTransforms = new ArrayList<>(parseTransforms);
+      myBehaviours = new ArrayList<>(behaviours);
+      myIncludes = new ArrayList<>(includes);
+      myHasUnresolvedIncludes = hasUnresolvedIncludes;
+    }
+
+    private void write(@NotNull DataOutput out) throws IOException {
+      out.writeLong(myTimeStamp);
+      out.writeLong(myLength);
+      writeStrings(out, myParseTransforms);
+      writeStrings(out, myBehaviours);
+      writeStrings(out, myIncludes);
+      out.writeBoolean(myHasUnresolvedIncludes);
+    }
+
+    @NotNull
+    private static Entry read(@NotNull DataInput in) throws IOException {
+      long timeStamp = in.readLong();
+      long length = in.readLong();
+      List<String> parseTransforms = readStrings(in);
+      List<String> behaviours = readStrings(in);
+      List<String> includes = readStrings(in);
+      return new Entry(timeStamp, length, parseTransforms, behaviours, includes, in.readBoolean());
+    }
+
+    private static void writeStrings(@NotNull DataOutput out, @NotNull List<String> strings) throws IOException {
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        out.writeUTF(string);
+      }
+    }
+
+    @NotNull
+    private static List<String> readStrings(@NotNull DataInput in) throws IOException {
+      int size = in.readInt();
+      List<String> strings = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        strings.add(in.readUTF());
+      }
+      return strings;
+    }
+  }
+}
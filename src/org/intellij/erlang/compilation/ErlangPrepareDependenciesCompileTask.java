@@ -23,10 +23,18 @@ import com.intellij.openapi.compiler.CompileTask;
 import com.intellij.openapi.compiler.CompilerMessageCategory;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.Couple;
 import com.intellij.openapi.util.JDOMUtil;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
@@ -47,8 +55,12 @@ import org.intellij.erlang.index.ErlangModuleIndex;
 import org.intellij.erlang.jps.builder.ErlangBuilderUtil;
 import org.intellij.erlang.jps.builder.ErlangFileDescriptor;
 import org.intellij.erlang.jps.builder.ErlangProjectBuildOrder;
+import org.intellij.erlang.jps.builder.ErlangProjectBuildOrderSerializer;
 import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangInclude;
+import org.intellij.erlang.psi.ErlangIncludeLib;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.roots.ErlangIncludeDirectoryUtil;
 import org.jdom.Document;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -78,30 +90,67 @@ public class ErlangPrepareDependenciesCompileTask implements CompileTask {
       addPrepareDependenciesFailedMessage(context);
       return true;
     }
-    ErlangProjectBuildOrder projectBuildOrder = ApplicationManager.getApplication().runReadAction((Computable<ErlangProjectBuildOrder>) () -> getProjectBuildOrder(context));
+    File cacheFile = new File(new File(projectSystemDirectory, ErlangBuilderUtil.BUILDER_DIRECTORY), ErlangFileDependenciesCache.CACHE_FILE_NAME);
+    Ref<ErlangFileDependenciesCache> cache = Ref.create(ErlangFileDependenciesCache.load(cacheFile));
+    ErlangProjectBuildOrder projectBuildOrder = ApplicationManager.getApplication().runReadAction((Computable<ErlangProjectBuildOrder>) () -> {
+      int rootsHash = getRootsHash(project);
+      if (cache.get().getRootsHash() != rootsHash) {
+        cache.set(new ErlangFileDependenciesCache(rootsHash));
+      }
+      return getProjectBuildOrder(context, cache.get());
+    });
     if (projectBuildOrder == null) {
       return false; // errors are reported to context.
     }
     writeBuildOrder(context, projectSystemDirectory, projectBuildOrder);
+    writeDependenciesCache(cache.get(), cacheFile);
     return true;
   }
 
+  private static void writeDependenciesCache(@NotNull ErlangFileDependenciesCache cache, @NotNull File cacheFile) {
+    try {
+      LOG.debug("Write dependencies cache to " + cacheFile.getAbsolutePath());
+      cache.save(cacheFile);
+    }
+    catch (IOException e) {
+      LOG.warn("Some I/O errors occurred while writing dependencies cache to file", e);
+      FileUtil.delete(cacheFile);
+    }
+  }
+
+  static int getRootsHash(@NotNull Project project) {
+    ProjectRootManager rootManager = ProjectRootManager.getInstance(project);
+    List<String> roots = new ArrayList<>(ContainerUtil.map(rootManager.getContentSourceRoots(), VirtualFile::getPath));
+    roots.add(getSdkHome(rootManager.getProjectSdk()));
+    List<Module> modules = ContainerUtil.sorted(Arrays.asList(ModuleManager.getInstance(project).getModules()),
+                                                Comparator.comparing(Module::getName));
+    for (Module module : modules) {
+      // includes are resolved against include directories and the SDK of the module, which may override the project one
+      roots.add(module.getName());
+      roots.addAll(ContainerUtil.map(ErlangIncludeDirectoryUtil.getIncludeDirectories(module), VirtualFile::getPath));
+      roots.add(getSdkHome(ModuleRootManager.getInstance(module).getSdk()));
+    }
+    return roots.hashCode();
+  }
+
+  @NotNull
+  private static String getSdkHome(@Nullable Sdk sdk) {
+    return sdk != null ? StringUtil.notNullize(sdk.getHomePath()) : "";
+  }
+
   private static void writeBuildOrder(@NotNull CompileContext context,
                                       @NotNull File projectSystemDirectory,
                                       @NotNull ErlangProjectBuildOrder projectBuildOrder) {
     try {
-      LOG.debug("Serialize build order");
-      Document serializedDocument = new Document(XmlSerializer.serialize(projectBuildOrder, new SkipDefaultValuesSerializationFilters()));
       File parentDir = new File(projectSystemDirectory, ErlangBuilderUtil.BUILDER_DIRECTORY);
       //noinspection ResultOfMethodCallIgnored
       parentDir.mkdirs();
       File file = new File(parentDir, ErlangBuilderUtil.BUILD_ORDER_FILE_NAME);
       LOG.debug("Write build order to " + file.getAbsolutePath());
-      JDOMUtil.writeDocument(serializedDocument, file, SystemProperties.getLineSeparator());
-    }
-    catch (XmlSerializationException e) {
-      LOG.error("Can't serialize build order object.", e);
-      addPrepareDependenciesFailedMessage(context);
+      ErlangProjectBuildOrderSerializer.write(projectBuildOrder, file);
+      if (LOG.isDebugEnabled()) {
+        writeBuildOrderDebugExport(new File(parentDir, ErlangBuilderUtil.BUILD_ORDER_DEBUG_FILE_NAME), projectBuildOrder);
+      }
     }
     catch (IOException e) {
       LOG.warn("Some I/O errors occurred while writing build orders to file", e);
@@ -109,6 +158,16 @@ public class ErlangPrepareDependenciesCompileTask implements CompileTask {
     }
   }
 
+  private static void writeBuildOrderDebugExport(@NotNull File file, @NotNull ErlangProjectBuildOrder projectBuildOrder) {
+    try {
+      Document serializedDocument = new Document(XmlSerializer.serialize(projectBuildOrder, new SkipDefaultValuesSerializationFilters()));
+      JDOMUtil.writeDocument(serializedDocument, file, SystemProperties.getLineSeparator());
+    }
+    catch (XmlSerializationException | IOException e) {
+      LOG.debug("Can't export build order to " + file.getAbsolutePath(), e);
+    }
+  }
+
   private static void addPrepareDependenciesFailedMessage(@NotNull CompileContext context) {
     context.addMessage(CompilerMessageCategory.WARNING, "Failed to submit dependencies info to compiler.", null, -1, -1);
   }
@@ -116,14 +175,22 @@ public class ErlangPrepareDependenciesCompileTask implements CompileTask {
   @TestOnly
   @NotNull
   static List<ErlangFileDescriptor> getBuildOrder(@NotNull Module module) throws CyclicDependencyFoundException {
-    return getTopologicallySortedFileDescriptors(module);
+    return getBuildOrder(module, new ErlangFileDependenciesCache(0));
+  }
+
+  @TestOnly
+  @NotNull
+  static List<ErlangFileDescriptor> getBuildOrder(@NotNull Module module,
+                                                  @NotNull ErlangFileDependenciesCache cache) throws CyclicDependencyFoundException {
+    return getTopologicallySortedFileDescriptors(cache, module);
   }
 
   @Nullable
-  private static ErlangProjectBuildOrder getProjectBuildOrder(@NotNull CompileContext context) {
+  private static ErlangProjectBuildOrder getProjectBuildOrder(@NotNull CompileContext context,
+                                                              @NotNull ErlangFileDependenciesCache cache) {
     try {
       Module[] modulesToCompile = context.getCompileScope().getAffectedModules();
-      return new ErlangProjectBuildOrder(getTopologicallySortedFileDescriptors(modulesToCompile));
+      return new ErlangProjectBuildOrder(getTopologicallySortedFileDescriptors(cache, modulesToCompile));
     }
     catch (CyclicDependencyFoundException e) {
       String message = "Cyclic erlang module dependency detected. Check files " +
@@ -142,8 +209,9 @@ public class ErlangPrepareDependenciesCompileTask implements CompileTask {
   }
 
   @NotNull
-  private static List<ErlangFileDescriptor> getTopologicallySortedFileDescriptors(@NotNull Module... modulesToCompile) throws CyclicDependencyFoundException {
-    final ErlangFilesDependencyGraph semiGraph = ErlangFilesDependencyGraph.createSemiGraph(modulesToCompile);
+  private static List<ErlangFileDescriptor> getTopologicallySortedFileDescriptors(@NotNull ErlangFileDependenciesCache cache,
+                                                                                 @NotNull Module... modulesToCompile) throws CyclicDependencyFoundException {
+    final ErlangFilesDependencyGraph semiGraph = ErlangFilesDependencyGraph.createSemiGraph(cache, modulesToCompile);
     DFSTBuilder<String> builder = new DFSTBuilder<>(GraphGenerator.generate(semiGraph));
     if (!builder.isAcyclic()) {
       throw new CyclicDependencyFoundException(builder.getCircularDependency());
@@ -160,22 +228,27 @@ public class ErlangPrepareDependenciesCompileTask implements CompileTask {
   private static class ErlangFilesDependencyGraph implements InboundSemiGraph<String> {
     private final Project myProject;
     private final PsiManager myPsiManager;
+    private final ErlangFileDependenciesCache myCache;
     private final Set<String> myHeaders;
     private final Map<String, List<String>> myPathsToDependenciesMap = ContainerUtil.newHashMap();
 
-    private ErlangFilesDependencyGraph(@NotNull Module[] modulesToCompile) {
+    private ErlangFilesDependencyGraph(@NotNull ErlangFileDependenciesCache cache, @NotNull Module[] modulesToCompile) {
       assert modulesToCompile.length > 0;
       myProject = modulesToCompile[0].getProject();
       myPsiManager = PsiManager.getInstance(myProject);
+      myCache = cache;
       myHeaders = collectHeaderPaths(modulesToCompile);
+      LocalFileSystem fileSystem = LocalFileSystem.getInstance();
+      myCache.invalidate(path -> fileSystem.findFileByPath(FileUtil.toSystemIndependentName(path)) != null, myHeaders);
       for (Module module : modulesToCompile) {
         buildDependenciesMap(module);
       }
     }
 
     @NotNull
-    public static ErlangFilesDependencyGraph createSemiGraph(@NotNull Module[] modulesToCompile) {
-      return new ErlangFilesDependencyGraph(modulesToCompile);
+    public static ErlangFilesDependencyGraph createSemiGraph(@NotNull ErlangFileDependenciesCache cache,
+                                                             @NotNull Module[] modulesToCompile) {
+      return new ErlangFilesDependencyGraph(cache, modulesToCompile);
     }
 
     @NotNull
@@ -222,40 +295,56 @@ public class ErlangPrepareDependenciesCompileTask implements CompileTask {
                                       @NotNull Collection<VirtualFile> erlangFiles,
                                       @NotNull List<String> globalParseTransforms) {
       for (VirtualFile file : erlangFiles) {
+        String path = getPath(file);
+        ErlangFileDependenciesCache.Entry entry = myCache.getUpToDate(path, file.getTimeStamp(), file.getLength());
+        if (entry == null) {
+          entry = createCacheEntry(file);
+          myCache.put(path, entry);
+        }
         Set<String> dependencies = new HashSet<>();
-        ErlangFile psi = getErlangFile(file);
-        addDeclaredDependencies(module, psi, dependencies);
+        dependencies.addAll(resolvePathsFromNames(entry.myParseTransforms, module));
+        dependencies.addAll(resolvePathsFromNames(entry.myBehaviours, module));
+        dependencies.addAll(ContainerUtil.filter(entry.myIncludes, myHeaders::contains));
         dependencies.addAll(globalParseTransforms);
-        myPathsToDependenciesMap.put(getPath(file), new ArrayList<>(dependencies));
+        myPathsToDependenciesMap.put(path, new ArrayList<>(dependencies));
       }
     }
 
     @NotNull
-    private ErlangFile getErlangFile(@NotNull VirtualFile virtualFile) {
-      PsiFile psiFile = myPsiManager.findFile(virtualFile);
-      return ObjectUtils.assertNotNull(ObjectUtils.tryCast(psiFile, ErlangFile.class));
-    }
-
-    private void addDeclaredDependencies(@NotNull Module module,
-                                         @NotNull ErlangFile erlangModule,
-                                         @NotNull Set<String> dependencies) {
-      dependencies.addAll(getDeclaredParseTransformPaths(module, erlangModule));
-      dependencies.addAll(getDeclaredBehaviourPaths(module, erlangModule));
-      dependencies.addAll(getDeclaredIncludePaths(erlangModule));
+    private ErlangFileDependenciesCache.Entry createCacheEntry(@NotNull VirtualFile file) {
+      ErlangFile psi = getErlangFile(file);
+      Set<String> parseTransforms = new HashSet<>();
+      psi.addDeclaredParseTransforms(parseTransforms);
+      Set<String> behaviours = new HashSet<>();
+      ErlangPsiImplUtil.addDeclaredBehaviourModuleNames(psi, behaviours);
+      Set<String> includes = new LinkedHashSet<>();
+      boolean hasUnresolvedIncludes = false;
+      for (ErlangInclude include : psi.getIncludes()) {
+        hasUnresolvedIncludes |= !addIncludePaths(ErlangPsiImplUtil.getDirectlyIncludedFiles(include, psi), includes);
+      }
+      for (ErlangIncludeLib includeLib : psi.getIncludeLibs()) {
+        hasUnresolvedIncludes |= !addIncludePaths(ErlangPsiImplUtil.getDirectlyIncludedFiles(includeLib, psi), includes);
+      }
+      return new ErlangFileDependenciesCache.Entry(file.getTimeStamp(), file.getLength(),
+                                                   parseTransforms, behaviours, includes, hasUnresolvedIncludes);
     }
 
-    @NotNull
-    private List<String> getDeclaredParseTransformPaths(@NotNull Module module, @NotNull ErlangFile erlangModule) {
-      Set<String> pt = new HashSet<>();
-      erlangModule.addDeclaredParseTransforms(pt);
-      return resolvePathsFromNames(pt, module);
+    private static boolean addIncludePaths(@NotNull List<ErlangFile> includedFiles, @NotNull Set<String> includes) {
+      boolean resolved = false;
+      for (ErlangFile includedFile : includedFiles) {
+        VirtualFile virtualFile = includedFile.getVirtualFile();
+        if (virtualFile != null) {
+          includes.add(getPath(virtualFile));
+          resolved = true;
+        }
+      }
+      return resolved;
     }
 
     @NotNull
-    private List<String> getDeclaredBehaviourPaths(@NotNull Module module, @NotNull ErlangFile erlangModule) {
-      Set<String> behaviours = new HashSet<>();
-      ErlangPsiImplUtil.addDeclaredBehaviourModuleNames(erlangModule, behaviours);
-      return resolvePathsFromNames(behaviours, module);
+    private ErlangFile getErlangFile(@NotNull VirtualFile virtualFile) {
+      PsiFile psiFile = myPsiManager.findFile(virtualFile);
+      return ObjectUtils.assertNotNull(ObjectUtils.tryCast(psiFile, ErlangFile.class));
     }
 
     @NotNull
@@ -267,24 +356,12 @@ public class ErlangPrepareDependenciesCompileTask implements CompileTask {
       return paths;
     }
 
-    @NotNull
-    private List<String> getDeclaredIncludePaths(@NotNull ErlangFile file) {
-      return ContainerUtil.mapNotNull(ErlangPsiImplUtil.getDirectlyIncludedFiles(file), erlangFile -> {
-        VirtualFile file1 = erlangFile.getVirtualFile();
-        String path = file1 != null ? getPath(file1) : null;
-        return path != null && myHeaders.contains(path) ? path : null;
-      });
-    }
-
     @NotNull
     private List<String> getPathsFromModuleName(@NotNull String erlangModuleName, @NotNull Module module) {
-      List<ErlangFile> filesByName = ErlangModuleIndex.getFilesByName(myProject,
-                                                                      erlangModuleName,
-                                                                      GlobalSearchScope.moduleWithDependenciesScope(module));
-      return ContainerUtil.mapNotNull(filesByName, erlangFile -> {
-        VirtualFile virtualFile = erlangFile.getVirtualFile();
-        return virtualFile != null ? getPath(virtualFile) : null;
-      });
+      List<VirtualFile> filesByName = ErlangModuleIndex.getVirtualFilesByName(myProject,
+                                                                              erlangModuleName,
+                                                                              GlobalSearchScope.moduleWithDependenciesScope(module));
+      return ContainerUtil.map(filesByName, ErlangPrepareDependenciesCompileTask::getPath);
     }
   }
 
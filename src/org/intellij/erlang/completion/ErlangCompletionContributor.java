@@ -34,11 +34,11 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.formatter.FormatterUtil;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
-import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.ProjectScope;
 import com.intellij.psi.util.PsiTreeUtil;
@@ -53,16 +53,19 @@ import org.intellij.erlang.console.ErlangConsoleView;
 import org.intellij.erlang.icons.ErlangIcons;
 import org.intellij.erlang.index.ErlangApplicationIndex;
 import org.intellij.erlang.index.ErlangAtomIndex;
+import org.intellij.erlang.index.ErlangConfigKeyIndex;
 import org.intellij.erlang.index.ErlangModuleIndex;
 import org.intellij.erlang.index.ErlangTypeMapsFieldIndex;
 import org.intellij.erlang.parser.ErlangParserUtil;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.quickfixes.ErlangIncludeHeaderFix;
 import org.intellij.erlang.utils.ErlangTermFileUtil;
 import org.intellij.erlang.rebar.util.RebarConfigUtil;
 import org.intellij.erlang.roots.ErlangIncludeDirectoryUtil;
 import org.intellij.erlang.sdk.ErlangSystemUtil;
 import org.intellij.erlang.stubs.index.ErlangBehaviourModuleIndex;
+import org.intellij.erlang.stubs.index.ErlangRecordDefinitionIndex;
 import org.intellij.erlang.types.ErlangExpressionType;
 import org.intellij.erlang.utils.ErlangModulesUtil;
 import org.intellij.erlang.utils.ErlangVarUtil;
@@ -213,6 +216,9 @@ public class ErlangCompletionContributor extends CompletionContributor {
         if ((originalParent != null && !isDot(originalPosition))
             && (originalParent instanceof ErlangRecordExpression || prevIsRadix(originalPosition) || prevIsRadix(grandPa))) {
           result.addAllElements(getRecordLookupElements(file));
+          if (parameters.getInvocationCount() > 1 && file instanceof ErlangFile && !ErlangParserUtil.isConsole(file)) {
+            result.addAllElements(getNotIncludedRecordLookupElements((ErlangFile) file));
+          }
           if (ErlangParserUtil.isConsole(file)){
             Project project = file.getProject();
             ErlangFile user_default = ErlangModulesUtil.getErlangModuleFile(project, "user_default", GlobalSearchScope.allScope(project));
@@ -381,12 +387,41 @@ public class ErlangCompletionContributor extends CompletionContributor {
     }
   }
 
+  /**
+   * @return records defined in project headers which aren't included yet, choosing one of them adds the include.
+   */
+  @NotNull
+  private static List<LookupElement> getNotIncludedRecordLookupElements(@NotNull ErlangFile file) {
+    Project project = file.getProject();
+    GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+    Set<String> visibleRecords = ContainerUtil.map2Set(getErlangRecordDefinitions(file), ErlangRecordDefinition::getName);
+    List<LookupElement> result = new ArrayList<>();
+    for (String recordName : ErlangRecordDefinitionIndex.getAllRecordNames(project)) {
+      if (visibleRecords.contains(recordName)) continue;
+      for (ErlangRecordDefinition record : ErlangRecordDefinitionIndex.getHeaderRecords(project, recordName, scope)) {
+        VirtualFile header = record.getContainingFile().getVirtualFile();
+        String includeString = header != null ? ErlangIncludeHeaderFix.getIncludeString(file, header) : null;
+        if (includeString == null) continue;
+        result.add(LookupElementBuilder.create(record, recordName)
+                     .withIcon(ErlangIcons.RECORD)
+                     .withTypeText(includeString, true)
+                     .withInsertHandler((context, item) -> {
+                       context.commitDocument();
+                       PsiFile contextFile = context.getFile();
+                       if (contextFile instanceof ErlangFile) {
+                         ErlangIncludeHeaderFix.addInclude(context.getProject(), (ErlangFile) contextFile, includeString);
+                         PsiDocumentManager.getInstance(context.getProject()).doPostponedOperationsAndUnblockDocument(context.getDocument());
+                       }
+                     }));
+      }
+    }
+    return result;
+  }
+
   private static void add_config_atoms(@NotNull CompletionResultSet result,
                                        Project project,
                                        String configName) {
-    PsiFile[] configs = FilenameIndex.getFilesByName(project, configName + ".config", GlobalSearchScope.projectScope(project));
-    if (configs.length == 0 ) return;
-    PsiFile config = configs[0];
+    PsiFile config = ErlangConfigKeyIndex.getConfigFile(project, configName, GlobalSearchScope.projectScope(project));
     if (config instanceof ErlangFile && config.getFileType() == ErlangFileType.TERMS){
       Collection<PsiElement> configKeys = ((ErlangFile) config).getConfigKeys();
       for (PsiElement key : configKeys){
@@ -31,6 +31,7 @@ import org.intellij.erlang.parser.ErlangParserUtil;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.psi.impl.ErlangVarProcessor;
+import org.intellij.erlang.psi.impl.ErlangVarScopeTable;
 import org.intellij.erlang.psi.impl.ResolveUtil;
 import org.intellij.erlang.types.ErlangExpressionType;
 import org.jetbrains.annotations.NotNull;
@@ -124,6 +125,7 @@ public class ErlangVariableCompletionContributor extends CompletionContributor i
     private final PsiElement myScopeOwner;
     private final boolean myForce;
     private final Collection<String> myResult;
+    @Nullable private final ErlangVarScopeTable myScopeTable;
     @Nullable private Collection<ErlangQVar> myVars;
 
     public MyBaseScopeProcessor(@NotNull Collection<String> result, @NotNull PsiElement element, @Nullable PsiElement scopeOwner, boolean force) {
@@ -131,6 +133,7 @@ public class ErlangVariableCompletionContributor extends CompletionContributor i
       myScopeOwner = scopeOwner;
       myForce = force;
       myResult = result;
+      myScopeTable = ErlangVarScopeTable.getTable(element);
     }
 
     private MyBaseScopeProcessor(@NotNull Collection<ErlangQVar> result, @NotNull PsiElement element, @Nullable PsiElement scopeOwner) {
@@ -142,12 +145,20 @@ public class ErlangVariableCompletionContributor extends CompletionContributor i
     public boolean execute(@NotNull PsiElement psiElement, @NotNull ResolveState resolveState) {
       if (!psiElement.equals(myElement) && psiElement instanceof ErlangQVar && !psiElement.getText().equals("_") && !inColonQualified(myElement)) {
         boolean ancestor = PsiTreeUtil.isAncestor(myScopeOwner, psiElement, false);
-        if ((ancestor || myForce) && (inArgumentDefinition(psiElement) || inLeftPartOfAssignment(psiElement) || inFunctionTypeArgument(psiElement))) {
+        if ((ancestor || myForce) && isDefinition((ErlangQVar) psiElement)) {
           myResult.add(((ErlangQVar) psiElement).getName());
           if (myVars != null) myVars.add((ErlangQVar) psiElement);
         }
       }
       return true;
     }
+
+    private boolean isDefinition(@NotNull ErlangQVar var) {
+      if (myScopeTable != null && myScopeTable.contains(var)) {
+        return myScopeTable.isArgumentDefinition(var) || myScopeTable.isLeftPartOfAssignment(var) ||
+               myScopeTable.isFunctionTypeArgument(var);
+      }
+      return inArgumentDefinition(var) || inLeftPartOfAssignment(var) || inFunctionTypeArgument(var);
+    }
   }
 }
@@ -43,6 +43,9 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
   private JCheckBox myAddDebugInfoCheckBox;
   private RawCommandLineEditor myAdditionalErlcArgumentsEditor;
   private JLabel myAdditionalErlcArgumentsLabel;
+  private JLabel myParallelErlcProcessesLabel;
+  private JSpinner myParallelErlcProcessesSpinner;
+  private JCheckBox myUseCompileServerCheckBox;
   private final ErlangCompilerSettings mySettings;
   private final Project myProject;
 
@@ -95,6 +98,8 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
     setUseRebarCompiler(rebarPathIsSet && mySettings.isUseRebarCompilerEnabled());
     myAddDebugInfoCheckBox.setSelected(mySettings.isAddDebugInfoEnabled());
     myAdditionalErlcArgumentsEditor.setText(argumentsString(mySettings.getAdditionalErlcArguments()));
+    myParallelErlcProcessesSpinner.setValue(mySettings.getParallelErlcProcesses());
+    myUseCompileServerCheckBox.setSelected(mySettings.isUseCompileServerEnabled());
   }
 
   @Override
@@ -102,6 +107,8 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
     mySettings.setUseRebarCompilerEnabled(myUseRebarCompilerCheckBox.isSelected());
     mySettings.setAddDebugInfoEnabled(myAddDebugInfoCheckBox.isSelected());
     mySettings.setAdditionalErlcArguments(arguments(myAdditionalErlcArgumentsEditor.getText()));
+    mySettings.setParallelErlcProcesses(getParallelErlcProcesses());
+    mySettings.setUseCompileServerEnabled(myUseCompileServerCheckBox.isSelected());
   }
 
   @Override
@@ -109,7 +116,17 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
     return myUseRebarCompilerCheckBox.isSelected() != mySettings.isUseRebarCompilerEnabled() ||
            myAddDebugInfoCheckBox.isSelected() != mySettings.isAddDebugInfoEnabled() ||
            !StringUtil.equals(myAdditionalErlcArgumentsEditor.getText(),
-                              argumentsString(mySettings.getAdditionalErlcArguments()));
+                              argumentsString(mySettings.getAdditionalErlcArguments())) ||
+           getParallelErlcProcesses() != mySettings.getParallelErlcProcesses() ||
+           myUseCompileServerCheckBox.isSelected() != mySettings.isUseCompileServerEnabled();
+  }
+
+  private void createUIComponents() {
+    myParallelErlcProcessesSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 256, 1));
+  }
+
+  private int getParallelErlcProcesses() {
+    return ((Number) myParallelErlcProcessesSpinner.getValue()).intValue();
   }
 
   private void setUseRebarCompiler(boolean useRebarCompiler) {
@@ -117,6 +134,9 @@ public class ErlangCompilerOptionsConfigurable extends CompilerConfigurable {
 
     myAdditionalErlcArgumentsLabel.setVisible(!useRebarCompiler);
     myAdditionalErlcArgumentsEditor.setVisible(!useRebarCompiler);
+    myParallelErlcProcessesLabel.setVisible(!useRebarCompiler);
+    myParallelErlcProcessesSpinner.setVisible(!useRebarCompiler);
+    myUseCompileServerCheckBox.setVisible(!useRebarCompiler);
   }
 
   @NotNull
@@ -70,6 +70,22 @@ public class ErlangCompilerSettings implements PersistentStateComponent<ErlangCo
     myCompilerOptions.myAdditionalErlcArguments = new ArrayList<>(arguments);
   }
 
+  public int getParallelErlcProcesses() {
+    return myCompilerOptions.myParallelErlcProcesses;
+  }
+
+  public void setParallelErlcProcesses(int processes) {
+    myCompilerOptions.myParallelErlcProcesses = processes;
+  }
+
+  public boolean isUseCompileServerEnabled() {
+    return myCompilerOptions.myUseCompileServer;
+  }
+
+  public void setUseCompileServerEnabled(boolean useCompileServer) {
+    myCompilerOptions.myUseCompileServer = useCompileServer;
+  }
+
   @NotNull
   public static ErlangCompilerSettings getInstance(@NotNull Project project) {
     ErlangCompilerSettings persisted = ServiceManager.getService(project, ErlangCompilerSettings.class);
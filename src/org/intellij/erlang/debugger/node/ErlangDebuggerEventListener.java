@@ -21,6 +21,7 @@ import com.ericsson.otp.erlang.OtpErlangPid;
 import com.intellij.openapi.ui.MessageType;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ErlangDebuggerEventListener {
@@ -31,6 +32,9 @@ public interface ErlangDebuggerEventListener {
   void failedToSetBreakpoint(String module, int line, String errorMessage);
   void breakpointIsSet(String module, int line);
   void breakpointReached(@Nullable OtpErlangPid pid, List<ErlangProcessSnapshot> snapshots);
+  void stackReceived(OtpErlangPid pid, List<ErlangTraceElement> stack);
+  void bindingsReceived(OtpErlangPid pid, int stackPointer, Collection<ErlangVariableBinding> bindings);
+  void valuePageReceived(long handleId, int from, @Nullable List<OtpErlangObject> elements);
   void debuggerStopped();
   void handleEvaluationResponse(OtpErlangObject response);
   void printMessage(String messageText, MessageType type);
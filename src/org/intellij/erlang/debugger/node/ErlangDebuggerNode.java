@@ -25,30 +25,28 @@ import org.intellij.erlang.debugger.node.commands.ErlangDebuggerCommandsProducer
 import org.intellij.erlang.debugger.node.events.ErlangDebuggerEvent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
-import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.intellij.erlang.debugger.ErlangDebuggerLog.LOG;
 
 public class ErlangDebuggerNode {
-  private static final int RECEIVE_TIMEOUT = 50;
-  private static final int RETRIES_ON_TIMEOUT = 10;
-
   private OtpErlangPid myLastSuspendedPid;
 
-  private final Queue<ErlangDebuggerCommandsProducer.ErlangDebuggerCommand> myCommandsQueue = new LinkedList<>();
+  private final Queue<ErlangDebuggerCommandsProducer.ErlangDebuggerCommand> myCommandsQueue = new ConcurrentLinkedQueue<>();
+  private volatile Socket mySocket;
+  private volatile Thread myWriterThread;
   private int myLocalDebuggerPort = -1;
   @NotNull
   private final ErlangDebuggerEventListener myEventListener;
@@ -71,13 +69,28 @@ public class ErlangDebuggerNode {
   }
 
   public void stop() {
-    myStopped.set(true);
+    if (myStopped.getAndSet(true)) return;
+    LockSupport.unpark(myWriterThread);
+    Socket socket = mySocket;
+    if (socket != null) {
+      try {
+        socket.close();
+      }
+      catch (IOException e) {
+        LOG.debug(e);
+      }
+    }
   }
 
   private boolean isStopped() {
     return myStopped.get();
   }
 
+  @TestOnly
+  boolean isWriterRunning() {
+    return myWriterThread != null;
+  }
+
   public OtpErlangPid getLastSuspendedPid() {
     return myLastSuspendedPid;
   }
@@ -128,10 +141,21 @@ public class ErlangDebuggerNode {
     addCommand(ErlangDebuggerCommandsProducer.getEvaluateCommand(myLastSuspendedPid, expression, traceElement, expressionPosition));
   }
 
+  public void requestStack(@NotNull OtpErlangPid pid) {
+    addCommand(ErlangDebuggerCommandsProducer.getGetStackCommand(pid));
+  }
+
+  public void requestBindings(@NotNull OtpErlangPid pid, int stackPointer) {
+    addCommand(ErlangDebuggerCommandsProducer.getGetBindingsCommand(pid, stackPointer));
+  }
+
+  public void requestValuePage(long handleId, int from, int count) {
+    addCommand(ErlangDebuggerCommandsProducer.getGetValuePageCommand(handleId, from, count));
+  }
+
   private void addCommand(ErlangDebuggerCommandsProducer.ErlangDebuggerCommand command) {
-    synchronized (myCommandsQueue) {
-      myCommandsQueue.add(command);
-    }
+    myCommandsQueue.add(command);
+    LockSupport.unpark(myWriterThread);
   }
 
   @NotNull
@@ -153,16 +177,19 @@ public class ErlangDebuggerNode {
         try (Socket debuggerSocket = serverSocket.accept()) {
           LOG.debug("Debugger connected, closing the server socket.");
           serverSocket.close();
+          mySocket = debuggerSocket;
+          if (isStopped()) return;
           myEventListener.debuggerStarted();
-          LOG.debug("Starting send/receive loop.");
-          serverLoop(debuggerSocket);
+          LOG.debug("Starting writer thread and read loop.");
+          ApplicationManager.getApplication().executeOnPooledThread(() -> writerLoop(debuggerSocket));
+          readerLoop(debuggerSocket);
         }
         catch (Exception e) {
           cachedException = e;
           throw e;
         }
         finally {
-          myStopped.set(true);
+          stop();
           myEventListener.debuggerStopped();
 
         }
@@ -189,21 +216,55 @@ public class ErlangDebuggerNode {
     }
   }
 
-  private void serverLoop(@NotNull Socket debuggerSocket) throws IOException {
-    debuggerSocket.setSoTimeout(RECEIVE_TIMEOUT);
-
+  /**
+   * Blocks on the socket until a message arrives, so an idle session doesn't consume CPU.
+   * The loop ends when the node is stopped, as stopping closes the socket.
+   */
+  private void readerLoop(@NotNull Socket debuggerSocket) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(debuggerSocket.getInputStream()));
     while (!isStopped()) {
-      if (!isStopped()) {
-        receiveMessage(debuggerSocket);
+      try {
+        receiveMessage(in);
       }
+      catch (SocketException | EOFException e) {
+        if (isStopped()) return;
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Sends queued commands as soon as they are added, parking while the queue is empty.
+   */
+  private void writerLoop(@NotNull Socket debuggerSocket) {
+    myWriterThread = Thread.currentThread();
+    try {
+      OutputStream out = new BufferedOutputStream(debuggerSocket.getOutputStream());
+      while (!isStopped()) {
+        ErlangDebuggerCommandsProducer.ErlangDebuggerCommand command = myCommandsQueue.poll();
+        if (command == null) {
+          out.flush();
+          LockSupport.park(this);
+          continue;
+        }
+        OtpErlangTuple message = command.toMessage();
+        LOG.debug("Sending message: " + message);
+        send(out, message);
+      }
+    }
+    catch (IOException e) {
       if (!isStopped()) {
-        sendMessages(debuggerSocket);
+        LOG.debug(e);
+        stop();
       }
     }
+    finally {
+      myWriterThread = null;
+    }
   }
 
-  private void receiveMessage(@NotNull Socket socket) throws SocketException {
-    OtpErlangObject receivedMessage = receive(socket);
+  private void receiveMessage(@NotNull DataInputStream in) throws IOException {
+    OtpErlangObject receivedMessage = receive(in);
     if (receivedMessage == null) return;
 
     LOG.debug("Message received: " + receivedMessage);
@@ -217,108 +278,23 @@ public class ErlangDebuggerNode {
     LOG.debug("Message processed: " + messageRecognized);
   }
 
-  private void sendMessages(@NotNull Socket socket) throws SocketException {
-    synchronized (myCommandsQueue) {
-      while (!myCommandsQueue.isEmpty()) {
-        OtpErlangTuple message = myCommandsQueue.remove().toMessage();
-        LOG.debug("Sending message: " + message);
-        send(socket, message);
-      }
-    }
-  }
-
-  private static void send(@NotNull Socket socket, @NotNull OtpErlangObject message) throws SocketException {
-    try {
-      OutputStream out = socket.getOutputStream();
+  private static void send(@NotNull OutputStream out, @NotNull OtpErlangObject message) throws IOException {
+    byte[] bytes = new OtpOutputStream(message).toByteArray();
+    byte[] sizeBytes = ByteBuffer.allocate(4).putInt(1 + bytes.length).array();
 
-      byte[] bytes = new OtpOutputStream(message).toByteArray();
-      byte[] sizeBytes = ByteBuffer.allocate(4).putInt(1 + bytes.length).array();
-
-      out.write(sizeBytes);
-      out.write(OtpExternal.versionTag);
-      out.write(bytes);
-    }
-    catch (SocketException e) {
-      throw e;
-    }
-    catch (IOException e) {
-      LOG.debug(e);
-    }
+    out.write(sizeBytes);
+    out.write(OtpExternal.versionTag);
+    out.write(bytes);
   }
 
   @Nullable
-  private static OtpErlangObject receive(@NotNull Socket socket) throws SocketException {
-    try {
-      InputStream in = socket.getInputStream();
-
-      int objectSize = readObjectSize(in);
-      if (objectSize == -1) return null;
-
-      LOG.debug("Incoming packet size: " + objectSize + " bytes");
-
-      byte[] objectBytes = readBytes(in, objectSize, true);
-      return objectBytes == null ? null : decode(objectBytes);
-    }
-    catch (SocketException e) {
-      throw e;
-    }
-    catch (IOException e) {
-      LOG.debug(e);
-    }
-    return null;
-  }
+  private static OtpErlangObject receive(@NotNull DataInputStream in) throws IOException {
+    int objectSize = in.readInt();
+    LOG.debug("Incoming packet size: " + objectSize + " bytes");
 
-  private static int readObjectSize(@NotNull InputStream in) throws SocketException {
-    byte[] bytes = readBytes(in, 4, false);
-    return bytes != null ? ByteBuffer.wrap(bytes).getInt() : -1;
-  }
-
-  /**
-   * Reads size bytes from passed socket input stream.
-   * <p/>
-   * Makes #RETRIES_ON_TIMEOUT attempts to read input unless the read request is not forced and no bytes were read.
-   *
-   * @param in
-   * @param size
-   * @param force
-   * @return bytes read or null if the request was not forced and it timed out, or if an I/O exception occurred.
-   * @throws SocketException when a socket exception is thrown from passed input stream or if a number of
-   *                         retry attempts was exceeded.
-   */
-  @Nullable
-  private static byte[] readBytes(@NotNull InputStream in, int size, boolean force) throws SocketException {
-    try {
-      int bytesReadTotal = 0;
-      byte[] buffer = new byte[size];
-
-      int attemptsMade = 0;
-      while (size != bytesReadTotal) {
-        try {
-          int bytesRead = in.read(buffer, bytesReadTotal, size - bytesReadTotal);
-          if (bytesRead < 0) {
-            throw new SocketException("A socket was closed.");
-          }
-          bytesReadTotal += bytesRead;
-        }
-        catch (SocketTimeoutException e) {
-          // if we're not forced to read, but we touched the stream, we're forced
-          if (bytesReadTotal == 0 && !force) {
-            return null;
-          }
-          if (++attemptsMade >= RETRIES_ON_TIMEOUT) {
-            throw e;
-          }
-        }
-      }
-      return buffer;
-    }
-    catch (SocketException e) {
-      throw e;
-    }
-    catch (IOException e) {
-      LOG.debug(e);
-      return null;
-    }
+    byte[] objectBytes = new byte[objectSize];
+    in.readFully(objectBytes);
+    return decode(objectBytes);
   }
 
   @Nullable
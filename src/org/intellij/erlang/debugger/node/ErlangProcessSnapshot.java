@@ -33,7 +33,7 @@ public class ErlangProcessSnapshot {
 
   public ErlangProcessSnapshot(@NotNull OtpErlangPid pid, @NotNull ErlangTraceElement init, @NotNull String status,
                                @Nullable String breakModule, int breakLine,
-                               @Nullable String exitReason, @NotNull List<ErlangTraceElement> stack) {
+                               @Nullable String exitReason, @Nullable List<ErlangTraceElement> stack) {
     myPid = pid;
     myInit = init;
     myStatus = status;
@@ -77,7 +77,10 @@ public class ErlangProcessSnapshot {
     return myExitReason;
   }
 
-  @NotNull
+  /**
+   * @return process stack, or null if it was not sent along with the snapshot and should be requested separately.
+   */
+  @Nullable
   public List<ErlangTraceElement> getStack() {
     return myStack;
   }
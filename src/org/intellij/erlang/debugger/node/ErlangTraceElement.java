@@ -34,7 +34,7 @@ public class ErlangTraceElement {
                             @NotNull String module,
                             @NotNull String function,
                             @NotNull OtpErlangList functionArgs,
-                            @NotNull Collection<ErlangVariableBinding> bindings,
+                            @Nullable Collection<ErlangVariableBinding> bindings,
                             @NotNull Integer line) {
     myStackPointer = stackPointer;
     myModule = module;
@@ -62,7 +62,10 @@ public class ErlangTraceElement {
     return myFunctionArgs;
   }
 
-  @NotNull
+  /**
+   * @return frame bindings, or null if they were not sent along with the stack and should be requested separately.
+   */
+  @Nullable
   public Collection<ErlangVariableBinding> getBindings() {
     return myBindings;
   }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.node;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A large list, tuple, map or binary which the debugger node sent as a preview of its first elements.
+ * The remaining elements are requested in pages by the handle id.
+ */
+public final class ErlangValueHandle {
+  private static final String TAG = "$value_handle";
+
+  public enum Kind {LIST, TUPLE, MAP, BINARY}
+
+  private final long myId;
+  private final Kind myKind;
+  private final int mySize;
+  private final OtpErlangObject myPreview;
+
+  private ErlangValueHandle(long id, @NotNull Kind kind, int size, @NotNull OtpErlangObject preview) {
+    myId = id;
+    myKind = kind;
+    mySize = size;
+    myPreview = preview;
+  }
+
+  public long getId() {
+    return myId;
+  }
+
+  @NotNull
+  public Kind getKind() {
+    return myKind;
+  }
+
+  /**
+   * @return total number of elements, entries or bytes of the value.
+   */
+  public int getSize() {
+    return mySize;
+  }
+
+  /**
+   * @return a list of the first elements ({key, value} tuples for maps), or a binary prefix for binaries.
+   */
+  @NotNull
+  public OtpErlangObject getPreview() {
+    return myPreview;
+  }
+
+  @Nullable
+  public static ErlangValueHandle fromTerm(@Nullable OtpErlangObject term) {
+    if (!(term instanceof OtpErlangTuple)) return null;
+    OtpErlangTuple tuple = (OtpErlangTuple) term;
+    if (tuple.arity() != 5 || !(tuple.elementAt(0) instanceof OtpErlangAtom) ||
+        !TAG.equals(((OtpErlangAtom) tuple.elementAt(0)).atomValue())) {
+      return null;
+    }
+    OtpErlangObject id = tuple.elementAt(1);
+    OtpErlangObject kind = tuple.elementAt(2);
+    OtpErlangObject size = tuple.elementAt(3);
+    if (!(id instanceof OtpErlangLong) || !(kind instanceof OtpErlangAtom) || !(size instanceof OtpErlangLong)) return null;
+    try {
+      Kind handleKind = Kind.valueOf(StringUtil.toUpperCase(((OtpErlangAtom) kind).atomValue()));
+      return new ErlangValueHandle(((OtpErlangLong) id).longValue(), handleKind, ((OtpErlangLong) size).intValue(),
+                                   tuple.elementAt(4));
+    }
+    catch (IllegalArgumentException | OtpErlangRangeException e) {
+      return null;
+    }
+  }
+}
@@ -84,6 +84,21 @@ public final class ErlangDebuggerCommandsProducer {
     return new EvaluateCommand(pid, expression, traceElement, expressionPosition);
   }
 
+  @NotNull
+  public static ErlangDebuggerCommand getGetStackCommand(@NotNull OtpErlangPid pid) {
+    return new GetStackCommand(pid);
+  }
+
+  @NotNull
+  public static ErlangDebuggerCommand getGetBindingsCommand(@NotNull OtpErlangPid pid, int stackPointer) {
+    return new GetBindingsCommand(pid, stackPointer);
+  }
+
+  @NotNull
+  public static ErlangDebuggerCommand getGetValuePageCommand(long handleId, int from, int count) {
+    return new GetValuePageCommand(handleId, from, count);
+  }
+
   private static class StepOverCommand extends AbstractPidCommand {
     public StepOverCommand(@NotNull OtpErlangPid pid) {
       super("step_over", pid);
@@ -171,6 +186,55 @@ public final class ErlangDebuggerCommandsProducer {
     }
   }
 
+  private static class GetStackCommand extends AbstractPidCommand {
+    GetStackCommand(@NotNull OtpErlangPid pid) {
+      super("get_stack", pid);
+    }
+  }
+
+  private static class GetBindingsCommand implements ErlangDebuggerCommand {
+    private final OtpErlangPid myPid;
+    private final int myStackPointer;
+
+    GetBindingsCommand(@NotNull OtpErlangPid pid, int stackPointer) {
+      myPid = pid;
+      myStackPointer = stackPointer;
+    }
+
+    @NotNull
+    @Override
+    public OtpErlangTuple toMessage() {
+      return new OtpErlangTuple(new OtpErlangObject[]{
+        new OtpErlangAtom("get_bindings"),
+        myPid,
+        new OtpErlangInt(myStackPointer)
+      });
+    }
+  }
+
+  private static class GetValuePageCommand implements ErlangDebuggerCommand {
+    private final long myHandleId;
+    private final int myFrom;
+    private final int myCount;
+
+    GetValuePageCommand(long handleId, int from, int count) {
+      myHandleId = handleId;
+      myFrom = from;
+      myCount = count;
+    }
+
+    @NotNull
+    @Override
+    public OtpErlangTuple toMessage() {
+      return new OtpErlangTuple(new OtpErlangObject[]{
+        new OtpErlangAtom("get_value_page"),
+        new OtpErlangLong(myHandleId),
+        new OtpErlangInt(myFrom),
+        new OtpErlangInt(myCount)
+      });
+    }
+  }
+
   private static class InterpretModulesCommand implements ErlangDebuggerCommand {
     private final List<String> myModuleSourcePaths;
 
@@ -33,6 +33,7 @@ import static org.intellij.erlang.debugger.node.events.OtpErlangTermUtil.*;
 
 class BreakpointReachedEvent extends ErlangDebuggerEvent {
   public static final String NAME = "breakpoint_reached";
+  private static final String NOT_LOADED = "not_loaded";
 
   @Nullable
   private OtpErlangPid myActivePid;
@@ -49,12 +50,13 @@ class BreakpointReachedEvent extends ErlangDebuggerEvent {
       OtpErlangTuple snapshotTuple = getTupleValue(snapshot); // {Pid, Function, Status, Info, Stack}
 
       OtpErlangPid pid = getPidValue(elementAt(snapshotTuple, 0));
-      ErlangTraceElement init = getTraceElement(getTupleValue(elementAt(snapshotTuple, 1)), null, null, null);
+      ErlangTraceElement init = getTraceElement(getTupleValue(elementAt(snapshotTuple, 1)), null, null, ContainerUtil.emptyList());
       String status = getAtomText(elementAt(snapshotTuple, 2));
       OtpErlangObject info = elementAt(snapshotTuple, 3);
-      List<ErlangTraceElement> stack = getStack(getListValue(elementAt(snapshotTuple, 4)));
+      OtpErlangObject stackObject = elementAt(snapshotTuple, 4);
+      List<ErlangTraceElement> stack = isNotLoaded(stackObject) ? null : getStack(getListValue(stackObject));
 
-      if (pid == null || init == null || status == null || info == null || stack == null) {
+      if (pid == null || init == null || status == null || info == null || stack == null && !isNotLoaded(stackObject)) {
         throw new DebuggerEventFormatException();
       }
 
@@ -80,8 +82,16 @@ class BreakpointReachedEvent extends ErlangDebuggerEvent {
     eventListener.breakpointReached(myActivePid, mySnapshots);
   }
 
+  /**
+   * Stacks of processes other than the one which reached a breakpoint and bindings of frames other than the top one
+   * are sent as 'not_loaded', they are requested when the user expands them.
+   */
+  static boolean isNotLoaded(@Nullable OtpErlangObject object) {
+    return NOT_LOADED.equals(getAtomText(object));
+  }
+
   @Nullable
-  private static List<ErlangTraceElement> getStack(@Nullable OtpErlangList traceElementsList) {
+  static List<ErlangTraceElement> getStack(@Nullable OtpErlangList traceElementsList) {
     if (traceElementsList == null) return null;
     List<ErlangTraceElement> stack = new ArrayList<>(traceElementsList.arity());
     for (OtpErlangObject traceElementObject : traceElementsList) {
@@ -89,8 +99,9 @@ class BreakpointReachedEvent extends ErlangDebuggerEvent {
       Integer stackPointer = getIntegerValue(elementAt(traceElementTuple, 0));
       OtpErlangTuple moduleFunctionArgsTuple = getTupleValue(elementAt(traceElementTuple, 1));
       OtpErlangTuple stackFrameTuple = getTupleValue(elementAt(traceElementTuple, 2));
-      OtpErlangList bindingsList = getListValue(elementAt(traceElementTuple, 3));
-      ErlangTraceElement traceElement = getTraceElement(moduleFunctionArgsTuple, stackPointer, stackFrameTuple, bindingsList);
+      OtpErlangObject bindingsObject = elementAt(traceElementTuple, 3);
+      Collection<ErlangVariableBinding> bindings = isNotLoaded(bindingsObject) ? null : getBindings(getListValue(bindingsObject));
+      ErlangTraceElement traceElement = getTraceElement(moduleFunctionArgsTuple, stackPointer, stackFrameTuple, bindings);
       if (traceElement == null) return null;
       stack.add(traceElement);
     }
@@ -101,19 +112,18 @@ class BreakpointReachedEvent extends ErlangDebuggerEvent {
   private static ErlangTraceElement getTraceElement(@Nullable OtpErlangTuple moduleFunctionArgsTuple,
                                                     @Nullable Integer stackPointer,
                                                     @Nullable OtpErlangTuple stackFrameTuple,
-                                                    @Nullable OtpErlangList bindingsList) {
+                                                    @Nullable Collection<ErlangVariableBinding> bindings) {
     String moduleName = getAtomText(elementAt(moduleFunctionArgsTuple, 0));
     String functionName = getAtomText(elementAt(moduleFunctionArgsTuple, 1));
     OtpErlangList args = getListValue(elementAt(moduleFunctionArgsTuple, 2));
     Integer line = getIntegerValue(elementAt(stackFrameTuple, 1));
     line = line == null ? 0 : line - 1;
-    Collection<ErlangVariableBinding> bindings = getBindings(bindingsList);
     if (moduleName == null || functionName == null || args == null) return null; // bindings are not necessarily present
     return new ErlangTraceElement(stackPointer, moduleName, functionName, args, bindings, line);
   }
 
   @NotNull
-  private static Collection<ErlangVariableBinding> getBindings(@Nullable OtpErlangList bindingsList) {
+  static Collection<ErlangVariableBinding> getBindings(@Nullable OtpErlangList bindingsList) {
     if (bindingsList == null) return ContainerUtil.emptyList();
     Collection<ErlangVariableBinding> bindings = new ArrayList<>(bindingsList.arity());
     for (OtpErlangObject bindingObject : bindingsList) {
@@ -41,6 +41,12 @@ public abstract class ErlangDebuggerEvent {
           return new SetBreakpointResponseEvent(messageTuple);
         case BreakpointReachedEvent.NAME:
           return new BreakpointReachedEvent(messageTuple);
+        case ProcessStackEvent.NAME:
+          return new ProcessStackEvent(messageTuple);
+        case FrameBindingsEvent.NAME:
+          return new FrameBindingsEvent(messageTuple);
+        case ValuePageEvent.NAME:
+          return new ValuePageEvent(messageTuple);
         case DebugRemoteNodeResponseEvent.NAME:
           return new DebugRemoteNodeResponseEvent(messageTuple);
         case EvaluateResponseEvent.NAME:
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.node.events;
+
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import org.intellij.erlang.debugger.node.ErlangDebuggerEventListener;
+import org.intellij.erlang.debugger.node.ErlangDebuggerNode;
+import org.intellij.erlang.debugger.node.ErlangVariableBinding;
+
+import java.util.Collection;
+
+import static org.intellij.erlang.debugger.node.events.OtpErlangTermUtil.*;
+
+class FrameBindingsEvent extends ErlangDebuggerEvent {
+  public static final String NAME = "frame_bindings";
+  private final OtpErlangPid myPid;
+  private final int myStackPointer;
+  private final Collection<ErlangVariableBinding> myBindings;
+
+  public FrameBindingsEvent(OtpErlangTuple frameBindingsMessage) throws DebuggerEventFormatException {
+    OtpErlangPid pid = getPidValue(elementAt(frameBindingsMessage, 1));
+    Integer stackPointer = getIntegerValue(elementAt(frameBindingsMessage, 2));
+    if (pid == null || stackPointer == null) throw new DebuggerEventFormatException();
+
+    myPid = pid;
+    myStackPointer = stackPointer;
+    myBindings = BreakpointReachedEvent.getBindings(getListValue(elementAt(frameBindingsMessage, 3)));
+  }
+
+  @Override
+  public void process(ErlangDebuggerNode debuggerNode, ErlangDebuggerEventListener eventListener) {
+    eventListener.bindingsReceived(myPid, myStackPointer, myBindings);
+  }
+}
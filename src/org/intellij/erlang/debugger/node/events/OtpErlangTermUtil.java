@@ -21,7 +21,7 @@ import com.intellij.openapi.util.text.StringUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-final class OtpErlangTermUtil {
+public final class OtpErlangTermUtil {
   private OtpErlangTermUtil() {
   }
 
@@ -35,6 +35,13 @@ final class OtpErlangTermUtil {
     }
   }
 
+  @Nullable
+  public static Long getLongValue(@Nullable OtpErlangObject longObject) {
+    return longObject instanceof OtpErlangLong && ((OtpErlangLong) longObject).isLong()
+           ? ((OtpErlangLong) longObject).longValue()
+           : null;
+  }
+
   @Nullable
   public static OtpErlangList getListValue(@Nullable OtpErlangObject listObject) {
     if (listObject instanceof OtpErlangList) {
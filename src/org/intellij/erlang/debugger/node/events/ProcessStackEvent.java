@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.node.events;
+
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import org.intellij.erlang.debugger.node.ErlangDebuggerEventListener;
+import org.intellij.erlang.debugger.node.ErlangDebuggerNode;
+import org.intellij.erlang.debugger.node.ErlangTraceElement;
+
+import java.util.List;
+
+import static org.intellij.erlang.debugger.node.events.OtpErlangTermUtil.*;
+
+class ProcessStackEvent extends ErlangDebuggerEvent {
+  public static final String NAME = "process_stack";
+  private final OtpErlangPid myPid;
+  private final List<ErlangTraceElement> myStack;
+
+  public ProcessStackEvent(OtpErlangTuple processStackMessage) throws DebuggerEventFormatException {
+    OtpErlangPid pid = getPidValue(elementAt(processStackMessage, 1));
+    List<ErlangTraceElement> stack = BreakpointReachedEvent.getStack(getListValue(elementAt(processStackMessage, 2)));
+    if (pid == null || stack == null) throw new DebuggerEventFormatException();
+
+    myPid = pid;
+    myStack = stack;
+  }
+
+  @Override
+  public void process(ErlangDebuggerNode debuggerNode, ErlangDebuggerEventListener eventListener) {
+    eventListener.stackReceived(myPid, myStack);
+  }
+}
@@ -44,7 +44,9 @@ class SetBreakpointResponseEvent extends ErlangDebuggerEvent {
     else if (statusObject instanceof OtpErlangTuple) {
       OtpErlangTuple errorTuple = (OtpErlangTuple) statusObject;
       if (!OtpErlangTermUtil.isErrorAtom(errorTuple.elementAt(0))) throw new DebuggerEventFormatException();
-      myError = OtpErlangTermUtil.toString(errorTuple.elementAt(1));
+      OtpErlangObject reason = errorTuple.elementAt(1);
+      String reasonText = OtpErlangTermUtil.getStringText(reason);
+      myError = reasonText != null ? reasonText : OtpErlangTermUtil.toString(reason);
     }
     else {
       throw new DebuggerEventFormatException();
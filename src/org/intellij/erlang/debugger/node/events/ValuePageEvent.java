@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.node.events;
+
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import org.intellij.erlang.debugger.node.ErlangDebuggerEventListener;
+import org.intellij.erlang.debugger.node.ErlangDebuggerNode;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.intellij.erlang.debugger.node.events.OtpErlangTermUtil.*;
+
+class ValuePageEvent extends ErlangDebuggerEvent {
+  public static final String NAME = "value_page";
+  private final long myHandleId;
+  private final int myFrom;
+  private final List<OtpErlangObject> myElements;
+
+  public ValuePageEvent(OtpErlangTuple valuePageMessage) throws DebuggerEventFormatException {
+    Long handleId = getLongValue(elementAt(valuePageMessage, 1));
+    Integer from = getIntegerValue(elementAt(valuePageMessage, 2));
+    if (handleId == null || from == null) throw new DebuggerEventFormatException();
+
+    myHandleId = handleId;
+    myFrom = from;
+    OtpErlangList elements = getListValue(elementAt(valuePageMessage, 3)); // 'not_found' if the value was released
+    myElements = elements != null ? Arrays.asList(elements.elements()) : null;
+  }
+
+  @Override
+  public void process(ErlangDebuggerNode debuggerNode, ErlangDebuggerEventListener eventListener) {
+    eventListener.valuePageReceived(myHandleId, myFrom, myElements);
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.xdebug;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.ProcessOutput;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.io.StreamUtil;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.ResourceUtil;
+import com.intellij.util.io.URLUtil;
+import org.intellij.erlang.jps.model.JpsErlangSdkType;
+import org.intellij.erlang.sdk.ErlangSdkRelease;
+import org.intellij.erlang.sdk.ErlangSystemUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.URL;
+import java.util.zip.CRC32;
+
+import static org.intellij.erlang.debugger.ErlangDebuggerLog.LOG;
+
+/**
+ * Debugger support modules compiled once per OTP release with the SDK's erlc and kept in the system directory,
+ * so that debug sessions don't copy and compile them on every start.
+ */
+final class ErlangDebuggerBeamsCache {
+  static final String SOURCES_PATH = "/debugger/src";
+  static final String[] MODULES = {"debugnode.erl", "debug_condition.erl", "debug_eval.erl",
+                                   "remote_debugger.erl", "remote_debugger_listener.erl", "remote_debugger_notifier.erl"};
+  static final String[] HEADERS = {"process_names.hrl", "remote_debugger_messages.hrl", "trace_utils.hrl"};
+
+  private static final Object LOCK = new Object();
+  private static String ourSourcesHash;
+
+  private ErlangDebuggerBeamsCache() {
+  }
+
+  /**
+   * @return a directory with compiled debugger modules, or null if they failed to compile.
+   */
+  @Nullable
+  static File getBeamsDirectory(@NotNull String sdkHome, @NotNull ErlangSdkRelease release) {
+    return getBeamsDirectory(new File(PathManager.getSystemPath(), "erlang/debugger"), sdkHome, release);
+  }
+
+  @Nullable
+  static File getBeamsDirectory(@NotNull File cacheRoot, @NotNull String sdkHome, @NotNull ErlangSdkRelease release) {
+    synchronized (LOCK) {
+      try {
+        File directory = new File(cacheRoot, getCacheKey(release));
+        if (isComplete(directory)) return directory;
+        FileUtil.delete(directory);
+        compile(sdkHome, directory);
+        return isComplete(directory) ? directory : null;
+      }
+      catch (IOException | ExecutionException e) {
+        LOG.warn("Failed to compile debugger modules for " + release, e);
+        return null;
+      }
+    }
+  }
+
+  static void copyResources(@NotNull String[] files, @NotNull File directory, @NotNull String basePath) throws IOException {
+    for (String filename : files) {
+      try (InputStream inputStream = openResource(basePath, filename);
+           OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(new File(directory, filename)))) {
+        FileUtil.copy(inputStream, outputStream);
+      }
+    }
+  }
+
+  /**
+   * Beams compiled for another OTP release or erts version, or by a previous version of the plugin, are not reused.
+   */
+  @NotNull
+  static String getCacheKey(@NotNull ErlangSdkRelease release) throws IOException {
+    return FileUtil.sanitizeFileName(release.getOtpRelease() + "-" + release.getErtsVersion() + "-" + getSourcesHash());
+  }
+
+  static boolean isComplete(@NotNull File directory) {
+    for (String module : MODULES) {
+      if (!new File(directory, FileUtil.getNameWithoutExtension(module) + ".beam").isFile()) return false;
+    }
+    return true;
+  }
+
+  private static void compile(@NotNull String sdkHome, @NotNull File directory) throws IOException, ExecutionException {
+    File sourcesDirectory = FileUtil.createTempDirectory("intellij_erlang_debugger_src_", null, true);
+    boolean compiled = false;
+    try {
+      copyResources(MODULES, sourcesDirectory, SOURCES_PATH);
+      copyResources(HEADERS, sourcesDirectory, SOURCES_PATH);
+      FileUtil.createDirectory(directory);
+      GeneralCommandLine commandLine = new GeneralCommandLine(JpsErlangSdkType.getByteCodeCompilerExecutable(sdkHome).getAbsolutePath())
+        .withWorkDirectory(sourcesDirectory)
+        .withParameters("-o", directory.getAbsolutePath())
+        .withParameters(MODULES);
+      ProcessOutput output = ErlangSystemUtil.execute(commandLine);
+      if (output.getExitCode() != 0 || output.isTimeout() || output.isCancelled()) {
+        throw new ExecutionException("erlc failed: " + output.getStdout() + output.getStderr());
+      }
+      compiled = true;
+    }
+    finally {
+      if (!compiled) {
+        FileUtil.delete(directory);
+      }
+      FileUtil.delete(sourcesDirectory);
+    }
+  }
+
+  @NotNull
+  private static String getSourcesHash() throws IOException {
+    if (ourSourcesHash == null) {
+      CRC32 crc = new CRC32();
+      for (String file : ArrayUtil.mergeArrays(MODULES, HEADERS)) {
+        try (InputStream inputStream = openResource(SOURCES_PATH, file)) {
+          crc.update(StreamUtil.loadFromStream(inputStream));
+        }
+      }
+      ourSourcesHash = Long.toHexString(crc.getValue());
+    }
+    return ourSourcesHash;
+  }
+
+  @NotNull
+  private static InputStream openResource(@NotNull String basePath, @NotNull String filename) throws IOException {
+    URL url = ResourceUtil.getResource(ErlangDebuggerBeamsCache.class, basePath, filename);
+    if (url == null) {
+      throw new IOException("Failed to locate debugger module: " + filename);
+    }
+    return new BufferedInputStream(URLUtil.openStream(url));
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.xdebug;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.intellij.openapi.util.Pair;
+import com.intellij.util.SmartList;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.debugger.node.ErlangDebuggerNode;
+import org.intellij.erlang.debugger.node.ErlangTraceElement;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
+import org.intellij.erlang.debugger.node.ErlangVariableBinding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Requests for data which the debugger node sends on demand while processes are suspended: stacks of processes,
+ * bindings of stack frames and pages of large values. Concurrent requests for the same data are served by a single
+ * round trip to the node.
+ * <p>
+ * The node drops such requests once the processes are resumed, so resuming, stepping and stopping go through this
+ * class and call back pending requests with {@code null}.
+ */
+final class ErlangDebuggerRequests {
+  private final ErlangDebuggerNode myDebuggerNode;
+  private final Map<OtpErlangPid, List<Consumer<List<ErlangTraceElement>>>> myStackCallbacks = new HashMap<>();
+  private final Map<Pair<OtpErlangPid, Integer>, List<Consumer<Collection<ErlangVariableBinding>>>> myBindingsCallbacks =
+    new HashMap<>();
+  private final Map<Pair<Long, Integer>, List<Consumer<List<OtpErlangObject>>>> myValuePageCallbacks = new HashMap<>();
+
+  ErlangDebuggerRequests(@NotNull ErlangDebuggerNode debuggerNode) {
+    myDebuggerNode = debuggerNode;
+  }
+
+  synchronized void requestStack(@NotNull OtpErlangPid pid, @NotNull Consumer<List<ErlangTraceElement>> callback) {
+    List<Consumer<List<ErlangTraceElement>>> callbacks = myStackCallbacks.get(pid);
+    if (callbacks == null) {
+      myStackCallbacks.put(pid, callbacks = new SmartList<>());
+      myDebuggerNode.requestStack(pid);
+    }
+    callbacks.add(callback);
+  }
+
+  synchronized void requestBindings(@NotNull OtpErlangPid pid,
+                                    int stackPointer,
+                                    @NotNull Consumer<Collection<ErlangVariableBinding>> callback) {
+    Pair<OtpErlangPid, Integer> key = Pair.create(pid, stackPointer);
+    List<Consumer<Collection<ErlangVariableBinding>>> callbacks = myBindingsCallbacks.get(key);
+    if (callbacks == null) {
+      myBindingsCallbacks.put(key, callbacks = new SmartList<>());
+      myDebuggerNode.requestBindings(pid, stackPointer);
+    }
+    callbacks.add(callback);
+  }
+
+  synchronized void loadPage(@NotNull ErlangValueHandle handle,
+                             int from,
+                             int count,
+                             @NotNull Consumer<List<OtpErlangObject>> callback) {
+    Pair<Long, Integer> key = Pair.create(handle.getId(), from);
+    List<Consumer<List<OtpErlangObject>>> callbacks = myValuePageCallbacks.get(key);
+    if (callbacks == null) {
+      myValuePageCallbacks.put(key, callbacks = new SmartList<>());
+      myDebuggerNode.requestValuePage(handle.getId(), from, count);
+    }
+    callbacks.add(callback);
+  }
+
+  void stackReceived(@NotNull OtpErlangPid pid, @NotNull List<ErlangTraceElement> stack) {
+    List<Consumer<List<ErlangTraceElement>>> callbacks;
+    synchronized (this) {
+      callbacks = myStackCallbacks.remove(pid);
+    }
+    if (callbacks == null) return;
+    for (Consumer<List<ErlangTraceElement>> callback : callbacks) {
+      callback.accept(stack);
+    }
+  }
+
+  void bindingsReceived(@NotNull OtpErlangPid pid, int stackPointer, @NotNull Collection<ErlangVariableBinding> bindings) {
+    List<Consumer<Collection<ErlangVariableBinding>>> callbacks;
+    synchronized (this) {
+      callbacks = myBindingsCallbacks.remove(Pair.create(pid, stackPointer));
+    }
+    if (callbacks == null) return;
+    for (Consumer<Collection<ErlangVariableBinding>> callback : callbacks) {
+      callback.accept(bindings);
+    }
+  }
+
+  void valuePageReceived(long handleId, int from, @Nullable List<OtpErlangObject> elements) {
+    List<Consumer<List<OtpErlangObject>>> callbacks;
+    synchronized (this) {
+      callbacks = myValuePageCallbacks.remove(Pair.create(handleId, from));
+    }
+    if (callbacks == null) return;
+    for (Consumer<List<OtpErlangObject>> callback : callbacks) {
+      callback.accept(elements);
+    }
+  }
+
+  void resume() {
+    failPendingRequests();
+    myDebuggerNode.resume();
+  }
+
+  void stepInto() {
+    failPendingRequests();
+    myDebuggerNode.stepInto();
+  }
+
+  void stepOver() {
+    failPendingRequests();
+    myDebuggerNode.stepOver();
+  }
+
+  void stepOut() {
+    failPendingRequests();
+    myDebuggerNode.stepOut();
+  }
+
+  void stop() {
+    failPendingRequests();
+    myDebuggerNode.stop();
+  }
+
+  void failPendingRequests() {
+    List<Consumer<List<ErlangTraceElement>>> stackCallbacks;
+    List<Consumer<Collection<ErlangVariableBinding>>> bindingsCallbacks;
+    List<Consumer<List<OtpErlangObject>>> valuePageCallbacks;
+    synchronized (this) {
+      stackCallbacks = ContainerUtil.flatten(myStackCallbacks.values());
+      bindingsCallbacks = ContainerUtil.flatten(myBindingsCallbacks.values());
+      valuePageCallbacks = ContainerUtil.flatten(myValuePageCallbacks.values());
+      myStackCallbacks.clear();
+      myBindingsCallbacks.clear();
+      myValuePageCallbacks.clear();
+    }
+    stackCallbacks.forEach(callback -> callback.accept(null));
+    bindingsCallbacks.forEach(callback -> callback.accept(null));
+    valuePageCallbacks.forEach(callback -> callback.accept(null));
+  }
+}
@@ -24,6 +24,7 @@ import org.intellij.erlang.debugger.node.ErlangTraceElement;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ErlangExecutionStack extends XExecutionStack {
@@ -35,7 +36,7 @@ public class ErlangExecutionStack extends XExecutionStack {
     super(snapshot.getPidString());
     myDebugProcess = debugProcess;
     myProcessSnapshot = snapshot;
-    myStack = new ArrayList<>(snapshot.getStack().size());
+    myStack = new ArrayList<>();
   }
 
   @Nullable
@@ -46,20 +47,41 @@ public class ErlangExecutionStack extends XExecutionStack {
 
   @Override
   public void computeStackFrames(int firstFrameIndex, XStackFrameContainer container) {
-    if (myStack.isEmpty()) {
-      List<ErlangTraceElement> traceElements = myProcessSnapshot.getStack();
+    List<ErlangTraceElement> traceElements = myProcessSnapshot.getStack();
+    if (traceElements == null && myStack.isEmpty()) {
+      // only the stack of the process which reached a breakpoint is sent along with the snapshot
+      myDebugProcess.requestStack(myProcessSnapshot.getPid(), stack -> {
+        if (stack == null) {
+          container.errorOccurred("The process was resumed before its stack was received");
+          return;
+        }
+        computeStackFrames(stack, firstFrameIndex, container);
+      });
+      return;
+    }
+    computeStackFrames(traceElements, firstFrameIndex, container);
+  }
+
+  private synchronized void computeStackFrames(@Nullable List<ErlangTraceElement> traceElements,
+                                               int firstFrameIndex,
+                                               XStackFrameContainer container) {
+    if (myStack.isEmpty() && traceElements != null) {
       for (ErlangTraceElement traceElement : traceElements) {
         boolean isTopStackFrame = myStack.isEmpty(); // if it's a top stack frame we can set a line that's being executed.
         ErlangStackFrame stackFrame = isTopStackFrame ?
-          new ErlangStackFrame(myDebugProcess, traceElement, ErlangSourcePosition.create(myDebugProcess.getLocationResolver(), myProcessSnapshot)) :
-          new ErlangStackFrame(myDebugProcess, traceElement);
+          new ErlangStackFrame(myDebugProcess, myProcessSnapshot.getPid(), traceElement, ErlangSourcePosition.create(myDebugProcess.getLocationResolver(), myProcessSnapshot)) :
+          new ErlangStackFrame(myDebugProcess, myProcessSnapshot.getPid(), traceElement);
         myStack.add(stackFrame);
       }
     }
     //@todo should add from firstFrameIndex to myStack.size not all
     //do this because when change setting or eval in eval expression stackFrames will be empty
-    if (firstFrameIndex < myStack.size())
+    if (firstFrameIndex < myStack.size()) {
       container.addStackFrames(myStack, true);
+    }
+    else {
+      container.addStackFrames(Collections.emptyList(), true);
+    }
   }
 
 
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.xdebug;
+
+import org.intellij.erlang.debugger.node.ErlangDebuggerNode;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Source paths of modules interpreted by the debugger node. Modules are interpreted on demand, when a breakpoint is
+ * set in them or they are stepped into, the rest of the code keeps running compiled.
+ */
+final class ErlangInterpretedModules {
+  private final ErlangDebuggerNode myDebuggerNode;
+  private final Set<String> myModuleSourcePaths = new HashSet<>();
+
+  ErlangInterpretedModules(@NotNull ErlangDebuggerNode debuggerNode) {
+    myDebuggerNode = debuggerNode;
+  }
+
+  /**
+   * Interprets the modules which are not interpreted yet.
+   */
+  synchronized void interpret(@NotNull Collection<String> moduleSourcePaths) {
+    List<String> modulesToInterpret = new ArrayList<>();
+    for (String path : moduleSourcePaths) {
+      if (myModuleSourcePaths.add(path)) {
+        modulesToInterpret.add(path);
+      }
+    }
+    if (!modulesToInterpret.isEmpty()) {
+      myDebuggerNode.interpretModules(modulesToInterpret);
+    }
+  }
+}
@@ -17,6 +17,7 @@
 package org.intellij.erlang.debugger.xdebug;
 
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.ui.ColoredTextContainer;
@@ -37,22 +38,31 @@ import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Collections;
+
 public class ErlangStackFrame extends XStackFrame {
   private final ErlangXDebugProcess myDebugProcess;
+  private final OtpErlangPid myPid;
   private final ErlangTraceElement myTraceElement;
   private final ErlangSourcePosition mySourcePosition;
+  private volatile Collection<ErlangVariableBinding> myBindings;
 
   public ErlangStackFrame(@NotNull ErlangXDebugProcess debugProcess,
+                          @NotNull OtpErlangPid pid,
                           @NotNull ErlangTraceElement traceElement) {
-    this(debugProcess, traceElement, ErlangSourcePosition.create(debugProcess.getLocationResolver(), traceElement));
+    this(debugProcess, pid, traceElement, ErlangSourcePosition.create(debugProcess.getLocationResolver(), traceElement));
   }
 
   public ErlangStackFrame(@NotNull ErlangXDebugProcess debugProcess,
+                          @NotNull OtpErlangPid pid,
                           @NotNull ErlangTraceElement traceElement,
                           @Nullable ErlangSourcePosition sourcePosition) {
     myDebugProcess = debugProcess;
+    myPid = pid;
     myTraceElement = traceElement;
     mySourcePosition = sourcePosition;
+    myBindings = traceElement.getBindings();
   }
 
   @Nullable
@@ -98,14 +108,32 @@ public class ErlangStackFrame extends XStackFrame {
 
   @Override
   public void computeChildren(@NotNull XCompositeNode node) {
-    XValueChildrenList myVariables = new XValueChildrenList(myTraceElement.getBindings().size());
-    for (ErlangVariableBinding binding : myTraceElement.getBindings()) {
+    Collection<ErlangVariableBinding> bindings = myBindings;
+    Integer stackPointer = myTraceElement.getStackPointer();
+    if (bindings == null && stackPointer != null) {
+      // bindings of frames other than the top one are fetched when the frame is selected
+      myDebugProcess.requestBindings(myPid, stackPointer, loadedBindings -> {
+        if (loadedBindings == null) {
+          node.setErrorMessage("The process was resumed before the frame bindings were received");
+          return;
+        }
+        myBindings = loadedBindings;
+        addChildren(node, loadedBindings);
+      });
+      return;
+    }
+    addChildren(node, bindings != null ? bindings : Collections.emptyList());
+  }
+
+  private void addChildren(@NotNull XCompositeNode node, @NotNull Collection<ErlangVariableBinding> bindings) {
+    XValueChildrenList myVariables = new XValueChildrenList(bindings.size());
+    for (ErlangVariableBinding binding : bindings) {
       myVariables.add(binding.getName(), getVariableValue(binding.getValue()));
     }
     node.addChildren(myVariables, true);
   }
 
-  private static XValue getVariableValue(OtpErlangObject value) {
-    return ErlangXValueFactory.create(value);
+  private XValue getVariableValue(OtpErlangObject value) {
+    return ErlangXValueFactory.create(value, myDebugProcess);
   }
 }
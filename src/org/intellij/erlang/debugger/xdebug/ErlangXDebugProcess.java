@@ -27,17 +27,28 @@ import com.intellij.execution.ui.ConsoleView;
 import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.execution.ui.ExecutionConsole;
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.ui.MessageType;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.PathUtil;
-import com.intellij.util.ResourceUtil;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.io.BaseOutputReader;
-import com.intellij.util.io.URLUtil;
 import com.intellij.xdebugger.XDebugProcess;
 import com.intellij.xdebugger.XDebugSession;
 import com.intellij.xdebugger.XDebugSessionListener;
@@ -52,24 +63,28 @@ import com.intellij.xdebugger.impl.XDebugSessionImpl;
 import org.intellij.erlang.debugger.node.*;
 import org.intellij.erlang.debugger.remote.ErlangRemoteDebugRunConfiguration;
 import org.intellij.erlang.debugger.remote.ErlangRemoteDebugRunningState;
+import org.intellij.erlang.debugger.xdebug.xvalue.ErlangValuePageLoader;
 import org.intellij.erlang.debugger.xdebug.xvalue.ErlangXValueFactory;
 import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangFunctionCallExpression;
+import org.intellij.erlang.psi.ErlangFunctionClause;
 import org.intellij.erlang.runconfig.ErlangRunConfigurationBase;
 import org.intellij.erlang.runconfig.ErlangRunningState;
+import org.intellij.erlang.sdk.ErlangSdkRelease;
+import org.intellij.erlang.sdk.ErlangSdkType;
 import org.intellij.erlang.utils.ErlangModulesUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
-import java.net.URL;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 
 import static org.intellij.erlang.debugger.ErlangDebuggerLog.LOG;
 
-public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebuggerEventListener {
-  private static File tempDirectory;
+public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebuggerEventListener, ErlangValuePageLoader {
   private final XDebugSession mySession;
   private final ExecutionEnvironment myExecutionEnvironment;
   private final ErlangRunningState myRunningState;
@@ -81,7 +96,8 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
   private final ConcurrentHashMap<ErlangSourcePosition, XLineBreakpoint<ErlangLineBreakpointProperties>> myPositionToLineBreakpointMap =
     new ConcurrentHashMap<>();
   private Queue<XDebuggerEvaluator.XEvaluationCallback> myCallbackQueue = new LinkedBlockingQueue<>();
-  private Set<String> InterpretedModules = new HashSet<>();
+  private final ErlangDebuggerRequests myRequests;
+  private final ErlangInterpretedModules myInterpretedModules;
   private boolean softUpdate = true;
 
   public ErlangXDebugProcess(@NotNull XDebugSession session, ExecutionEnvironment env) throws ExecutionException {
@@ -116,6 +132,8 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
     catch (ErlangDebuggerNodeException e) {
       throw new ExecutionException(e);
     }
+    myRequests = new ErlangDebuggerRequests(myDebuggerNode);
+    myInterpretedModules = new ErlangInterpretedModules(myDebuggerNode);
 
     //TODO split running debug target and debugger process spawning
     setModulesToInterpret();
@@ -143,10 +161,51 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
   public synchronized void handleEvaluationResponse(OtpErlangObject response) {
     XDebuggerEvaluator.XEvaluationCallback callback = myCallbackQueue.poll();
     if (callback != null) {
-      callback.evaluated(ErlangXValueFactory.create(response));
+      callback.evaluated(ErlangXValueFactory.create(response, this));
     }
   }
 
+  /**
+   * Requests the stack of a process which was not sent along with its snapshot. The callback receives {@code null}
+   * if the process is resumed or the debugger is stopped before the stack arrives.
+   */
+  public void requestStack(@NotNull OtpErlangPid pid, @NotNull Consumer<List<ErlangTraceElement>> callback) {
+    myRequests.requestStack(pid, callback);
+  }
+
+  /**
+   * Requests the bindings of a stack frame. The callback receives {@code null} if the process is resumed or the
+   * debugger is stopped before the bindings arrive.
+   */
+  public void requestBindings(@NotNull OtpErlangPid pid,
+                              int stackPointer,
+                              @NotNull Consumer<Collection<ErlangVariableBinding>> callback) {
+    myRequests.requestBindings(pid, stackPointer, callback);
+  }
+
+  @Override
+  public void stackReceived(OtpErlangPid pid, List<ErlangTraceElement> stack) {
+    myRequests.stackReceived(pid, stack);
+  }
+
+  @Override
+  public void bindingsReceived(OtpErlangPid pid, int stackPointer, Collection<ErlangVariableBinding> bindings) {
+    myRequests.bindingsReceived(pid, stackPointer, bindings);
+  }
+
+  @Override
+  public void loadPage(@NotNull ErlangValueHandle handle,
+                       int from,
+                       int count,
+                       @NotNull Consumer<List<OtpErlangObject>> callback) {
+    myRequests.loadPage(handle, from, count, callback);
+  }
+
+  @Override
+  public void valuePageReceived(long handleId, int from, @Nullable List<OtpErlangObject> elements) {
+    myRequests.valuePageReceived(handleId, from, elements);
+  }
+
   @Override
   public void debuggerStarted() {
     getSession().reportMessage("Debug process started", MessageType.INFO);
@@ -262,6 +321,7 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
   @Override
   public void debuggerStopped() {
     getSession().reportMessage("Debug process stopped", MessageType.INFO);
+    myRequests.failPendingRequests();
     getSession().stop();
   }
 
@@ -311,8 +371,7 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
         moduleSourcePaths.add(PathUtil.getLocalPath(file));
       }
     }
-    InterpretedModules.addAll(moduleSourcePaths);
-    myDebuggerNode.interpretModules(moduleSourcePaths);
+    myInterpretedModules.interpret(moduleSourcePaths);
   }
 
   @NotNull
@@ -338,33 +397,77 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
 
   @Override
   public void startStepOver(@Nullable XSuspendContext context) {
-    myDebuggerNode.stepOver();
+    myRequests.stepOver();
   }
 
   @Override
   public void startStepInto(@Nullable XSuspendContext context) {
-    myDebuggerNode.stepInto();
+    if (getRunConfiguration().getInterpretScope() == ErlangRunConfigurationBase.SCOPE_IN_BREAK_POINT_FILE) {
+      XSourcePosition position = mySession.getCurrentPosition();
+      if (position != null) {
+        // the node handles commands in order, so the modules are interpreted before the step is made
+        myInterpretedModules.interpret(ReadAction.compute(() -> getCalledModulePaths(position)));
+      }
+    }
+    myRequests.stepInto();
+  }
+
+  @NotNull
+  private Set<String> getCalledModulePaths(@NotNull XSourcePosition position) {
+    ErlangFile file = myLocationResolver.findPsi(position.getFile());
+    if (file == null) return Collections.emptySet();
+    Set<String> notToInterpret = getRunConfiguration().getDebugOptions().getModulesNotToInterpret();
+    return getCalledModulePaths(file, position.getLine(), position.getOffset(), notToInterpret);
+  }
+
+  /**
+   * @return paths of project modules whose functions are called at {@code line} of the function clause containing
+   * {@code offset}.
+   */
+  @NotNull
+  static Set<String> getCalledModulePaths(@NotNull ErlangFile file, int line, int offset, @NotNull Set<String> notToInterpret) {
+    Document document = PsiDocumentManager.getInstance(file.getProject()).getDocument(file);
+    if (document == null || line >= document.getLineCount()) return Collections.emptySet();
+    TextRange lineRange = TextRange.create(document.getLineStartOffset(line), document.getLineEndOffset(line));
+    PsiElement elementAtLine = file.findElementAt(offset);
+    ErlangFunctionClause clause = PsiTreeUtil.getParentOfType(elementAtLine, ErlangFunctionClause.class);
+    if (clause == null) return Collections.emptySet();
+
+    ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(file.getProject());
+    Set<String> modulePaths = new HashSet<>();
+    for (ErlangFunctionCallExpression call : PsiTreeUtil.findChildrenOfType(clause, ErlangFunctionCallExpression.class)) {
+      if (!lineRange.intersects(call.getTextRange())) continue;
+      PsiReference reference = call.getReference();
+      PsiElement function = reference != null ? reference.resolve() : null;
+      PsiFile calledFile = function != null ? function.getContainingFile() : null;
+      VirtualFile calledVirtualFile = calledFile instanceof ErlangFile ? calledFile.getVirtualFile() : null;
+      if (calledVirtualFile != null && fileIndex.isInSourceContent(calledVirtualFile) &&
+          !notToInterpret.contains(calledVirtualFile.getNameWithoutExtension())) {
+        modulePaths.add(PathUtil.getLocalPath(calledVirtualFile));
+      }
+    }
+    return modulePaths;
   }
 
   @Override
   public void startStepOut(@Nullable XSuspendContext context) {
-    myDebuggerNode.stepOut();
+    myRequests.stepOut();
   }
 
   @Override
   public void stop() {
-    myDebuggerNode.stop();
+    myRequests.stop();
   }
 
   @Override
   public void resume(@Nullable XSuspendContext context) {
-    myDebuggerNode.resume();
+    myRequests.resume();
   }
 
   @Override
   public void runToPosition(@NotNull XSourcePosition position, @Nullable XSuspendContext context) {
     //TODO implement me
-    myDebuggerNode.stepInto();
+    myRequests.stepInto();
   }
 
   @Nullable
@@ -377,13 +480,7 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
     ErlangSourcePosition breakpointPosition = getErlangSourcePosition(breakpoint);
     if (breakpointPosition == null) return;
     myPositionToLineBreakpointMap.put(breakpointPosition, breakpoint);
-    String filePath = PathUtil.getLocalPath(breakpointPosition.getFile());
-    if (!InterpretedModules.contains(filePath)){
-      ArrayList<String> L = new ArrayList<>(1);
-      L.add(filePath);
-      InterpretedModules.add(filePath);
-      myDebuggerNode.interpretModules(L);
-    }
+    myInterpretedModules.interpret(Collections.singletonList(PathUtil.getLocalPath(breakpointPosition.getFile())));
     if (breakpoint.getConditionExpression() != null){
       myDebuggerNode.setBreakpoint(breakpointPosition.getErlangModuleName(), breakpointPosition.getLine(), breakpoint.getConditionExpression().getExpression());
     }
@@ -419,10 +516,9 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
       GeneralCommandLine commandLine = new GeneralCommandLine();
       myRunningState.setExePath(commandLine);
       myRunningState.setWorkDirectory(commandLine);
-      setUpErlangDebuggerCodePath(commandLine);
+      File debugRoot = setUpErlangDebuggerCodePath(commandLine);
       myRunningState.setCodePath(commandLine);
-//      commandLine.addParameters("-run", "c", "c", tempDirectory.getPath() + File.separator + "debugnode");
-      commandLine.addParameters("-run", "debugnode", "main", String.valueOf(myDebuggerNode.getLocalDebuggerPort()), tempDirectory.getPath());
+      commandLine.addParameters("-run", "debugnode", "main", String.valueOf(myDebuggerNode.getLocalDebuggerPort()), debugRoot.getPath());
       myRunningState.setErlangFlags(commandLine);
       myRunningState.setNoShellMode(commandLine);
       myRunningState.setStopErlang(commandLine);
@@ -467,36 +563,48 @@ public class ErlangXDebugProcess extends XDebugProcess implements ErlangDebugger
     return erlangProcessHandler;
   }
 
-  private static void setUpErlangDebuggerCodePath(GeneralCommandLine commandLine) throws ExecutionException {
+  /**
+   * @return the directory with debugger modules which is put on the node's code path.
+   */
+  @NotNull
+  private File setUpErlangDebuggerCodePath(GeneralCommandLine commandLine) throws ExecutionException {
     LOG.debug("Setting up debugger environment.");
+    File beamsDirectory = getCompiledBeamsDirectory();
+    if (beamsDirectory != null) {
+      LOG.debug("Using compiled debugger beams from: " + beamsDirectory.getPath());
+      commandLine.addParameters("-pa", beamsDirectory.getPath());
+      return beamsDirectory;
+    }
     try {
-      String[] files = {"debug_condition.erl", "debug_eval.erl",
-                        "remote_debugger.erl", "remote_debugger_listener.erl",
-                        "remote_debugger_notifier.erl", "process_names.hrl",
-                        "remote_debugger_messages.hrl", "trace_utils.hrl"};
-      tempDirectory = FileUtil.createTempDirectory("intellij_erlang_debugger_", null, true);
+      File tempDirectory = FileUtil.createTempDirectory("intellij_erlang_debugger_", null, true);
       LOG.debug("Debugger beams will be put to: " + tempDirectory.getPath());
-      copyFiles(files, tempDirectory, "/debugger/src");
-      copyFiles(new String[]{"debugnode.beam"}, tempDirectory, "/debugger/beams");
+      ErlangDebuggerBeamsCache.copyResources(ErlangDebuggerBeamsCache.MODULES, tempDirectory, ErlangDebuggerBeamsCache.SOURCES_PATH);
+      ErlangDebuggerBeamsCache.copyResources(ErlangDebuggerBeamsCache.HEADERS, tempDirectory, ErlangDebuggerBeamsCache.SOURCES_PATH);
+      ErlangDebuggerBeamsCache.copyResources(new String[]{"debugnode.beam"}, tempDirectory, "/debugger/beams");
       LOG.debug("Debugger beams were copied successfully.");
       commandLine.addParameters("-pa", tempDirectory.getPath());
+      return tempDirectory;
     }
     catch (IOException e) {
       throw new ExecutionException("Failed to setup debugger environment", e);
     }
   }
 
-  private static void copyFiles(String[] files, File directory, String basePath) throws IOException {
-    for (String filename:files) {
-      URL baseUrl = ResourceUtil.getResource(ErlangXDebugProcess.class, basePath,  filename);
-      if (baseUrl == null) {
-        throw new IOException("Failed to locate debugger module: " + filename);
-      }
-      try (BufferedInputStream inputStream = new BufferedInputStream(URLUtil.openStream(baseUrl))) {
-        try (BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(new File(directory, filename)))) {
-          FileUtil.copy(inputStream, outputStream);
-        }
-      }
+  /**
+   * @return a directory with debugger modules compiled for the module's SDK, or null if they should be compiled
+   * by the debugger node itself.
+   */
+  @Nullable
+  private File getCompiledBeamsDirectory() {
+    Sdk sdk = ModuleRootManager.getInstance(myRunningState.getModule()).getSdk();
+    String sdkHome = sdk != null ? sdk.getHomePath() : null;
+    ErlangSdkRelease release = ErlangSdkType.getRelease(sdk);
+    if (sdkHome == null || release == null) return null;
+    if (!ApplicationManager.getApplication().isDispatchThread()) {
+      return ErlangDebuggerBeamsCache.getBeamsDirectory(sdkHome, release);
     }
+    return ProgressManager.getInstance().runProcessWithProgressSynchronously(
+      () -> ErlangDebuggerBeamsCache.getBeamsDirectory(sdkHome, release), "Compiling Debugger Modules", false,
+      getSession().getProject());
   }
 }
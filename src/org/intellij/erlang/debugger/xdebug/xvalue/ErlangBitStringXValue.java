@@ -22,12 +22,17 @@ import com.intellij.xdebugger.frame.XValueChildrenList;
 import com.intellij.xdebugger.frame.XValueNode;
 import com.intellij.xdebugger.frame.XValuePlace;
 import com.intellij.xdebugger.frame.presentation.XValuePresentation;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 class ErlangBitStringXValue extends ErlangArrayXValueBase<OtpErlangBitstr> {
   public ErlangBitStringXValue(OtpErlangBitstr value) {
-    super(value, value.binaryValue().length);
+    this(value, null, null);
+  }
+
+  public ErlangBitStringXValue(OtpErlangBitstr value, @Nullable ErlangValueHandle handle, @Nullable ErlangValuePageLoader pageLoader) {
+    super(value, value.binaryValue().length, handle, pageLoader);
   }
 
   @Override
@@ -40,7 +45,8 @@ class ErlangBitStringXValue extends ErlangArrayXValueBase<OtpErlangBitstr> {
   protected XValuePresentation getPresentation(@NotNull XValueNode node, @NotNull XValuePlace place) {
     //TODO apply string detection heuristics (see http://www.erlang.org/doc/apps/stdlib/unicode_usage.html)
     final String textValue = new String(getValue().binaryValue());
-    if (textValue.length() > XValueNode.MAX_VALUE_LENGTH) {
+    final boolean truncated = isTruncated(); // only a prefix of a large binary is sent by the debugger node
+    if (textValue.length() > XValueNode.MAX_VALUE_LENGTH && !truncated) {
       node.setFullValueEvaluator(new ImmediateFullValueEvaluator(textValue));
     }
     return new XValuePresentation() {
@@ -48,6 +54,9 @@ class ErlangBitStringXValue extends ErlangArrayXValueBase<OtpErlangBitstr> {
       public void renderValue(@NotNull XValueTextRenderer renderer) {
         renderer.renderSpecialSymbol("<<");
         renderer.renderStringValue(textValue, "\"\\", XValueNode.MAX_VALUE_LENGTH);
+        if (truncated) {
+          renderer.renderSpecialSymbol("...");
+        }
         renderer.renderSpecialSymbol(">>");
       }
     };
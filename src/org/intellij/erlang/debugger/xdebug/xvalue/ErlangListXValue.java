@@ -18,10 +18,16 @@ package org.intellij.erlang.debugger.xdebug.xvalue;
 
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.intellij.xdebugger.frame.XValueChildrenList;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
+import org.jetbrains.annotations.Nullable;
 
 class ErlangListXValue extends ErlangArrayXValueBase<OtpErlangList> {
-  public ErlangListXValue(OtpErlangList value) {
-    super(value, value.arity());
+  public ErlangListXValue(OtpErlangList value, @Nullable ErlangValuePageLoader pageLoader) {
+    this(value, null, pageLoader);
+  }
+
+  public ErlangListXValue(OtpErlangList value, @Nullable ErlangValueHandle handle, @Nullable ErlangValuePageLoader pageLoader) {
+    super(value, value.arity(), handle, pageLoader);
   }
 
   @Override
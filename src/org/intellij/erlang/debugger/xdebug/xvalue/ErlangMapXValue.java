@@ -18,17 +18,36 @@ package org.intellij.erlang.debugger.xdebug.xvalue;
 
 import com.ericsson.otp.erlang.OtpErlangMap;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
 import com.intellij.xdebugger.frame.XValueChildrenList;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
+import org.jetbrains.annotations.Nullable;
 
 public class ErlangMapXValue extends ErlangArrayXValueBase<OtpErlangMap> {
-  public ErlangMapXValue(OtpErlangMap value) {
-    super(value, value.arity());
+  public ErlangMapXValue(OtpErlangMap value, @Nullable ErlangValuePageLoader pageLoader) {
+    this(value, null, pageLoader);
+  }
+
+  public ErlangMapXValue(OtpErlangMap value, @Nullable ErlangValueHandle handle, @Nullable ErlangValuePageLoader pageLoader) {
+    super(value, value.arity(), handle, pageLoader);
   }
 
   @Override
   protected void computeChild(XValueChildrenList children, int childIdx) {
     OtpErlangObject key = getValue().keys()[childIdx];
     OtpErlangObject value = getValue().get(key);
-    addIndexedChild(children, new ErlangMappingXValue(key, value), childIdx);
+    addIndexedChild(children, new ErlangMappingXValue(key, value, getPageLoader()), childIdx);
+  }
+
+  @Override
+  protected void computeLoadedChild(XValueChildrenList children, OtpErlangObject child, int childIdx) {
+    // pages of large maps are sent as {Key, Value} tuples
+    if (child instanceof OtpErlangTuple && ((OtpErlangTuple) child).arity() == 2) {
+      OtpErlangTuple mapping = (OtpErlangTuple) child;
+      addIndexedChild(children, new ErlangMappingXValue(mapping.elementAt(0), mapping.elementAt(1), getPageLoader()), childIdx);
+    }
+    else {
+      super.computeLoadedChild(children, child, childIdx);
+    }
   }
 }
@@ -24,8 +24,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 class ErlangMappingXValue extends ErlangXValueBase<OtpErlangTuple> {
-  public ErlangMappingXValue(OtpErlangObject key, OtpErlangObject value) {
-    super(new OtpErlangTuple(new OtpErlangObject[]{key, value}), 2);
+  public ErlangMappingXValue(OtpErlangObject key, OtpErlangObject value, @Nullable ErlangValuePageLoader pageLoader) {
+    super(new OtpErlangTuple(new OtpErlangObject[]{key, value}), 2, null, pageLoader);
   }
 
   @Override
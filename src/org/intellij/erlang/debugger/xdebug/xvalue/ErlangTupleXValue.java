@@ -18,10 +18,16 @@ package org.intellij.erlang.debugger.xdebug.xvalue;
 
 import com.ericsson.otp.erlang.OtpErlangTuple;
 import com.intellij.xdebugger.frame.XValueChildrenList;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
+import org.jetbrains.annotations.Nullable;
 
 class ErlangTupleXValue extends ErlangArrayXValueBase<OtpErlangTuple> {
-  public ErlangTupleXValue(OtpErlangTuple value) {
-    super(value, value.arity());
+  public ErlangTupleXValue(OtpErlangTuple value, @Nullable ErlangValuePageLoader pageLoader) {
+    this(value, null, pageLoader);
+  }
+
+  public ErlangTupleXValue(OtpErlangTuple value, @Nullable ErlangValueHandle handle, @Nullable ErlangValuePageLoader pageLoader) {
+    super(value, value.arity(), handle, pageLoader);
   }
 
   @Override
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger.xdebug.xvalue;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ErlangValuePageLoader {
+  /**
+   * Requests {@code count} elements of a value starting from the zero-based index {@code from}.
+   * The callback receives null if the value is no longer available, e.g. the process was resumed.
+   */
+  void loadPage(@NotNull ErlangValueHandle handle, int from, int count, @NotNull Consumer<List<OtpErlangObject>> callback);
+}
@@ -21,6 +21,7 @@ import com.ericsson.otp.erlang.OtpErlangLong;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.intellij.xdebugger.frame.*;
 import com.intellij.xdebugger.frame.presentation.XValuePresentation;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
 import org.intellij.erlang.icons.ErlangIcons;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -30,32 +31,83 @@ import javax.swing.*;
 class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
   private final T myValue;
   private final int myChildrenCount;
-  private int myNextChildIdxToCompute;
+  private final int myLoadedChildrenCount;
+  @Nullable
+  private final ErlangValueHandle myHandle;
+  @Nullable
+  private final ErlangValuePageLoader myPageLoader;
+  private volatile int myNextChildIdxToCompute;
 
   protected ErlangXValueBase(T value) {
     this(value, 0);
   }
 
   protected ErlangXValueBase(T value, int childrenCount) {
+    this(value, childrenCount, null, null);
+  }
+
+  /**
+   * @param value               the value or, if {@code handle} is not null, its preview.
+   * @param loadedChildrenCount number of children available in {@code value}.
+   * @param handle              handle of a large value whose other children are fetched by {@code pageLoader}.
+   */
+  protected ErlangXValueBase(T value,
+                             int loadedChildrenCount,
+                             @Nullable ErlangValueHandle handle,
+                             @Nullable ErlangValuePageLoader pageLoader) {
     myValue = value;
-    myChildrenCount = childrenCount;
+    myLoadedChildrenCount = loadedChildrenCount;
+    myChildrenCount = handle != null ? Math.max(handle.getSize(), loadedChildrenCount) : loadedChildrenCount;
+    myHandle = handle;
+    myPageLoader = pageLoader;
   }
 
   protected T getValue() {
     return myValue;
   }
 
+  @Nullable
+  protected ErlangValuePageLoader getPageLoader() {
+    return myPageLoader;
+  }
+
+  protected boolean isTruncated() {
+    return myLoadedChildrenCount < myChildrenCount;
+  }
+
   @Override
   public void computeChildren(@NotNull XCompositeNode node) {
-    int nextToLastChildIdx = Math.min(myNextChildIdxToCompute + XCompositeNode.MAX_CHILDREN_TO_SHOW, myChildrenCount);
-    XValueChildrenList children = new XValueChildrenList(nextToLastChildIdx - myNextChildIdxToCompute);
-    for (int i = myNextChildIdxToCompute; i < nextToLastChildIdx; i++) {
+    int from = myNextChildIdxToCompute;
+    int to = Math.min(from + XCompositeNode.MAX_CHILDREN_TO_SHOW, myChildrenCount);
+    int loadedTo = Math.min(to, myLoadedChildrenCount);
+    XValueChildrenList children = new XValueChildrenList(to - from);
+    for (int i = from; i < loadedTo; i++) {
       computeChild(children, i);
     }
-    myNextChildIdxToCompute = nextToLastChildIdx;
-    boolean computedAllChildren = myNextChildIdxToCompute == myChildrenCount;
+    if (loadedTo >= to || myHandle == null || myPageLoader == null) {
+      // children beyond the loaded ones can't be fetched without a page loader
+      addChildren(node, children, loadedTo, loadedTo < to);
+      return;
+    }
+    int pageFrom = Math.max(from, loadedTo);
+    myPageLoader.loadPage(myHandle, pageFrom, to - pageFrom, elements -> {
+      if (elements == null) {
+        node.setErrorMessage("The value is no longer available");
+        return;
+      }
+      for (int i = 0; i < elements.size(); i++) {
+        computeLoadedChild(children, elements.get(i), pageFrom + i);
+      }
+      // the next page starts after the elements which were actually received, an empty page ends the value
+      addChildren(node, children, pageFrom + elements.size(), elements.isEmpty());
+    });
+  }
+
+  private void addChildren(@NotNull XCompositeNode node, @NotNull XValueChildrenList children, int computedTo, boolean last) {
+    myNextChildIdxToCompute = computedTo;
+    boolean computedAllChildren = last || computedTo >= myChildrenCount;
     if (!computedAllChildren) {
-      node.tooManyChildren(myChildrenCount - myNextChildIdxToCompute);
+      node.tooManyChildren(myChildrenCount - computedTo);
     }
     node.addChildren(children, computedAllChildren);
   }
@@ -84,6 +136,13 @@ class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
   protected void computeChild(XValueChildrenList children, int childIdx) {
   }
 
+  /**
+   * Adds a child which was not a part of the preview and was fetched from the debugger node.
+   */
+  protected void computeLoadedChild(XValueChildrenList children, OtpErlangObject child, int childIdx) {
+    addIndexedChild(children, child, childIdx);
+  }
+
   @Nullable
   protected XValuePresentation getPresentation(@NotNull XValueNode node, @NotNull XValuePlace place) {
     return null;
@@ -96,7 +155,8 @@ class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
 
   @NotNull
   protected String getStringRepr() {
-    return myValue.toString();
+    String repr = myValue.toString();
+    return isTruncated() ? repr + " and " + (myChildrenCount - myLoadedChildrenCount) + " more" : repr;
   }
 
   protected Icon getIcon() {
@@ -107,28 +167,28 @@ class ErlangXValueBase<T extends OtpErlangObject> extends XValue {
     return myChildrenCount != 0;
   }
 
-  protected static void addIndexedChild(XValueChildrenList childrenList, long numericChild, int childIdx) {
+  protected void addIndexedChild(XValueChildrenList childrenList, long numericChild, int childIdx) {
     addIndexedChild(childrenList, new OtpErlangLong(numericChild), childIdx);
   }
 
-  protected static void addIndexedChild(XValueChildrenList childrenList, OtpErlangObject child, int childIdx) {
-    addIndexedChild(childrenList, ErlangXValueFactory.create(child), childIdx);
+  protected void addIndexedChild(XValueChildrenList childrenList, OtpErlangObject child, int childIdx) {
+    addIndexedChild(childrenList, ErlangXValueFactory.create(child, myPageLoader), childIdx);
   }
 
   protected static void addIndexedChild(XValueChildrenList childrenList, XValue child, int childIdx) {
     addNamedChild(childrenList, child, "[" + (childIdx + 1) + "]");
   }
 
-  protected static void addNamedChild(XValueChildrenList childrenList, long numericChild, String name) {
+  protected void addNamedChild(XValueChildrenList childrenList, long numericChild, String name) {
     addNamedChild(childrenList, new OtpErlangLong(numericChild), name);
   }
 
-  protected static void addNamedChild(XValueChildrenList childrenList, String atomicChild, String name) {
+  protected void addNamedChild(XValueChildrenList childrenList, String atomicChild, String name) {
     addNamedChild(childrenList, new OtpErlangAtom(atomicChild), name);
   }
 
-  protected static void addNamedChild(XValueChildrenList childrenList, OtpErlangObject child, String name) {
-    addNamedChild(childrenList, ErlangXValueFactory.create(child), name);
+  protected void addNamedChild(XValueChildrenList childrenList, OtpErlangObject child, String name) {
+    addNamedChild(childrenList, ErlangXValueFactory.create(child, myPageLoader), name);
   }
 
   private static void addNamedChild(XValueChildrenList childrenList, XValue child, String name) {
@@ -148,8 +208,11 @@ class ErlangPrimitiveXValueBase<T extends OtpErlangObject> extends ErlangXValueB
 }
 
 class ErlangArrayXValueBase<T extends OtpErlangObject> extends ErlangXValueBase<T> {
-  protected ErlangArrayXValueBase(T value, int childrenCount) {
-    super(value, childrenCount);
+  protected ErlangArrayXValueBase(T value,
+                                  int loadedChildrenCount,
+                                  @Nullable ErlangValueHandle handle,
+                                  @Nullable ErlangValuePageLoader pageLoader) {
+    super(value, loadedChildrenCount, handle, pageLoader);
   }
 
   @Override
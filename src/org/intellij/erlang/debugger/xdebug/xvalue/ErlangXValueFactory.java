@@ -18,12 +18,26 @@ package org.intellij.erlang.debugger.xdebug.xvalue;
 
 import com.ericsson.otp.erlang.*;
 import com.intellij.xdebugger.frame.XValue;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public final class ErlangXValueFactory {
   private ErlangXValueFactory() {
   }
 
   public static XValue create(OtpErlangObject object) {
+    return create(object, null);
+  }
+
+  /**
+   * @param pageLoader fetches elements of large values which the debugger node sent as a {@link ErlangValueHandle}.
+   */
+  public static XValue create(OtpErlangObject object, @Nullable ErlangValuePageLoader pageLoader) {
+    ErlangValueHandle handle = ErlangValueHandle.fromTerm(object);
+    if (handle != null) {
+      return createPaged(handle, pageLoader);
+    }
     if (object instanceof OtpErlangLong || object instanceof OtpErlangDouble) {
       return new ErlangNumericXValue(object);
     }
@@ -40,20 +54,55 @@ public final class ErlangXValueFactory {
       return new ErlangRefXValue((OtpErlangRef) object);
     }
     if (object instanceof OtpErlangTuple) {
-      return new ErlangTupleXValue((OtpErlangTuple) object);
+      return new ErlangTupleXValue((OtpErlangTuple) object, pageLoader);
     }
     if (object instanceof OtpErlangString) {
       return new ErlangStringXValue((OtpErlangString) object);
     }
     if (object instanceof OtpErlangList) {
-      return new ErlangListXValue((OtpErlangList) object);
+      return new ErlangListXValue((OtpErlangList) object, pageLoader);
     }
     if (object instanceof OtpErlangBitstr) {
       return new ErlangBitStringXValue((OtpErlangBitstr) object);
     }
     if (object instanceof OtpErlangMap) {
-      return new ErlangMapXValue((OtpErlangMap) object);
+      return new ErlangMapXValue((OtpErlangMap) object, pageLoader);
     }
     return new ErlangPrimitiveXValueBase<>(object);
   }
+
+  @NotNull
+  private static XValue createPaged(@NotNull ErlangValueHandle handle, @Nullable ErlangValuePageLoader pageLoader) {
+    OtpErlangObject preview = handle.getPreview();
+    if (handle.getKind() == ErlangValueHandle.Kind.BINARY && preview instanceof OtpErlangBitstr) {
+      return new ErlangBitStringXValue((OtpErlangBitstr) preview, handle, pageLoader);
+    }
+    OtpErlangObject[] elements = getPreviewElements(preview);
+    switch (handle.getKind()) {
+      case TUPLE:
+        return new ErlangTupleXValue(new OtpErlangTuple(elements), handle, pageLoader);
+      case MAP:
+        OtpErlangObject[] keys = new OtpErlangObject[elements.length];
+        OtpErlangObject[] values = new OtpErlangObject[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+          OtpErlangTuple mapping = elements[i] instanceof OtpErlangTuple ? (OtpErlangTuple) elements[i] : null;
+          if (mapping == null || mapping.arity() != 2) {
+            return new ErlangListXValue(new OtpErlangList(elements), handle, pageLoader);
+          }
+          keys[i] = mapping.elementAt(0);
+          values[i] = mapping.elementAt(1);
+        }
+        return new ErlangMapXValue(new OtpErlangMap(keys, values), handle, pageLoader);
+      default:
+        return new ErlangListXValue(new OtpErlangList(elements), handle, pageLoader);
+    }
+  }
+
+  @NotNull
+  private static OtpErlangObject[] getPreviewElements(@NotNull OtpErlangObject preview) {
+    if (preview instanceof OtpErlangList) return ((OtpErlangList) preview).elements();
+    // lists of small integers are encoded as strings
+    if (preview instanceof OtpErlangString) return new OtpErlangList(((OtpErlangString) preview).stringValue()).elements();
+    return new OtpErlangObject[0];
+  }
 }
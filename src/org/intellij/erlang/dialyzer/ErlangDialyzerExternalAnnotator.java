@@ -20,47 +20,42 @@ import com.intellij.codeInsight.daemon.HighlightDisplayKey;
 import com.intellij.codeInspection.InspectionProfile;
 import com.intellij.codeInspection.ex.DisableInspectionToolAction;
 import com.intellij.execution.ExecutionException;
-import com.intellij.execution.process.ProcessOutput;
 import com.intellij.lang.annotation.Annotation;
 import com.intellij.lang.annotation.AnnotationHolder;
 import com.intellij.lang.annotation.ExternalAnnotator;
 import com.intellij.notification.NotificationGroup;
 import com.intellij.notification.NotificationType;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.projectRoots.Sdk;
 import com.intellij.openapi.roots.ModuleRootManager;
-import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.profile.codeInspection.InspectionProjectProfileManager;
+import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiFile;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.ErlangFileType;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.impl.ErlangIncludeGraph;
 import org.intellij.erlang.roots.ErlangIncludeDirectoryUtil;
-import org.intellij.erlang.sdk.ErlangSystemUtil;
+import org.intellij.erlang.sdk.ErlangSdkType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class ErlangDialyzerExternalAnnotator extends ExternalAnnotator<ErlangDialyzerExternalAnnotator.State, ErlangDialyzerExternalAnnotator.State> {
   private final static Logger LOG = Logger.getInstance(ErlangDialyzerExternalAnnotator.class);
   private static final NotificationGroup NOTIFICATION_GROUP = NotificationGroup.logOnlyGroup("Dialyzer-based inspections");
   
-  @Nullable
-  private static Problem parseProblem(String input) {
-    List<String> split = StringUtil.split(input, ":");
-    if (split.size() < 3) return null;
-    int line = StringUtil.parseInt(split.get(1), 0);
-    return new Problem(line, StringUtil.join(split.subList(2, split.size()), ":"));
-  }
-
   @Nullable
   @Override
   public State collectInformation(@NotNull PsiFile file) {
@@ -79,84 +74,66 @@ public class ErlangDialyzerExternalAnnotator extends ExternalAnnotator<ErlangDia
     HighlightDisplayKey key = HighlightDisplayKey.find(ErlangDialyzerInspection.INSPECTION_SHORT_NAME);
     if (!profile.isToolEnabled(key)) return null;
 
-    String workingDir = file.getProject().getBasePath();
-    String dialyzerPath = homePath + "/bin/dialyzer" + (SystemInfo.isWindows ? ".exe" : "");
-
     String currentPltPath = DialyzerSettings.getInstance(file.getProject()).getCurrentPltPath();
-    List<VirtualFile> includeDirectories = ErlangIncludeDirectoryUtil.getIncludeDirectories(module);
-    return new State(dialyzerPath, currentPltPath, canonicalPath, workingDir, includeDirectories);
+    boolean incremental = ErlangDialyzerResultsCache.isIncremental(ErlangSdkType.getRelease(sdk), currentPltPath);
+    List<String> includeDirectories = ContainerUtil.map(ErlangIncludeDirectoryUtil.getIncludeDirectories(module), VirtualFile::getPath);
+    List<String> includedFiles = file instanceof ErlangFile ? getIncludedFilePaths((ErlangFile) file) : Collections.emptyList();
+    return new State(file.getProject(), homePath, currentPltPath, incremental, canonicalPath, includedFiles, includeDirectories);
+  }
+
+  @NotNull
+  private static List<String> getIncludedFilePaths(@NotNull ErlangFile file) {
+    Collection<ErlangFile> includedFiles = ErlangIncludeGraph.getInstance(file.getProject()).getIncludedFiles(file);
+    return ContainerUtil.mapNotNull(includedFiles, includedFile -> {
+      VirtualFile virtualFile = includedFile.getVirtualFile();
+      return virtualFile != null && virtualFile.isInLocalFileSystem() ? virtualFile.getPath() : null;
+    });
   }
 
   @Nullable
   @Override
   public State doAnnotate(State state) {
-    if (state == null) return null;
-
-    ProcessOutput output = null;
+    if (state == null || state.myProject.isDisposed()) return null;
+
+    // an incremental analysis covers all files analyzed so far, its warnings depend on the other project
+    // files too, so those results aren't cached
+    List<String> pltPaths = StringUtil.isEmpty(state.myCurrentPltPath) ? ErlangDialyzerResultsCache.getDefaultPltPaths() :
+                            Collections.singletonList(state.myCurrentPltPath);
+    String cacheKey = state.myIncremental ? null :
+                      ErlangDialyzerResultsCache.computeKey(state.mySdkHome, pltPaths, state.myFilePath,
+                                                            state.myIncludedFiles, state.myIncludeDirectories);
+    List<Problem> cachedProblems = cacheKey != null ? ErlangDialyzerResultsCache.get(state.myProject, state.myFilePath, cacheKey) : null;
+    if (cachedProblems != null) {
+      state.problems.addAll(cachedProblems);
+      return state;
+    }
     try {
-      String[] params = StringUtil.isEmptyOrSpaces(state.myCurrentPltPath) ? new String[]{state.myFilePath} :
-                        new String[]{"--plt", state.myCurrentPltPath, state.myFilePath};
-      if(state.myIncludeDirectories.size() > 0){
-        ArrayList<String> includes = new ArrayList<>();
-        includes.add("-I");
-        for (VirtualFile dir : state.myIncludeDirectories){
-          includes.add(dir.getPath());
-        }
-        ContainerUtil.addAllNotNull(includes, params);
-        params = new String[includes.size()];
-        includes.toArray(params);
+      ErlangDialyzerServer server = ErlangDialyzerServer.getInstance(state.myProject);
+      List<Problem> problems = server.analyze(state.mySdkHome, state.myCurrentPltPath, state.myFilePath, state.myIncludeDirectories);
+      for (Problem problem : problems) {
+        LOG.debug(problem.toString());
       }
-      output = ErlangSystemUtil.getProcessOutput(state.myWorkingDir, state.myDialyzerPath, params);
-    } catch (ExecutionException e) {
-      LOG.debug(e);
-    }
-    //@todo undefined function undefined type need handle
-    if (output != null) {
-      if (output.getStderrLines().isEmpty()) {
-        String stdout = output.getStdout();
-        if (stdout.indexOf("dialyzer: ") > 0){
-          NOTIFICATION_GROUP.createNotification(stdout, NotificationType.WARNING).notify(null); // todo: get a project
-          return state;
-        }
-        String BEGIN_STR="Proceeding with analysis...";
-        String END_STR = "done in";
-        int begin = stdout.indexOf(BEGIN_STR) + BEGIN_STR.length();
-        int end = stdout.indexOf(END_STR);
-        if (begin>BEGIN_STR.length() && end > begin)
-        {
-          stdout = stdout.substring(begin, end);
-          Pattern pattern = Pattern.compile("^[0-9 a-z_A-Z\\-\\\\./]+:(\\d+):", Pattern.MULTILINE);
-          Matcher matcher = pattern.matcher(stdout);
-          boolean find =matcher.find();
-          while (find){
-            int line = StringUtil.parseInt(matcher.group(1), 0);
-            int this_begin = matcher.end();
-            find = matcher.find();
-            int this_end = find?matcher.start():stdout.length();
-            Problem problem = new Problem(line, stdout.substring(this_begin, this_end));
-            LOG.debug(problem.toString());
-            ContainerUtil.addAllNotNull(state.problems, problem);
-          }
-        }
-
+      state.problems.addAll(problems);
+      if (cacheKey != null) {
+        ErlangDialyzerResultsCache.put(state.myProject, state.myFilePath, cacheKey, problems);
       }
     }
+    catch (ExecutionException e) {
+      LOG.debug(e);
+      NOTIFICATION_GROUP.createNotification("Dialyzer: " + e.getMessage(), NotificationType.WARNING).notify(state.myProject);
+    }
     return state;
   }
 
   @Override
   public void apply(@NotNull PsiFile file, State annotationResult, @NotNull AnnotationHolder holder) {
     if (annotationResult == null || !file.isValid()) return;
-    String text = file.getText();
+    Document document = PsiDocumentManager.getInstance(file.getProject()).getDocument(file);
+    if (document == null) return;
     for (Problem problem : annotationResult.problems) {
-      int offset = StringUtil.lineColToOffset(text, problem.myLine - 1, 0);
-
-      if (offset == -1) continue;
-
-      int width = 0;
-      while (offset + width < text.length() && !StringUtil.isLineBreak(text.charAt(offset + width))) width++;
+      TextRange problemRange = getProblemRange(document, problem);
+      if (problemRange == null) continue;
 
-      TextRange problemRange = TextRange.create(offset, offset + width);
       String message = "Dialyzer: " + problem.myDescription;
       Annotation annotation = holder.createWarningAnnotation(problemRange, message);
       HighlightDisplayKey key = HighlightDisplayKey.find(ErlangDialyzerInspection.INSPECTION_SHORT_NAME);
@@ -170,19 +147,54 @@ public class ErlangDialyzerExternalAnnotator extends ExternalAnnotator<ErlangDia
     }
   }
 
+  /**
+   * @return range from the problem column to the end of its line, the whole line if the column is unknown,
+   * or null if the line is outside of the document.
+   */
+  @Nullable
+  private static TextRange getProblemRange(@NotNull Document document, @NotNull Problem problem) {
+    int line = problem.myLine - 1;
+    if (line < 0 || line >= document.getLineCount()) return null;
+
+    int lineStart = document.getLineStartOffset(line);
+    int lineEnd = document.getLineEndOffset(line);
+    int offset = problem.myColumn > 0 ? Math.min(lineStart + problem.myColumn - 1, lineEnd) : lineStart;
+    return TextRange.create(offset, lineEnd);
+  }
+
   public static class Problem {
     private final int myLine;
+    private final int myColumn;
     private final String myDescription;
 
-    public Problem(int line, String description) {
+    /**
+     * @param line   one-based line.
+     * @param column one-based column, or 0 if dialyzer didn't report it.
+     */
+    public Problem(int line, int column, String description) {
       myLine = line;
+      myColumn = column;
       myDescription = description;
     }
 
+    public int getLine() {
+      return myLine;
+    }
+
+    public int getColumn() {
+      return myColumn;
+    }
+
+    @NotNull
+    public String getDescription() {
+      return myDescription;
+    }
+
     @Override
     public String toString() {
       return "Problem{" +
         "myLine=" + myLine +
+        ", myColumn=" + myColumn +
         ", myDescription='" + myDescription + '\'' +
         '}';
     }
@@ -190,21 +202,27 @@ public class ErlangDialyzerExternalAnnotator extends ExternalAnnotator<ErlangDia
 
   public static class State {
     public final List<Problem> problems = new ArrayList<>();
-    private final String myDialyzerPath;
+    private final Project myProject;
+    private final String mySdkHome;
     private final String myCurrentPltPath;
+    private final boolean myIncremental;
     private final String myFilePath;
-    private final String myWorkingDir;
-    private final List<VirtualFile> myIncludeDirectories;
+    private final List<String> myIncludedFiles;
+    private final List<String> myIncludeDirectories;
 
-    public State(String dialyzerPath,
+    public State(Project project,
+                 String sdkHome,
                  String currentPltPath,
+                 boolean incremental,
                  String filePath,
-                 String workingDir,
-                 List<VirtualFile> includeDirectories) {
-      myDialyzerPath = dialyzerPath;
+                 List<String> includedFiles,
+                 List<String> includeDirectories) {
+      myProject = project;
+      mySdkHome = sdkHome;
       myCurrentPltPath = currentPltPath;
+      myIncremental = incremental;
       myFilePath = filePath;
-      myWorkingDir = workingDir;
+      myIncludedFiles = includedFiles;
       myIncludeDirectories = includeDirectories;
     }
   }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.dialyzer;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.PathUtil;
+import com.intellij.util.SystemProperties;
+import org.intellij.erlang.sdk.ErlangSdkRelease;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dialyzer warnings of files, persisted in the system directory and keyed by a hash of everything the analysis
+ * depends on: contents of the file and of the files it includes, the PLTs and the SDK. Unchanged files reuse their
+ * warnings without asking dialyzer, also after a restart. Only the latest result is kept for each file.
+ * <p>
+ * Results of incremental analyses, which run on OTP 26 and newer when no PLT is configured, depend on all files
+ * analyzed so far and aren't cached. Older releases analyze against the default PLT then, which is part of the key.
+ */
+final class ErlangDialyzerResultsCache {
+  private static final Logger LOG = Logger.getInstance(ErlangDialyzerResultsCache.class);
+  private static final int VERSION = 3;
+  private static final int FIRST_INCREMENTAL_RELEASE = 26;
+
+  private ErlangDialyzerResultsCache() {
+  }
+
+  /**
+   * @return true if dialyzer of the release runs an incremental analysis when no PLT is configured,
+   * an unknown release is assumed to do so.
+   */
+  static boolean isIncremental(@Nullable ErlangSdkRelease release, @Nullable String pltPath) {
+    if (StringUtil.isNotEmpty(pltPath)) return false;
+    return release == null || StringUtil.parseInt(release.getOtpRelease(), 0) >= FIRST_INCREMENTAL_RELEASE;
+  }
+
+  /**
+   * @return paths dialyzer looks the default PLT up at: {@code DIALYZER_PLT} if it's set, otherwise the user cache
+   * directory of newer releases and the home directory of older ones.
+   */
+  @NotNull
+  static List<String> getDefaultPltPaths() {
+    String fromEnvironment = System.getenv("DIALYZER_PLT");
+    if (StringUtil.isNotEmpty(fromEnvironment)) return Collections.singletonList(fromEnvironment);
+    String home = SystemProperties.getUserHome();
+    String cacheDirectory;
+    if (SystemInfo.isWindows) {
+      cacheDirectory = StringUtil.notNullize(System.getenv("LOCALAPPDATA"), home) + "/erlang/Cache";
+    }
+    else if (SystemInfo.isMac) {
+      cacheDirectory = home + "/Library/Caches/erlang";
+    }
+    else {
+      cacheDirectory = StringUtil.notNullize(System.getenv("XDG_CACHE_HOME"), home + "/.cache") + "/erlang";
+    }
+    return Arrays.asList(cacheDirectory + "/.dialyzer_plt", home + "/.dialyzer_plt");
+  }
+
+  /**
+   * @param pltPaths the PLTs the analysis may read, each is keyed by its path and modification time.
+   * @return the key of the analysis inputs, or null if some of them can't be read.
+   */
+  @Nullable
+  static String computeKey(@NotNull String sdkHome,
+                           @NotNull List<String> pltPaths,
+                           @NotNull String filePath,
+                           @NotNull List<String> includedFilePaths,
+                           @NotNull List<String> includeDirectories) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      update(digest, sdkHome);
+      for (String pltPath : pltPaths) {
+        update(digest, pltPath);
+        update(digest, String.valueOf(new File(pltPath).lastModified()));
+      }
+      update(digest, StringUtil.join(includeDirectories, File.pathSeparator));
+      updateWithContent(digest, filePath);
+      for (String includedFilePath : includedFilePaths) {
+        updateWithContent(digest, includedFilePath);
+      }
+      return StringUtil.toHexString(digest.digest());
+    }
+    catch (IOException | NoSuchAlgorithmException e) {
+      LOG.debug(e);
+      return null;
+    }
+  }
+
+  @Nullable
+  static List<ErlangDialyzerExternalAnnotator.Problem> get(@NotNull Project project, @NotNull String filePath, @NotNull String key) {
+    File entry = getEntry(project, filePath);
+    if (!entry.isFile()) return null;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry)))) {
+      if (in.readInt() != VERSION || !key.equals(in.readUTF()) || !filePath.equals(in.readUTF())) return null;
+      int size = in.readInt();
+      List<ErlangDialyzerExternalAnnotator.Problem> problems = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        problems.add(new ErlangDialyzerExternalAnnotator.Problem(in.readInt(), in.readInt(), in.readUTF()));
+      }
+      return problems;
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+      FileUtil.delete(entry);
+      return null;
+    }
+  }
+
+  static void put(@NotNull Project project,
+                  @NotNull String filePath,
+                  @NotNull String key,
+                  @NotNull List<ErlangDialyzerExternalAnnotator.Problem> problems) {
+    File entry = getEntry(project, filePath);
+    try {
+      FileUtil.createParentDirs(entry);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(entry)))) {
+        out.writeInt(VERSION);
+        out.writeUTF(key);
+        out.writeUTF(filePath);
+        out.writeInt(problems.size());
+        for (ErlangDialyzerExternalAnnotator.Problem problem : problems) {
+          out.writeInt(problem.getLine());
+          out.writeInt(problem.getColumn());
+          out.writeUTF(problem.getDescription());
+        }
+      }
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+      FileUtil.delete(entry);
+    }
+  }
+
+  @NotNull
+  private static File getEntry(@NotNull Project project, @NotNull String filePath) {
+    String name = FileUtil.sanitizeFileName(PathUtil.getFileName(filePath)) + "." + Integer.toHexString(filePath.hashCode());
+    return new File(PathManager.getSystemPath(), "erlang/dialyzer/" + project.getLocationHash() + "/results/" + name);
+  }
+
+  private static void updateWithContent(@NotNull MessageDigest digest, @NotNull String path) throws IOException {
+    update(digest, path);
+    digest.update(FileUtil.loadFileBytes(new File(path)));
+  }
+
+  private static void update(@NotNull MessageDigest digest, @NotNull String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.dialyzer;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.*;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.ResourceUtil;
+import com.intellij.util.io.URLUtil;
+import org.intellij.erlang.debugger.node.events.OtpErlangTermUtil;
+import org.intellij.erlang.jps.model.JpsErlangSdkType;
+import org.intellij.erlang.sdk.ErlangSystemUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A dialyzer node which is started once per project and analyzes files on request, so that annotating a file
+ * doesn't start a new VM which loads dialyzer and its PLT again. The node talks to the IDE over a local socket.
+ */
+public final class ErlangDialyzerServer implements Disposable {
+  private static final Logger LOG = Logger.getInstance(ErlangDialyzerServer.class);
+  private static final String MODULE = "dialyzer_server";
+  private static final int CONNECT_TIMEOUT = 30 * 1000;
+  private static final int ANALYSIS_TIMEOUT = 10 * 60 * 1000;
+
+  private final Project myProject;
+  private final Object myLock = new Object();
+  private volatile OSProcessHandler myProcessHandler;
+  private volatile Socket mySocket;
+  private volatile boolean myDisposed;
+  private String mySdkHome;
+  private long myRequestId;
+
+  public ErlangDialyzerServer(@NotNull Project project) {
+    myProject = project;
+  }
+
+  @NotNull
+  public static ErlangDialyzerServer getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, ErlangDialyzerServer.class);
+  }
+
+  /**
+   * Analyzes the file with the node of the given SDK, starting it if needed. Requests are served one at a time.
+   *
+   * @param pltPath a PLT to use, or an empty string to analyze against erts, kernel and stdlib.
+   * @return warnings reported for the file.
+   * @throws ExecutionException if the node failed to start or dialyzer reported an error.
+   */
+  @NotNull
+  public List<ErlangDialyzerExternalAnnotator.Problem> analyze(@NotNull String sdkHome,
+                                                               @NotNull String pltPath,
+                                                               @NotNull String filePath,
+                                                               @NotNull List<String> includeDirectories) throws ExecutionException {
+    synchronized (myLock) {
+      if (myDisposed) throw new ExecutionException("Dialyzer node is stopped");
+      OtpErlangObject[] includes = new OtpErlangObject[includeDirectories.size()];
+      for (int i = 0; i < includes.length; i++) {
+        includes[i] = new OtpErlangString(includeDirectories.get(i));
+      }
+      long requestId = ++myRequestId;
+      OtpErlangTuple request = new OtpErlangTuple(new OtpErlangObject[]{
+        new OtpErlangAtom("analyze"),
+        new OtpErlangLong(requestId),
+        new OtpErlangString(filePath),
+        new OtpErlangList(includes),
+        new OtpErlangString(pltPath)
+      });
+      try {
+        return parseResponse(request(sdkHome, request), requestId);
+      }
+      catch (IOException e) {
+        stop();
+        if (myDisposed) throw new ExecutionException("Dialyzer node is stopped", e);
+        LOG.debug("Dialyzer node failed, restarting it.", e);
+        try {
+          return parseResponse(request(sdkHome, request), requestId);
+        }
+        catch (IOException e1) {
+          stop();
+          throw new ExecutionException("Dialyzer node failed: " + e1.getMessage(), e1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Doesn't wait for the lock: a running request holds it until dialyzer replies, so the socket is closed
+   * and the node is destroyed under it, and the request fails with an IOException.
+   */
+  @Override
+  public void dispose() {
+    myDisposed = true;
+    closeSocket(mySocket);
+    OSProcessHandler processHandler = myProcessHandler;
+    if (processHandler != null) {
+      processHandler.destroyProcess();
+    }
+  }
+
+  @NotNull
+  private OtpErlangObject request(@NotNull String sdkHome, @NotNull OtpErlangTuple request) throws IOException, ExecutionException {
+    if (mySocket == null || !sdkHome.equals(mySdkHome) || myProcessHandler.isProcessTerminated()) {
+      stop();
+      start(sdkHome);
+    }
+    send(mySocket.getOutputStream(), request);
+    return receive(new DataInputStream(mySocket.getInputStream()));
+  }
+
+  @NotNull
+  static List<ErlangDialyzerExternalAnnotator.Problem> parseResponse(@NotNull OtpErlangObject response,
+                                                                            long requestId) throws ExecutionException {
+    OtpErlangTuple tuple = response instanceof OtpErlangTuple ? (OtpErlangTuple) response : null;
+    if (tuple == null || tuple.arity() != 3 || !new OtpErlangLong(requestId).equals(tuple.elementAt(1))) {
+      throw new ExecutionException("Unexpected dialyzer node response: " + response);
+    }
+    if (new OtpErlangAtom("error").equals(tuple.elementAt(0))) {
+      String message = OtpErlangTermUtil.getStringText(tuple.elementAt(2));
+      throw new ExecutionException(message != null ? message : tuple.elementAt(2).toString());
+    }
+    if (!new OtpErlangAtom("warnings").equals(tuple.elementAt(0)) || !(tuple.elementAt(2) instanceof OtpErlangList)) {
+      throw new ExecutionException("Unexpected dialyzer node response: " + response);
+    }
+    List<ErlangDialyzerExternalAnnotator.Problem> problems = new ArrayList<>();
+    for (OtpErlangObject warning : (OtpErlangList) tuple.elementAt(2)) {
+      if (!(warning instanceof OtpErlangTuple) || ((OtpErlangTuple) warning).arity() != 3) continue;
+      Integer line = OtpErlangTermUtil.getIntegerValue(((OtpErlangTuple) warning).elementAt(0));
+      Integer column = OtpErlangTermUtil.getIntegerValue(((OtpErlangTuple) warning).elementAt(1));
+      String message = OtpErlangTermUtil.getStringText(((OtpErlangTuple) warning).elementAt(2));
+      if (line != null && column != null && message != null) {
+        problems.add(new ErlangDialyzerExternalAnnotator.Problem(line, column, message));
+      }
+    }
+    return problems;
+  }
+
+  private void start(@NotNull String sdkHome) throws IOException, ExecutionException {
+    File beamsDirectory = FileUtil.createTempDirectory("intellij_erlang_dialyzer_", null, true);
+    compileServer(sdkHome, beamsDirectory);
+    File incrementalPlt = new File(PathManager.getSystemPath(), "erlang/dialyzer/" + myProject.getLocationHash() + ".iplt");
+    FileUtil.createParentDirs(incrementalPlt);
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      serverSocket.setSoTimeout(CONNECT_TIMEOUT);
+      GeneralCommandLine commandLine = new GeneralCommandLine(JpsErlangSdkType.getByteCodeInterpreterExecutable(sdkHome).getAbsolutePath())
+        .withWorkDirectory(beamsDirectory)
+        .withParameters("-noshell", "-pa", beamsDirectory.getAbsolutePath())
+        .withParameters("-run", MODULE, "main", String.valueOf(serverSocket.getLocalPort()), incrementalPlt.getAbsolutePath());
+      myProcessHandler = new OSProcessHandler(commandLine);
+      myProcessHandler.addProcessListener(new ProcessAdapter() {
+        @Override
+        public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+          LOG.debug("Dialyzer node: " + event.getText());
+        }
+      });
+      myProcessHandler.startNotify();
+      mySdkHome = sdkHome;
+      mySocket = serverSocket.accept();
+      mySocket.setSoTimeout(ANALYSIS_TIMEOUT);
+    }
+    if (myDisposed) throw new IOException("Dialyzer node is stopped");
+  }
+
+  private void stop() {
+    closeSocket(mySocket);
+    mySocket = null;
+    if (myProcessHandler != null) {
+      myProcessHandler.destroyProcess();
+      myProcessHandler = null;
+    }
+    mySdkHome = null;
+  }
+
+  private static void closeSocket(@Nullable Socket socket) {
+    if (socket == null) return;
+    try {
+      socket.close();
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+    }
+  }
+
+  private static void compileServer(@NotNull String sdkHome, @NotNull File directory) throws IOException, ExecutionException {
+    String sourceName = MODULE + ".erl";
+    URL url = ResourceUtil.getResource(ErlangDialyzerServer.class, "/dialyzer", sourceName);
+    if (url == null) throw new IOException("Failed to locate " + sourceName);
+    try (InputStream inputStream = URLUtil.openStream(url);
+         OutputStream outputStream = new FileOutputStream(new File(directory, sourceName))) {
+      FileUtil.copy(inputStream, outputStream);
+    }
+    GeneralCommandLine commandLine = new GeneralCommandLine(JpsErlangSdkType.getByteCodeCompilerExecutable(sdkHome).getAbsolutePath())
+      .withWorkDirectory(directory)
+      .withParameters("-o", directory.getAbsolutePath(), sourceName);
+    ProcessOutput output = ErlangSystemUtil.execute(commandLine);
+    if (output.getExitCode() != 0 || output.isTimeout() || output.isCancelled()) {
+      throw new ExecutionException("Failed to compile dialyzer node: " + output.getStdout() + output.getStderr());
+    }
+  }
+
+  private static void send(@NotNull OutputStream out, @NotNull OtpErlangObject message) throws IOException {
+    byte[] bytes = new OtpOutputStream(message).toByteArray();
+    out.write(ByteBuffer.allocate(4).putInt(1 + bytes.length).array());
+    out.write(OtpExternal.versionTag);
+    out.write(bytes);
+    out.flush();
+  }
+
+  @NotNull
+  private static OtpErlangObject receive(@NotNull DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    try {
+      return new OtpInputStream(bytes).read_any();
+    }
+    catch (OtpErlangDecodeException e) {
+      throw new IOException("Failed to decode dialyzer node response", e);
+    }
+  }
+}
@@ -85,7 +85,7 @@ public final class ElementDocProviderFactory {
         ErlangFunctionCallExpression erlFunctionCall = erlGlobalFunctionCall.getFunctionCallExpression();
         String functionName = erlFunctionCall.getName();
         int arity = erlFunctionCall.getArgumentList().getExpressionList().size();
-        if (ErlangBifTable.isBif(moduleName, functionName, arity)) {
+        if (ErlangBifTable.getCatalog(erlFunctionCall).isBif(moduleName, functionName, arity)) {
           PsiElement tentativeErlangModule = moduleRef.getReference().resolve();
           if (tentativeErlangModule instanceof ErlangModule) {
             if (virtualFile != null) {
@@ -22,8 +22,8 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.util.PsiTreeUtil;
-import org.intellij.erlang.psi.ErlangTupleExpression;
-import org.intellij.erlang.utils.ErlangTermFileUtil;
+import org.intellij.erlang.index.ErlangConfigKeyIndex;
+import org.intellij.erlang.psi.ErlangExpression;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
@@ -47,8 +47,8 @@ public class ErlangConfigKeyDocProvider implements ElementDocProvider {
   @Nullable
   @Override
   public String getDocText() {
-    List<ErlangTupleExpression> configSections = ErlangTermFileUtil.getConfigSections(myPsiFile, myConfigKey.getText());
-    PsiElement configTuple = configSections.size() > 0 ? configSections.get(0) : myConfigKey.getParent();
+    ErlangExpression key = myPsiFile != null ? ErlangConfigKeyIndex.getConfigKey(myPsiFile, myConfigKey.getText()) : null;
+    PsiElement configTuple = key != null ? key.getParent() : myConfigKey.getParent();
     PsiComment comment = PsiTreeUtil.getPrevSiblingOfType(configTuple, PsiComment.class);
     String commentText = configTuple.getText();
     if (comment != null) {
@@ -18,27 +18,34 @@ package org.intellij.erlang.index;
 
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.io.FileUtil;
-import com.intellij.psi.PsiFile;
+import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.CommonProcessors;
+import com.intellij.util.ObjectUtils;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.indexing.*;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import gnu.trove.THashMap;
+import gnu.trove.THashSet;
 import org.intellij.erlang.ErlangFileType;
-import org.intellij.erlang.psi.ErlangFile;
-import org.intellij.erlang.psi.ErlangQAtom;
-import org.intellij.erlang.psi.ErlangRecursiveVisitor;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.Map;
+import java.util.*;
+
+import static org.intellij.erlang.ErlangTypes.*;
 
 public class ErlangAtomIndex extends ScalarIndexExtension<String> {
   private static final ID<String, Void> ERLANG_ATOM_INDEX = ID.create("erlang.atom.index");
-  private static final int INDEX_VERSION = 1;
+  private static final int INDEX_VERSION = 3;
+  private static final Object RECORD_FIELDS = ObjectUtils.sentinel("RECORD_FIELDS");
+  /**
+   * Attributes whose atoms name modules, functions, types or macros.
+   */
+  private static final Set<String> NAMES_ONLY_ATTRIBUTES = ContainerUtil.newHashSet(
+    "module", "behaviour", "behavior", "export", "export_type", "import", "optional_callbacks", "ifdef", "ifndef", "undef");
 
   @NotNull
   @Override
@@ -56,22 +63,79 @@ public class ErlangAtomIndex extends ScalarIndexExtension<String> {
   public DataIndexer<String, Void, FileContent> getIndexer() {
     return inputData -> {
       final Map<String, Void> result = new THashMap<>();
-      PsiFile file = inputData.getPsiFile();
-      if (file instanceof ErlangFile) {
-        file.accept(new ErlangRecursiveVisitor() {
-          @Override
-          public void visitQAtom(@NotNull ErlangQAtom o) {
-            if (ErlangPsiImplUtil.standaloneAtom(o)) result.put(o.getText(), null);
-          }
-        });
+      boolean terms = inputData.getFileType() == ErlangFileType.TERMS;
+      for (String atom : getStandaloneAtoms(inputData.getContentAsText(), terms)) {
+        result.put(atom, null);
       }
-      if(file.getFileType() == ErlangFileType.TERMS){
-        result.put(FileUtil.getNameWithoutExtension(file.getName()), null);
+      if (terms) {
+        result.put(FileUtil.getNameWithoutExtension(inputData.getFileName()), null);
       }
       return result;
     };
   }
 
+  /**
+   * Collects atoms which {@link ErlangPsiImplUtil#standaloneAtom} accepts, using only the lexer: atoms which aren't
+   * names of functions, modules, records, record fields, macros and of attributes' subjects. All atoms of
+   * term files are standalone.
+   */
+  @NotNull
+  public static Set<String> getStandaloneAtoms(@NotNull CharSequence text, boolean terms) {
+    Set<String> atoms = new THashSet<>();
+    ErlangIndexTokens tokens = ErlangIndexTokens.tokenize(text);
+    String attribute = null;
+    Deque<Object> brackets = new ArrayDeque<>();
+    for (int i = 0; i < tokens.size(); i++) {
+      IElementType type = tokens.getType(i);
+      if (terms) {
+        if (type == ERL_ATOM_NAME && tokens.getType(i - 1) != ERL_QMARK) atoms.add(tokens.getText(i));
+        continue;
+      }
+      if (tokens.isAttributeStart(i)) {
+        attribute = tokens.getText(++i);
+        brackets.clear();
+      }
+      else if (tokens.isFormEnd(i)) {
+        attribute = null;
+        brackets.clear();
+      }
+      else if (type == ERL_PAR_LEFT || type == ERL_BRACKET_LEFT || type == ERL_BIN_START) {
+        brackets.push(type);
+      }
+      else if (type == ERL_CURLY_LEFT) {
+        boolean recordExpression = tokens.isRecordName(i - 1);
+        boolean recordDefinition = "record".equals(attribute) && brackets.size() == 1;
+        brackets.push(recordExpression || recordDefinition ? RECORD_FIELDS : ERL_CURLY_LEFT);
+      }
+      else if (type == ERL_PAR_RIGHT || type == ERL_BRACKET_RIGHT || type == ERL_CURLY_RIGHT || type == ERL_BIN_END) {
+        brackets.poll();
+      }
+      else if (type == ERL_ATOM_NAME && isStandalone(tokens, i, attribute, brackets)) {
+        atoms.add(tokens.getText(i));
+      }
+    }
+    return atoms;
+  }
+
+  private static boolean isStandalone(@NotNull ErlangIndexTokens tokens,
+                                      int index,
+                                      @Nullable String attribute,
+                                      @NotNull Deque<Object> brackets) {
+    if (attribute != null && NAMES_ONLY_ATTRIBUTES.contains(attribute)) return false;
+    IElementType previous = tokens.getType(index - 1);
+    IElementType next = tokens.getType(index + 1);
+    // macro, record and record field names
+    if (previous == ERL_QMARK || previous == ERL_RADIX || previous == ERL_DOT) return false;
+    if (brackets.peek() == RECORD_FIELDS && (previous == ERL_CURLY_LEFT || previous == ERL_COMMA)) return false;
+    // names of defined macros and records
+    if (("define".equals(attribute) || "record".equals(attribute)) && previous == ERL_PAR_LEFT && brackets.size() == 1) return false;
+    // calls, function clauses, types with arguments and function references
+    if (next == ERL_PAR_LEFT) return false;
+    if (next == ERL_OP_AR_DIV && (previous == ERL_FUN || previous == ERL_COLON)) return false;
+    // module names of remote calls and classes of exceptions, but not bit types like unit:8
+    return next != ERL_COLON || brackets.peek() == ERL_BIN_START && (previous == ERL_OP_MINUS || previous == ERL_OP_AR_DIV);
+  }
+
   @NotNull
   @Override
   public KeyDescriptor<String> getKeyDescriptor() {
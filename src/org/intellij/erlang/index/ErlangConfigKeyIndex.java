@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import gnu.trove.THashMap;
+import org.intellij.erlang.ErlangFileType;
+import org.intellij.erlang.psi.ErlangExpression;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangTupleExpression;
+import org.intellij.erlang.utils.ErlangTermFileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps keys of top-level tuples in *.config files to their offsets, so {@code data_module:get(Key)} lookups
+ * do not have to load and walk the config PSI. Index keys are {@code configName:normalizedKey}, where the
+ * normalized key is the key text without whitespace (tuple keys are indexed by their
+ * {@link ErlangTermFileUtil#getTupleKeyName(PsiElement)} too). A bare {@code configName} key marks the file itself.
+ */
+public class ErlangConfigKeyIndex extends FileBasedIndexExtension<String, Integer> {
+  private static final ID<String, Integer> INDEX = ID.create("erlang.config.key.index");
+  private static final int INDEX_VERSION = 1;
+  private static final String CONFIG_EXTENSION = "config";
+  private static final String DATA_PREFIX = "data_";
+  private static final char KEY_SEPARATOR = ':';
+
+  @NotNull
+  @Override
+  public ID<String, Integer> getName() {
+    return INDEX;
+  }
+
+  @Override
+  public int getVersion() {
+    return INDEX_VERSION;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, Integer, FileContent> getIndexer() {
+    return inputData -> {
+      Map<String, Integer> result = new THashMap<>();
+      String configName = inputData.getFile().getNameWithoutExtension();
+      result.put(configName, 0);
+      PsiFile file = inputData.getPsiFile();
+      if (!(file instanceof ErlangFile)) return result;
+      for (PsiElement child = file.getFirstChild(); child != null; child = child.getNextSibling()) {
+        ErlangExpression key = getKeyOfTopLevelTuple(child);
+        if (key == null) continue;
+        int offset = key.getTextRange().getStartOffset();
+        putIfAbsent(result, createKey(configName, key.getText()), offset);
+        if (key instanceof ErlangTupleExpression) {
+          putIfAbsent(result, createKey(configName, ErlangTermFileUtil.getTupleKeyName(key)), offset);
+        }
+      }
+      return result;
+    };
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return new EnumeratorStringDescriptor();
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<Integer> getValueExternalizer() {
+    return EnumeratorIntegerDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return file -> file.getFileType() == ErlangFileType.TERMS && CONFIG_EXTENSION.equals(file.getExtension());
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  /**
+   * Finds the config file which backs {@code configModule:get/1} calls. {@code data_} prefixed modules
+   * are also looked up without the prefix.
+   */
+  @Nullable
+  public static PsiFile getConfigFile(@NotNull Project project, @NotNull String configModule, @NotNull GlobalSearchScope scope) {
+    VirtualFile file = getConfigVirtualFile(configModule, scope);
+    if (file == null && configModule.startsWith(DATA_PREFIX)) {
+      file = getConfigVirtualFile(configModule.substring(DATA_PREFIX.length()), scope);
+    }
+    return file != null ? PsiManager.getInstance(project).findFile(file) : null;
+  }
+
+  public static boolean hasConfigKey(@NotNull PsiFile configFile, @NotNull String keyText) {
+    return getKeyOffset(configFile, keyText) != null;
+  }
+
+  /**
+   * @return the key expression of the top-level tuple whose key text (or tuple key name) is {@code keyText}.
+   */
+  @Nullable
+  public static ErlangExpression getConfigKey(@NotNull PsiFile configFile, @NotNull String keyText) {
+    Integer offset = getKeyOffset(configFile, keyText);
+    if (offset == null) return null;
+    PsiElement form = configFile.findElementAt(offset);
+    while (form != null && form.getParent() != configFile) {
+      form = form.getParent();
+    }
+    ErlangExpression key = getKeyOfTopLevelTuple(form);
+    if (key == null) return null;
+    String normalized = normalize(keyText);
+    boolean upToDate = normalized.equals(normalize(key.getText())) ||
+                       key instanceof ErlangTupleExpression && normalized.equals(normalize(ErlangTermFileUtil.getTupleKeyName(key)));
+    return upToDate ? key : null;
+  }
+
+  @Nullable
+  private static Integer getKeyOffset(@NotNull PsiFile configFile, @NotNull String keyText) {
+    VirtualFile file = configFile.getVirtualFile();
+    if (file == null) return null;
+    String key = createKey(file.getNameWithoutExtension(), keyText);
+    List<Integer> offsets = FileBasedIndex.getInstance().getValues(INDEX, key, GlobalSearchScope.fileScope(configFile));
+    return ContainerUtil.getFirstItem(offsets);
+  }
+
+  @Nullable
+  private static VirtualFile getConfigVirtualFile(@NotNull String configName, @NotNull GlobalSearchScope scope) {
+    Collection<VirtualFile> files = FileBasedIndex.getInstance().getContainingFiles(INDEX, configName, scope);
+    return ContainerUtil.getFirstItem(files);
+  }
+
+  @Nullable
+  private static ErlangExpression getKeyOfTopLevelTuple(@Nullable PsiElement form) {
+    if (!(form instanceof ErlangTupleExpression)) return null;
+    return ContainerUtil.getFirstItem(((ErlangTupleExpression) form).getExpressionList());
+  }
+
+  private static void putIfAbsent(@NotNull Map<String, Integer> map, @NotNull String key, int offset) {
+    if (!map.containsKey(key)) map.put(key, offset);
+  }
+
+  @NotNull
+  private static String createKey(@NotNull String configName, @NotNull String keyText) {
+    return configName + KEY_SEPARATOR + normalize(keyText);
+  }
+
+  @NotNull
+  private static String normalize(@NotNull String keyText) {
+    return keyText.replaceAll("\\s+", "");
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.index;
+
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import gnu.trove.TIntArrayList;
+import org.intellij.erlang.ErlangParserDefinition;
+import org.intellij.erlang.parser.ErlangLexer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.intellij.erlang.ErlangTypes.*;
+
+/**
+ * Significant tokens of a file for indexers which don't need PSI. Quoted atoms are merged into a single
+ * {@link org.intellij.erlang.ErlangTypes#ERL_ATOM_NAME} token including the quotes, like the text of a q_atom.
+ */
+final class ErlangIndexTokens {
+  private final CharSequence myText;
+  private final List<IElementType> myTypes = new ArrayList<>();
+  private final TIntArrayList myStarts = new TIntArrayList();
+  private final TIntArrayList myEnds = new TIntArrayList();
+
+  private ErlangIndexTokens(@NotNull CharSequence text) {
+    myText = text;
+    ErlangLexer lexer = new ErlangLexer();
+    lexer.start(text);
+    int quoteStart = -1;
+    for (IElementType type; (type = lexer.getTokenType()) != null; lexer.advance()) {
+      if (type == ERL_SINGLE_QUOTE) {
+        if (quoteStart == -1) {
+          quoteStart = lexer.getTokenStart();
+        }
+        else {
+          add(ERL_ATOM_NAME, quoteStart, lexer.getTokenEnd());
+          quoteStart = -1;
+        }
+      }
+      else if (quoteStart == -1 && type != TokenType.WHITE_SPACE && !ErlangParserDefinition.COMMENTS.contains(type)) {
+        add(type, lexer.getTokenStart(), lexer.getTokenEnd());
+      }
+    }
+  }
+
+  @NotNull
+  static ErlangIndexTokens tokenize(@NotNull CharSequence text) {
+    return new ErlangIndexTokens(text);
+  }
+
+  private void add(@NotNull IElementType type, int start, int end) {
+    myTypes.add(type);
+    myStarts.add(start);
+    myEnds.add(end);
+  }
+
+  int size() {
+    return myTypes.size();
+  }
+
+  /**
+   * @return the type of the token, or null if the index is out of bounds.
+   */
+  @Nullable
+  IElementType getType(int index) {
+    return index >= 0 && index < myTypes.size() ? myTypes.get(index) : null;
+  }
+
+  @NotNull
+  String getText(int index) {
+    return myText.subSequence(myStarts.get(index), myEnds.get(index)).toString();
+  }
+
+  boolean isAtom(int index, @NotNull String text) {
+    return getType(index) == ERL_ATOM_NAME && text.contentEquals(myText.subSequence(myStarts.get(index), myEnds.get(index)));
+  }
+
+  /**
+   * @return true if the token is the '-' which starts an attribute, i.e. the first token of a form.
+   */
+  boolean isAttributeStart(int index) {
+    return getType(index) == ERL_OP_MINUS && getType(index + 1) == ERL_ATOM_NAME && isFormStart(index);
+  }
+
+  /**
+   * @return true if the token is a dot which ends a form, rather than the one of a record field access.
+   */
+  boolean isFormEnd(int index) {
+    return getType(index) == ERL_DOT && !isRecordName(index - 1);
+  }
+
+  /**
+   * @return true if the token is a record name after '#', either an atom or a macro like in {@code #?REC{}}.
+   */
+  boolean isRecordName(int index) {
+    IElementType type = getType(index);
+    IElementType previous = getType(index - 1);
+    if (type == ERL_ATOM_NAME && previous == ERL_RADIX) return true;
+    return (type == ERL_ATOM_NAME || type == ERL_VAR) && previous == ERL_QMARK && getType(index - 2) == ERL_RADIX;
+  }
+
+  private boolean isFormStart(int index) {
+    return index == 0 || isFormEnd(index - 1);
+  }
+}
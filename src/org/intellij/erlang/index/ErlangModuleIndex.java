@@ -19,11 +19,15 @@ package org.intellij.erlang.index;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.Function;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.indexing.*;
@@ -32,9 +36,11 @@ import com.intellij.util.io.KeyDescriptor;
 import org.intellij.erlang.psi.ErlangFile;
 import org.intellij.erlang.psi.ErlangModule;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ErlangModuleIndex extends ScalarIndexExtension<String> {
   private static final ID<String, Void> ERLANG_MODULE_INDEX = ID.create("ErlangModuleIndex");
@@ -105,53 +111,61 @@ public class ErlangModuleIndex extends ScalarIndexExtension<String> {
 
   @NotNull
   public static List<VirtualFile> getVirtualFilesByName(@NotNull Project project, @NotNull String name, @NotNull GlobalSearchScope searchScope) {
-    ProjectFileIndex projectFileIndex = ProjectRootManager.getInstance(project).getFileIndex();
     Collection<VirtualFile> files = FileBasedIndex.getInstance().getContainingFiles(ERLANG_MODULE_INDEX, name, searchScope);
     List<VirtualFile> filesList = new ArrayList<>(files);
-    filesList.sort(new MyProjectFilesComparator(projectFileIndex, searchScope));
-    return filesList;
-  }
-
-  private static final class MyProjectFilesComparator implements Comparator<VirtualFile> {
-    private final ProjectFileIndex myProjectFileIndex;
-    private final GlobalSearchScope mySearchScope;
-
-    MyProjectFilesComparator(ProjectFileIndex pfi, GlobalSearchScope searchScope) {
-      myProjectFileIndex = pfi;
-      mySearchScope = searchScope;
-    }
-
-    @Override
-    public int compare(@NotNull VirtualFile f1, @NotNull VirtualFile f2) {
+    if (filesList.size() > 1) {
       // according to http://www.erlang.org/doc/man/code.html, modules that belong to
       // 'kernel' and 'stdlib' applications always appear before any user-defined modules
-      if (isKernelOrStdlibModule(f1)) return -1;
-      if (isKernelOrStdlibModule(f2)) return 1;
-
-      boolean f1IsInSource = isInSource(f1);
-      boolean f2IsInSource = isInSource(f2);
-      if (f1IsInSource != f2IsInSource) return f1IsInSource ? -1 : 1;
+      VirtualFile kernelAppDir = ErlangApplicationIndex.getApplicationDirectoryByName("kernel", searchScope);
+      VirtualFile stdlibAppDir = ErlangApplicationIndex.getApplicationDirectoryByName("stdlib", searchScope);
+      Map<VirtualFile, FileRank> ranks = getFileRanks(project);
+      Comparator<VirtualFile> kernelOrStdlibFirst =
+        Comparator.comparing(file -> !isUnder(kernelAppDir, file) && !isUnder(stdlibAppDir, file));
+      filesList.sort(kernelOrStdlibFirst.thenComparing(file -> ranks.computeIfAbsent(file, f -> new FileRank(project, f))));
+    }
+    return filesList;
+  }
 
-      boolean f1IsHidden = isUnderHiddenDirectory(f1);
-      boolean f2IsHidden = isUnderHiddenDirectory(f2);
-      if (f1IsHidden != f2IsHidden) return f1IsHidden ? 1 : -1;
+  private static boolean isUnder(@Nullable VirtualFile directory, @NotNull VirtualFile file) {
+    return directory != null && VfsUtilCore.isAncestor(directory, file, true);
+  }
 
-      boolean f1IsInLibrary = isInLibrary(f1);
-      boolean f2IsInLibrary = isInLibrary(f2);
-      if (f1IsInLibrary != f2IsInLibrary) return f1IsInLibrary ? -1 : 1;
+  /**
+   * Ranks of module files are cached per project until roots or VFS structure change, as computing them requires
+   * file system calls. The kernel and stdlib check depends on the search scope, so it isn't a part of the rank.
+   */
+  @NotNull
+  static Map<VirtualFile, FileRank> getFileRanks(@NotNull Project project) {
+    return CachedValuesManager.getManager(project).getCachedValue(project, () -> CachedValueProvider.Result.create(
+      new ConcurrentHashMap<VirtualFile, FileRank>(),
+      ProjectRootModificationTracker.getInstance(project),
+      VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS));
+  }
 
-      return f1.getPath().length() - f2.getPath().length();
+  static final class FileRank implements Comparable<FileRank> {
+    private final boolean myInSource;
+    private final boolean myHidden;
+    private final boolean myInLibrary;
+    private final int myPathLength;
+
+    FileRank(@NotNull Project project, @NotNull VirtualFile file) {
+      ProjectFileIndex projectFileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+      myInSource = projectFileIndex.isInSource(file);
+      myHidden = isUnderHiddenDirectory(projectFileIndex, file);
+      myInLibrary = projectFileIndex.isInLibraryClasses(file) || projectFileIndex.isInLibrarySource(file);
+      myPathLength = file.getPath().length();
     }
 
-    private boolean isKernelOrStdlibModule(@NotNull VirtualFile file) {
-      VirtualFile kernelAppDir = ErlangApplicationIndex.getApplicationDirectoryByName("kernel", mySearchScope);
-      if (kernelAppDir != null && VfsUtilCore.isAncestor(kernelAppDir, file, true)) return true;
-      VirtualFile stdlibAppDir = ErlangApplicationIndex.getApplicationDirectoryByName("stdlib", mySearchScope);
-      return stdlibAppDir != null && VfsUtilCore.isAncestor(stdlibAppDir, file, true);
+    @Override
+    public int compareTo(@NotNull FileRank o) {
+      if (myInSource != o.myInSource) return myInSource ? -1 : 1;
+      if (myHidden != o.myHidden) return myHidden ? 1 : -1;
+      if (myInLibrary != o.myInLibrary) return myInLibrary ? -1 : 1;
+      return myPathLength - o.myPathLength;
     }
 
-    private boolean isUnderHiddenDirectory(VirtualFile f) {
-      VirtualFile contentRoot = myProjectFileIndex.getContentRootForFile(f);
+    private static boolean isUnderHiddenDirectory(@NotNull ProjectFileIndex projectFileIndex, @Nullable VirtualFile f) {
+      VirtualFile contentRoot = f != null ? projectFileIndex.getContentRootForFile(f) : null;
       while (f != null && (contentRoot == null || VfsUtilCore.isAncestor(contentRoot, f, true))) {
         File ioFile = VfsUtilCore.virtualToIoFile(f);
         if (ioFile.isHidden()) return true;
@@ -159,14 +173,6 @@ public class ErlangModuleIndex extends ScalarIndexExtension<String> {
       }
       return false;
     }
-
-    private boolean isInLibrary(@NotNull VirtualFile file) {
-      return myProjectFileIndex.isInLibraryClasses(file) || myProjectFileIndex.isInLibrarySource(file);
-    }
-
-    private boolean isInSource(@NotNull VirtualFile file) {
-      return myProjectFileIndex.isInSource(file);
-    }
   }
 
   private static class MyDataIndexer implements DataIndexer<String, Void, FileContent> {
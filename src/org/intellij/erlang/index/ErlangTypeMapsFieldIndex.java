@@ -22,21 +22,25 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.tree.IElementType;
 import com.intellij.util.indexing.*;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import gnu.trove.THashMap;
-import org.intellij.erlang.psi.*;
+import org.intellij.erlang.psi.ErlangFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import static org.intellij.erlang.ErlangTypes.*;
+
 public class ErlangTypeMapsFieldIndex extends ScalarIndexExtension<String> {
   private static final ID<String, Void> INDEX = ID.create("erlang.maps_field.index");
-  private static final int INDEX_VERSION = 1;
+  private static final int INDEX_VERSION = 2;
   @NotNull
   @Override
   public ID<String, Void> getName() {
@@ -48,25 +52,50 @@ public class ErlangTypeMapsFieldIndex extends ScalarIndexExtension<String> {
   public DataIndexer<String,Void, FileContent> getIndexer() {
     return inputData -> {
       final Map<String, Void> result = new THashMap<>();
-      PsiFile file = inputData.getPsiFile();
-      if (file instanceof ErlangFile) {
-        file.accept(new ErlangRecursiveVisitor() {
-          @Override
-          public void visitMacrosDefinition(@NotNull ErlangMacrosDefinition o) {
-            ErlangMacrosName macrosName = o.getMacrosName();
-            if (macrosName != null && macrosName.getText().endsWith("_t"))
-            {
-              ErlangMacrosBody macrosBody = o.getMacrosBody();
-              if (macrosBody != null && macrosBody.getExpressionList().get(0) instanceof ErlangMapExpression)
-                result.put(getAtomType(macrosName.getText().substring(0, macrosName.getText().length() - 2)), null);
-            }
-          }
-        });
+      for (String macrosName : getMapTypeMacroses(inputData.getContentAsText())) {
+        result.put(getAtomType(macrosName.substring(0, macrosName.length() - 2)), null);
       }
       return result;
     };
   }
 
+  /**
+   * @return names of macroses like {@code -define(NAME_t, #{...})}, i.e. the ones whose name ends with "_t"
+   * and whose body starts with a map expression, found with the lexer.
+   */
+  @NotNull
+  public static List<String> getMapTypeMacroses(@NotNull CharSequence text) {
+    List<String> result = new ArrayList<>();
+    ErlangIndexTokens tokens = ErlangIndexTokens.tokenize(text);
+    for (int i = 0; i < tokens.size(); i++) {
+      if (!tokens.isAttributeStart(i) || !tokens.isAtom(i + 1, "define") || tokens.getType(i + 2) != ERL_PAR_LEFT) continue;
+      IElementType nameType = tokens.getType(i + 3);
+      if (nameType != ERL_ATOM_NAME && nameType != ERL_VAR) continue;
+      String name = tokens.getText(i + 3);
+      if (!name.endsWith("_t")) continue;
+      int bodyStart = skipArguments(tokens, i + 4);
+      if (tokens.getType(bodyStart) == ERL_COMMA && tokens.getType(bodyStart + 1) == ERL_RADIX &&
+          tokens.getType(bodyStart + 2) == ERL_CURLY_LEFT) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the index of the token after the macros arguments, if the token at {@code index} starts them.
+   */
+  private static int skipArguments(@NotNull ErlangIndexTokens tokens, int index) {
+    if (tokens.getType(index) != ERL_PAR_LEFT) return index;
+    int depth = 0;
+    for (int i = index; i < tokens.size(); i++) {
+      IElementType type = tokens.getType(i);
+      if (type == ERL_PAR_LEFT) depth++;
+      else if (type == ERL_PAR_RIGHT && --depth == 0) return i + 1;
+    }
+    return tokens.size();
+  }
+
   public static String getMapsVarType(String text) {
     List<String> split = StringUtil.split(text, "_");
     if (split.size() > 1){
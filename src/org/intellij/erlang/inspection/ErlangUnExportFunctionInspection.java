@@ -42,9 +42,9 @@ public class ErlangUnExportFunctionInspection extends ErlangInspectionBase {
         if (reference instanceof ErlangFunctionReference){
           ErlangFunctionReference functionReference = (ErlangFunctionReference) reference;
           if (moduleRef != null &&
-              ErlangBifTable.isBif(ErlangPsiImplUtil.getName(moduleRef.getQAtom()),
-                                   functionReference.getName(),
-                                   functionReference.getArity()))
+              ErlangBifTable.getCatalog(call).isBif(ErlangPsiImplUtil.getName(moduleRef.getQAtom()),
+                                                    functionReference.getName(),
+                                                    functionReference.getArity()))
             return;
         }
         PsiElement resolve = reference.resolve();
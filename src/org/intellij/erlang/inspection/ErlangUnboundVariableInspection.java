@@ -30,6 +30,7 @@ import com.intellij.psi.util.PsiUtilBase;
 import org.intellij.erlang.psi.ErlangClauseBody;
 import org.intellij.erlang.psi.ErlangQVar;
 import org.intellij.erlang.psi.ErlangVisitor;
+import org.intellij.erlang.psi.impl.ErlangVarScopeTable;
 import org.intellij.erlang.quickfixes.ErlangQuickFixBase;
 import org.jetbrains.annotations.NotNull;
 
@@ -42,10 +43,9 @@ public class ErlangUnboundVariableInspection extends ErlangInspectionBase {
     return new ErlangVisitor() {
       @Override
       public void visitQVar(@NotNull ErlangQVar o) {
-        if (inArgumentDefinition(o) && !inArgumentList(o)
-          || inDefinitionBeforeArgumentList(o)
-          || inLeftPartOfAssignment(o) || inAtomAttribute(o)
-          || isForceSkipped(o) || inSpecification(o) || inDefine(o)
+        ErlangVarScopeTable table = ErlangVarScopeTable.getTable(o);
+        if (table != null ? isBindingOccurrence(table, o) : isBindingOccurrence(o)) return;
+        if (isForceSkipped(o) || inAtomAttribute(o) || inSpecification(o) || inDefine(o)
           || inCallback(o) || inRecordDefinition(o))  {
           return;
         }
@@ -66,6 +66,18 @@ public class ErlangUnboundVariableInspection extends ErlangInspectionBase {
     };
   }
 
+  private static boolean isBindingOccurrence(@NotNull ErlangVarScopeTable table, @NotNull ErlangQVar o) {
+    return table.isArgumentDefinition(o) && !table.isInArgumentList(o)
+           || table.isDefinitionBeforeArgumentList(o)
+           || table.isLeftPartOfAssignment(o);
+  }
+
+  private static boolean isBindingOccurrence(@NotNull ErlangQVar o) {
+    return inArgumentDefinition(o) && !inArgumentList(o)
+           || inDefinitionBeforeArgumentList(o)
+           || inLeftPartOfAssignment(o);
+  }
+
   private static class ErlangIntroduceVariableQuickFix extends ErlangQuickFixBase {
     @NotNull
     @Override
@@ -20,12 +20,11 @@ import com.intellij.codeInspection.LocalInspectionToolSession;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiReference;
-import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.index.ErlangConfigKeyIndex;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
 import java.util.List;
 
 public class ErlangUnresolvedConfigKeyInspection extends ErlangInspectionBase {
@@ -59,9 +58,7 @@ public class ErlangUnresolvedConfigKeyInspection extends ErlangInspectionBase {
 
 
   private void checkConfigKey(@NotNull ProblemsHolder holder, ErlangFile config, ErlangQAtom atom) {
-    Collection<PsiElement> configKeys = config.getConfigKeys();
-    List<String> keys = ContainerUtil.mapNotNull(configKeys, PsiElement::getText);
-    if (keys.contains(atom.getText())) return;
+    if (ErlangConfigKeyIndex.hasConfigKey(config, atom.getText())) return;
     registerProblem(holder, atom, "UnDefined Key: " + atom.getText() + " in config file " + config.getName());
   }
 
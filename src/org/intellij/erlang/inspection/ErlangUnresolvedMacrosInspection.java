@@ -17,15 +17,23 @@
 package org.intellij.erlang.inspection;
 
 import com.intellij.codeInspection.LocalInspectionToolSession;
+import com.intellij.codeInspection.LocalQuickFix;
 import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReference;
-import org.intellij.erlang.psi.ErlangMacros;
-import org.intellij.erlang.psi.ErlangMacrosName;
-import org.intellij.erlang.psi.ErlangVisitor;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.intellij.erlang.psi.*;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.quickfixes.ErlangIncludeHeaderFix;
 import org.intellij.erlang.quickfixes.ErlangIntroduceMacroQuickFix;
+import org.intellij.erlang.stubs.index.ErlangMacrosDefinitionIndex;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 public class ErlangUnresolvedMacrosInspection extends ErlangInspectionBase {
   @NotNull
   @Override
@@ -38,7 +46,17 @@ public class ErlangUnresolvedMacrosInspection extends ErlangInspectionBase {
 
         PsiReference reference = o.getReference();
         if (reference != null && reference.resolve() == null) {
-          registerProblem(holder, o, "Unresolved macros " + "'" + o.getText() + "'", new ErlangIntroduceMacroQuickFix());
+          List<LocalQuickFix> fixes = new ArrayList<>();
+          fixes.add(new ErlangIntroduceMacroQuickFix());
+          PsiFile file = o.getContainingFile();
+          if (file instanceof ErlangFile) {
+            Project project = file.getProject();
+            Collection<ErlangMacrosDefinition> macroses =
+              ErlangMacrosDefinitionIndex.getHeaderMacroses(project, macrosName.getText(), ErlangPsiImplUtil.getCallArity(o),
+                                                            GlobalSearchScope.projectScope(project));
+            fixes.addAll(ErlangIncludeHeaderFix.createFixes((ErlangFile) file, macroses));
+          }
+          registerProblem(holder, o, "Unresolved macros " + "'" + o.getText() + "'", fixes.toArray(LocalQuickFix.EMPTY_ARRAY));
         }
       }
     };
@@ -18,12 +18,11 @@ package org.intellij.erlang.inspection;
 
 import com.intellij.codeInspection.LocalInspectionToolSession;
 import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiReference;
 import com.intellij.psi.util.PsiTreeUtil;
-import org.intellij.erlang.psi.ErlangQAtom;
-import org.intellij.erlang.psi.ErlangRecordExpression;
-import org.intellij.erlang.psi.ErlangRecordField;
-import org.intellij.erlang.psi.ErlangVisitor;
+import org.intellij.erlang.psi.*;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.quickfixes.ErlangIntroduceRecordFieldFix;
 import org.jetbrains.annotations.NotNull;
 
@@ -34,18 +33,25 @@ public class ErlangUnresolvedRecordFieldInspection extends ErlangInspectionBase
     return new ErlangVisitor() {
       @Override
       public void visitRecordField(@NotNull ErlangRecordField o) {
+        ErlangQAtom atom = o.getFieldNameAtom();
+        if (atom == null || atom.getMacros() != null) return;
+
         ErlangRecordExpression recordExpression = PsiTreeUtil.getParentOfType(o, ErlangRecordExpression.class);
         if (recordExpression != null) {
           PsiReference reference = recordExpression.getReferenceInternal();
-          if (reference != null && reference.resolve() == null) {
+          PsiElement record = reference != null ? reference.resolve() : null;
+          if (reference != null && record == null) {
+            return;
+          }
+          // field names are kept in record stubs, so headers don't need to be parsed for the common case
+          if (record instanceof ErlangRecordDefinition &&
+              ErlangPsiImplUtil.getFieldNames((ErlangRecordDefinition) record).contains(ErlangPsiImplUtil.getNameIdentifier(atom).getText())) {
             return;
           }
         }
 
         PsiReference reference = o.getReference();
         if (reference == null || reference.resolve() == null) {
-          ErlangQAtom atom = o.getFieldNameAtom();
-          if (atom == null || atom.getMacros() != null) return;
           registerProblem(holder, atom, "Unresolved record field " + "'" + atom.getText() + "'", new ErlangIntroduceRecordFieldFix());
         }
       }
@@ -17,6 +17,7 @@
 package org.intellij.erlang.inspection;
 
 import com.intellij.codeInspection.LocalInspectionToolSession;
+import com.intellij.codeInspection.LocalQuickFix;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
@@ -28,10 +29,14 @@ import org.intellij.erlang.console.ErlangConsoleView;
 import org.intellij.erlang.parser.ErlangParserUtil;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.quickfixes.ErlangIncludeHeaderFix;
 import org.intellij.erlang.quickfixes.ErlangIntroduceRecordFix;
+import org.intellij.erlang.stubs.index.ErlangRecordDefinitionIndex;
 import org.intellij.erlang.utils.ErlangModulesUtil;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -73,7 +78,16 @@ public class ErlangUnresolvedRecordInspection extends ErlangInspectionBase {
       registerProblem(problemsHolder, o, "Unresolved record " + "'" + o.getText() + "'");
     }
     else if (ref == null || ref.resolve() == null) {
-      registerProblem(problemsHolder, o, "Unresolved record " + "'" + o.getText() + "'", new ErlangIntroduceRecordFix());
+      List<LocalQuickFix> fixes = new ArrayList<>();
+      fixes.add(new ErlangIntroduceRecordFix());
+      PsiFile file = o.getContainingFile();
+      if (file instanceof ErlangFile) {
+        Project project = file.getProject();
+        Collection<ErlangRecordDefinition> records =
+          ErlangRecordDefinitionIndex.getHeaderRecords(project, o.getText(), GlobalSearchScope.projectScope(project));
+        fixes.addAll(ErlangIncludeHeaderFix.createFixes((ErlangFile) file, records));
+      }
+      registerProblem(problemsHolder, o, "Unresolved record " + "'" + o.getText() + "'", fixes.toArray(LocalQuickFix.EMPTY_ARRAY));
     }
   }
 }
@@ -20,11 +20,9 @@ import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiReference;
-import com.intellij.psi.search.LocalSearchScope;
-import com.intellij.psi.search.searches.ReferencesSearch;
-import com.intellij.util.Query;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.psi.impl.ErlangVarScopeTable;
 import org.intellij.erlang.quickfixes.ErlangRenameVariableFix;
 import org.jetbrains.annotations.NotNull;
 
@@ -34,19 +32,21 @@ public class ErlangUnusedVariableInspection extends ErlangInspectionBase {
   @Override
   protected void checkFile(@NotNull ErlangFile file, @NotNull final ProblemsHolder problemsHolder) {
     for (ErlangFunction function : file.getFunctions()) {
-      for (final ErlangFunctionClause functionClause : function.getFunctionClauseList()) {
+      for (ErlangFunctionClause functionClause : function.getFunctionClauseList()) {
+        ErlangVarScopeTable table = ErlangVarScopeTable.getTable(functionClause);
+        if (table == null) continue;
         functionClause.accept(new ErlangRecursiveVisitor() {
           @Override
           public void visitQVar(@NotNull ErlangQVar o) {
-            if (isForceSkipped(o) || !inLeftPartOfAssignment(o) && (!inArgumentDefinition(o) || inArgumentList(o))) return;
+            if (isForceSkipped(o) || !table.isLeftPartOfAssignment(o) && (!table.isArgumentDefinition(o) || table.isInArgumentList(o))) return;
 
             PsiReference reference = o.getReference();
             PsiElement resolve = reference != null ? reference.resolve() : null;
             if (resolve != null) return;
 
-            Query<PsiReference> search = ReferencesSearch.search(o, new LocalSearchScope(functionClause));
-            for (PsiReference ref : search) {
-              PsiElement element = ref.getElement();
+            for (ErlangQVar element : table.getVariables(o.getText())) {
+              PsiReference ref = element.getReference();
+              if (ref == null || !ref.isReferenceTo(o)) continue;
               if (ErlangPsiImplUtil.inOneExpDifferentClause(element, o)) continue;
               if (ErlangPsiImplUtil.fromTheSameCaseExpression(o, element)) {
                 PsiReference reference1 = element.getReference();
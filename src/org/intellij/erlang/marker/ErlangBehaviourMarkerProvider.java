@@ -25,6 +25,8 @@ import com.intellij.openapi.editor.markup.GutterIconRenderer;
 import com.intellij.psi.NavigatablePsiElement;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.impl.source.tree.LeafPsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.navigation.ErlangNavigationUtil;
 import org.intellij.erlang.psi.*;
@@ -51,6 +53,15 @@ public class ErlangBehaviourMarkerProvider implements LineMarkerProvider {
         if (!prototypes.isEmpty()) {
           result.add(createImplementationMarker(element, function, prototypes));
         }
+        continue;
+      }
+      ErlangCallbackSpec callbackSpec = findCallbackSpecFromNameLeaf(element);
+      if (callbackSpec != null) {
+        GlobalSearchScope scope = GlobalSearchScope.allScope(callbackSpec.getProject());
+        List<ErlangFunction> implementations = ErlangNavigationUtil.getCallbackImplementations(callbackSpec, scope);
+        if (!implementations.isEmpty()) {
+          result.add(createImplementedMarker(element, callbackSpec, implementations));
+        }
       }
     }
   }
@@ -72,6 +83,38 @@ public class ErlangBehaviourMarkerProvider implements LineMarkerProvider {
     return null;
   }
 
+  @Nullable
+  private static ErlangCallbackSpec findCallbackSpecFromNameLeaf(@Nullable PsiElement element) {
+    if (!(element instanceof LeafPsiElement)) return null;
+    PsiElement atom = element.getParent();
+    if (!(atom instanceof ErlangAtom)) return null;
+    PsiElement parent = atom.getParent();
+    if (!(parent instanceof ErlangQAtom)) return null;
+    PsiElement specFun = parent.getParent();
+    if (!(specFun instanceof ErlangSpecFun) || !(specFun.getParent() instanceof ErlangFunTypeSigs)) return null;
+    return PsiTreeUtil.getParentOfType(specFun, ErlangCallbackSpec.class);
+  }
+
+  private static LineMarkerInfo<PsiElement> createImplementedMarker(@NotNull PsiElement atom,
+                                                                    @NotNull ErlangCallbackSpec callbackSpec,
+                                                                    @NotNull List<ErlangFunction> implementations) {
+    String presentation = ErlangPsiImplUtil.getCallbackSpecName(callbackSpec) + "/" + ErlangPsiImplUtil.getCallBackSpecArguments(callbackSpec).size();
+    return new LineMarkerInfo<>(
+      atom,
+      atom.getTextRange(),
+      AllIcons.Gutter.ImplementedMethod,
+      element -> "Has implementations",
+      (e, elt) -> {
+        String title = MessageFormat.format("<html><body>Choose Implementation of <b>{0}</b> ({1} implementations found)</body></html>", presentation, implementations.size());
+        PsiElementListNavigator.openTargets(
+          e, ContainerUtil.findAllAsArray(implementations, NavigatablePsiElement.class),
+          title, title, new DefaultPsiElementCellRenderer()
+        );
+      },
+      GutterIconRenderer.Alignment.RIGHT
+    );
+  }
+
   private static LineMarkerInfo<PsiElement> createImplementationMarker(@NotNull PsiElement atom,
                                                                        @NotNull ErlangFunction function,
                                                                        @NotNull Collection<ErlangCallbackSpec> callbackSpecs) {
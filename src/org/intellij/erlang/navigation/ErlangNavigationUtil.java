@@ -17,8 +17,11 @@
 package org.intellij.erlang.navigation;
 
 import com.intellij.navigation.ItemPresentation;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.psi.NavigatablePsiElement;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.icons.ErlangIcons;
@@ -28,6 +31,7 @@ import org.intellij.erlang.psi.ErlangFunction;
 import org.intellij.erlang.psi.ErlangSpecFun;
 import org.intellij.erlang.psi.impl.ErlangCompositeElementImpl;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.stubs.index.ErlangBehaviourImplementationIndex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -48,6 +52,27 @@ public class ErlangNavigationUtil {
     });
   }
 
+  /**
+   * @return modules declaring {@code behaviourModule} in their {@code -behaviour} attributes.
+   */
+  @NotNull
+  public static List<ErlangFile> getBehaviourImplementations(@NotNull ErlangFile behaviourModule, @NotNull GlobalSearchScope scope) {
+    String behaviourName = FileUtil.getNameWithoutExtension(behaviourModule.getName());
+    return ErlangBehaviourImplementationIndex.getImplementingModules(behaviourModule.getProject(), behaviourName, scope);
+  }
+
+  /**
+   * @return functions implementing the callback in modules which declare its behaviour.
+   */
+  @NotNull
+  public static List<ErlangFunction> getCallbackImplementations(@NotNull ErlangCallbackSpec callbackSpec, @NotNull GlobalSearchScope scope) {
+    PsiFile file = callbackSpec.getContainingFile();
+    String name = ErlangPsiImplUtil.getCallbackSpecName(callbackSpec);
+    if (!(file instanceof ErlangFile) || name == null) return ContainerUtil.emptyList();
+    int arity = ErlangPsiImplUtil.getCallBackSpecArguments(callbackSpec).size();
+    return ContainerUtil.mapNotNull(getBehaviourImplementations((ErlangFile) file, scope), module -> module.getFunction(name, arity));
+  }
+
   @Nullable
   public static NavigatablePsiElement getNavigatableSpecFun(final String presentation, PsiElement callbackSpec) {
     ErlangSpecFun specFun = PsiTreeUtil.findChildOfType(callbackSpec, ErlangSpecFun.class);
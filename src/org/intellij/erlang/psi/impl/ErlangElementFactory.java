@@ -85,6 +85,12 @@ public class ErlangElementFactory {
     return fileFromText.getIncludes().get(0).getIncludeStringSafe();
   }
 
+  @NotNull
+  public static ErlangInclude createIncludeFromText(@NotNull Project project, @NotNull String text) {
+    ErlangFile fileFromText = createFileFromText(project, "-include(\"" + text + "\").");
+    return fileFromText.getIncludes().get(0);
+  }
+
   @NotNull
   public static PsiElement createExportFromText(@NotNull Project project, @NotNull String text) {
     return createAttributeFromText(project, "-export([" + text + "]).");
@@ -0,0 +1,480 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.psi.impl;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.stubs.IStubElementType;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.util.ObjectUtils;
+import com.intellij.util.containers.ContainerUtil;
+import gnu.trove.THashMap;
+import org.intellij.erlang.ErlangTypes;
+import org.intellij.erlang.parser.ErlangParserUtil;
+import org.intellij.erlang.psi.*;
+import org.intellij.erlang.stubs.ErlangCallbackSpecStub;
+import org.intellij.erlang.stubs.ErlangFileStub;
+import org.intellij.erlang.stubs.ErlangFunctionStub;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.intellij.erlang.psi.impl.ErlangPsiImplUtil.*;
+
+/**
+ * Top-level declarations of a file, collected in a single pass either over the file's stub or over its tree.
+ * A stub based summary has no rules, attributes, imports, export and compile directives since those aren't stubbed.
+ */
+public final class ErlangFileSummary {
+  private final boolean myStubBased;
+  @Nullable private final ErlangModule myModule;
+  private final List<ErlangRule> myRules;
+  private final List<ErlangAttribute> myAttributes;
+  private final List<ErlangFunction> myFunctions;
+  private final Map<String, List<ErlangFunction>> myFunctionsByName;
+  private final Set<ErlangFunction> myExportedFunctions;
+  private final List<ErlangImportFunction> myImports;
+  private final Map<String, List<ErlangImportFunction>> myImportsByName;
+  private final List<ErlangRecordDefinition> myRecords;
+  private final Map<String, ErlangRecordDefinition> myRecordsByName;
+  private final List<ErlangMacrosDefinition> myMacroses;
+  private final Map<String, ErlangMacrosDefinition> myMacrosesByName;
+  private final List<ErlangTypeDefinition> myTypes;
+  private final Map<String, ErlangTypeDefinition> myTypesByName;
+  private final List<ErlangInclude> myIncludes;
+  private final List<ErlangIncludeLib> myIncludeLibs;
+  private final List<ErlangBehaviour> myBehaviours;
+  private final List<ErlangCallbackFunction> myOptionalCallbacks;
+  private final List<ErlangSpecification> mySpecifications;
+  private final Map<String, ErlangCallbackSpec> myCallbacks;
+  private final Set<String> myExportedSignatures;
+  private final Set<String> myNoAutoImportSignatures;
+  private final boolean myExportAll;
+  private final boolean myNoAutoImportAll;
+  private final Set<PsiElement> myConfigKeys;
+
+  private ErlangFileSummary(@NotNull Builder builder) {
+    myStubBased = builder.myStubBased;
+    myModule = builder.myModule;
+    myRules = Collections.unmodifiableList(builder.myRules);
+    myAttributes = Collections.unmodifiableList(builder.myAttributes);
+    myFunctions = Collections.unmodifiableList(builder.myFunctions);
+    myFunctionsByName = groupBy(builder.myFunctions, ErlangFunction::getName);
+    myExportedFunctions = Collections.unmodifiableSet(builder.myExportedFunctions);
+    myImports = Collections.unmodifiableList(builder.myImports);
+    myImportsByName = groupBy(builder.myImports, ErlangPsiImplUtil::getName);
+    myRecords = Collections.unmodifiableList(builder.myRecords);
+    myRecordsByName = firstByName(builder.myRecords, ErlangRecordDefinition::getName);
+    myMacroses = Collections.unmodifiableList(builder.myMacroses);
+    myMacrosesByName = firstByName(builder.myMacroses, ErlangPsiImplUtil::getName);
+    myTypes = Collections.unmodifiableList(builder.myTypes);
+    myTypesByName = firstByName(builder.myTypes, ErlangTypeDefinition::getName);
+    myIncludes = Collections.unmodifiableList(builder.myIncludes);
+    myIncludeLibs = Collections.unmodifiableList(builder.myIncludeLibs);
+    myBehaviours = Collections.unmodifiableList(builder.myBehaviours);
+    myOptionalCallbacks = Collections.unmodifiableList(builder.myOptionalCallbacks);
+    mySpecifications = Collections.unmodifiableList(builder.mySpecifications);
+    myCallbacks = Collections.unmodifiableMap(builder.myCallbacks);
+    myExportedSignatures = Collections.unmodifiableSet(builder.myExportedSignatures);
+    myNoAutoImportSignatures = Collections.unmodifiableSet(builder.myNoAutoImportSignatures);
+    myExportAll = builder.myExportAll;
+    myNoAutoImportAll = builder.myNoAutoImportAll;
+    myConfigKeys = Collections.unmodifiableSet(builder.myConfigKeys);
+  }
+
+  @NotNull
+  static ErlangFileSummary fromStub(@NotNull ErlangFileStub stub) {
+    Builder builder = new Builder(true);
+    builder.myExportAll = stub.isExportAll();
+    for (StubElement<?> child : stub.getChildrenStubs()) {
+      IStubElementType<?, ?> type = child.getStubType();
+      if (type == ErlangTypes.ERL_FUNCTION) {
+        ErlangFunction function = (ErlangFunction) child.getPsi();
+        builder.myFunctions.add(function);
+        if (((ErlangFunctionStub) child).isExported()) builder.myExportedFunctions.add(function);
+      }
+      else if (type == ErlangTypes.ERL_MODULE) {
+        if (builder.myModule == null) builder.myModule = (ErlangModule) child.getPsi();
+      }
+      else if (type == ErlangTypes.ERL_RECORD_DEFINITION) {
+        builder.myRecords.add((ErlangRecordDefinition) child.getPsi());
+      }
+      else if (type == ErlangTypes.ERL_MACROS_DEFINITION) {
+        builder.myMacroses.add((ErlangMacrosDefinition) child.getPsi());
+      }
+      else if (type == ErlangTypes.ERL_TYPE_DEFINITION) {
+        builder.myTypes.add((ErlangTypeDefinition) child.getPsi());
+      }
+      else if (type == ErlangTypes.ERL_INCLUDE) {
+        builder.myIncludes.add((ErlangInclude) child.getPsi());
+      }
+      else if (type == ErlangTypes.ERL_INCLUDE_LIB) {
+        builder.myIncludeLibs.add((ErlangIncludeLib) child.getPsi());
+      }
+      else if (type == ErlangTypes.ERL_BEHAVIOUR) {
+        builder.myBehaviours.add((ErlangBehaviour) child.getPsi());
+      }
+      else if (type == ErlangTypes.ERL_CALLBACK_FUNCTION) {
+        builder.myOptionalCallbacks.add((ErlangCallbackFunction) child.getPsi());
+      }
+      else if (type == ErlangTypes.ERL_SPECIFICATION) {
+        builder.mySpecifications.add((ErlangSpecification) child.getPsi());
+      }
+      else if (child instanceof ErlangCallbackSpecStub) {
+        ErlangCallbackSpecStub callbackStub = (ErlangCallbackSpecStub) child;
+        builder.myCallbacks.put(callbackStub.getName() + "/" + callbackStub.getArity(), callbackStub.getPsi());
+      }
+    }
+    return new ErlangFileSummary(builder);
+  }
+
+  /**
+   * @param collectConfigKeys whether keys of top-level tuples should be collected, which only makes sense for terms files.
+   */
+  @NotNull
+  static ErlangFileSummary fromTree(@NotNull ErlangFile file, boolean collectConfigKeys) {
+    Builder builder = new Builder(false);
+    List<ErlangExpression> compileDirectiveExpressions = new ArrayList<>();
+    collectChildrenDummyAware(file, child -> {
+      if (child instanceof ErlangFunction) {
+        builder.myFunctions.add((ErlangFunction) child);
+      }
+      else if (child instanceof ErlangAttribute) {
+        builder.addAttribute((ErlangAttribute) child, compileDirectiveExpressions);
+      }
+      else if (child instanceof ErlangRecordDefinition) {
+        builder.myRecords.add((ErlangRecordDefinition) child);
+      }
+      else if (child instanceof ErlangMacrosDefinition) {
+        builder.myMacroses.add((ErlangMacrosDefinition) child);
+      }
+      else if (child instanceof ErlangTypeDefinition) {
+        builder.myTypes.add((ErlangTypeDefinition) child);
+      }
+      else if (child instanceof ErlangInclude) {
+        builder.myIncludes.add((ErlangInclude) child);
+      }
+      else if (child instanceof ErlangIncludeLib) {
+        builder.myIncludeLibs.add((ErlangIncludeLib) child);
+      }
+      else if (child instanceof ErlangRule) {
+        builder.myRules.add((ErlangRule) child);
+      }
+      else if (collectConfigKeys && child instanceof ErlangTupleExpression) {
+        ContainerUtil.addIfNotNull(builder.myConfigKeys,
+                                   ContainerUtil.getFirstItem(((ErlangTupleExpression) child).getExpressionList()));
+      }
+    });
+    for (ErlangExpression expression : compileDirectiveExpressions) {
+      builder.addCompileDirective(expression);
+    }
+    for (ErlangFunction function : builder.myFunctions) {
+      if (builder.myExportAll || builder.myExportedSignatures.contains(function.getName() + "/" + function.getArity())) {
+        builder.myExportedFunctions.add(function);
+      }
+    }
+    return new ErlangFileSummary(builder);
+  }
+
+  boolean isStubBased() {
+    return myStubBased;
+  }
+
+  @Nullable
+  public ErlangModule getModule() {
+    return myModule;
+  }
+
+  @NotNull
+  public List<ErlangRule> getRules() {
+    return myRules;
+  }
+
+  @NotNull
+  public List<ErlangAttribute> getAttributes() {
+    return myAttributes;
+  }
+
+  @NotNull
+  public List<ErlangFunction> getFunctions() {
+    return myFunctions;
+  }
+
+  @NotNull
+  public Collection<ErlangFunction> getFunctionsByName(@NotNull String name) {
+    return ContainerUtil.notNullize(myFunctionsByName.get(name));
+  }
+
+  @Nullable
+  public ErlangFunction getFunction(@NotNull String name, int arity) {
+    return ContainerUtil.find(getFunctionsByName(name), function -> function.getArity() == arity);
+  }
+
+  @NotNull
+  public Set<ErlangFunction> getExportedFunctions() {
+    return myExportedFunctions;
+  }
+
+  @NotNull
+  public List<ErlangImportFunction> getImportedFunctions() {
+    return myImports;
+  }
+
+  @Nullable
+  public ErlangImportFunction getImportedFunction(String name, int arity) {
+    return ContainerUtil.find(ContainerUtil.notNullize(myImportsByName.get(name)),
+                              importFunction -> arity == ErlangPsiImplUtil.getArity(importFunction));
+  }
+
+  @NotNull
+  public List<ErlangRecordDefinition> getRecords() {
+    return myRecords;
+  }
+
+  @Nullable
+  public ErlangRecordDefinition getRecord(@Nullable String name) {
+    return myRecordsByName.get(name);
+  }
+
+  @NotNull
+  public List<ErlangMacrosDefinition> getMacroses() {
+    return myMacroses;
+  }
+
+  @Nullable
+  public ErlangMacrosDefinition getMacros(@NotNull String name) {
+    return myMacrosesByName.get(name);
+  }
+
+  @NotNull
+  public List<ErlangTypeDefinition> getTypes() {
+    return myTypes;
+  }
+
+  @Nullable
+  public ErlangTypeDefinition getType(@NotNull String name) {
+    return myTypesByName.get(name);
+  }
+
+  @NotNull
+  public List<ErlangInclude> getIncludes() {
+    return myIncludes;
+  }
+
+  @NotNull
+  public List<ErlangIncludeLib> getIncludeLibs() {
+    return myIncludeLibs;
+  }
+
+  @NotNull
+  public List<ErlangBehaviour> getBehaviours() {
+    return myBehaviours;
+  }
+
+  @NotNull
+  public List<ErlangCallbackFunction> getOptionalCallbacks() {
+    return myOptionalCallbacks;
+  }
+
+  @NotNull
+  public List<ErlangSpecification> getSpecifications() {
+    return mySpecifications;
+  }
+
+  @NotNull
+  public Map<String, ErlangCallbackSpec> getCallbackMap() {
+    return myCallbacks;
+  }
+
+  public boolean isExportAll() {
+    return myExportAll;
+  }
+
+  public boolean isExported(@NotNull String signature) {
+    return myExportAll || myExportedSignatures.contains(signature);
+  }
+
+  public boolean isNoAutoImportAll() {
+    return myNoAutoImportAll;
+  }
+
+  public boolean isNoAutoImport(@NotNull String name, int arity) {
+    return myNoAutoImportAll || myNoAutoImportSignatures.contains(createFunctionPresentation(name, arity));
+  }
+
+  @NotNull
+  public Set<PsiElement> getConfigKeys() {
+    return myConfigKeys;
+  }
+
+  private static void collectChildrenDummyAware(@NotNull PsiElement parent, @NotNull Consumer<PsiElement> consumer) {
+    for (PsiElement child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof ErlangParserUtil.DummyBlock) {
+        collectChildrenDummyAware(child, consumer);
+      }
+      else {
+        consumer.accept(child);
+      }
+    }
+  }
+
+  @NotNull
+  private static <T> Map<String, List<T>> groupBy(@NotNull List<T> elements, @NotNull Function<T, String> nameFunction) {
+    Map<String, List<T>> map = new THashMap<>();
+    for (T element : elements) {
+      map.computeIfAbsent(nameFunction.apply(element), name -> new ArrayList<>(1)).add(element);
+    }
+    return map;
+  }
+
+  @NotNull
+  private static <T> Map<String, T> firstByName(@NotNull List<T> elements, @NotNull Function<T, String> nameFunction) {
+    Map<String, T> map = new THashMap<>();
+    for (T element : elements) {
+      String name = nameFunction.apply(element);
+      if (!map.containsKey(name)) {
+        map.put(name, element);
+      }
+    }
+    return map;
+  }
+
+  private static final class Builder {
+    private final boolean myStubBased;
+    private ErlangModule myModule;
+    private final List<ErlangRule> myRules = new ArrayList<>();
+    private final List<ErlangAttribute> myAttributes = new ArrayList<>();
+    private final List<ErlangFunction> myFunctions = new ArrayList<>();
+    private final Set<ErlangFunction> myExportedFunctions = new LinkedHashSet<>();
+    private final List<ErlangImportFunction> myImports = new ArrayList<>();
+    private final List<ErlangRecordDefinition> myRecords = new ArrayList<>();
+    private final List<ErlangMacrosDefinition> myMacroses = new ArrayList<>();
+    private final List<ErlangTypeDefinition> myTypes = new ArrayList<>();
+    private final List<ErlangInclude> myIncludes = new ArrayList<>();
+    private final List<ErlangIncludeLib> myIncludeLibs = new ArrayList<>();
+    private final List<ErlangBehaviour> myBehaviours = new ArrayList<>();
+    private final List<ErlangCallbackFunction> myOptionalCallbacks = new ArrayList<>();
+    private final List<ErlangSpecification> mySpecifications = new ArrayList<>();
+    private final Map<String, ErlangCallbackSpec> myCallbacks = new LinkedHashMap<>();
+    private final Set<String> myExportedSignatures = new HashSet<>();
+    private final Set<String> myNoAutoImportSignatures = new HashSet<>();
+    private boolean myExportAll;
+    private boolean myNoAutoImportAll;
+    private final Set<PsiElement> myConfigKeys = new HashSet<>();
+
+    Builder(boolean stubBased) {
+      myStubBased = stubBased;
+    }
+
+    void addAttribute(@NotNull ErlangAttribute attribute, @NotNull List<ErlangExpression> compileDirectiveExpressions) {
+      myAttributes.add(attribute);
+      ErlangModule module = attribute.getModule();
+      if (module != null && myModule == null) {
+        myModule = module;
+      }
+      ErlangExport export = attribute.getExport();
+      ErlangExportFunctions exportFunctions = export != null ? export.getExportFunctions() : null;
+      if (exportFunctions != null) {
+        for (ErlangExportFunction exportFunction : exportFunctions.getExportFunctionList()) {
+          PsiElement integer = exportFunction.getInteger();
+          if (integer == null) continue;
+          myExportedSignatures.add(getExportFunctionName(exportFunction) + "/" + integer.getText());
+        }
+      }
+      ErlangImportDirective importDirective = attribute.getImportDirective();
+      ErlangImportFunctions importFunctions = importDirective != null ? importDirective.getImportFunctions() : null;
+      if (importFunctions != null) {
+        myImports.addAll(importFunctions.getImportFunctionList());
+      }
+      ErlangCallbackSpec callbackSpec = attribute.getCallbackSpec();
+      if (callbackSpec != null) {
+        String name = getCallbackSpecName(callbackSpec);
+        int arity = getCallBackSpecArguments(callbackSpec).size();
+        myCallbacks.put(name + "/" + arity, callbackSpec);
+      }
+      ContainerUtil.addIfNotNull(myBehaviours, attribute.getBehaviour());
+      ContainerUtil.addIfNotNull(mySpecifications, attribute.getSpecification());
+      ErlangOptionalCallbacks optionalCallbacks = attribute.getOptionalCallbacks();
+      ErlangOptionalCallbackFunctions functions = optionalCallbacks != null ? optionalCallbacks.getOptionalCallbackFunctions() : null;
+      if (functions != null) {
+        myOptionalCallbacks.addAll(functions.getCallbackFunctionList());
+      }
+      ErlangAtomAttribute atomAttribute = attribute.getAtomAttribute();
+      ErlangAttrVal attrVal = atomAttribute != null ? atomAttribute.getAttrVal() : null;
+      if (attrVal != null && "compile".equals(atomAttribute.getName())) {
+        compileDirectiveExpressions.addAll(attrVal.getExpressionList());
+      }
+    }
+
+    void addCompileDirective(@NotNull ErlangExpression expression) {
+      if (expression instanceof ErlangListExpression) {
+        for (ErlangExpression e : ((ErlangListExpression) expression).getExpressionList()) {
+          if (e instanceof ErlangMaxExpression) {
+            addCompileOption((ErlangMaxExpression) e);
+          }
+          else if (e instanceof ErlangTupleExpression) {
+            addNoAutoImportSignatures((ErlangTupleExpression) e);
+          }
+        }
+      }
+      else if (expression instanceof ErlangMaxExpression) {
+        addCompileOption((ErlangMaxExpression) expression);
+      }
+      else if (expression instanceof ErlangTupleExpression) {
+        addNoAutoImportSignatures((ErlangTupleExpression) expression);
+      }
+    }
+
+    private void addCompileOption(@NotNull ErlangMaxExpression option) {
+      String name = getAtomName(option);
+      if ("export_all".equals(name)) myExportAll = true;
+      else if ("no_auto_import".equals(name)) myNoAutoImportAll = true;
+    }
+
+    private void addNoAutoImportSignatures(@NotNull ErlangTupleExpression tupleExpression) {
+      List<ErlangExpression> expressions = tupleExpression.getExpressionList();
+      if (expressions.size() != 2) return;
+      ErlangExpression first = expressions.get(0);
+      ErlangExpression second = expressions.get(1);
+      if (!(first instanceof ErlangMaxExpression)
+        || !(second instanceof ErlangListExpression)
+        || !"no_auto_import".equals(getAtomName((ErlangMaxExpression) first))) {
+        return;
+      }
+      second.accept(new ErlangRecursiveVisitor() {
+        @Override
+        public void visitAtomWithArityExpression(@NotNull ErlangAtomWithArityExpression o) {
+          myNoAutoImportSignatures.add(createFunctionPresentation(o));
+        }
+
+        @Override
+        public void visitTupleExpression(@NotNull ErlangTupleExpression o) {
+          List<ErlangExpression> exprs = o.getExpressionList();
+          if (exprs.size() != 2) return;
+
+          String functionName = getAtomName(ObjectUtils.tryCast(exprs.get(0), ErlangMaxExpression.class));
+          int functionArity = getArity(ObjectUtils.tryCast(exprs.get(1), ErlangMaxExpression.class));
+          if (functionName == null || functionArity == -1) return;
+
+          myNoAutoImportSignatures.add(createFunctionPresentation(functionName, functionArity));
+        }
+      });
+    }
+  }
+}
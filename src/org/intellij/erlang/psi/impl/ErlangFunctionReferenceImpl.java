@@ -17,27 +17,29 @@
 package org.intellij.erlang.psi.impl;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
-import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.IncorrectOperationException;
 import com.intellij.util.ObjectUtils;
 import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.bif.ErlangBifCatalog;
 import org.intellij.erlang.bif.ErlangBifTable;
 import org.intellij.erlang.bif.ErlangOperatorTable;
+import org.intellij.erlang.index.ErlangConfigKeyIndex;
 import org.intellij.erlang.index.ErlangModuleIndex;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.sdk.ErlangSdkRelease;
 import org.intellij.erlang.sdk.ErlangSdkType;
+import org.intellij.erlang.stubs.index.ErlangExportedFunctionIndex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 
 public class ErlangFunctionReferenceImpl extends ErlangPsiPolyVariantCachingReferenceBase<PsiElement> implements ErlangFunctionReference {
   @NotNull
@@ -69,16 +71,14 @@ public class ErlangFunctionReferenceImpl extends ErlangPsiPolyVariantCachingRefe
       String moduleName = ErlangPsiImplUtil.getName(myModuleAtom);
       ErlangFunction explicitFunction = getExternalFunction(moduleName);
       boolean resolveToCallSite = explicitFunction == null && (
-        ErlangBifTable.isBif(moduleName, myReferenceName, myArity) ||
+        ErlangBifTable.getCatalog(myElement).isBif(moduleName, myReferenceName, myArity) ||
         ErlangOperatorTable.canBeInvokedAsFunction(moduleName, myReferenceName, myArity) ||
         myReferenceName.equals(ErlangBifTable.MODULE_INFO) && (myArity == 1 || myArity == 0)
       );
       if (configFuns.contains(myReferenceName) && !resolveToCallSite && explicitFunction == null){
-        GlobalSearchScope scope = GlobalSearchScope.projectScope(myElement.getProject());
-        PsiFile[] configFiles = FilenameIndex.getFilesByName(myElement.getProject(), moduleName + ".config", scope);
-        if (configFiles.length == 0)
-          configFiles = FilenameIndex.getFilesByName(myElement.getProject(), moduleName.replace("data_", "") + ".config", scope);
-        if (configFiles.length > 0) return configFiles[0];
+        Project project = myElement.getProject();
+        PsiFile configFile = ErlangConfigKeyIndex.getConfigFile(project, moduleName, GlobalSearchScope.projectScope(project));
+        if (configFile != null) return configFile;
       }
       return resolveToCallSite ? getElement() : explicitFunction;
     }
@@ -86,21 +86,13 @@ public class ErlangFunctionReferenceImpl extends ErlangPsiPolyVariantCachingRefe
     ErlangFile file = ObjectUtils.tryCast(getElement().getContainingFile(), ErlangFile.class);
     if (file == null) return null;
 
-    ErlangFunction declaredFunction = file.getFunction(myReferenceName, myArity);
+    ErlangVisibleSymbols symbols = ErlangPsiImplUtil.getVisibleSymbols(file);
+    ErlangFunction declaredFunction = symbols.getFunction(myReferenceName, myArity);
     if (declaredFunction != null) return declaredFunction;
 
-    ErlangFunction fromImport = resolveImport(file.getImportedFunction(myReferenceName, myArity));
-    if (fromImport != null) return fromImport;
-
-    List<ErlangFunction> declaredInIncludes =
-      ErlangPsiImplUtil.getErlangFunctionsFromIncludes(file, false, myReferenceName, myArity);
-    if (!declaredInIncludes.isEmpty()) return ContainerUtil.getFirstItem(declaredInIncludes);
-
-    List<ErlangImportFunction> importedInIncludes =
-      ErlangPsiImplUtil.getImportsFromIncludes(file, false, myReferenceName, myArity);
-    for (ErlangImportFunction importFromInclude : importedInIncludes) {
-      ErlangFunction importedFunction = resolveImport(importFromInclude);
-      if (importedFunction != null) return importedFunction;
+    for (ErlangImportFunction importFunction : symbols.getImportedFunctions(myReferenceName, myArity)) {
+      ErlangFunction fromImport = resolveImport(importFunction);
+      if (fromImport != null) return fromImport;
     }
 
     if (!file.isNoAutoImport(myReferenceName, myArity)) {
@@ -108,9 +100,10 @@ public class ErlangFunctionReferenceImpl extends ErlangPsiPolyVariantCachingRefe
       if (implicitFunction != null) return implicitFunction;
 
       ErlangSdkRelease release = ErlangSdkType.getRelease(file);
+      ErlangBifCatalog bifs = ErlangBifTable.getCatalog(file);
       if ((release == null || release.needBifCompletion("erlang")) &&
-          ErlangBifTable.isBif("erlang", myReferenceName, myArity) ||
-          ErlangBifTable.isBif("", myReferenceName, myArity)) return getElement();
+          bifs.isBif("erlang", myReferenceName, myArity) ||
+          bifs.isBif("", myReferenceName, myArity)) return getElement();
     }
 
     return null;
@@ -171,12 +164,20 @@ public class ErlangFunctionReferenceImpl extends ErlangPsiPolyVariantCachingRefe
   @Nullable
   private ErlangFunction getExternalFunction(@NotNull String moduleFileName) {
     Project project = getElement().getProject();
-    List<ErlangFunction> result = new ArrayList<>();
-    for (ErlangFile file : ErlangModuleIndex.getFilesByName(project, moduleFileName, GlobalSearchScope.allScope(project))) {
-      ContainerUtil.addAllNotNull(result, file.getFunction(myReferenceName, myArity));
-      ContainerUtil.addAllNotNull(result, ErlangPsiImplUtil.getErlangFunctionsFromIncludes(file, false, myReferenceName, myArity));
+    GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+    PsiManager psiManager = PsiManager.getInstance(project);
+    // the first ranked module file which has the function wins, whether the function is exported or not
+    for (VirtualFile moduleFile : ErlangModuleIndex.getVirtualFilesByName(project, moduleFileName, scope)) {
+      GlobalSearchScope moduleScope = GlobalSearchScope.fileScope(project, moduleFile);
+      for (ErlangFunction function : ErlangExportedFunctionIndex.getFunctions(project, myReferenceName, moduleScope)) {
+        if (function.getArity() == myArity) return function;
+      }
+      // not exported functions are resolved too, so that calls to them can be reported
+      ErlangFile file = ObjectUtils.tryCast(psiManager.findFile(moduleFile), ErlangFile.class);
+      ErlangFunction function = file != null ? ErlangPsiImplUtil.getVisibleSymbols(file).getFunction(myReferenceName, myArity) : null;
+      if (function != null) return function;
     }
-    return ContainerUtil.getFirstItem(result);
+    return null;
   }
 
   @NotNull
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.psi.impl;
+
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.ErlangFileType;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.stubs.index.ErlangIncludeIndex;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Project-wide include graph. Direct includes are cached on each file and the transitive include closure is cached
+ * on the including file, depending only on the files which take part in it, so editing an unrelated header
+ * doesn't drop the closure.
+ * <p>
+ * Reverse edges are found through {@link ErlangIncludeIndex} and checked against the forward ones. When a header
+ * changes on disk, open files which include it are highlighted again, so that external annotators reading the
+ * files from disk, like dialyzer, see the new header.
+ */
+public class ErlangIncludeGraph {
+  private final Project myProject;
+
+  public ErlangIncludeGraph(@NotNull Project project) {
+    myProject = project;
+    project.getMessageBus().connect(project).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        List<VirtualFile> headers = ContainerUtil.mapNotNull(events, event -> {
+          VirtualFile file = event instanceof VFileContentChangeEvent ? event.getFile() : null;
+          return file != null && file.getFileType() == ErlangFileType.HEADER ? file : null;
+        });
+        if (!headers.isEmpty()) {
+          restartIncludingFiles(headers);
+        }
+      }
+    });
+  }
+
+  @NotNull
+  public static ErlangIncludeGraph getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, ErlangIncludeGraph.class);
+  }
+
+  @NotNull
+  public List<ErlangFile> getDirectlyIncludedFiles(@NotNull ErlangFile file) {
+    return CachedValuesManager.getCachedValue(file, () -> {
+      List<ErlangFile> includedFiles = ErlangPsiImplUtil.calcDirectlyIncludedFiles(file);
+      return CachedValueProvider.Result.create(Collections.unmodifiableList(includedFiles),
+                                               file,
+                                               VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS,
+                                               ProjectRootModificationTracker.getInstance(myProject));
+    });
+  }
+
+  /**
+   * @return files included by {@code file} directly or through other included files, in include order.
+   */
+  @NotNull
+  public Collection<ErlangFile> getIncludedFiles(@NotNull ErlangFile file) {
+    return CachedValuesManager.getCachedValue(file, () -> {
+      Set<ErlangFile> includedFiles = new LinkedHashSet<>();
+      Deque<ErlangFile> queue = new ArrayDeque<>(getDirectlyIncludedFiles(file));
+      while (!queue.isEmpty()) {
+        ErlangFile includedFile = queue.removeFirst();
+        if (includedFiles.add(includedFile)) {
+          queue.addAll(getDirectlyIncludedFiles(includedFile));
+        }
+      }
+      List<Object> dependencies = new ArrayList<>(includedFiles);
+      dependencies.add(file);
+      dependencies.add(VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS);
+      dependencies.add(ProjectRootModificationTracker.getInstance(myProject));
+      return CachedValueProvider.Result.create(Collections.unmodifiableCollection(includedFiles),
+                                               ArrayUtil.toObjectArray(dependencies));
+    });
+  }
+
+  /**
+   * @return files which include {@code file} directly.
+   */
+  @NotNull
+  public List<ErlangFile> getDirectlyIncludingFiles(@NotNull ErlangFile file) {
+    // any file may start or stop including this one, so the reverse edges depend on all changes
+    return CachedValuesManager.getCachedValue(file, () -> {
+      List<ErlangFile> includingFiles = new ArrayList<>();
+      GlobalSearchScope scope = GlobalSearchScope.allScope(myProject);
+      for (ErlangFile candidate : ErlangIncludeIndex.getIncludingFiles(myProject, file.getName(), scope)) {
+        if (getDirectlyIncludedFiles(candidate).contains(file)) {
+          includingFiles.add(candidate);
+        }
+      }
+      return CachedValueProvider.Result.create(Collections.unmodifiableList(includingFiles),
+                                               PsiModificationTracker.MODIFICATION_COUNT,
+                                               VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS,
+                                               ProjectRootModificationTracker.getInstance(myProject));
+    });
+  }
+
+  /**
+   * @return files which include {@code file} directly or through other included files.
+   */
+  @NotNull
+  public Collection<ErlangFile> getIncludingFiles(@NotNull ErlangFile file) {
+    Set<ErlangFile> includingFiles = new LinkedHashSet<>();
+    Deque<ErlangFile> queue = new ArrayDeque<>(getDirectlyIncludingFiles(file));
+    while (!queue.isEmpty()) {
+      ErlangFile includingFile = queue.removeFirst();
+      if (includingFiles.add(includingFile)) {
+        queue.addAll(getDirectlyIncludingFiles(includingFile));
+      }
+    }
+    return includingFiles;
+  }
+
+  private void restartIncludingFiles(@NotNull List<VirtualFile> headers) {
+    ReadAction.nonBlocking(() -> {
+      PsiManager psiManager = PsiManager.getInstance(myProject);
+      Set<VirtualFile> openFiles = ContainerUtil.set(FileEditorManager.getInstance(myProject).getOpenFiles());
+      Set<PsiFile> toRestart = new HashSet<>();
+      for (VirtualFile header : headers) {
+        PsiFile headerFile = header.isValid() ? psiManager.findFile(header) : null;
+        if (!(headerFile instanceof ErlangFile)) continue;
+        for (ErlangFile includingFile : getIncludingFiles((ErlangFile) headerFile)) {
+          if (openFiles.contains(includingFile.getVirtualFile())) {
+            toRestart.add(includingFile);
+          }
+        }
+      }
+      return toRestart;
+    })
+      .inSmartMode(myProject)
+      .expireWith(myProject)
+      .finishOnUiThread(ModalityState.NON_MODAL, files -> {
+        DaemonCodeAnalyzer daemonCodeAnalyzer = DaemonCodeAnalyzer.getInstance(myProject);
+        for (PsiFile file : files) {
+          if (file.isValid()) daemonCodeAnalyzer.restart(file);
+        }
+      })
+      .submit(AppExecutorUtil.getAppExecutorService());
+  }
+}
@@ -23,7 +23,6 @@ import com.intellij.psi.PsiReferenceBase;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.IncorrectOperationException;
-import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.psi.ErlangFile;
 import org.intellij.erlang.psi.ErlangMacros;
 import org.intellij.erlang.psi.ErlangMacrosDefinition;
@@ -53,11 +52,7 @@ public class ErlangMacrosReferenceImpl extends PsiReferenceBase<PsiElement> {
 
     PsiFile containingFile = myElement.getContainingFile();
     if (containingFile instanceof ErlangFile) {
-      ErlangMacrosDefinition macros = ((ErlangFile) containingFile).getMacros(myReferenceName);
-      if (macros != null) {
-        return macros;
-      }
-      return ContainerUtil.getFirstItem(ErlangPsiImplUtil.getErlangMacrosFromIncludes((ErlangFile) containingFile, false, myReferenceName));
+      return ErlangPsiImplUtil.getVisibleSymbols((ErlangFile) containingFile).getMacros(myReferenceName);
     }
     return null;
   }
@@ -26,12 +26,12 @@ import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.ProjectAndLibrariesScope;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.index.ErlangApplicationIndex;
+import org.intellij.erlang.index.ErlangConfigKeyIndex;
 import org.intellij.erlang.index.ErlangModuleIndex;
 import org.intellij.erlang.psi.ErlangModule;
 import org.intellij.erlang.psi.ErlangQAtom;
@@ -53,10 +53,8 @@ public class ErlangModuleReferenceImpl extends ErlangQAtomBasedReferenceImpl {
     GlobalSearchScope scope = getSearchScope();
     List<ErlangModule> modules = ErlangModuleIndex.getModulesByName(myElement.getProject(), myReferenceName, scope);
     if (modules.size() == 0){
-      PsiFile[] configFiles = FilenameIndex.getFilesByName(myElement.getProject(), myReferenceName + ".config", scope);
-      if (configFiles.length == 0)
-        configFiles = FilenameIndex.getFilesByName(myElement.getProject(), myReferenceName.replace("data_", "") + ".config", scope);
-      if (configFiles.length > 0) return configFiles[0];
+      PsiFile configFile = ErlangConfigKeyIndex.getConfigFile(myElement.getProject(), myReferenceName, scope);
+      if (configFile != null) return configFile;
     }
     if (modules.size() > 1) {
       ContainerUtil.sort(modules, new ModuleResolutionComparator());
@@ -56,6 +56,7 @@ import org.intellij.erlang.ErlangFileType;
 import org.intellij.erlang.ErlangParserDefinition;
 import org.intellij.erlang.ErlangStringLiteralEscaper;
 import org.intellij.erlang.ErlangTypes;
+import org.intellij.erlang.bif.ErlangBifCatalog;
 import org.intellij.erlang.bif.ErlangBifDescriptor;
 import org.intellij.erlang.bif.ErlangBifTable;
 import org.intellij.erlang.completion.ErlangCompletionContributor;
@@ -64,7 +65,6 @@ import org.intellij.erlang.console.ErlangConsoleView;
 import org.intellij.erlang.debugger.xdebug.ErlangExprCodeFragment;
 import org.intellij.erlang.icons.ErlangIcons;
 import org.intellij.erlang.index.ErlangApplicationIndex;
-import org.intellij.erlang.index.ErlangModuleIndex;
 import org.intellij.erlang.parser.ErlangParserUtil;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.rebar.util.RebarConfigUtil;
@@ -73,6 +73,7 @@ import org.intellij.erlang.sdk.ErlangSdkRelease;
 import org.intellij.erlang.sdk.ErlangSdkType;
 import org.intellij.erlang.sdk.ErlangSystemUtil;
 import org.intellij.erlang.stubs.*;
+import org.intellij.erlang.stubs.index.ErlangModuleExportsIndex;
 import org.intellij.erlang.utils.ErlangModulesUtil;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
@@ -217,8 +218,7 @@ public class ErlangPsiImplUtil {
     if (recordExpression != null && recordExpression.getRecordRef() != null) {
       String recordName = recordExpression.getRecordRef().getText();
       if (recordName != null && user_default != null){
-        List<ErlangRecordDefinition> records = getErlangRecordFromIncludes(user_default, false, recordName);
-        resolve = records.get(0);
+        resolve = getVisibleSymbols(user_default).getRecord(recordName);
       }
       Map<String, List<ErlangExpression>> records = file.getOriginalFile().getUserData(ErlangConsoleView.ERLANG_RECORD_CONTEXT);
       if (records != null && records.size() > 0) {
@@ -756,14 +756,15 @@ public class ErlangPsiImplUtil {
       List<LookupElement> lookupElements = new SmartList<>();
 
       ErlangSdkRelease release = ErlangSdkType.getRelease(containingFile);
+      ErlangBifCatalog bifs = ErlangBifTable.getCatalog(release);
       if (moduleAtom != null) {
         String moduleName = getName(moduleAtom);
         functions.addAll(getExternalFunctionForCompletion(containingFile.getProject(), moduleName));
 
         if (release == null || release.needBifCompletion(moduleName)) {
-          addBifs(lookupElements, ErlangBifTable.getBifs(moduleName), withArity);
+          addBifs(lookupElements, bifs.getBifs(moduleName), withArity);
         }
-        addBifs(lookupElements, ErlangBifTable.getBifs("", ErlangBifTable.MODULE_INFO), withArity);
+        addBifs(lookupElements, bifs.getBifs("", ErlangBifTable.MODULE_INFO), withArity);
       }
       else {
         ErlangFile erlangFile = (ErlangFile) containingFile;
@@ -771,22 +772,20 @@ public class ErlangPsiImplUtil {
         functions.addAll(getExternalFunctionForCompletion(containingFile.getProject(), "erlang"));
         functions.addAll(getExternalFunctionForCompletion(containingFile.getProject(), "user_default"));
 
-        List<ErlangImportFunction> directlyImported = erlangFile.getImportedFunctions();
-        List<ErlangImportFunction> importsFromIncludes = getImportsFromIncludes(erlangFile, true, "", 0);
-        for (ErlangImportFunction importFunction : ContainerUtil.concat(directlyImported, importsFromIncludes)) {
+        for (ErlangImportFunction importFunction : getVisibleSymbols(erlangFile).getImportedFunctions()) {
           LookupElement element = createFunctionLookupElement(getName(importFunction), getArity(importFunction), withArity, ErlangCompletionContributor.MODULE_FUNCTIONS_PRIORITY);
           lookupElements.add(element);
         }
 
         if (!withArity && (release == null || release.needBifCompletion("erlang"))) {
-          addBifs(lookupElements, ErlangBifTable.getBifs("erlang"));
+          addBifs(lookupElements, bifs.getBifs("erlang"));
         }
         if (!withArity && (release == null || release.needBifCompletion(""))) {
-          addBifs(lookupElements, ErlangBifTable.getBifs(""));
+          addBifs(lookupElements, bifs.getBifs(""));
         }
       }
 
-      functions.addAll(getErlangFunctionsFromIncludes((ErlangFile) containingFile, true, "", 0));
+      functions.addAll(getVisibleSymbols((ErlangFile) containingFile).getIncludedFunctions());
       lookupElements.addAll(createFunctionLookupElements(functions, withArity));
       return lookupElements;
     }
@@ -804,7 +803,7 @@ public class ErlangPsiImplUtil {
                                                                                           boolean withArity,
                                                                                           @Nullable String exclude) {
     List<LookupElement> lookupElements = new SmartList<>();
-    for (String moduleName : ErlangModuleIndex.getNames(project)) {
+    for (String moduleName : ErlangModuleExportsIndex.getModuleNames(project)) {
       if (moduleName.equals(exclude)) continue;
       for (ErlangFunction function : getExternalFunctionForCompletion(project, moduleName)) {
         String functionName = function.getName();
@@ -901,10 +900,12 @@ public class ErlangPsiImplUtil {
   @NotNull
   public static List<LookupElement> getMacrosLookupElements(@NotNull PsiFile containingFile) {
     if (containingFile instanceof ErlangFile) {
-      List<ErlangMacrosDefinition> concat = ContainerUtil.concat(((ErlangFile) containingFile).getMacroses(), getErlangMacrosFromIncludes((ErlangFile) containingFile, true, ""));
       List<LookupElement> fromFile = ContainerUtil.map(
-        concat,
-        md -> LookupElementBuilder.create(md).withIcon(ErlangIcons.MACROS));
+        getVisibleSymbols((ErlangFile) containingFile).getMacroses(),
+        md -> {
+          int arity = getArity(md);
+          return LookupElementBuilder.create(md).withIcon(ErlangIcons.MACROS).withTailText(arity >= 0 ? "/" + arity : null);
+        });
       List<LookupElement> stdMacros = new SmartList<>();
       for (String m : KNOWN_MACROS) {
         stdMacros.add(LookupElementBuilder.create(m).withIcon(ErlangIcons.MACROS));
@@ -927,14 +928,14 @@ public class ErlangPsiImplUtil {
 
   @NotNull
   public static List<ErlangRecordDefinition> getErlangRecordDefinitions(@NotNull ErlangFile containingFile) {
-    return ContainerUtil.concat(containingFile.getRecords(), getErlangRecordFromIncludes(containingFile, true, ""));
+    return getVisibleSymbols(containingFile).getRecords();
   }
 
   @NotNull
   public static List<LookupElement> getTypeLookupElements(@NotNull PsiFile containingFile, boolean addBuiltInTypes, final boolean withArity) {
     if (containingFile instanceof ErlangFile) {
       ErlangFile erlangFile = (ErlangFile) containingFile;
-      List<ErlangTypeDefinition> types = ContainerUtil.concat(erlangFile.getTypes(), getErlangTypeFromIncludes(erlangFile, true, ""));
+      List<ErlangTypeDefinition> types = getVisibleSymbols(erlangFile).getTypes();
 
       final ParenthesesInsertHandler<LookupElement> handler = new ParenthesesInsertHandler<LookupElement>() {
         @Override
@@ -965,6 +966,51 @@ public class ErlangPsiImplUtil {
     return argumentDefinitionList.getArgumentDefinitionList().size();
   }
 
+  /**
+   * @return arity of the macro or -1 if it's defined without an argument list.
+   */
+  public static int getArity(@NotNull ErlangMacrosDefinition o) {
+    ErlangMacrosDefinitionStub stub = o.getStub();
+    if (stub != null) return stub.getArity();
+    ErlangArgumentDefinitionList argumentDefinitionList = o.getArgumentDefinitionList();
+    if (argumentDefinitionList == null) return -1;
+    return argumentDefinitionList.getArgumentDefinitionList().size();
+  }
+
+  /**
+   * @return number of arguments the macro is called with or -1 if it's used without an argument list,
+   * comparable with {@link #getArity(ErlangMacrosDefinition)}.
+   */
+  public static int getCallArity(@NotNull ErlangMacros o) {
+    PsiElement parent = o.getParent();
+    ErlangArgumentList argumentList = null;
+    if (parent instanceof ErlangQAtom && parent.getParent() instanceof ErlangFunctionCallExpression) {
+      argumentList = ((ErlangFunctionCallExpression) parent.getParent()).getArgumentList();
+    }
+    else if (parent instanceof ErlangGenericFunctionCallExpression && ((ErlangGenericFunctionCallExpression) parent).getMacros() == o) {
+      argumentList = ((ErlangGenericFunctionCallExpression) parent).getArgumentList();
+    }
+    return argumentList == null ? -1 : argumentList.getExpressionList().size();
+  }
+
+  /**
+   * @return names of the record fields declared with a plain atom, fields declared with macros aren't included.
+   */
+  @NotNull
+  public static List<String> getFieldNames(@NotNull ErlangRecordDefinition o) {
+    ErlangRecordDefinitionStub stub = o.getStub();
+    if (stub != null) return stub.getFieldNames();
+    ErlangTypedRecordFields typedRecordFields = o.getTypedRecordFields();
+    if (typedRecordFields == null) return ContainerUtil.emptyList();
+    List<String> result = new SmartList<>();
+    for (ErlangTypedExpr e : typedRecordFields.getTypedExprList()) {
+      if (e.getQAtom().getMacros() == null) {
+        result.add(e.getName());
+      }
+    }
+    return result;
+  }
+
   private static int calculateFunctionClauseArity(@NotNull ErlangFunctionClause clause) {
     ErlangArgumentDefinitionList argumentDefinitionList = clause.getArgumentDefinitionList();
     return argumentDefinitionList.getArgumentDefinitionList().size();
@@ -1267,26 +1313,16 @@ public class ErlangPsiImplUtil {
 
   @NotNull
   private static Collection<ErlangFile> getIncludedFiles(@NotNull ErlangFile file) {
-    HashSet<ErlangFile> includedFiles = new HashSet<>();
-    addIncludedFiles(file, includedFiles);
-    return includedFiles;
+    return ErlangIncludeGraph.getInstance(file.getProject()).getIncludedFiles(file);
   }
 
-  private static void addIncludedFiles(@NotNull ErlangFile erlangFile, @NotNull Set<ErlangFile> alreadyAdded) {
-    List<ErlangFile> directlyIncludedFiles = getDirectlyIncludedFiles(erlangFile);
-    boolean added = false;
-    for (ErlangFile f : directlyIncludedFiles) {
-      added |= alreadyAdded.add(f);
-    }
-    if (added) {
-      for (ErlangFile f : directlyIncludedFiles) {
-        addIncludedFiles(f, alreadyAdded);
-      }
-    }
+  @NotNull
+  public static List<ErlangFile> getDirectlyIncludedFiles(@NotNull ErlangFile erlangFile) {
+    return ErlangIncludeGraph.getInstance(erlangFile.getProject()).getDirectlyIncludedFiles(erlangFile);
   }
 
   @NotNull
-  public static List<ErlangFile> getDirectlyIncludedFiles(@NotNull ErlangFile erlangFile) {
+  static List<ErlangFile> calcDirectlyIncludedFiles(@NotNull ErlangFile erlangFile) {
     List<ErlangFile> files = new SmartList<>();
     for (ErlangInclude include : erlangFile.getIncludes()) {
       files.addAll(getDirectlyIncludedFiles(include, erlangFile));
@@ -1423,75 +1459,9 @@ public class ErlangPsiImplUtil {
   }
 
   @NotNull
-  static List<ErlangRecordDefinition> getErlangRecordFromIncludes(@NotNull ErlangFile containingFile, boolean forCompletion, String name) {
-    List<ErlangRecordDefinition> fromIncludes = new SmartList<>();
-    for (ErlangFile file : getIncludedFiles(containingFile)) {
-      if (!forCompletion) {
-        ContainerUtil.addIfNotNull(fromIncludes, file.getRecord(name));
-      }
-      else {
-        fromIncludes.addAll(file.getRecords());
-      }
-    }
-    return fromIncludes;
-  }
-
-  @NotNull
-  static List<ErlangFunction> getErlangFunctionsFromIncludes(@NotNull ErlangFile containingFile, boolean forCompletion, @NotNull String name, int arity) {
-    List<ErlangFunction> fromIncludes = new SmartList<>();
-    for (ErlangFile file : getIncludedFiles(containingFile)) {
-      if (!forCompletion) {
-        ContainerUtil.addIfNotNull(fromIncludes, file.getFunction(name, arity));
-      }
-      else {
-        fromIncludes.addAll(file.getFunctions());
-      }
-    }
-    return fromIncludes;
-  }
-
-  @NotNull
-  static List<ErlangImportFunction> getImportsFromIncludes(@NotNull ErlangFile containingFile, boolean forCompletion, @NotNull String name, int arity) {
-    List<ErlangImportFunction> fromIncludes = new SmartList<>();
-    for (ErlangFile file : getIncludedFiles(containingFile)) {
-      if (!forCompletion) {
-        ContainerUtil.addIfNotNull(fromIncludes, file.getImportedFunction(name, arity));
-      }
-      else {
-        fromIncludes.addAll(file.getImportedFunctions());
-      }
-    }
-    return fromIncludes;
-  }
-
-  @NotNull
-  static List<ErlangMacrosDefinition> getErlangMacrosFromIncludes(@NotNull ErlangFile containingFile,
-                                                                  boolean forCompletion,
-                                                                  @NotNull String name) {
-    List<ErlangMacrosDefinition> fromIncludes = new SmartList<>();
-    for (ErlangFile file : getIncludedFiles(containingFile)) {
-      if (!forCompletion) {
-        ContainerUtil.addIfNotNull(fromIncludes, file.getMacros(name));
-      }
-      else {
-        fromIncludes.addAll(file.getMacroses());
-      }
-    }
-    return fromIncludes;
-  }
-
-  @NotNull
-  static List<ErlangTypeDefinition> getErlangTypeFromIncludes(@NotNull ErlangFile containingFile, boolean forCompletion, @NotNull String name) {
-    List<ErlangTypeDefinition> fromIncludes = new SmartList<>();
-    for (ErlangFile file : getIncludedFiles(containingFile)) {
-      if (!forCompletion) {
-        ContainerUtil.addIfNotNull(fromIncludes, file.getType(name));
-      }
-      else {
-        fromIncludes.addAll(file.getTypes());
-      }
-    }
-    return fromIncludes;
+  static ErlangVisibleSymbols getVisibleSymbols(@NotNull ErlangFile file) {
+    return file instanceof ErlangFileImpl ? ((ErlangFileImpl) file).getVisibleSymbols() :
+           ErlangVisibleSymbols.create(file, getIncludedFiles(file));
   }
 
   @NotNull
@@ -1635,12 +1605,7 @@ public class ErlangPsiImplUtil {
   @NotNull
   private static List<ErlangFunction> getExternalFunctionForCompletion(@NotNull Project project,
                                                                        @NotNull String moduleName) {
-    List<ErlangFunction> result = new SmartList<>();
-    List<ErlangFile> erlangModules = ErlangModuleIndex.getFilesByName(project, moduleName, GlobalSearchScope.allScope(project));
-    for (ErlangFile file : erlangModules) {
-      result.addAll(file.getExportedFunctions());
-    }
-    return result;
+    return new ArrayList<>(ErlangModuleExportsIndex.getExportedFunctions(project, moduleName, GlobalSearchScope.allScope(project)));
   }
 
   public static boolean inFunction(@Nullable PsiElement position) {
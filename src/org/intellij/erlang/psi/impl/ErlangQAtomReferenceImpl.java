@@ -21,10 +21,9 @@ import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
-import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.index.ErlangConfigKeyIndex;
 import org.intellij.erlang.index.ErlangTypeMapsFieldIndex;
 import org.intellij.erlang.psi.*;
 import org.intellij.erlang.utils.ErlangTermFileUtil;
@@ -32,7 +31,6 @@ import org.intellij.erlang.utils.ErlangVarUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
 import java.util.List;
 
 import static org.intellij.erlang.psi.impl.ErlangPsiImplUtil.*;
@@ -89,31 +87,23 @@ public class ErlangQAtomReferenceImpl extends ErlangQAtomBasedReferenceImpl {
 
   @Nullable
   private PsiElement getConfigKeyResolve(String configModule, Project project) {
-    PsiFile[] configFiles = FilenameIndex.getFilesByName(project, configModule + ".config", GlobalSearchScope.allScope(project));
-    if (configFiles.length == 0) configFiles = FilenameIndex.getFilesByName(project, configModule.replace("data_", "") + ".config", GlobalSearchScope.allScope(project));
-    if (configFiles.length == 0) return null;
-    PsiFile configFile = configFiles[0];
-    List<ErlangTupleExpression> configSections = ErlangTermFileUtil.getConfigSections(configFile, myElement.getText());
-    if (configSections.size() > 0) return getQAtom(configSections.get(0));
+    PsiFile configFile = ErlangConfigKeyIndex.getConfigFile(project, configModule, GlobalSearchScope.allScope(project));
+    if (configFile == null) return null;
+    ErlangExpression atomKey = ErlangConfigKeyIndex.getConfigKey(configFile, myElement.getText());
+    PsiElement atomKeyResolve = atomKey != null ? getQAtom(atomKey) : null;
+    if (atomKeyResolve != null) return atomKeyResolve;
     ErlangTupleExpression tupleExpression = PsiTreeUtil.getParentOfType(myElement, ErlangTupleExpression.class, true, ErlangArgumentDefinition.class);
     if (tupleExpression == null || !(configFile instanceof ErlangFile)) {
       return configFile.getFirstChild();
     }
-    Collection<PsiElement> configKeys = ((ErlangFile) configFile).getConfigKeys();
     if (PsiTreeUtil.getChildOfType(tupleExpression, ErlangQVar.class) == null) {
       // if key dos't contain var, try search same tuple
-      String tupleKeyText = tupleExpression.getText();
-      PsiElement directSameResolve = ContainerUtil.find(configKeys, key -> StringUtil.equalsIgnoreWhitespaces(key.getText(), tupleKeyText));
+      PsiElement directSameResolve = ErlangConfigKeyIndex.getConfigKey(configFile, tupleExpression.getText());
       if (null != directSameResolve) return directSameResolve;
     }
     String tupleName = ErlangTermFileUtil.getTupleKeyName(tupleExpression);
-    for (PsiElement key : configKeys) {
-      if (key instanceof ErlangTupleExpression) {
-        if (StringUtil.equalsIgnoreWhitespaces(tupleName, ErlangTermFileUtil.getTupleKeyName(key)))
-          return key;
-      }
-    }
-    return configFile.getFirstChild();
+    PsiElement tupleKeyResolve = ErlangConfigKeyIndex.getConfigKey(configFile, tupleName);
+    return tupleKeyResolve instanceof ErlangTupleExpression ? tupleKeyResolve : configFile.getFirstChild();
   }
 
   @Nullable
@@ -20,10 +20,8 @@ import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.util.ArrayUtil;
-import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.psi.ErlangFile;
 import org.intellij.erlang.psi.ErlangQAtom;
-import org.intellij.erlang.psi.ErlangRecordDefinition;
 import org.jetbrains.annotations.NotNull;
 
 public class ErlangRecordReferenceImpl extends ErlangQAtomBasedReferenceImpl {
@@ -35,10 +33,7 @@ public class ErlangRecordReferenceImpl extends ErlangQAtomBasedReferenceImpl {
   public PsiElement resolveInner() {
     PsiFile containingFile = myElement.getContainingFile();
     if (containingFile instanceof ErlangFile) {
-      ErlangRecordDefinition record = ((ErlangFile) containingFile).getRecord(myReferenceName);
-      if (record != null) return record;
-
-      return ContainerUtil.getFirstItem(ErlangPsiImplUtil.getErlangRecordFromIncludes((ErlangFile) containingFile, false, myReferenceName));
+      return ErlangPsiImplUtil.getVisibleSymbols((ErlangFile) containingFile).getRecord(myReferenceName);
     }
     return null;
   }
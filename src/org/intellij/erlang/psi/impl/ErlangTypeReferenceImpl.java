@@ -20,7 +20,6 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ArrayUtil;
-import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.psi.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -43,9 +42,7 @@ public class ErlangTypeReferenceImpl extends ErlangQAtomBasedReferenceImpl {
   public PsiElement resolveInner() {
     PsiFile containingFile = getPsiFile();
     if (containingFile instanceof ErlangFile) {
-      ErlangTypeDefinition type = ((ErlangFile) containingFile).getType(myReferenceName);
-      if (type != null) return type;
-      return ContainerUtil.getFirstItem(ErlangPsiImplUtil.getErlangTypeFromIncludes((ErlangFile) containingFile, false, myReferenceName));
+      return ErlangPsiImplUtil.getVisibleSymbols((ErlangFile) containingFile).getType(myReferenceName);
     }
     return null;
   }
@@ -26,6 +26,7 @@ import com.intellij.util.SmartList;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.psi.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 import java.util.Map;
@@ -37,10 +38,20 @@ public class ErlangVarProcessor implements PsiScopeProcessor {
   private final List<ErlangQVar> myVarList = new SmartList<>();
   private final String myRequestedName;
   private final PsiElement myOrigin;
+  private final boolean myOriginInFunArgList;
+  @Nullable private final ErlangFunctionClause myFunctionClause;
+  @Nullable private final ErlangSpecification mySpecification;
+  @Nullable private final ErlangMacrosDefinition myMacroDefinition;
+  @Nullable private final ErlangVarScopeTable myScopeTable;
 
   public ErlangVarProcessor(String requestedName, PsiElement origin) {
     myRequestedName = requestedName;
     myOrigin = origin;
+    myOriginInFunArgList = inFunArgList(origin);
+    myFunctionClause = PsiTreeUtil.getTopmostParentOfType(origin, ErlangFunctionClause.class);
+    mySpecification = PsiTreeUtil.getTopmostParentOfType(origin, ErlangSpecification.class);
+    myMacroDefinition = PsiTreeUtil.getTopmostParentOfType(origin, ErlangMacrosDefinition.class);
+    myScopeTable = myFunctionClause != null && origin instanceof ErlangQVar ? ErlangVarScopeTable.getTable(myFunctionClause) : null;
   }
 
   @Override
@@ -54,19 +65,23 @@ public class ErlangVarProcessor implements PsiScopeProcessor {
     if (!(psiElement instanceof ErlangQVar)) return true;
     if (!psiElement.getText().equals(myRequestedName)) return true;
     if (psiElement.equals(myOrigin)) return true;
-    if (inFunArgList(myOrigin)) return true;
-
-    ErlangFunctionClause functionClause = PsiTreeUtil.getTopmostParentOfType(myOrigin, ErlangFunctionClause.class);
-    ErlangSpecification spec = PsiTreeUtil.getTopmostParentOfType(myOrigin, ErlangSpecification.class);
-    ErlangMacrosDefinition macroDefinition = PsiTreeUtil.getTopmostParentOfType(myOrigin, ErlangMacrosDefinition.class);
+    if (myOriginInFunArgList) return true;
+
+    ErlangQVar var = (ErlangQVar) psiElement;
+    if (myScopeTable != null && myScopeTable.contains(var)) {
+      if (!myScopeTable.isBindingSite(var)) return true;
+      if (myScopeTable.inDifferentCrClauses(var, (ErlangQVar) myOrigin)) return true;
+      myVarList.add(var);
+      return !myScopeTable.isFunArgument(var);
+    }
 
-    boolean inSpecification = PsiTreeUtil.isAncestor(spec, psiElement, false);
+    boolean inSpecification = PsiTreeUtil.isAncestor(mySpecification, psiElement, false);
     boolean inDefinition = inArgumentDefinition(psiElement);
-    boolean inFunctionClause = PsiTreeUtil.isAncestor(functionClause, psiElement, false);
+    boolean inFunctionClause = PsiTreeUtil.isAncestor(myFunctionClause, psiElement, false);
     boolean inAssignment = inLeftPartOfAssignment(psiElement);
     boolean inDefinitionOrAssignment = inDefinition || inAssignment;
     boolean inFunction = inFunctionClause && inDefinitionOrAssignment;
-    boolean inMacroDefinition = PsiTreeUtil.isAncestor(macroDefinition, psiElement, false) && inDefinitionOrAssignment;
+    boolean inMacroDefinition = PsiTreeUtil.isAncestor(myMacroDefinition, psiElement, false) && inDefinitionOrAssignment;
     boolean inBinaryWidthExpression = isBinaryWidthExpression(psiElement);
 
     if (inAssignment && inBinaryWidthExpression) return true;
@@ -80,7 +95,7 @@ public class ErlangVarProcessor implements PsiScopeProcessor {
 //      if (hasNarrowerParentScope(psiElement)) return true;
       // put all possible variables to list
       boolean inArgDefList = inFunArgList(psiElement);
-      myVarList.add((ErlangQVar) psiElement);
+      myVarList.add(var);
       return !inArgDefList;
     }
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.psi.impl;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.ContainerUtil;
+import gnu.trove.THashMap;
+import org.intellij.erlang.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.intellij.erlang.psi.impl.ErlangPsiImplUtil.*;
+
+/**
+ * Variables of a function clause with their binding sites and enclosing scopes, computed in a single pass
+ * and cached on the clause. Variable resolve and the variable inspections query it instead of walking
+ * up the tree for every pair of variables.
+ */
+public final class ErlangVarScopeTable {
+  private final Map<String, List<ErlangQVar>> myVariables = new THashMap<>();
+  private final Map<ErlangQVar, Binding> myBindings = new THashMap<>();
+
+  private ErlangVarScopeTable(@NotNull ErlangFunctionClause clause) {
+    for (ErlangQVar var : PsiTreeUtil.findChildrenOfType(clause, ErlangQVar.class)) {
+      myVariables.computeIfAbsent(var.getText(), name -> new ArrayList<>()).add(var);
+      myBindings.put(var, new Binding(var));
+    }
+  }
+
+  /**
+   * @return the table of the function clause containing {@code element}, or null for elements outside
+   * of function clauses (specifications, macro definitions, etc).
+   */
+  @Nullable
+  public static ErlangVarScopeTable getTable(@NotNull PsiElement element) {
+    ErlangFunctionClause clause = element instanceof ErlangFunctionClause
+                                  ? (ErlangFunctionClause) element
+                                  : PsiTreeUtil.getTopmostParentOfType(element, ErlangFunctionClause.class);
+    if (clause == null) return null;
+    return CachedValuesManager.getCachedValue(clause, () -> CachedValueProvider.Result.create(
+      new ErlangVarScopeTable(clause), PsiModificationTracker.MODIFICATION_COUNT));
+  }
+
+  /**
+   * @return all occurrences of variable {@code name} in the clause, in text order.
+   */
+  @NotNull
+  public List<ErlangQVar> getVariables(@NotNull String name) {
+    return Collections.unmodifiableList(ContainerUtil.notNullize(myVariables.get(name)));
+  }
+
+  public boolean contains(@NotNull ErlangQVar var) {
+    return myBindings.containsKey(var);
+  }
+
+  public boolean isArgumentDefinition(@NotNull ErlangQVar var) {
+    return getBinding(var).myArgumentDefinition;
+  }
+
+  public boolean isLeftPartOfAssignment(@NotNull ErlangQVar var) {
+    return getBinding(var).myLeftPartOfAssignment;
+  }
+
+  public boolean isFunctionTypeArgument(@NotNull ErlangQVar var) {
+    return getBinding(var).myFunctionTypeArgument;
+  }
+
+  public boolean isInArgumentList(@NotNull ErlangQVar var) {
+    return getBinding(var).myInArgumentList;
+  }
+
+  public boolean isDefinitionBeforeArgumentList(@NotNull ErlangQVar var) {
+    return getBinding(var).myDefinitionBeforeArgumentList;
+  }
+
+  /**
+   * @return true if {@code var} is a place where a variable can be bound: a clause argument or a left part of a match,
+   * except binary size expressions and call arguments in a pattern's right part.
+   */
+  public boolean isBindingSite(@NotNull ErlangQVar var) {
+    return getBinding(var).myBindingSite;
+  }
+
+  public boolean isFunArgument(@NotNull ErlangQVar var) {
+    return getBinding(var).myFunArgument;
+  }
+
+  public boolean isInListComprehensionExpression(@NotNull ErlangQVar var) {
+    return getBinding(var).myLcExpression != null;
+  }
+
+  public boolean inDifferentCrClauses(@NotNull ErlangQVar var, @NotNull ErlangQVar origin) {
+    Binding binding = getBinding(var);
+    Binding originBinding = getBinding(origin);
+    if (binding.myCrClause == null || originBinding.myCrClause == null) return false;
+    if (binding.myCrClause.getParent() != originBinding.myCrClause.getParent()) return false;
+    return originBinding.myCaseExpression != null &&
+           binding.myCaseExpression == originBinding.myCaseExpression &&
+           binding.myCrClause != originBinding.myCrClause;
+  }
+
+  public boolean inDifferentFun(@NotNull ErlangQVar var, @NotNull ErlangQVar origin) {
+    return inDifferentScopes(getBinding(var).myFunClause, getBinding(origin).myFunClause);
+  }
+
+  public boolean inDifferentLc(@NotNull ErlangQVar var, @NotNull ErlangQVar origin) {
+    return inDifferentScopes(getBinding(var).myListComprehension, getBinding(origin).myListComprehension);
+  }
+
+  /**
+   * Mirrors {@link ErlangPsiImplUtil#inDifferentFun}: variables are in different scopes if the variable's scope
+   * isn't the origin's scope or one of its ancestors.
+   */
+  private static boolean inDifferentScopes(@Nullable PsiElement scope, @Nullable PsiElement originScope) {
+    return scope != null && originScope != null && !PsiTreeUtil.isAncestor(scope, originScope, false);
+  }
+
+  @NotNull
+  private Binding getBinding(@NotNull ErlangQVar var) {
+    Binding binding = myBindings.get(var);
+    return binding != null ? binding : new Binding(var);
+  }
+
+  private static final class Binding {
+    private final boolean myArgumentDefinition;
+    private final boolean myLeftPartOfAssignment;
+    private final boolean myFunctionTypeArgument;
+    private final boolean myInArgumentList;
+    private final boolean myDefinitionBeforeArgumentList;
+    private final boolean myBindingSite;
+    private final boolean myFunArgument;
+    @Nullable private final ErlangCrClause myCrClause;
+    @Nullable private final ErlangCaseExpression myCaseExpression;
+    @Nullable private final ErlangFunClause myFunClause;
+    @Nullable private final ErlangListComprehension myListComprehension;
+    @Nullable private final ErlangLcExpression myLcExpression;
+
+    Binding(@NotNull ErlangQVar var) {
+      myArgumentDefinition = inArgumentDefinition(var);
+      myLeftPartOfAssignment = inLeftPartOfAssignment(var);
+      myFunctionTypeArgument = inFunctionTypeArgument(var);
+      myInArgumentList = inArgumentList(var);
+      myDefinitionBeforeArgumentList = inDefinitionBeforeArgumentList(var);
+      boolean inArgumentListBeforeAssignment =
+        PsiTreeUtil.getParentOfType(var, ErlangArgumentList.class, ErlangAssignmentExpression.class) instanceof ErlangArgumentList;
+      myBindingSite = (myArgumentDefinition || myLeftPartOfAssignment) &&
+                      !(myLeftPartOfAssignment && isBinaryWidthExpression(var)) &&
+                      !(myInArgumentList && inArgumentListBeforeAssignment && !myDefinitionBeforeArgumentList);
+      ErlangArgumentDefinitionList argumentDefinitionList = PsiTreeUtil.getParentOfType(var, ErlangArgumentDefinitionList.class);
+      myFunArgument = argumentDefinitionList != null && argumentDefinitionList.getParent() instanceof ErlangFunClause;
+      myCrClause = PsiTreeUtil.getParentOfType(var, ErlangCrClause.class);
+      myCaseExpression = PsiTreeUtil.getParentOfType(var, ErlangCaseExpression.class);
+      myFunClause = PsiTreeUtil.getParentOfType(var, ErlangFunClause.class);
+      myListComprehension = PsiTreeUtil.getParentOfType(var, ErlangListComprehension.class);
+      myLcExpression = PsiTreeUtil.getParentOfType(var, ErlangLcExpression.class);
+    }
+  }
+}
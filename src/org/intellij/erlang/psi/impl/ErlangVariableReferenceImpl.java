@@ -73,11 +73,11 @@ public class ErlangVariableReferenceImpl extends ErlangPsiPolyVariantCachingRefe
 
   @NotNull
   private List<ErlangQVar> filterResult(List<ErlangQVar> results) {
+    ErlangVarScopeTable table = ErlangVarScopeTable.getTable(myElement);
     return results.stream().filter(
       element ->
-        !inDifferentLc(myElement, element) &&
-        !inDifferentFun(myElement, element) &&
-        !beforeDefine(myElement, element) &&
+        !inDifferentScope(table, element) &&
+        !beforeDefine(table, element) &&
         (!inClause|| !inOneExpDifferentClause(myElement, element))
     ).collect(Collectors.toList());
   }
@@ -86,12 +86,28 @@ public class ErlangVariableReferenceImpl extends ErlangPsiPolyVariantCachingRefe
   public boolean isReferenceTo(@NotNull PsiElement element) {
     if (!(element instanceof ErlangQVar)) return false;
     if (myElement.equals(element)) return false;
+    ErlangVarScopeTable table = ErlangVarScopeTable.getTable(myElement);
+    if (table != null && table.contains((ErlangQVar) element)) return !inDifferentScope(table, (ErlangQVar) element);
     if (inDifferentFun(myElement, element)) return false;
     if (inDifferentFunction(myElement, element)) return false;
     if (inDifferentLc(myElement, element)) return false;
     return true;
   }
 
+  private boolean inDifferentScope(@Nullable ErlangVarScopeTable table, @NotNull ErlangQVar element) {
+    if (table != null && table.contains(element)) {
+      return table.inDifferentLc(element, myElement) || table.inDifferentFun(element, myElement);
+    }
+    return inDifferentLc(myElement, element) || inDifferentFun(myElement, element);
+  }
+
+  private boolean beforeDefine(@Nullable ErlangVarScopeTable table, @NotNull ErlangQVar element) {
+    if (table != null && table.contains(element)) {
+      return !table.isInListComprehensionExpression(element) && element.getTextOffset() > myElement.getTextOffset();
+    }
+    return ErlangPsiImplUtil.beforeDefine(myElement, element);
+  }
+
   @Nullable
   private ErlangModule getErlangModule() {
     PsiFile file = myElement.getContainingFile();
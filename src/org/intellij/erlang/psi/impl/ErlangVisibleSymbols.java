@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.psi.impl;
+
+import com.intellij.util.SmartList;
+import com.intellij.util.containers.ContainerUtil;
+import gnu.trove.THashMap;
+import org.intellij.erlang.psi.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Symbols visible in a file: its own definitions merged with the ones from all transitively included files.
+ * The file's own definitions come first, so they shadow definitions from includes. Imports don't shadow each
+ * other: an import which doesn't resolve falls back to the next one of the same function.
+ */
+public final class ErlangVisibleSymbols {
+  private final List<ErlangFunction> myIncludedFunctions;
+  private final List<ErlangImportFunction> myIncludedImports;
+  private final List<ErlangMacrosDefinition> myIncludedMacroses;
+  private final List<ErlangRecordDefinition> myIncludedRecords;
+  private final List<ErlangTypeDefinition> myIncludedTypes;
+
+  private final Map<String, ErlangFunction> myFunctions = new THashMap<>();
+  private final Map<String, List<ErlangImportFunction>> myImports = new THashMap<>();
+  private final Map<String, ErlangMacrosDefinition> myMacroses = new THashMap<>();
+  private final Map<String, ErlangRecordDefinition> myRecords = new THashMap<>();
+  private final Map<String, ErlangTypeDefinition> myTypes = new THashMap<>();
+
+  private final ErlangFile myFile;
+
+  private ErlangVisibleSymbols(@NotNull ErlangFile file, @NotNull Collection<ErlangFile> includedFiles) {
+    myFile = file;
+    addSymbols(file);
+    List<ErlangFunction> includedFunctions = new ArrayList<>();
+    List<ErlangImportFunction> includedImports = new ArrayList<>();
+    List<ErlangMacrosDefinition> includedMacroses = new ArrayList<>();
+    List<ErlangRecordDefinition> includedRecords = new ArrayList<>();
+    List<ErlangTypeDefinition> includedTypes = new ArrayList<>();
+    for (ErlangFile includedFile : includedFiles) {
+      includedFunctions.addAll(includedFile.getFunctions());
+      includedImports.addAll(includedFile.getImportedFunctions());
+      includedMacroses.addAll(includedFile.getMacroses());
+      includedRecords.addAll(includedFile.getRecords());
+      includedTypes.addAll(includedFile.getTypes());
+      addSymbols(includedFile);
+    }
+    myIncludedFunctions = Collections.unmodifiableList(includedFunctions);
+    myIncludedImports = Collections.unmodifiableList(includedImports);
+    myIncludedMacroses = Collections.unmodifiableList(includedMacroses);
+    myIncludedRecords = Collections.unmodifiableList(includedRecords);
+    myIncludedTypes = Collections.unmodifiableList(includedTypes);
+  }
+
+  @NotNull
+  static ErlangVisibleSymbols create(@NotNull ErlangFile file, @NotNull Collection<ErlangFile> includedFiles) {
+    return new ErlangVisibleSymbols(file, includedFiles);
+  }
+
+  private void addSymbols(@NotNull ErlangFile file) {
+    for (ErlangFunction function : file.getFunctions()) {
+      putIfAbsent(myFunctions, ErlangPsiImplUtil.createFunctionPresentation(function), function);
+    }
+    for (ErlangImportFunction importFunction : file.getImportedFunctions()) {
+      String key = ErlangPsiImplUtil.createFunctionPresentation(importFunction);
+      myImports.computeIfAbsent(key, k -> new SmartList<>()).add(importFunction);
+    }
+    for (ErlangMacrosDefinition macros : file.getMacroses()) {
+      putIfAbsent(myMacroses, ErlangPsiImplUtil.getName(macros), macros);
+    }
+    for (ErlangRecordDefinition record : file.getRecords()) {
+      putIfAbsent(myRecords, record.getName(), record);
+    }
+    for (ErlangTypeDefinition type : file.getTypes()) {
+      putIfAbsent(myTypes, type.getName(), type);
+    }
+  }
+
+  private static <T> void putIfAbsent(@NotNull Map<String, T> map, @NotNull String key, @NotNull T value) {
+    if (!map.containsKey(key)) map.put(key, value);
+  }
+
+  @Nullable
+  public ErlangFunction getFunction(@NotNull String name, int arity) {
+    return myFunctions.get(ErlangPsiImplUtil.createFunctionPresentation(name, arity));
+  }
+
+  /**
+   * @return imports of the function, the file's own imports first.
+   */
+  @NotNull
+  public List<ErlangImportFunction> getImportedFunctions(@NotNull String name, int arity) {
+    List<ErlangImportFunction> imports = myImports.get(ErlangPsiImplUtil.createFunctionPresentation(name, arity));
+    return imports != null ? Collections.unmodifiableList(imports) : Collections.emptyList();
+  }
+
+  @Nullable
+  public ErlangMacrosDefinition getMacros(@NotNull String name) {
+    return myMacroses.get(name);
+  }
+
+  @Nullable
+  public ErlangRecordDefinition getRecord(@NotNull String name) {
+    return myRecords.get(name);
+  }
+
+  @Nullable
+  public ErlangTypeDefinition getType(@NotNull String name) {
+    return myTypes.get(name);
+  }
+
+  @NotNull
+  public List<ErlangFunction> getIncludedFunctions() {
+    return myIncludedFunctions;
+  }
+
+  @NotNull
+  public List<ErlangImportFunction> getImportedFunctions() {
+    return ContainerUtil.concat(myFile.getImportedFunctions(), myIncludedImports);
+  }
+
+  @NotNull
+  public List<ErlangMacrosDefinition> getMacroses() {
+    return ContainerUtil.concat(myFile.getMacroses(), myIncludedMacroses);
+  }
+
+  @NotNull
+  public List<ErlangRecordDefinition> getRecords() {
+    return ContainerUtil.concat(myFile.getRecords(), myIncludedRecords);
+  }
+
+  @NotNull
+  public List<ErlangTypeDefinition> getTypes() {
+    return ContainerUtil.concat(myFile.getTypes(), myIncludedTypes);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.quickfixes;
+
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangInclude;
+import org.intellij.erlang.psi.ErlangModule;
+import org.intellij.erlang.psi.impl.ErlangElementFactory;
+import org.intellij.erlang.roots.ErlangIncludeDirectoryUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Adds an include of a header which defines an unresolved record or macro.
+ */
+public class ErlangIncludeHeaderFix extends ErlangQuickFixBase {
+  private static final int MAX_FIXES = 5;
+
+  private final String myIncludeString;
+
+  public ErlangIncludeHeaderFix(@NotNull String includeString) {
+    myIncludeString = includeString;
+  }
+
+  @NotNull
+  @Override
+  public String getFamilyName() {
+    return "Include header";
+  }
+
+  @NotNull
+  @Override
+  public String getName() {
+    return "Include '" + myIncludeString + "'";
+  }
+
+  @Override
+  public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+    PsiFile file = descriptor.getPsiElement().getContainingFile();
+    if (file instanceof ErlangFile) {
+      addInclude(project, (ErlangFile) file, myIncludeString);
+    }
+  }
+
+  /**
+   * @param definitions definitions of the unresolved element found in headers.
+   */
+  @NotNull
+  public static List<ErlangIncludeHeaderFix> createFixes(@NotNull ErlangFile file, @NotNull Collection<? extends PsiElement> definitions) {
+    Set<String> includeStrings = new LinkedHashSet<>();
+    for (PsiElement definition : definitions) {
+      PsiFile header = definition.getContainingFile();
+      VirtualFile headerFile = header != null ? header.getVirtualFile() : null;
+      if (headerFile == null || header.equals(file.getOriginalFile())) continue;
+      ContainerUtil.addIfNotNull(includeStrings, getIncludeString(file, headerFile));
+      if (includeStrings.size() == MAX_FIXES) break;
+    }
+    return ContainerUtil.map(includeStrings, ErlangIncludeHeaderFix::new);
+  }
+
+  /**
+   * @return path of the header relative to the file's directory or to one of the module's include directories,
+   * whichever is shorter.
+   */
+  @Nullable
+  public static String getIncludeString(@NotNull ErlangFile file, @NotNull VirtualFile header) {
+    VirtualFile virtualFile = file.getOriginalFile().getVirtualFile();
+    VirtualFile directory = virtualFile != null ? virtualFile.getParent() : null;
+    String includeString = directory != null ? FileUtil.getRelativePath(directory.getPath(), header.getPath(), '/') : null;
+    for (VirtualFile includeDir : ErlangIncludeDirectoryUtil.getIncludeDirectories(ModuleUtilCore.findModuleForPsiElement(file))) {
+      String includeDirPath = VfsUtilCore.getRelativePath(header, includeDir, '/');
+      if (includeDirPath != null && (includeString == null || includeString.length() > includeDirPath.length())) {
+        includeString = includeDirPath;
+      }
+    }
+    return includeString;
+  }
+
+  /**
+   * Adds the include after the last include of the file, after the module attribute if there are no includes,
+   * or at the beginning of the file otherwise.
+   */
+  public static void addInclude(@NotNull Project project, @NotNull ErlangFile file, @NotNull String includeString) {
+    ErlangInclude include = ErlangElementFactory.createIncludeFromText(project, includeString);
+    PsiElement anchor = ContainerUtil.getLastItem(file.getIncludes());
+    if (anchor == null) {
+      ErlangModule module = file.getModule();
+      anchor = module != null ? module.getParent() : null;
+    }
+    if (anchor != null) {
+      PsiElement added = file.addAfter(include, anchor);
+      file.addBefore(ErlangElementFactory.createLeafFromText(project, "\n"), added);
+    }
+    else {
+      PsiElement added = file.addBefore(include, file.getFirstChild());
+      file.addAfter(ErlangElementFactory.createLeafFromText(project, "\n\n"), added);
+    }
+  }
+}
@@ -38,6 +38,7 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.bif.ErlangBifTable;
 import org.intellij.erlang.icons.ErlangIcons;
 import org.intellij.erlang.jps.model.JpsErlangModelSerializerExtension;
 import org.intellij.erlang.jps.model.JpsErlangSdkType;
@@ -50,10 +51,8 @@ import org.jetbrains.annotations.TestOnly;
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.ListIterator;
-import java.util.Map;
+import java.util.*;
+import java.util.regex.Pattern;
 
 public class ErlangSdkType extends SdkType {
   private static final String OTP_RELEASE_PREFIX_LINE = "ErlangSdkType_OTP_RELEASE:";
@@ -65,7 +64,14 @@ public class ErlangSdkType extends SdkType {
       "\"" + ERTS_VERSION_PREFIX_LINE + "\"," +
       "erlang:system_info(version)" +
       "]),erlang:halt().";
+  private static final String BIF_PREFIX_LINE = "ErlangSdkType_BIF:";
+  private static final String PRINT_BIFS_EXPRESSION =
+    "lists:foreach(fun({F,A}) -> " +
+      "io:format(\"~n" + BIF_PREFIX_LINE + "~s ~b ~s~n\",[F,A,erl_internal:bif(F,A)]) " +
+      "end,erlang:module_info(exports)),erlang:halt().";
+  private static final Pattern BIF_NAME_PATTERN = Pattern.compile("[a-z][a-zA-Z0-9_@]*");
   private static final Logger LOG = Logger.getInstance(ErlangSdkType.class);
+  private static final Set<String> ourBifCatalogRequests = ContainerUtil.newConcurrentSet();
 
   private final Map<String, ErlangSdkRelease> mySdkHomeToReleaseCache = ApplicationManager.getApplication().isUnitTestMode() ?
                                                                         new HashMap<>() : ContainerUtil.createWeakMap();
@@ -171,6 +177,40 @@ public class ErlangSdkType extends SdkType {
   @Override
   public void setupSdkPaths(@NotNull Sdk sdk) {
     configureSdkPaths(sdk);
+    String sdkHome = sdk.getHomePath();
+    ErlangSdkRelease release = getRelease(sdk);
+    if (sdkHome != null && release != null) {
+      generateBifCatalogInBackground(sdkHome, release);
+    }
+  }
+
+  /**
+   * Generates the BIF catalog for the SDK used by {@code element} unless it was already requested in this session,
+   * so that SDKs configured before catalogs were introduced get one too.
+   */
+  public static void generateBifCatalogInBackground(@NotNull PsiElement element, @NotNull ErlangSdkRelease release) {
+    String sdkHome = getSdkHome(element);
+    if (sdkHome != null) {
+      generateBifCatalogInBackground(sdkHome, release);
+    }
+  }
+
+  private static void generateBifCatalogInBackground(@NotNull String sdkHome, @NotNull ErlangSdkRelease release) {
+    if (ApplicationManager.getApplication().isUnitTestMode() || !ourBifCatalogRequests.add(sdkHome)) return;
+    ApplicationManager.getApplication().executeOnPooledThread(() -> generateBifCatalog(sdkHome, release));
+  }
+
+  @Nullable
+  private static String getSdkHome(@NotNull PsiElement element) {
+    if (ErlangSystemUtil.isSmallIde()) {
+      return getSdkPath(element.getProject());
+    }
+    Module module = ModuleUtilCore.findModuleForPsiElement(element);
+    Sdk sdk = module != null ? ModuleRootManager.getInstance(module).getSdk() : null;
+    if (sdk == null || sdk.getSdkType() != getInstance()) {
+      sdk = ProjectRootManager.getInstance(element.getProject()).getProjectSdk();
+    }
+    return sdk != null && sdk.getSdkType() == getInstance() ? sdk.getHomePath() : null;
   }
 
   @Nullable
@@ -294,6 +334,34 @@ public class ErlangSdkType extends SdkType {
     return otpRelease != null && ertsVersion != null ? new ErlangSdkRelease(otpRelease, ertsVersion) : null;
   }
 
+  private static void generateBifCatalog(@NotNull String sdkHome, @NotNull ErlangSdkRelease release) {
+    try {
+      File erl = JpsErlangSdkType.getByteCodeInterpreterExecutable(sdkHome);
+      ProcessOutput output = ErlangSystemUtil.getProcessOutput(sdkHome, erl.getAbsolutePath(), "-noshell",
+                                                               "-eval", PRINT_BIFS_EXPRESSION);
+      if (output.getExitCode() != 0 || output.isCancelled() || output.isTimeout()) {
+        LOG.warn("Failed to list BIFs of " + release + ", the built-in table will be used.\n" +
+                 "StdErr: " + output.getStderr());
+        return;
+      }
+      List<String> bifs = new ArrayList<>();
+      for (String line : output.getStdoutLines()) {
+        if (!line.startsWith(BIF_PREFIX_LINE)) continue;
+        String bif = line.substring(BIF_PREFIX_LINE.length());
+        String name = StringUtil.substringBefore(bif, " ");
+        if (name != null && BIF_NAME_PATTERN.matcher(name).matches()) {
+          bifs.add(bif);
+        }
+      }
+      if (!bifs.isEmpty()) {
+        ErlangBifTable.storeSdkCatalog(release, bifs);
+      }
+    }
+    catch (ExecutionException e) {
+      LOG.warn(e);
+    }
+  }
+
   private static void configureSdkPaths(@NotNull Sdk sdk) {
     SdkModificator sdkModificator = sdk.getSdkModificator();
     setupLocalSdkPaths(sdkModificator);
@@ -374,7 +442,7 @@ public class ErlangSdkType extends SdkType {
   }
 
   @Nullable
-  private static ErlangSdkRelease getRelease(@Nullable Sdk sdk) {
+  public static ErlangSdkRelease getRelease(@Nullable Sdk sdk) {
     if (sdk != null && sdk.getSdkType() == getInstance()) {
       ErlangSdkRelease fromVersionString = ErlangSdkRelease.fromString(sdk.getVersionString());
       return fromVersionString != null ? fromVersionString :
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.search;
+
+import com.intellij.openapi.application.QueryExecutorBase;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.DefinitionsScopedSearch;
+import com.intellij.util.Processor;
+import org.intellij.erlang.navigation.ErlangNavigationUtil;
+import org.intellij.erlang.psi.*;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implementations of a behaviour module (modules declaring it with {@code -behaviour}) and of its callbacks.
+ */
+public class ErlangImplementationsSearch extends QueryExecutorBase<PsiElement, DefinitionsScopedSearch.SearchParameters> {
+  protected ErlangImplementationsSearch() {
+    super(true);
+  }
+
+  @Override
+  public void processQuery(@NotNull DefinitionsScopedSearch.SearchParameters parameters,
+                           @NotNull Processor<? super PsiElement> consumer) {
+    SearchScope searchScope = parameters.getScope();
+    if (!(searchScope instanceof GlobalSearchScope)) return;
+    GlobalSearchScope scope = (GlobalSearchScope) searchScope;
+
+    PsiElement element = parameters.getElement();
+    if (element instanceof ErlangCallbackSpec) {
+      for (ErlangFunction function : ErlangNavigationUtil.getCallbackImplementations((ErlangCallbackSpec) element, scope)) {
+        if (!consumer.process(function)) return;
+      }
+    }
+    else if (element instanceof ErlangModule || element instanceof ErlangFile) {
+      PsiFile file = element.getContainingFile();
+      if (!(file instanceof ErlangFile) || !((ErlangFile) file).isBehaviour()) return;
+      for (ErlangFile module : ErlangNavigationUtil.getBehaviourImplementations((ErlangFile) file, scope)) {
+        ErlangModule moduleElement = module.getModule();
+        if (!consumer.process(moduleElement != null ? moduleElement : module)) return;
+      }
+    }
+  }
+}
@@ -20,21 +20,35 @@ import com.intellij.psi.stubs.IStubElementType;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.util.io.StringRef;
 import org.intellij.erlang.psi.ErlangFunction;
+import org.jetbrains.annotations.Nullable;
 
 public class ErlangFunctionStub extends ErlangWithArityStub<ErlangFunction> {
   private final boolean myExported;
+  private final StringRef myModuleNameRef;
 
-  public ErlangFunctionStub(StubElement parent, IStubElementType elementType, String name, int arity, boolean exported) {
+  public ErlangFunctionStub(StubElement parent, IStubElementType elementType, String name, int arity, boolean exported,
+                            @Nullable String moduleName) {
     super(parent, elementType, name, arity);
     myExported = exported;
+    myModuleNameRef = StringRef.fromString(moduleName);
   }
 
-  public ErlangFunctionStub(StubElement parent, IStubElementType elementType, StringRef name, int arity, boolean exported) {
+  public ErlangFunctionStub(StubElement parent, IStubElementType elementType, StringRef name, int arity, boolean exported,
+                            @Nullable StringRef moduleNameRef) {
     super(parent, elementType, name, arity);
     myExported = exported;
+    myModuleNameRef = moduleNameRef;
   }
 
   public boolean isExported() {
     return myExported;
   }
+
+  /**
+   * @return name of the module declaring this function or null if the function is declared in a header.
+   */
+  @Nullable
+  public String getModuleName() {
+    return StringRef.toString(myModuleNameRef);
+  }
 }
@@ -17,17 +17,19 @@
 package org.intellij.erlang.stubs;
 
 import com.intellij.psi.stubs.IStubElementType;
-import com.intellij.psi.stubs.NamedStubBase;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.util.io.StringRef;
 import org.intellij.erlang.psi.ErlangMacrosDefinition;
 
-public class ErlangMacrosDefinitionStub extends NamedStubBase<ErlangMacrosDefinition> {
-  public ErlangMacrosDefinitionStub(StubElement parent, IStubElementType elementType, StringRef name) {
-    super(parent, elementType, name);
+/**
+ * Arity of a macro defined without an argument list, e.g. {@code -define(FOO, 1).}, is -1.
+ */
+public class ErlangMacrosDefinitionStub extends ErlangWithArityStub<ErlangMacrosDefinition> {
+  public ErlangMacrosDefinitionStub(StubElement parent, IStubElementType elementType, StringRef name, int arity) {
+    super(parent, elementType, name, arity);
   }
 
-  public ErlangMacrosDefinitionStub(StubElement parent, IStubElementType elementType, String name) {
-    super(parent, elementType, name);
+  public ErlangMacrosDefinitionStub(StubElement parent, IStubElementType elementType, String name, int arity) {
+    super(parent, elementType, name, arity);
   }
 }
@@ -21,13 +21,30 @@ import com.intellij.psi.stubs.NamedStubBase;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.util.io.StringRef;
 import org.intellij.erlang.psi.ErlangRecordDefinition;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
 
 public class ErlangRecordDefinitionStub extends NamedStubBase<ErlangRecordDefinition> {
-  public ErlangRecordDefinitionStub(StubElement parent, IStubElementType elementType, StringRef name) {
+  private final List<String> myFieldNames;
+
+  public ErlangRecordDefinitionStub(StubElement parent, IStubElementType elementType, StringRef name,
+                                    @NotNull List<String> fieldNames) {
     super(parent, elementType, name);
+    myFieldNames = fieldNames;
   }
 
-  public ErlangRecordDefinitionStub(StubElement parent, IStubElementType elementType, String name) {
+  public ErlangRecordDefinitionStub(StubElement parent, IStubElementType elementType, String name,
+                                    @NotNull List<String> fieldNames) {
     super(parent, elementType, name);
+    myFieldNames = fieldNames;
+  }
+
+  /**
+   * @return names of the fields declared with a plain atom, fields declared with macros aren't included.
+   */
+  @NotNull
+  public List<String> getFieldNames() {
+    return myFieldNames;
   }
 }
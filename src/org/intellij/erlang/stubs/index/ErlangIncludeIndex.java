@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.stubs.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.stubs.StubIndexKey;
+import org.intellij.erlang.psi.ErlangCompositeElement;
+import org.intellij.erlang.psi.ErlangFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Include and include_lib attributes keyed by the file name of the included file.
+ */
+public class ErlangIncludeIndex extends StringStubIndexExtension<ErlangCompositeElement> {
+  public static final StubIndexKey<String, ErlangCompositeElement> KEY = StubIndexKey.createIndexKey("erlang.include");
+  private static final int VERSION = 0;
+
+  @Override
+  public int getVersion() {
+    return super.getVersion() + VERSION;
+  }
+
+  @NotNull
+  public StubIndexKey<String, ErlangCompositeElement> getKey() {
+    return KEY;
+  }
+
+  /**
+   * @return files with an include of a file named {@code fileName}, whether it resolves to a particular file has
+   * to be checked by the caller.
+   */
+  @NotNull
+  public static List<ErlangFile> getIncludingFiles(@NotNull Project project,
+                                                   @NotNull String fileName,
+                                                   @NotNull GlobalSearchScope scope) {
+    Set<ErlangFile> result = new LinkedHashSet<>();
+    for (ErlangCompositeElement include : StubIndex.getElements(KEY, fileName, project, scope, ErlangCompositeElement.class)) {
+      PsiFile file = include.getContainingFile();
+      if (file instanceof ErlangFile) {
+        result.add((ErlangFile) file);
+      }
+    }
+    return new ArrayList<>(result);
+  }
+}
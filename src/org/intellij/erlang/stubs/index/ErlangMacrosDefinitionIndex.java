@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.stubs.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.stubs.StubIndexKey;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.ErlangFileType;
+import org.intellij.erlang.psi.ErlangMacrosDefinition;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * Macro definitions keyed by macro name, arities of the definitions are kept in their stubs.
+ */
+public class ErlangMacrosDefinitionIndex extends StringStubIndexExtension<ErlangMacrosDefinition> {
+  public static final StubIndexKey<String, ErlangMacrosDefinition> KEY = StubIndexKey.createIndexKey("erlang.macros.definition");
+  private static final int VERSION = 0;
+
+  @Override
+  public int getVersion() {
+    return super.getVersion() + VERSION;
+  }
+
+  @NotNull
+  public StubIndexKey<String, ErlangMacrosDefinition> getKey() {
+    return KEY;
+  }
+
+  /**
+   * @return definitions of the macro from header files in the scope which a call with the given arity expands,
+   * -1 stands for a call without an argument list. A macro defined without an argument list matches any call,
+   * as epp expands {@code ?F(1)} of {@code -define(F, ...)} too.
+   */
+  @NotNull
+  public static Collection<ErlangMacrosDefinition> getHeaderMacroses(@NotNull Project project,
+                                                                     @NotNull String macrosName,
+                                                                     int arity,
+                                                                     @NotNull GlobalSearchScope scope) {
+    GlobalSearchScope headersScope = GlobalSearchScope.getScopeRestrictedByFileTypes(scope, ErlangFileType.HEADER);
+    Collection<ErlangMacrosDefinition> macroses = StubIndex.getElements(KEY, macrosName, project, headersScope, ErlangMacrosDefinition.class);
+    return ContainerUtil.filter(macroses, macros -> {
+      int macrosArity = ErlangPsiImplUtil.getArity(macros);
+      return macrosArity == -1 || macrosArity == arity;
+    });
+  }
+}
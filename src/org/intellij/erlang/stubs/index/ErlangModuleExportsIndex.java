@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.stubs.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.stubs.StubIndexKey;
+import org.intellij.erlang.psi.ErlangFunction;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * Functions exported from modules (explicitly or with {@code -compile(export_all)}) keyed by module name.
+ */
+public class ErlangModuleExportsIndex extends StringStubIndexExtension<ErlangFunction> {
+  public static final StubIndexKey<String, ErlangFunction> KEY = StubIndexKey.createIndexKey("erlang.module.exports");
+  private static final int VERSION = 0;
+
+  @Override
+  public int getVersion() {
+    return super.getVersion() + VERSION;
+  }
+
+  @NotNull
+  public StubIndexKey<String, ErlangFunction> getKey() {
+    return KEY;
+  }
+
+  @NotNull
+  public static Collection<String> getModuleNames(@NotNull Project project) {
+    return StubIndex.getInstance().getAllKeys(KEY, project);
+  }
+
+  @NotNull
+  public static Collection<ErlangFunction> getExportedFunctions(@NotNull Project project,
+                                                                @NotNull String moduleName,
+                                                                @NotNull GlobalSearchScope scope) {
+    return StubIndex.getElements(KEY, moduleName, project, scope, ErlangFunction.class);
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.stubs.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.stubs.StubIndexKey;
+import org.intellij.erlang.ErlangFileType;
+import org.intellij.erlang.psi.ErlangRecordDefinition;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * Record definitions keyed by record name.
+ */
+public class ErlangRecordDefinitionIndex extends StringStubIndexExtension<ErlangRecordDefinition> {
+  public static final StubIndexKey<String, ErlangRecordDefinition> KEY = StubIndexKey.createIndexKey("erlang.record.definition");
+  private static final int VERSION = 0;
+
+  @Override
+  public int getVersion() {
+    return super.getVersion() + VERSION;
+  }
+
+  @NotNull
+  public StubIndexKey<String, ErlangRecordDefinition> getKey() {
+    return KEY;
+  }
+
+  /**
+   * @return definitions of the record from header files in the scope.
+   */
+  @NotNull
+  public static Collection<ErlangRecordDefinition> getHeaderRecords(@NotNull Project project,
+                                                                    @NotNull String recordName,
+                                                                    @NotNull GlobalSearchScope scope) {
+    GlobalSearchScope headersScope = GlobalSearchScope.getScopeRestrictedByFileTypes(scope, ErlangFileType.HEADER);
+    return StubIndex.getElements(KEY, recordName, project, headersScope, ErlangRecordDefinition.class);
+  }
+
+  @NotNull
+  public static Collection<String> getAllRecordNames(@NotNull Project project) {
+    return StubIndex.getInstance().getAllKeys(KEY, project);
+  }
+}
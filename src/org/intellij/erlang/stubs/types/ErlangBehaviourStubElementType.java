@@ -16,6 +16,7 @@
 
 package org.intellij.erlang.stubs.types;
 
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
@@ -23,6 +24,7 @@ import com.intellij.util.ArrayFactory;
 import org.intellij.erlang.psi.ErlangBehaviour;
 import org.intellij.erlang.psi.impl.ErlangBehaviourImpl;
 import org.intellij.erlang.stubs.ErlangBehaviourStub;
+import org.intellij.erlang.stubs.index.ErlangBehaviourImplementationIndex;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -56,4 +58,13 @@ public class ErlangBehaviourStubElementType extends ErlangStubElementType<Erlang
   public ErlangBehaviourStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
     return new ErlangBehaviourStub(parentStub, this, dataStream.readName());
   }
+
+  @Override
+  public void indexStub(@NotNull ErlangBehaviourStub stub, @NotNull IndexSink sink) {
+    super.indexStub(stub, sink);
+    String name = stub.getName();
+    if (name != null && !name.isEmpty()) {
+      sink.occurrence(ErlangBehaviourImplementationIndex.KEY, name);
+    }
+  }
 }
@@ -16,14 +16,21 @@
 
 package org.intellij.erlang.stubs.types;
 
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.ArrayFactory;
+import org.intellij.erlang.ErlangFileType;
 import org.intellij.erlang.psi.ErlangFunction;
 import org.intellij.erlang.psi.impl.ErlangFunctionImpl;
 import org.intellij.erlang.stubs.ErlangFunctionStub;
+import org.intellij.erlang.stubs.index.ErlangExportedFunctionIndex;
+import org.intellij.erlang.stubs.index.ErlangModuleExportsIndex;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 
@@ -43,7 +50,7 @@ public class ErlangFunctionStubElementType extends ErlangNamedStubElementType<Er
 
   @Override
   public ErlangFunctionStub createStub(@NotNull ErlangFunction psi, StubElement parentStub) {
-    return new ErlangFunctionStub(parentStub, this, psi.getName(), psi.getArity(), psi.isExported());
+    return new ErlangFunctionStub(parentStub, this, psi.getName(), psi.getArity(), psi.isExported(), getModuleName(psi));
   }
 
   @Override
@@ -51,11 +58,30 @@ public class ErlangFunctionStubElementType extends ErlangNamedStubElementType<Er
     dataStream.writeName(stub.getName());
     dataStream.writeInt(stub.getArity());
     dataStream.writeBoolean(stub.isExported());
+    dataStream.writeName(stub.getModuleName());
   }
 
   @NotNull
   @Override
   public ErlangFunctionStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
-    return new ErlangFunctionStub(parentStub, this, dataStream.readName(), dataStream.readInt(), dataStream.readBoolean());
+    return new ErlangFunctionStub(parentStub, this, dataStream.readName(), dataStream.readInt(), dataStream.readBoolean(),
+                                  dataStream.readName());
+  }
+
+  @Override
+  public void indexStub(@NotNull ErlangFunctionStub stub, @NotNull IndexSink sink) {
+    super.indexStub(stub, sink);
+    String name = stub.getName();
+    String moduleName = stub.getModuleName();
+    if (stub.isExported() && name != null && moduleName != null) {
+      sink.occurrence(ErlangExportedFunctionIndex.KEY, name);
+      sink.occurrence(ErlangModuleExportsIndex.KEY, moduleName);
+    }
+  }
+
+  @Nullable
+  private static String getModuleName(@NotNull ErlangFunction psi) {
+    PsiFile file = psi.getContainingFile();
+    return file != null && file.getFileType() == ErlangFileType.MODULE ? FileUtil.getNameWithoutExtension(file.getName()) : null;
   }
 }
@@ -17,14 +17,17 @@
 package org.intellij.erlang.stubs.types;
 
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.ArrayFactory;
+import com.intellij.util.PathUtil;
 import org.intellij.erlang.psi.ErlangInclude;
 import org.intellij.erlang.psi.ErlangIncludeString;
 import org.intellij.erlang.psi.impl.ErlangIncludeImpl;
 import org.intellij.erlang.stubs.ErlangIncludeStub;
+import org.intellij.erlang.stubs.index.ErlangIncludeIndex;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -60,4 +63,12 @@ public class ErlangIncludeElementType extends ErlangStubElementType<ErlangInclud
   public ErlangIncludeStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
     return new ErlangIncludeStub(parentStub, this, dataStream.readName());
   }
+
+  @Override
+  public void indexStub(@NotNull ErlangIncludeStub stub, @NotNull IndexSink sink) {
+    String fileName = PathUtil.getFileName(StringUtil.notNullize(stub.getString()));
+    if (!fileName.isEmpty()) {
+      sink.occurrence(ErlangIncludeIndex.KEY, fileName);
+    }
+  }
 }
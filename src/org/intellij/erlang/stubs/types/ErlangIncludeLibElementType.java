@@ -17,14 +17,17 @@
 package org.intellij.erlang.stubs.types;
 
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.ArrayFactory;
+import com.intellij.util.PathUtil;
 import org.intellij.erlang.psi.ErlangIncludeLib;
 import org.intellij.erlang.psi.ErlangIncludeString;
 import org.intellij.erlang.psi.impl.ErlangIncludeLibImpl;
 import org.intellij.erlang.stubs.ErlangIncludeLibStub;
+import org.intellij.erlang.stubs.index.ErlangIncludeIndex;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -60,4 +63,12 @@ public class ErlangIncludeLibElementType extends ErlangStubElementType<ErlangInc
   public ErlangIncludeLibStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
     return new ErlangIncludeLibStub(parentStub, this, dataStream.readName());
   }
+
+  @Override
+  public void indexStub(@NotNull ErlangIncludeLibStub stub, @NotNull IndexSink sink) {
+    String fileName = PathUtil.getFileName(StringUtil.notNullize(stub.getString()));
+    if (!fileName.isEmpty()) {
+      sink.occurrence(ErlangIncludeIndex.KEY, fileName);
+    }
+  }
 }
@@ -16,13 +16,16 @@
 
 package org.intellij.erlang.stubs.types;
 
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.ArrayFactory;
 import org.intellij.erlang.psi.ErlangMacrosDefinition;
 import org.intellij.erlang.psi.impl.ErlangMacrosDefinitionImpl;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.stubs.ErlangMacrosDefinitionStub;
+import org.intellij.erlang.stubs.index.ErlangMacrosDefinitionIndex;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -43,17 +46,27 @@ public class ErlangMacrosDefinitionElementType extends ErlangNamedStubElementTyp
 
   @Override
   public ErlangMacrosDefinitionStub createStub(@NotNull ErlangMacrosDefinition psi, StubElement parentStub) {
-    return new ErlangMacrosDefinitionStub(parentStub, this, psi.getName());
+    return new ErlangMacrosDefinitionStub(parentStub, this, psi.getName(), ErlangPsiImplUtil.getArity(psi));
   }
 
   @Override
   public void serialize(@NotNull ErlangMacrosDefinitionStub stub, @NotNull StubOutputStream dataStream) throws IOException {
     dataStream.writeName(stub.getName());
+    dataStream.writeInt(stub.getArity());
   }
 
   @NotNull
   @Override
   public ErlangMacrosDefinitionStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
-    return new ErlangMacrosDefinitionStub(parentStub, this, dataStream.readName());
+    return new ErlangMacrosDefinitionStub(parentStub, this, dataStream.readName(), dataStream.readInt());
+  }
+
+  @Override
+  public void indexStub(@NotNull ErlangMacrosDefinitionStub stub, @NotNull IndexSink sink) {
+    super.indexStub(stub, sink);
+    String name = stub.getName();
+    if (name != null) {
+      sink.occurrence(ErlangMacrosDefinitionIndex.KEY, name);
+    }
   }
 }
@@ -16,16 +16,22 @@
 
 package org.intellij.erlang.stubs.types;
 
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.ArrayFactory;
+import com.intellij.util.io.StringRef;
 import org.intellij.erlang.psi.ErlangRecordDefinition;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.psi.impl.ErlangRecordDefinitionImpl;
 import org.intellij.erlang.stubs.ErlangRecordDefinitionStub;
+import org.intellij.erlang.stubs.index.ErlangRecordDefinitionIndex;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ErlangRecordDefinitionElementType extends ErlangNamedStubElementType<ErlangRecordDefinitionStub, ErlangRecordDefinition> {
   private static final ErlangRecordDefinition[] EMPTY_ARRAY = new ErlangRecordDefinition[0];
@@ -43,17 +49,37 @@ public class ErlangRecordDefinitionElementType extends ErlangNamedStubElementTyp
 
   @Override
   public ErlangRecordDefinitionStub createStub(@NotNull ErlangRecordDefinition psi, StubElement parentStub) {
-    return new ErlangRecordDefinitionStub(parentStub, this, psi.getName());
+    return new ErlangRecordDefinitionStub(parentStub, this, psi.getName(), ErlangPsiImplUtil.getFieldNames(psi));
   }
 
   @Override
   public void serialize(@NotNull ErlangRecordDefinitionStub stub, @NotNull StubOutputStream dataStream) throws IOException {
     dataStream.writeName(stub.getName());
+    List<String> fieldNames = stub.getFieldNames();
+    dataStream.writeVarInt(fieldNames.size());
+    for (String fieldName : fieldNames) {
+      dataStream.writeName(fieldName);
+    }
   }
 
   @NotNull
   @Override
   public ErlangRecordDefinitionStub deserialize(@NotNull StubInputStream dataStream, StubElement parentStub) throws IOException {
-    return new ErlangRecordDefinitionStub(parentStub, this, dataStream.readName());
+    StringRef name = dataStream.readName();
+    int fieldCount = dataStream.readVarInt();
+    List<String> fieldNames = new ArrayList<>(fieldCount);
+    for (int i = 0; i < fieldCount; i++) {
+      fieldNames.add(StringRef.toString(dataStream.readName()));
+    }
+    return new ErlangRecordDefinitionStub(parentStub, this, name, fieldNames);
+  }
+
+  @Override
+  public void indexStub(@NotNull ErlangRecordDefinitionStub stub, @NotNull IndexSink sink) {
+    super.indexStub(stub, sink);
+    String name = stub.getName();
+    if (name != null) {
+      sink.occurrence(ErlangRecordDefinitionIndex.KEY, name);
+    }
   }
 }
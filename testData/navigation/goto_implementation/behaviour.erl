@@ -0,0 +1,5 @@
+-module(behaviour).
+
+-callback init(term()) -> ok.
+-callback handle(term(), term()) -> ok.
+-callback terminate() -> ok.
@@ -0,0 +1,8 @@
+-module(impl1).
+
+-behaviour(behaviour).
+
+-export([init/1, handle/2]).
+
+init(_) -> ok.
+handle(_, _) -> ok.
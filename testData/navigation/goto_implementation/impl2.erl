@@ -0,0 +1,8 @@
+-module(impl2).
+
+-behavior(behaviour).
+
+-export([init/1, handle/1]).
+
+init(_) -> ok.
+handle(_) -> ok.
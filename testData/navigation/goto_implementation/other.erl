@@ -0,0 +1,6 @@
+-module(other).
+
+-export([init/1, handle/2]).
+
+init(_) -> ok.
+handle(_, _) -> ok.
@@ -0,0 +1,5 @@
+-module(macro).
+-include("other.hrl").
+-include("header.hrl").
+
+foo() -> ?MAX_LEV<caret>EL.
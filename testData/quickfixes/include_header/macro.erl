@@ -0,0 +1,4 @@
+-module(macro).
+-include("other.hrl").
+
+foo() -> ?MAX_LEV<caret>EL.
@@ -0,0 +1,3 @@
+-module(macroArityMismatch).
+
+foo() -> ?SCA<caret>LE(1, 2).
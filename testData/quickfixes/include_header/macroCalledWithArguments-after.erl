@@ -0,0 +1,4 @@
+-module(macroCalledWithArguments).
+-include("header.hrl").
+
+foo() -> ?MAX_LEV<caret>EL(2).
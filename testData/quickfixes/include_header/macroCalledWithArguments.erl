@@ -0,0 +1,3 @@
+-module(macroCalledWithArguments).
+
+foo() -> ?MAX_LEV<caret>EL(2).
@@ -0,0 +1,4 @@
+-module(macroWithArguments).
+-include("header.hrl").
+
+foo() -> ?SCA<caret>LE(2).
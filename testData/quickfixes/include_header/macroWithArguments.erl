@@ -0,0 +1,3 @@
+-module(macroWithArguments).
+
+foo() -> ?SCA<caret>LE(2).
@@ -0,0 +1,3 @@
+-include("header.hrl").
+
+foo() -> #poin<caret>t{}.
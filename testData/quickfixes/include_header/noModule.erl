@@ -0,0 +1 @@
+foo() -> #poin<caret>t{}.
@@ -0,0 +1,4 @@
+-module(record).
+-include("header.hrl").
+
+foo() -> #poin<caret>t{}.
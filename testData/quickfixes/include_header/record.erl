@@ -0,0 +1,3 @@
+-module(record).
+
+foo() -> #poin<caret>t{}.
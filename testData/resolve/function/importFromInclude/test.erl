@@ -0,0 +1,6 @@
+-module(test).
+-export([foo/0]).
+
+-include("imports.hrl").
+
+foo() -> ba<caret>r(1).
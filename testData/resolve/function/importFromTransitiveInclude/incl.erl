@@ -0,0 +1,5 @@
+-module(incl).
+
+-export([bar/1]).
+
+bar(A) -> A.
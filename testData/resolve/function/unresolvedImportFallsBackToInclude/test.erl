@@ -0,0 +1,7 @@
+-module(test).
+-export([foo/0]).
+
+-import(missing, [bar/1]).
+-include("imports.hrl").
+
+foo() -> ba<caret>r(1).
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.bif;
+
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import org.intellij.erlang.sdk.ErlangSdkRelease;
+import org.intellij.erlang.sdk.ErlangSdkType;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class ErlangBifCatalogTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private File myOriginalCatalogsDirectory;
+  private File myCatalogsDirectory;
+
+  @Override
+  protected LightProjectDescriptor getProjectDescriptor() {
+    return new DefaultLightProjectDescriptor() {
+      @Override
+      public Sdk getSdk() {
+        return ErlangSdkType.createMockSdk("testData/mockSdk-R15B02/", ErlangSdkRelease.V_R15B02);
+      }
+    };
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    setUpProjectSdk();
+    myOriginalCatalogsDirectory = ErlangBifTable.getSdkCatalogsDirectory();
+    myCatalogsDirectory = FileUtil.createTempDirectory("erlang_bifs", null);
+    ErlangBifTable.setSdkCatalogsDirectory(myCatalogsDirectory);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      ErlangBifTable.setSdkCatalogsDirectory(myOriginalCatalogsDirectory);
+      FileUtil.delete(myCatalogsDirectory);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testStaticTableLookup() {
+    assertTrue(ErlangBifTable.isBif("erlang", "abs", 1));
+    assertFalse(ErlangBifTable.isBif("erlang", "abs", 2));
+    assertFalse(ErlangBifTable.isBif("lists", "abs", 1));
+    assertEquals("Int", ErlangBifTable.getBif("erlang", "abs", 1).getParams());
+    assertSize(3, ErlangBifTable.getBifs("lager", "info"));
+  }
+
+  public void testUnknownReleaseFallsBackToStaticTable() {
+    ErlangBifCatalog catalog = ErlangBifTable.getCatalog(new ErlangSdkRelease("0", "0.0-unknown"));
+    assertTrue(catalog.isBif("erlang", "abs", 1));
+  }
+
+  public void testSdkCatalog() {
+    ErlangSdkRelease release = new ErlangSdkRelease("0", "0.0-test");
+    ErlangBifTable.storeSdkCatalog(release, Arrays.asList("abs 1 true", "new_bif 2 false", "module_info 0 false"));
+    ErlangBifCatalog catalog = ErlangBifTable.getCatalog(release);
+
+    assertTrue(catalog.isBif("erlang", "abs", 1));
+    assertEquals("Int", catalog.getBif("erlang", "abs", 1).getParams());
+    assertEquals("P1, P2", catalog.getBif("erlang", "new_bif", 2).getParams());
+    assertFalse(catalog.getBif("erlang", "new_bif", 2).isAutoImported());
+    assertFalse(catalog.isBif("erlang", "adler32", 1));
+    assertFalse(catalog.isBif("erlang", "module_info", 0));
+    assertTrue(catalog.isBif("lager", "info", 1));
+    assertTrue(catalog.isBif("", ErlangBifTable.MODULE_INFO, 0));
+  }
+
+  public void testStoredSdkCatalogIsLoaded() {
+    ErlangSdkRelease release = new ErlangSdkRelease("0", "0.0-stored");
+    ErlangBifTable.storeSdkCatalog(release, Arrays.asList("abs 1 true", "stored_bif 0 false"));
+    ErlangBifTable.setSdkCatalogsDirectory(myCatalogsDirectory);
+
+    assertTrue(ErlangBifTable.getCatalog(release).isBif("erlang", "stored_bif", 0));
+  }
+
+  public void testFileCatalogFollowsStoredCatalog() {
+    PsiFile file = myFixture.configureByText("a.erl", "foo() -> ok.");
+    assertFalse(ErlangBifTable.getCatalog(file).isBif("erlang", "catalog_bif", 0));
+
+    ErlangBifTable.storeSdkCatalog(ErlangSdkRelease.V_R15B02, Arrays.asList("abs 1 true", "catalog_bif 0 true"));
+    assertTrue(ErlangBifTable.getCatalog(file).isBif("erlang", "catalog_bif", 0));
+  }
+}
@@ -26,11 +26,13 @@ import com.intellij.testFramework.ModuleTestCase;
 import com.intellij.testFramework.PsiTestUtil;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.jps.builder.ErlangFileDescriptor;
+import org.intellij.erlang.jps.model.ErlangIncludeSourceRootType;
 import org.intellij.erlang.module.ErlangModuleType;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 public class ErlangDependenciesResolutionTest extends ModuleTestCase {
@@ -110,6 +112,59 @@ public class ErlangDependenciesResolutionTest extends ModuleTestCase {
     assertSameErlangFiles(moduleBuildOrder, "parse_transform1", "header1", "behaviour1", "header2", "module1");
   }
 
+  public void testCachedDependencies() throws Exception {
+    ErlangFileDependenciesCache cache = new ErlangFileDependenciesCache(0);
+    List<ErlangFileDescriptor> buildOrder = ErlangPrepareDependenciesCompileTask.getBuildOrder(myModule, cache);
+    File cacheFile = FileUtil.createTempFile("deps-cache", ".dat", true);
+    cache.save(cacheFile);
+    ErlangFileDependenciesCache loadedCache = ErlangFileDependenciesCache.load(cacheFile);
+    List<ErlangFileDescriptor> cachedBuildOrder = ErlangPrepareDependenciesCompileTask.getBuildOrder(myModule, loadedCache);
+    assertSameErlangFiles(buildOrder, "parse_transform1", "header1", "behaviour1", "header2", "module1");
+    assertSameErlangFiles(cachedBuildOrder, "parse_transform1", "header1", "behaviour1", "header2", "module1");
+    for (int i = 0; i < buildOrder.size(); i++) {
+      assertSameElements(cachedBuildOrder.get(i).myDependencies, buildOrder.get(i).myDependencies);
+    }
+  }
+
+  public void testCachedEntriesKeptForKnownHeaders() {
+    ErlangFileDependenciesCache cache = new ErlangFileDependenciesCache(0);
+    cache.invalidate(path -> true, Arrays.asList("/a/include/a.hrl", "/b/include/b.hrl"));
+    cache.put("/a/src/a.erl", createCacheEntry(true));
+    cache.invalidate(path -> true, Arrays.asList("/a/include/a.hrl"));
+    assertNotNull(cache.getUpToDate("/a/src/a.erl", 0, 0));
+    cache.invalidate(path -> true, Arrays.asList("/a/include/a.hrl", "/b/include/b.hrl"));
+    assertNotNull(cache.getUpToDate("/a/src/a.erl", 0, 0));
+  }
+
+  public void testCachedEntriesDroppedForAddedHeaders() {
+    ErlangFileDependenciesCache cache = new ErlangFileDependenciesCache(0);
+    cache.invalidate(path -> true, Arrays.asList("/a/include/a.hrl"));
+    cache.put("/a/src/a.erl", createCacheEntry(true));
+    cache.put("/a/src/b.erl", createCacheEntry(false));
+    cache.invalidate(path -> true, Arrays.asList("/a/include/a.hrl", "/a/include/c.hrl"));
+    assertNull(cache.getUpToDate("/a/src/a.erl", 0, 0));
+    assertNotNull(cache.getUpToDate("/a/src/b.erl", 0, 0));
+  }
+
+  public void testRootsHashDependsOnIncludeDirectories() throws IOException {
+    VirtualFile moduleFile = myModule.getModuleFile();
+    assertNotNull(moduleFile);
+    VirtualFile includeDirectory = ApplicationManager.getApplication().runWriteAction(
+      (ThrowableComputable<VirtualFile, IOException>) () -> VfsUtil.createDirectoryIfMissing(moduleFile.getParent(), "include"));
+    PsiTestUtil.addContentRoot(myModule, moduleFile.getParent());
+    PsiTestUtil.addSourceRoot(myModule, includeDirectory);
+    int sourceRootHash = ErlangPrepareDependenciesCompileTask.getRootsHash(myProject);
+    PsiTestUtil.removeSourceRoot(myModule, includeDirectory);
+    PsiTestUtil.addSourceRoot(myModule, includeDirectory, ErlangIncludeSourceRootType.INSTANCE);
+    assertFalse(sourceRootHash == ErlangPrepareDependenciesCompileTask.getRootsHash(myProject));
+  }
+
+  @NotNull
+  private static ErlangFileDependenciesCache.Entry createCacheEntry(boolean hasUnresolvedIncludes) {
+    return new ErlangFileDependenciesCache.Entry(0, 0, ContainerUtil.emptyList(), ContainerUtil.emptyList(),
+                                                 ContainerUtil.emptyList(), hasUnresolvedIncludes);
+  }
+
   public void testTestsDependency() throws Exception {
     List<ErlangFileDescriptor> moduleBuildOrder = ErlangPrepareDependenciesCompileTask.getBuildOrder(myModule);
     assertSameErlangFiles(moduleBuildOrder, "src_parse_transform", "test_parse_transform", "test");
@@ -18,12 +18,18 @@ package org.intellij.erlang.completion;
 
 import com.intellij.codeInsight.completion.CompletionType;
 import com.intellij.codeInsight.lookup.Lookup;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.codeInsight.lookup.LookupElementPresentation;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiManagerImpl;
 import com.intellij.util.ArrayUtilRt;
 import com.intellij.util.containers.ContainerUtil;
 import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class ErlangCompletionTest extends ErlangCompletionTestBase {
@@ -50,6 +56,29 @@ public class ErlangCompletionTest extends ErlangCompletionTestBase {
       "-record(buz, {id}).\n" +
       "bar(A)-> A#<caret>", "foo", "buz");
   }  
+
+  public void testNotIncludedRecords() {
+    myFixture.addFileToProject("player.hrl", "-record(player, {name}).");
+    myFixture.configureByText("a.erl", "-module(a).\nbar(A)-> A#<caret>");
+    doTestVariantsInner(CompletionType.BASIC, 1, CheckType.EXCLUDES, "player");
+    doTestVariantsInner(CompletionType.BASIC, 2, CheckType.INCLUDES, "player");
+  }
+
+  public void testIncludedRecordIsNotRepeated() {
+    myFixture.addFileToProject("player.hrl", "-record(player, {name}).");
+    myFixture.configureByText("a.erl", "-module(a).\n-include(\"player.hrl\").\n-record(foo, {id}).\nbar(A)-> A#<caret>");
+    myFixture.complete(CompletionType.BASIC, 2);
+    List<String> stringList = myFixture.getLookupElementStrings();
+    assertNotNull(stringList);
+    assertEquals(1, ContainerUtil.filter(stringList, s -> s.equals("player")).size());
+  }
+
+  public void testNotIncludedRecordAddsInclude() {
+    myFixture.addFileToProject("player.hrl", "-record(player, {name}).");
+    myFixture.configureByText("a.erl", "-module(a).\n\nbar() -> #playe<caret>");
+    myFixture.complete(CompletionType.BASIC, 2);
+    myFixture.checkResult("-module(a).\n-include(\"player.hrl\").\n\nbar() -> #player<caret>");
+  }
   
   public void testRecordFields() {
     doTestEquals(
@@ -98,6 +127,25 @@ public class ErlangCompletionTest extends ErlangCompletionTestBase {
       "bar(A)-> ?<caret>", "foo", "buz");
   }
 
+  public void testMacrosArityTailText() {
+    myFixture.configureByText("a.erl",
+      "-define(plain, 1).\n" +
+      "-define(empty(), 2).\n" +
+      "-define(pair(A, B), {A, B}).\n" +
+      "bar()-> ?<caret>");
+    LookupElement[] elements = myFixture.complete(CompletionType.BASIC, 1);
+    assertNotNull(elements);
+    Map<String, String> tailTexts = new HashMap<>();
+    for (LookupElement element : elements) {
+      LookupElementPresentation presentation = new LookupElementPresentation();
+      element.renderElement(presentation);
+      tailTexts.put(element.getLookupString(), presentation.getTailText());
+    }
+    assertNull(tailTexts.get("plain"));
+    assertEquals("/0", tailTexts.get("empty"));
+    assertEquals("/2", tailTexts.get("pair"));
+  }
+
   public void testTypesInRecords() {
     doTestInclude(
       "-type foo() :: atom().\n" +
@@ -462,6 +510,15 @@ public class ErlangCompletionTest extends ErlangCompletionTestBase {
     myFixture.checkResult("bar() -> 'CamelCase':<caret>");
   }
 
+  public void testExportedFunctionsFromStubs() {
+    myFixture.addFileToProject("ext.erl", "-module(ext).\n-export([pub/0]).\npub() -> ok.\npriv() -> ok.");
+    ((PsiManagerImpl) PsiManager.getInstance(getProject()))
+      .setAssertOnFileLoadingFilter(file -> "ext.erl".equals(file.getName()), getTestRootDisposable());
+    myFixture.configureByText("a.erl", "bar() -> <caret>");
+    doTestVariantsInner(CompletionType.BASIC, 1, CheckType.INCLUDES, "ext:pub");
+    doTestVariantsInner(CompletionType.BASIC, 1, CheckType.EXCLUDES, "ext:priv");
+  }
+
   public void testFunctionsFromCameCaseModule() {
     myFixture.configureByText("CamelCase.erl", "-module('CamelCase'). -export([foo/0]). foo() -> ok.");
     doTestInclude("bar() -> 'CamelCase':<caret>", "foo");
@@ -478,6 +535,22 @@ public class ErlangCompletionTest extends ErlangCompletionTestBase {
     doTestInclude("-spec foo(Type) -> ok when <caret>", "Type");
   }
 
+  public void testFunTypeArguments() {
+    doTestInclude("-spec foo(fun((Fun) -> ok)) -> ok when <caret>", "Fun");
+  }
+
+  public void testShadowedVariablesInFun() {
+    doTestInclude("foo(A) -> fun(B) -> <caret> end.", "A", "B");
+  }
+
+  public void testFunVariablesNotVisibleAfterFun() {
+    doTestVariants("foo() -> fun() -> Inner = 1, Inner end, <caret>", CompletionType.BASIC, 1, CheckType.EXCLUDES, "Inner");
+  }
+
+  public void testLcVariables() {
+    doTestInclude("foo(List) -> [<caret> || Elem <- List].", "Elem", "List");
+  }
+
   public void testMacroArguments() {
     doTestInclude("-define(M(Arg), <caret>", "Arg");
   }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.process.ProcessOutput;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.intellij.erlang.jps.model.JpsErlangSdkType;
+import org.intellij.erlang.sdk.ErlangSystemUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class ErlangDebugConditionTest extends UsefulTestCase {
+  private File myBeamDirectory;
+  private File myErl;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    String sdkHome = JpsErlangSdkType.getTestsSdkPath();
+    File erlc = JpsErlangSdkType.getByteCodeCompilerExecutable(sdkHome);
+    myErl = JpsErlangSdkType.getByteCodeInterpreterExecutable(sdkHome);
+    assertTrue(JpsErlangSdkType.getSdkConfigurationFailureMessage(), erlc.canExecute() && myErl.canExecute());
+    myBeamDirectory = FileUtil.createTempDirectory("debug_eval", null);
+    File source = new File("resources/debugger/src/debug_eval.erl");
+    ProcessOutput output = ErlangSystemUtil.getProcessOutput(myBeamDirectory.getPath(), erlc.getPath(), source.getAbsolutePath());
+    assertEquals(output.getStderr() + output.getStdout(), 0, output.getExitCode());
+  }
+
+  public void testConditionVariables() throws ExecutionException {
+    assertEquals("['X','Y']", evaluate("{ok, {_, Variables}} = debug_eval:parse_condition(\"X > Y + 1\"), Variables"));
+  }
+
+  public void testConditionWithDot() throws ExecutionException {
+    assertEquals("['X']", evaluate("{ok, {_, Variables}} = debug_eval:parse_condition(\"X > 1.\"), Variables"));
+  }
+
+  public void testSyntaxError() throws ExecutionException {
+    assertEquals("error", evaluate("element(1, debug_eval:parse_condition(\"X >\"))"));
+  }
+
+  public void testCompiledCondition() throws ExecutionException {
+    assertEquals("[true,false,false,false]", evaluate(
+      "{ok, C} = debug_eval:parse_condition(\"X + 1 > 2\"), " +
+      "ok = debug_eval:load_conditions([{c, C}]), " +
+      "[debug_condition:c([{'X', 2}]), debug_condition:c([{'X', 0}]), debug_condition:c([]), debug_condition:c([{'X', a}])]"));
+  }
+
+  public void testReloadedConditions() throws ExecutionException {
+    assertEquals("[true,true]", evaluate(
+      "{ok, C1} = debug_eval:parse_condition(\"X =:= 1\"), " +
+      "{ok, C2} = debug_eval:parse_condition(\"Y =:= foo\"), " +
+      "ok = debug_eval:load_conditions([{c1, C1}]), " +
+      "ok = debug_eval:load_conditions([{c1, C1}, {c2, C2}]), " +
+      "[debug_condition:c1([{'X', 1}]), debug_condition:c2([{'Y', foo}])]"));
+  }
+
+  @NotNull
+  private String evaluate(@NotNull String expressions) throws ExecutionException {
+    String eval = "io:format(\"~p\", [begin " + expressions + " end]), halt().";
+    ProcessOutput output = ErlangSystemUtil.getProcessOutput(myBeamDirectory.getPath(), myErl.getPath(),
+                                                             "-noshell", "-pa", myBeamDirectory.getPath(), "-eval", eval, "-s", "init", "stop");
+    assertEquals(output.getStderr() + output.getStdout(), 0, output.getExitCode());
+    return output.getStdout().trim();
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.debugger;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.testFramework.UsefulTestCase;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
+
+public class ErlangValueHandleTest extends UsefulTestCase {
+  public void testListHandle() {
+    OtpErlangList preview = new OtpErlangList(new OtpErlangObject[]{new OtpErlangAtom("a"), new OtpErlangAtom("b")});
+    ErlangValueHandle handle = ErlangValueHandle.fromTerm(handle(42, "list", 1000000, preview));
+
+    assertNotNull(handle);
+    assertEquals(42, handle.getId());
+    assertEquals(ErlangValueHandle.Kind.LIST, handle.getKind());
+    assertEquals(1000000, handle.getSize());
+    assertEquals(preview, handle.getPreview());
+  }
+
+  public void testBinaryHandle() {
+    ErlangValueHandle handle = ErlangValueHandle.fromTerm(handle(1, "binary", 2048, new OtpErlangBinary(new byte[]{1, 2})));
+
+    assertNotNull(handle);
+    assertEquals(ErlangValueHandle.Kind.BINARY, handle.getKind());
+  }
+
+  public void testUnknownKind() {
+    assertNull(ErlangValueHandle.fromTerm(handle(1, "set", 200, new OtpErlangList())));
+  }
+
+  public void testOrdinaryTuple() {
+    assertNull(ErlangValueHandle.fromTerm(new OtpErlangTuple(new OtpErlangObject[]{
+      new OtpErlangAtom("value_handle"), new OtpErlangLong(1), new OtpErlangAtom("list"), new OtpErlangLong(200), new OtpErlangList()
+    })));
+    assertNull(ErlangValueHandle.fromTerm(new OtpErlangAtom("$value_handle")));
+  }
+
+  private static OtpErlangTuple handle(long id, String kind, int size, OtpErlangObject preview) {
+    return new OtpErlangTuple(new OtpErlangObject[]{
+      new OtpErlangAtom("$value_handle"), new OtpErlangLong(id), new OtpErlangAtom(kind), new OtpErlangLong(size), preview
+    });
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.node;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangPid;
+import com.intellij.openapi.ui.MessageType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+
+public class ErlangDebuggerEventAdapter implements ErlangDebuggerEventListener {
+  @Override
+  public void debuggerStarted() {
+  }
+
+  @Override
+  public void failedToInterpretModules(String nodeName, List<String> modules) {
+  }
+
+  @Override
+  public void failedToDebugRemoteNode(String nodeName, String error) {
+  }
+
+  @Override
+  public void unknownMessage(String messageText) {
+  }
+
+  @Override
+  public void failedToSetBreakpoint(String module, int line, String errorMessage) {
+  }
+
+  @Override
+  public void breakpointIsSet(String module, int line) {
+  }
+
+  @Override
+  public void breakpointReached(@Nullable OtpErlangPid pid, List<ErlangProcessSnapshot> snapshots) {
+  }
+
+  @Override
+  public void stackReceived(OtpErlangPid pid, List<ErlangTraceElement> stack) {
+  }
+
+  @Override
+  public void bindingsReceived(OtpErlangPid pid, int stackPointer, Collection<ErlangVariableBinding> bindings) {
+  }
+
+  @Override
+  public void valuePageReceived(long handleId, int from, @Nullable List<OtpErlangObject> elements) {
+  }
+
+  @Override
+  public void debuggerStopped() {
+  }
+
+  @Override
+  public void handleEvaluationResponse(OtpErlangObject response) {
+  }
+
+  @Override
+  public void printMessage(String messageText, MessageType type) {
+  }
+}
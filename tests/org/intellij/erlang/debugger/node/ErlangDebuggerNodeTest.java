@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.node;
+
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.intellij.erlang.debugger.node.ErlangRemoteDebuggerStub.*;
+
+public class ErlangDebuggerNodeTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private final List<String> myUnknownMessages = Collections.synchronizedList(new ArrayList<>());
+  private final CountDownLatch myStarted = new CountDownLatch(1);
+  private final CountDownLatch myStopped = new CountDownLatch(1);
+  private ErlangDebuggerNode myNode;
+  private ErlangRemoteDebuggerStub myRemote;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myNode = new ErlangDebuggerNode(new ErlangDebuggerEventAdapter() {
+      @Override
+      public void debuggerStarted() {
+        myStarted.countDown();
+      }
+
+      @Override
+      public void unknownMessage(String messageText) {
+        myUnknownMessages.add(messageText);
+      }
+
+      @Override
+      public void debuggerStopped() {
+        myStopped.countDown();
+      }
+    });
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      myNode.stop();
+      if (myRemote != null) {
+        myRemote.close();
+      }
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testCommandsQueuedBeforeConnectionAreSentInOrder() throws Exception {
+    myNode.interpretModules(Collections.singletonList("/src/a.erl"));
+    myNode.setBreakpoint("a", 10, "");
+    myNode.removeBreakpoint("a", 10);
+    connect();
+
+    assertEquals("interpret_modules", myRemote.receiveCommandName());
+    assertEquals("set_breakpoint", myRemote.receiveCommandName());
+    assertEquals("remove_breakpoint", myRemote.receiveCommandName());
+  }
+
+  public void testCommandsAreSentInOrder() throws Exception {
+    connect();
+    for (int i = 0; i < 100; i++) {
+      myNode.requestValuePage(i, 0, 10);
+    }
+
+    for (int i = 0; i < 100; i++) {
+      OtpErlangTuple command = myRemote.receive();
+      assertEquals(atom("get_value_page"), command.elementAt(0));
+      assertEquals(new OtpErlangLong(i), command.elementAt(1));
+    }
+  }
+
+  public void testEventsAreProcessedInOrder() throws Exception {
+    connect();
+    for (int i = 0; i < 100; i++) {
+      myRemote.send(tuple(atom("unknown_event"), new OtpErlangLong(i)));
+    }
+
+    waitUntil(() -> myUnknownMessages.size() == 100);
+    for (int i = 0; i < 100; i++) {
+      assertEquals("{unknown_event," + i + "}", myUnknownMessages.get(i));
+    }
+  }
+
+  public void testThreadsStopWhenRemoteClosesSocket() throws Exception {
+    connectAndWaitForWriter();
+
+    myRemote.close();
+
+    assertTrue("The reader loop didn't stop", myStopped.await(10, TimeUnit.SECONDS));
+    waitUntil(() -> !myNode.isWriterRunning());
+  }
+
+  public void testThreadsStopWhenNodeIsStopped() throws Exception {
+    connectAndWaitForWriter();
+
+    myNode.stop();
+
+    assertTrue(myRemote.isClosedByNode());
+    assertTrue("The reader loop didn't stop", myStopped.await(10, TimeUnit.SECONDS));
+    waitUntil(() -> !myNode.isWriterRunning());
+    myNode.requestValuePage(2, 0, 10);
+    assertFalse(myNode.isWriterRunning());
+  }
+
+  private void connect() throws Exception {
+    myRemote = new ErlangRemoteDebuggerStub(myNode.getLocalDebuggerPort());
+    assertTrue("The debugger node didn't accept the connection", myStarted.await(10, TimeUnit.SECONDS));
+  }
+
+  private void connectAndWaitForWriter() throws Exception {
+    connect();
+    myNode.requestValuePage(1, 0, 10);
+    assertEquals("get_value_page", myRemote.receiveCommandName());
+    assertTrue(myNode.isWriterRunning());
+  }
+
+  private static void waitUntil(@NotNull BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!condition.getAsBoolean()) {
+      assertTrue("Timed out waiting for the debugger node", System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.node;
+
+import com.ericsson.otp.erlang.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+
+/**
+ * Plays the remote_debugger side of the socket a {@link ErlangDebuggerNode} listens on.
+ */
+public class ErlangRemoteDebuggerStub implements Closeable {
+  private static final int TIMEOUT_MS = 10000;
+
+  private final Socket mySocket;
+  private final DataInputStream myIn;
+  private final OutputStream myOut;
+
+  public ErlangRemoteDebuggerStub(int port) throws IOException {
+    mySocket = new Socket(InetAddress.getLoopbackAddress(), port);
+    mySocket.setSoTimeout(TIMEOUT_MS);
+    myIn = new DataInputStream(new BufferedInputStream(mySocket.getInputStream()));
+    myOut = new BufferedOutputStream(mySocket.getOutputStream());
+  }
+
+  /**
+   * @return the next command sent by the node.
+   */
+  @NotNull
+  public OtpErlangTuple receive() throws IOException {
+    byte[] bytes = new byte[myIn.readInt()];
+    myIn.readFully(bytes);
+    try {
+      return (OtpErlangTuple) new OtpInputStream(bytes).read_any();
+    }
+    catch (OtpErlangDecodeException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * @return the name of the next command sent by the node.
+   */
+  @NotNull
+  public String receiveCommandName() throws IOException {
+    return ((OtpErlangAtom) receive().elementAt(0)).atomValue();
+  }
+
+  public void send(@NotNull OtpErlangObject message) throws IOException {
+    byte[] bytes = new OtpOutputStream(message).toByteArray();
+    myOut.write(ByteBuffer.allocate(4).putInt(1 + bytes.length).array());
+    myOut.write(OtpExternal.versionTag);
+    myOut.write(bytes);
+    myOut.flush();
+  }
+
+  /**
+   * @return true if the node closed the socket.
+   */
+  public boolean isClosedByNode() throws IOException {
+    try {
+      return myIn.read() == -1;
+    }
+    catch (SocketException e) {
+      return true;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    mySocket.close();
+  }
+
+  @NotNull
+  public static OtpErlangTuple tuple(@NotNull OtpErlangObject... elements) {
+    return new OtpErlangTuple(elements);
+  }
+
+  @NotNull
+  public static OtpErlangAtom atom(@NotNull String name) {
+    return new OtpErlangAtom(name);
+  }
+
+  @NotNull
+  public static OtpErlangPid pid(int id) {
+    return new OtpErlangPid("test@localhost", id, 0, 0);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.xdebug;
+
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.intellij.erlang.jps.model.JpsErlangSdkType;
+import org.intellij.erlang.sdk.ErlangSdkRelease;
+
+import java.io.File;
+import java.io.IOException;
+
+public class ErlangDebuggerBeamsCacheTest extends UsefulTestCase {
+  private File myCacheRoot;
+  private File mySdkHome;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myCacheRoot = FileUtil.createTempDirectory("debugger_beams_cache_", null);
+    mySdkHome = FileUtil.createTempDirectory("debugger_beams_sdk_", null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myCacheRoot);
+      FileUtil.delete(mySdkHome);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testCacheKeyContainsReleaseAndErtsVersion() throws IOException {
+    String key = ErlangDebuggerBeamsCache.getCacheKey(ErlangSdkRelease.V_R16B);
+
+    assertTrue(key, key.matches("R16B-5\\.10\\.1-[0-9a-f]+"));
+    assertEquals(key, ErlangDebuggerBeamsCache.getCacheKey(new ErlangSdkRelease("R16B", "5.10.1")));
+    assertFalse(key.equals(ErlangDebuggerBeamsCache.getCacheKey(new ErlangSdkRelease("R16B", "5.10.2"))));
+    assertFalse(key.equals(ErlangDebuggerBeamsCache.getCacheKey(ErlangSdkRelease.V_17_0)));
+  }
+
+  public void testCompleteDirectoryIsReused() throws IOException {
+    File directory = createBeams(ErlangSdkRelease.V_R16B, ErlangDebuggerBeamsCache.MODULES);
+
+    assertEquals(directory, ErlangDebuggerBeamsCache.getBeamsDirectory(myCacheRoot, mySdkHome.getPath(), ErlangSdkRelease.V_R16B));
+    assertTrue(directory.isDirectory());
+  }
+
+  public void testIsComplete() throws IOException {
+    File directory = createBeams(ErlangSdkRelease.V_R16B, ErlangDebuggerBeamsCache.MODULES);
+    assertTrue(ErlangDebuggerBeamsCache.isComplete(directory));
+
+    FileUtil.delete(new File(directory, "debug_eval.beam"));
+    assertFalse(ErlangDebuggerBeamsCache.isComplete(directory));
+    assertFalse(ErlangDebuggerBeamsCache.isComplete(new File(myCacheRoot, "missing")));
+  }
+
+  public void testMissingErlcFallsBack() throws IOException {
+    File directory = createBeams(ErlangSdkRelease.V_R16B, "debugnode.erl");
+
+    assertNull(ErlangDebuggerBeamsCache.getBeamsDirectory(myCacheRoot, mySdkHome.getPath(), ErlangSdkRelease.V_R16B));
+    assertFalse(directory.exists());
+  }
+
+  public void testFailingErlcFallsBack() throws IOException {
+    if (SystemInfo.isWindows) return;
+    File erlc = JpsErlangSdkType.getByteCodeCompilerExecutable(mySdkHome.getPath());
+    FileUtil.writeToFile(erlc, "#!/bin/sh\necho failed\nexit 1\n");
+    assertTrue(erlc.setExecutable(true));
+
+    assertNull(ErlangDebuggerBeamsCache.getBeamsDirectory(myCacheRoot, mySdkHome.getPath(), ErlangSdkRelease.V_R16B));
+    assertFalse(new File(myCacheRoot, ErlangDebuggerBeamsCache.getCacheKey(ErlangSdkRelease.V_R16B)).exists());
+  }
+
+  private File createBeams(ErlangSdkRelease release, String... modules) throws IOException {
+    File directory = new File(myCacheRoot, ErlangDebuggerBeamsCache.getCacheKey(release));
+    for (String module : modules) {
+      FileUtil.writeToFile(new File(directory, FileUtil.getNameWithoutExtension(module) + ".beam"), "");
+    }
+    return directory;
+  }
+}
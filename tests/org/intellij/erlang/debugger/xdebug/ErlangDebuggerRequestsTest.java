@@ -0,0 +1,201 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.xdebug;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.debugger.node.*;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.intellij.erlang.debugger.node.ErlangRemoteDebuggerStub.*;
+
+public class ErlangDebuggerRequestsTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private static final OtpErlangPid PID = pid(1);
+
+  private ErlangDebuggerNode myNode;
+  private ErlangDebuggerRequests myRequests;
+  private ErlangRemoteDebuggerStub myRemote;
+  private final List<List<ErlangTraceElement>> myStacks = Collections.synchronizedList(new ArrayList<>());
+  private final List<Collection<ErlangVariableBinding>> myBindings = Collections.synchronizedList(new ArrayList<>());
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myNode = new ErlangDebuggerNode(new ErlangDebuggerEventAdapter() {
+      @Override
+      public void stackReceived(OtpErlangPid pid, List<ErlangTraceElement> stack) {
+        myRequests.stackReceived(pid, stack);
+      }
+
+      @Override
+      public void bindingsReceived(OtpErlangPid pid, int stackPointer, Collection<ErlangVariableBinding> bindings) {
+        myRequests.bindingsReceived(pid, stackPointer, bindings);
+      }
+    });
+    myRequests = new ErlangDebuggerRequests(myNode);
+    myRemote = new ErlangRemoteDebuggerStub(myNode.getLocalDebuggerPort());
+    myNode.processSuspended(PID);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      myNode.stop();
+      myRemote.close();
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testStackIsRequestedOnce() throws IOException {
+    myRequests.requestStack(PID, myStacks::add);
+    myRequests.requestStack(PID, myStacks::add);
+    myRequests.requestBindings(PID, 2, myBindings::add);
+
+    OtpErlangTuple getStack = myRemote.receive();
+    assertEquals(atom("get_stack"), getStack.elementAt(0));
+    assertEquals(PID, getStack.elementAt(1));
+    assertEquals("get_bindings", myRemote.receiveCommandName());
+    assertEmpty(myStacks);
+
+    myRemote.send(tuple(atom("process_stack"), PID, new OtpErlangList(frame(2, "m", "foo", 10))));
+    waitUntil(() -> myStacks.size() == 2);
+
+    for (List<ErlangTraceElement> stack : myStacks) {
+      assertSize(1, stack);
+      assertEquals("m", stack.get(0).getModule());
+      assertEquals("foo", stack.get(0).getFunction());
+      assertEquals(Integer.valueOf(2), stack.get(0).getStackPointer());
+      assertNull(stack.get(0).getBindings());
+    }
+  }
+
+  public void testStackIsRequestedAgainAfterResponse() throws IOException {
+    myRequests.requestStack(PID, myStacks::add);
+    assertEquals("get_stack", myRemote.receiveCommandName());
+    myRemote.send(tuple(atom("process_stack"), PID, new OtpErlangList()));
+    waitUntil(() -> myStacks.size() == 1);
+
+    myRequests.requestStack(PID, myStacks::add);
+    assertEquals("get_stack", myRemote.receiveCommandName());
+  }
+
+  public void testBindingsAreRequestedPerFrame() throws IOException {
+    myRequests.requestBindings(PID, 2, myBindings::add);
+    myRequests.requestBindings(PID, 3, myBindings::add);
+
+    OtpErlangTuple getBindings = myRemote.receive();
+    assertEquals(atom("get_bindings"), getBindings.elementAt(0));
+    assertEquals(PID, getBindings.elementAt(1));
+    assertEquals(new OtpErlangInt(2), getBindings.elementAt(2));
+    assertEquals(new OtpErlangInt(3), myRemote.receive().elementAt(2));
+
+    myRemote.send(tuple(atom("frame_bindings"), PID, new OtpErlangInt(2), new OtpErlangList(tuple(atom("X"), new OtpErlangLong(42)))));
+    waitUntil(() -> myBindings.size() == 1);
+
+    ErlangVariableBinding binding = ContainerUtil.getOnlyItem(myBindings.get(0));
+    assertNotNull(binding);
+    assertEquals("X", binding.getName());
+    assertEquals(new OtpErlangLong(42), binding.getValue());
+  }
+
+  public void testPendingRequestsFailOnResume() throws IOException { doTestPendingRequestsFail(myRequests::resume, "continue"); }
+  public void testPendingRequestsFailOnStepInto() throws IOException { doTestPendingRequestsFail(myRequests::stepInto, "step_into"); }
+  public void testPendingRequestsFailOnStepOver() throws IOException { doTestPendingRequestsFail(myRequests::stepOver, "step_over"); }
+  public void testPendingRequestsFailOnStepOut() throws IOException { doTestPendingRequestsFail(myRequests::stepOut, "step_out"); }
+
+  public void testPendingRequestsFailOnStop() throws IOException {
+    requestStackAndBindings();
+
+    myRequests.stop();
+
+    assertFailed();
+    assertTrue(myRemote.isClosedByNode());
+  }
+
+  public void testLateResponseAfterResumeIsIgnored() throws IOException {
+    requestStackAndBindings();
+    myRequests.resume();
+    assertFailed();
+    assertEquals("continue", myRemote.receiveCommandName());
+
+    myRemote.send(tuple(atom("process_stack"), PID, new OtpErlangList()));
+    myRequests.requestBindings(PID, 3, myBindings::add);
+    assertEquals("get_bindings", myRemote.receiveCommandName());
+    myRemote.send(tuple(atom("frame_bindings"), PID, new OtpErlangInt(3), new OtpErlangList()));
+    waitUntil(() -> myBindings.size() == 2);
+
+    assertSize(1, myStacks);
+    assertNull(myStacks.get(0));
+  }
+
+  private void doTestPendingRequestsFail(@NotNull Runnable action, @NotNull String expectedCommand) throws IOException {
+    requestStackAndBindings();
+
+    action.run();
+
+    assertFailed();
+    assertEquals(expectedCommand, myRemote.receiveCommandName());
+  }
+
+  private void requestStackAndBindings() throws IOException {
+    myRequests.requestStack(PID, myStacks::add);
+    myRequests.requestBindings(PID, 2, myBindings::add);
+    assertEquals("get_stack", myRemote.receiveCommandName());
+    assertEquals("get_bindings", myRemote.receiveCommandName());
+    assertEmpty(myStacks);
+    assertEmpty(myBindings);
+  }
+
+  private void assertFailed() {
+    assertSize(1, myStacks);
+    assertNull(myStacks.get(0));
+    assertSize(1, myBindings);
+    assertNull(myBindings.get(0));
+  }
+
+  @NotNull
+  private static OtpErlangTuple frame(int stackPointer, @NotNull String module, @NotNull String function, int line) {
+    return tuple(new OtpErlangInt(stackPointer),
+                 tuple(atom(module), atom(function), new OtpErlangList()),
+                 tuple(atom(module), new OtpErlangInt(line)),
+                 atom("not_loaded"));
+  }
+
+  private static void waitUntil(@NotNull BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!condition.getAsBoolean()) {
+      assertTrue("Timed out waiting for the debugger node", System.currentTimeMillis() < deadline);
+      try {
+        Thread.sleep(10);
+      }
+      catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
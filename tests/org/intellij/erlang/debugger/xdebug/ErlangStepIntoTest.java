@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.xdebug;
+
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.util.PathUtil;
+import org.intellij.erlang.debugger.node.ErlangDebuggerEventAdapter;
+import org.intellij.erlang.debugger.node.ErlangDebuggerNode;
+import org.intellij.erlang.debugger.node.ErlangRemoteDebuggerStub;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.*;
+
+public class ErlangStepIntoTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private static final String TEXT = "-module(a).\n" +
+                                     "foo() ->\n" +
+                                     "  b:bar(), c:baz(),\n" +
+                                     "  d:qux(), lists:reverse([]), unknown:f().\n" +
+                                     "other() -> e:quux().\n";
+
+  public void testModulesCalledAtLine() {
+    ErlangFile file = setUpModules();
+
+    assertSameElements(getCalledModulePaths(file, 2, Collections.emptySet()), path("b.erl"), path("c.erl"));
+    assertSameElements(getCalledModulePaths(file, 3, Collections.emptySet()), path("d.erl"));
+  }
+
+  public void testModulesNotToInterpretAreSkipped() {
+    ErlangFile file = setUpModules();
+
+    assertSameElements(getCalledModulePaths(file, 2, Collections.singleton("c")), path("b.erl"));
+  }
+
+  public void testCallsOutsideOfTheClauseAreSkipped() {
+    ErlangFile file = setUpModules();
+
+    assertEmpty(getCalledModulePaths(file, 0, Collections.emptySet()));
+    assertSameElements(getCalledModulePaths(file, 4, Collections.emptySet()), path("e.erl"));
+    assertEmpty(getCalledModulePaths(file, 10, Collections.emptySet()));
+  }
+
+  public void testModulesAreInterpretedOnDemand() throws Exception {
+    ErlangDebuggerNode node = new ErlangDebuggerNode(new ErlangDebuggerEventAdapter());
+    try (ErlangRemoteDebuggerStub remote = new ErlangRemoteDebuggerStub(node.getLocalDebuggerPort())) {
+      ErlangDebuggerRequests requests = new ErlangDebuggerRequests(node);
+      ErlangInterpretedModules modules = new ErlangInterpretedModules(node);
+      node.processSuspended(ErlangRemoteDebuggerStub.pid(1));
+
+      modules.interpret(Collections.singletonList("/src/a.erl"));
+      assertEquals(Collections.singletonList("/src/a.erl"), receiveInterpretedModules(remote));
+
+      modules.interpret(Arrays.asList("/src/a.erl", "/src/b.erl", "/src/c.erl"));
+      requests.stepInto();
+      assertEquals(Arrays.asList("/src/b.erl", "/src/c.erl"), receiveInterpretedModules(remote));
+      assertEquals("step_into", remote.receiveCommandName());
+
+      modules.interpret(Arrays.asList("/src/b.erl", "/src/c.erl"));
+      modules.interpret(Collections.emptyList());
+      requests.stepInto();
+      assertEquals("step_into", remote.receiveCommandName());
+    }
+    finally {
+      node.stop();
+    }
+  }
+
+  @NotNull
+  private ErlangFile setUpModules() {
+    for (String module : Arrays.asList("b", "c", "d", "e")) {
+      myFixture.addFileToProject(module + ".erl", "-module(" + module + ").\n-export([bar/0, baz/0, qux/0, quux/0]).\n" +
+                                                  "bar() -> ok.\nbaz() -> ok.\nqux() -> ok.\nquux() -> ok.\n");
+    }
+    return (ErlangFile) myFixture.addFileToProject("a.erl", TEXT);
+  }
+
+  @NotNull
+  private Set<String> getCalledModulePaths(@NotNull ErlangFile file, int line, @NotNull Set<String> notToInterpret) {
+    Document document = PsiDocumentManager.getInstance(getProject()).getDocument(file);
+    assertNotNull(document);
+    int offset = line < document.getLineCount() ? document.getLineStartOffset(line) : document.getTextLength();
+    return ErlangXDebugProcess.getCalledModulePaths(file, line, offset, notToInterpret);
+  }
+
+  @NotNull
+  private String path(@NotNull String fileName) {
+    return PathUtil.getLocalPath(myFixture.findFileInTempDir(fileName));
+  }
+
+  @NotNull
+  private static List<String> receiveInterpretedModules(@NotNull ErlangRemoteDebuggerStub remote) throws IOException {
+    OtpErlangTuple command = remote.receive();
+    assertEquals(ErlangRemoteDebuggerStub.atom("interpret_modules"), command.elementAt(0));
+    List<String> paths = new ArrayList<>();
+    for (OtpErlangObject path : (OtpErlangList) command.elementAt(1)) {
+      paths.add(((OtpErlangString) path).stringValue());
+    }
+    return paths;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.debugger.xdebug.xvalue;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.testFramework.UsefulTestCase;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.xdebugger.frame.XCompositeNode;
+import com.intellij.xdebugger.frame.XDebuggerTreeNodeHyperlink;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.frame.XValueChildrenList;
+import org.intellij.erlang.debugger.node.ErlangValueHandle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ErlangXValuePagingTest extends UsefulTestCase {
+  private static final int SIZE = 250;
+
+  public void testPreviewAndFirstPage() {
+    MyPageLoader loader = new MyPageLoader(SIZE);
+    MyNode node = computeChildren(createList(loader), 1);
+
+    assertEquals(Collections.singletonList("2:98"), loader.myRequests);
+    assertEquals(XCompositeNode.MAX_CHILDREN_TO_SHOW, node.myChildrenCount);
+    assertEquals(SIZE - XCompositeNode.MAX_CHILDREN_TO_SHOW, node.myRemaining);
+    assertFalse(node.myLast);
+  }
+
+  public void testNextPageStartsAfterReceivedElements() {
+    MyPageLoader loader = new MyPageLoader(30);
+    MyNode node = computeChildren(createList(loader), 2);
+
+    assertEquals(Arrays.asList("2:98", "32:100"), loader.myRequests);
+    assertEquals(62, node.myChildrenCount);
+    assertEquals(SIZE - 62, node.myRemaining);
+    assertFalse(node.myLast);
+  }
+
+  public void testAllPages() {
+    MyPageLoader loader = new MyPageLoader(SIZE);
+    MyNode node = computeChildren(createList(loader), 3);
+
+    assertEquals(Arrays.asList("2:98", "100:100", "200:50"), loader.myRequests);
+    assertEquals(SIZE, node.myChildrenCount);
+    assertTrue(node.myLast);
+  }
+
+  public void testEmptyPageEndsChildren() {
+    MyPageLoader loader = new MyPageLoader(0);
+    MyNode node = computeChildren(createList(loader), 1);
+
+    assertEquals(2, node.myChildrenCount);
+    assertTrue(node.myLast);
+  }
+
+  public void testUnavailableValue() {
+    MyPageLoader loader = new MyPageLoader(SIZE);
+    loader.myAvailable = false;
+    XValue value = createList(loader);
+    MyNode node = computeChildren(value, 1);
+    assertEquals("The value is no longer available", node.myErrorMessage);
+
+    loader.myAvailable = true;
+    computeChildren(value, 1);
+    assertEquals(Arrays.asList("2:98", "2:98"), loader.myRequests);
+  }
+
+  @NotNull
+  private static XValue createList(@NotNull ErlangValuePageLoader loader) {
+    OtpErlangList preview = new OtpErlangList(new OtpErlangObject[]{new OtpErlangLong(0), new OtpErlangLong(1)});
+    OtpErlangTuple handle = new OtpErlangTuple(new OtpErlangObject[]{
+      new OtpErlangAtom("$value_handle"), new OtpErlangLong(1), new OtpErlangAtom("list"), new OtpErlangLong(SIZE), preview
+    });
+    return ErlangXValueFactory.create(handle, loader);
+  }
+
+  @NotNull
+  private static MyNode computeChildren(@NotNull XValue value, int times) {
+    MyNode node = new MyNode();
+    for (int i = 0; i < times; i++) {
+      value.computeChildren(node);
+    }
+    return node;
+  }
+
+  private static class MyPageLoader implements ErlangValuePageLoader {
+    private final int myMaxPageSize;
+    private final List<String> myRequests = new ArrayList<>();
+    private boolean myAvailable = true;
+
+    MyPageLoader(int maxPageSize) {
+      myMaxPageSize = maxPageSize;
+    }
+
+    @Override
+    public void loadPage(@NotNull ErlangValueHandle handle, int from, int count, @NotNull Consumer<List<OtpErlangObject>> callback) {
+      myRequests.add(from + ":" + count);
+      if (!myAvailable) {
+        callback.accept(null);
+        return;
+      }
+      List<OtpErlangObject> elements = new ArrayList<>();
+      for (int i = from; i < Math.min(from + Math.min(count, myMaxPageSize), handle.getSize()); i++) {
+        elements.add(new OtpErlangLong(i));
+      }
+      callback.accept(elements);
+    }
+  }
+
+  private static class MyNode implements XCompositeNode {
+    private int myChildrenCount;
+    private int myRemaining;
+    private boolean myLast;
+    private String myErrorMessage;
+
+    @Override
+    public void addChildren(@NotNull XValueChildrenList children, boolean last) {
+      myChildrenCount += children.size();
+      myLast = last;
+    }
+
+    @Override
+    public void tooManyChildren(int remaining) {
+      myRemaining = remaining;
+    }
+
+    @Override
+    public void setAlreadySorted(boolean alreadySorted) {
+    }
+
+    @Override
+    public void setErrorMessage(@NotNull String errorMessage) {
+      myErrorMessage = errorMessage;
+    }
+
+    @Override
+    public void setErrorMessage(@NotNull String errorMessage, @Nullable XDebuggerTreeNodeHyperlink link) {
+      myErrorMessage = errorMessage;
+    }
+
+    @Override
+    public void setMessage(@NotNull String message,
+                           @Nullable Icon icon,
+                           @NotNull SimpleTextAttributes attributes,
+                           @Nullable XDebuggerTreeNodeHyperlink link) {
+    }
+
+    @Override
+    public boolean isObsolete() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.dialyzer;
+
+import com.intellij.codeInsight.daemon.impl.AnnotationHolderImpl;
+import com.intellij.lang.annotation.Annotation;
+import com.intellij.lang.annotation.AnnotationSession;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.dialyzer.ErlangDialyzerExternalAnnotator.Problem;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ErlangDialyzerExternalAnnotatorTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private static final String TEXT = "-module(a).\n" +
+                                     "foo() -> bar().\n" +
+                                     "\tbaz() -> ok.";
+
+  public void testColumn() {
+    assertOrderedEquals(annotate(new Problem(2, 10, "no local return")), new TextRange(21, 27));
+  }
+
+  public void testColumnZeroMarksWholeLine() {
+    assertOrderedEquals(annotate(new Problem(2, 0, "no local return")), new TextRange(12, 27));
+  }
+
+  public void testMissingColumnMarksWholeLine() {
+    assertOrderedEquals(annotate(new Problem(2, -1, "no local return")), new TextRange(12, 27));
+  }
+
+  public void testColumnPastLineEndIsClamped() {
+    assertOrderedEquals(annotate(new Problem(1, 100, "unused")), new TextRange(11, 11));
+  }
+
+  public void testLinesOutsideOfDocumentAreSkipped() {
+    assertOrderedEquals(annotate(new Problem(0, 1, "before"),
+                                 new Problem(4, 1, "after"),
+                                 new Problem(100, 0, "far after"),
+                                 new Problem(3, 0, "last line")),
+                        new TextRange(28, 41));
+  }
+
+  public void testTabIsOneColumn() {
+    assertOrderedEquals(annotate(new Problem(3, 2, "no local return")), new TextRange(29, 41));
+  }
+
+  public void testMessage() {
+    PsiFile file = myFixture.configureByText("a.erl", TEXT);
+    List<Annotation> annotations = apply(file, new Problem(2, 1, "no local return"));
+    assertSize(1, annotations);
+    assertEquals("Dialyzer: no local return", annotations.get(0).getMessage());
+  }
+
+  @NotNull
+  private List<TextRange> annotate(@NotNull Problem... problems) {
+    PsiFile file = myFixture.configureByText("a.erl", TEXT);
+    return ContainerUtil.map(apply(file, problems), annotation -> new TextRange(annotation.getStartOffset(), annotation.getEndOffset()));
+  }
+
+  @NotNull
+  private List<Annotation> apply(@NotNull PsiFile file, @NotNull Problem... problems) {
+    ErlangDialyzerExternalAnnotator.State state =
+      new ErlangDialyzerExternalAnnotator.State(getProject(), "", "", false, "", Collections.emptyList(), Collections.emptyList());
+    state.problems.addAll(Arrays.asList(problems));
+    AnnotationHolderImpl holder = new AnnotationHolderImpl(new AnnotationSession(file));
+    new ErlangDialyzerExternalAnnotator().apply(file, state, holder);
+    return holder;
+  }
+}
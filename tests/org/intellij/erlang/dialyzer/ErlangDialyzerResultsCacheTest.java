@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.dialyzer;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.intellij.erlang.sdk.ErlangSdkRelease;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ErlangDialyzerResultsCacheTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private File myDirectory;
+  private String myFile;
+  private String myHeader;
+  private String myPlt;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myDirectory = FileUtil.createTempDirectory("dialyzer", null);
+    myFile = write("a.erl", "-module(a).\n-include(\"a.hrl\").\nfoo() -> ?A.\n");
+    myHeader = write("a.hrl", "-define(A, 1).\n");
+    myPlt = write("a.plt", "plt");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myDirectory);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testKeyIsStable() {
+    String key = computeKey();
+    assertNotNull(key);
+    assertEquals(key, computeKey());
+  }
+
+  public void testKeyChangesWithIncludedHeader() throws IOException {
+    String key = computeKey();
+    write("a.hrl", "-define(A, 2).\n");
+    assertFalse(key.equals(computeKey()));
+  }
+
+  public void testKeyChangesWithPltModification() {
+    String key = computeKey();
+    assertTrue(new File(myPlt).setLastModified(new File(myPlt).lastModified() - 10000));
+    assertFalse(key.equals(computeKey()));
+  }
+
+  public void testKeyChangesWithIncludeDirectories() {
+    String key = computeKey();
+    String otherKey = ErlangDialyzerResultsCache.computeKey("/sdk", Collections.singletonList(myPlt), myFile,
+                                                            Collections.singletonList(myHeader), Collections.singletonList("/include"));
+    assertFalse(key.equals(otherKey));
+  }
+
+  public void testNoKeyForMissingFile() {
+    assertNull(ErlangDialyzerResultsCache.computeKey("/sdk", Collections.singletonList(myPlt), myFile,
+                                                     Collections.singletonList(new File(myDirectory, "missing.hrl").getPath()),
+                                                     Collections.emptyList()));
+  }
+
+  public void testPutAndGet() {
+    String key = computeKey();
+    List<ErlangDialyzerExternalAnnotator.Problem> problems = Arrays.asList(
+      new ErlangDialyzerExternalAnnotator.Problem(3, 1, "Function foo/0 has no local return"),
+      new ErlangDialyzerExternalAnnotator.Problem(5, 0, "The pattern 'ok' can never match"));
+    ErlangDialyzerResultsCache.put(getProject(), myFile, key, problems);
+
+    List<ErlangDialyzerExternalAnnotator.Problem> cached = ErlangDialyzerResultsCache.get(getProject(), myFile, key);
+    assertNotNull(cached);
+    assertSize(2, cached);
+    assertEquals(3, cached.get(0).getLine());
+    assertEquals(1, cached.get(0).getColumn());
+    assertEquals("Function foo/0 has no local return", cached.get(0).getDescription());
+    assertEquals(5, cached.get(1).getLine());
+    assertEquals(0, cached.get(1).getColumn());
+    assertEquals("The pattern 'ok' can never match", cached.get(1).getDescription());
+  }
+
+  public void testChangedHeaderInvalidatesEntry() throws IOException {
+    String key = computeKey();
+    ErlangDialyzerResultsCache.put(getProject(), myFile, key, Collections.emptyList());
+    write("a.hrl", "-define(A, ok).\n");
+    String newKey = computeKey();
+    assertNotNull(newKey);
+    assertNull(ErlangDialyzerResultsCache.get(getProject(), myFile, newKey));
+    assertNotNull(ErlangDialyzerResultsCache.get(getProject(), myFile, key));
+  }
+
+  public void testIncremental() {
+    ErlangSdkRelease otp25 = new ErlangSdkRelease("25", "13.0");
+    ErlangSdkRelease otp26 = new ErlangSdkRelease("26", "14.0");
+    assertTrue(ErlangDialyzerResultsCache.isIncremental(otp26, ""));
+    assertTrue(ErlangDialyzerResultsCache.isIncremental(null, null));
+    assertFalse(ErlangDialyzerResultsCache.isIncremental(otp25, ""));
+    assertFalse(ErlangDialyzerResultsCache.isIncremental(ErlangSdkRelease.V_R16B, ""));
+    assertFalse(ErlangDialyzerResultsCache.isIncremental(otp26, myPlt));
+  }
+
+  public void testDefaultPltPaths() {
+    List<String> paths = ErlangDialyzerResultsCache.getDefaultPltPaths();
+    assertFalse(paths.isEmpty());
+    for (String path : paths) {
+      assertTrue(path, path.endsWith("dialyzer_plt") || path.equals(System.getenv("DIALYZER_PLT")));
+    }
+  }
+
+  private String computeKey() {
+    return ErlangDialyzerResultsCache.computeKey("/sdk", Collections.singletonList(myPlt), myFile,
+                                                 Collections.singletonList(myHeader), Collections.emptyList());
+  }
+
+  @NotNull
+  private String write(@NotNull String name, @NotNull String text) throws IOException {
+    File file = new File(myDirectory, name);
+    FileUtil.writeToFile(file, text);
+    return file.getPath();
+  }
+}
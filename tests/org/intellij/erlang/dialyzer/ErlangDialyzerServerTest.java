@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.dialyzer;
+
+import com.ericsson.otp.erlang.*;
+import com.intellij.execution.ExecutionException;
+import com.intellij.testFramework.UsefulTestCase;
+
+import java.util.List;
+
+public class ErlangDialyzerServerTest extends UsefulTestCase {
+  public void testWarnings() throws Exception {
+    List<ErlangDialyzerExternalAnnotator.Problem> problems = ErlangDialyzerServer.parseResponse(response("warnings", 7, new OtpErlangList(new OtpErlangObject[]{
+      warning(12, 5, new OtpErlangString("Function foo/0 has no local return")),
+      warning(3, 0, new OtpErlangList("The pattern 'ok' can never match"))
+    })), 7);
+
+    assertSize(2, problems);
+    assertEquals(12, problems.get(0).getLine());
+    assertEquals(5, problems.get(0).getColumn());
+    assertEquals("Function foo/0 has no local return", problems.get(0).getDescription());
+    assertEquals(3, problems.get(1).getLine());
+    assertEquals(0, problems.get(1).getColumn());
+    assertEquals("The pattern 'ok' can never match", problems.get(1).getDescription());
+  }
+
+  public void testMalformedWarningsAreSkipped() throws Exception {
+    List<ErlangDialyzerExternalAnnotator.Problem> problems = ErlangDialyzerServer.parseResponse(response("warnings", 1, new OtpErlangList(new OtpErlangObject[]{
+      new OtpErlangAtom("warning"),
+      warning(1, 1, new OtpErlangAtom("not_a_string")),
+      warning(2, 1, new OtpErlangString("ok"))
+    })), 1);
+
+    assertSize(1, problems);
+    assertEquals(2, problems.get(0).getLine());
+  }
+
+  public void testNoWarnings() throws Exception {
+    assertEmpty(ErlangDialyzerServer.parseResponse(response("warnings", 1, new OtpErlangList()), 1));
+  }
+
+  public void testError() {
+    try {
+      ErlangDialyzerServer.parseResponse(response("error", 2, new OtpErlangString("Could not find the PLT")), 2);
+      fail("Exception expected");
+    }
+    catch (ExecutionException e) {
+      assertEquals("Could not find the PLT", e.getMessage());
+    }
+  }
+
+  public void testOtherRequestResponse() {
+    try {
+      ErlangDialyzerServer.parseResponse(response("warnings", 1, new OtpErlangList()), 2);
+      fail("Exception expected");
+    }
+    catch (ExecutionException e) {
+      assertTrue(e.getMessage().startsWith("Unexpected dialyzer node response"));
+    }
+  }
+
+  private static OtpErlangTuple response(String tag, long requestId, OtpErlangObject payload) {
+    return new OtpErlangTuple(new OtpErlangObject[]{new OtpErlangAtom(tag), new OtpErlangLong(requestId), payload});
+  }
+
+  private static OtpErlangTuple warning(int line, int column, OtpErlangObject message) {
+    return new OtpErlangTuple(new OtpErlangObject[]{new OtpErlangLong(line), new OtpErlangLong(column), message});
+  }
+}
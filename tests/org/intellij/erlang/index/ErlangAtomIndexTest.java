@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.index;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import org.intellij.erlang.ErlangLanguage;
+import org.intellij.erlang.psi.ErlangQAtom;
+import org.intellij.erlang.psi.ErlangRecursiveVisitor;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ErlangAtomIndexTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private static final String STDLIB = "testData/mockSdk-R15B02/lib/stdlib-1.18.2/src/";
+
+  public void testDialyzerDataflow() throws IOException { doFileTest("testData/performance/DialyzerDataflow.erl"); }
+  public void testDialyzerClParse() throws IOException  { doFileTest("testData/parser/DialyzerClParse.erl"); }
+  public void testMnesia() throws IOException           { doFileTest("testData/parser/Mnesia.erl"); }
+  public void testLists() throws IOException            { doFileTest(STDLIB + "lists.erl"); }
+  public void testIoLibFormat() throws IOException      { doFileTest(STDLIB + "io_lib_format.erl"); }
+  public void testErlEval() throws IOException          { doFileTest(STDLIB + "erl_eval.erl"); }
+
+  public void testRecordMacroFields() {
+    doTest("-module(a).\n" +
+           "-define(REC, rec).\n" +
+           "foo(X) -> X#?REC{field = value}, X#?REC.other, #?REC{}.\n" +
+           "bar() -> after_record_access.\n");
+  }
+
+  public void testRecordFields() {
+    doTest("-record(rec, {field = default :: atom(), other :: {a, b}}).\n" +
+           "foo(X) -> X#rec{field = value}, X#rec.other, #rec.field, #{key => map_value}.\n");
+  }
+
+  public void testBitTypes() {
+    doTest("foo(X) -> <<X:8/integer-unit:8, \"a\"/utf8>>.\n");
+  }
+
+  private void doFileTest(@NotNull String path) throws IOException {
+    doTest(FileUtil.loadFile(new File(path)));
+  }
+
+  private void doTest(@NotNull String text) {
+    PsiFile file = PsiFileFactory.getInstance(getProject()).createFileFromText("a.erl", ErlangLanguage.INSTANCE, text);
+    Set<String> expected = new HashSet<>();
+    file.accept(new ErlangRecursiveVisitor() {
+      @Override
+      public void visitQAtom(@NotNull ErlangQAtom o) {
+        if (ErlangPsiImplUtil.standaloneAtom(o)) {
+          expected.add(o.getText());
+        }
+        super.visitQAtom(o);
+      }
+    });
+    assertSameElements(ErlangAtomIndex.getStandaloneAtoms(text, false), expected);
+  }
+}
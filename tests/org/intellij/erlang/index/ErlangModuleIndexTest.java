@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.index;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.PsiTestUtil;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class ErlangModuleIndexTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  public void testShorterPathFirst() {
+    PsiFile deeper = myFixture.addFileToProject("deeper/dir/dup.erl", "-module(dup).");
+    PsiFile root = myFixture.addFileToProject("dup.erl", "-module(dup).");
+
+    assertOrderedEquals(getFiles(), root.getVirtualFile(), deeper.getVirtualFile());
+  }
+
+  public void testRanksAreCached() {
+    myFixture.addFileToProject("deeper/dir/dup.erl", "-module(dup).");
+    myFixture.addFileToProject("dup.erl", "-module(dup).");
+    List<VirtualFile> files = getFiles();
+    Map<VirtualFile, ?> ranks = ErlangModuleIndex.getFileRanks(getProject());
+
+    assertSameElements(ranks.keySet(), files);
+    assertOrderedEquals(getFiles(), files);
+    assertSame(ranks, ErlangModuleIndex.getFileRanks(getProject()));
+  }
+
+  public void testContentChangeKeepsRanks() {
+    PsiFile root = myFixture.addFileToProject("dup.erl", "-module(dup).");
+    myFixture.addFileToProject("deeper/dir/dup.erl", "-module(dup).");
+    getFiles();
+    Map<VirtualFile, ?> ranks = ErlangModuleIndex.getFileRanks(getProject());
+
+    setText(root, "-module(dup).\nfoo() -> ok.");
+
+    assertSame(ranks, ErlangModuleIndex.getFileRanks(getProject()));
+  }
+
+  public void testFileChangesInvalidateRanks() throws IOException {
+    PsiFile deeper = myFixture.addFileToProject("deeper/dir/dup.erl", "-module(dup).");
+    PsiFile middle = myFixture.addFileToProject("middle/dup.erl", "-module(dup).");
+    assertOrderedEquals(getFiles(), middle.getVirtualFile(), deeper.getVirtualFile());
+    Map<VirtualFile, ?> ranks = ErlangModuleIndex.getFileRanks(getProject());
+
+    PsiFile root = myFixture.addFileToProject("dup.erl", "-module(dup).");
+    assertNotSame(ranks, ErlangModuleIndex.getFileRanks(getProject()));
+    assertOrderedEquals(getFiles(), root.getVirtualFile(), middle.getVirtualFile(), deeper.getVirtualFile());
+
+    VirtualFile deeperFile = deeper.getVirtualFile();
+    WriteCommandAction.writeCommandAction(getProject()).run(() -> deeperFile.move(this, root.getVirtualFile().getParent()
+      .createChildDirectory(this, "a")));
+    assertOrderedEquals(getFiles(), root.getVirtualFile(), deeperFile, middle.getVirtualFile());
+  }
+
+  public void testRootChangesInvalidateRanks() throws IOException {
+    PsiFile deeper = myFixture.addFileToProject("deeper/dir/dup.erl", "-module(dup).");
+    VirtualFile outside = myFixture.getTempDirFixture().createFile("lib/dup.erl", "-module(dup).");
+    assertOrderedEquals(getFiles(), deeper.getVirtualFile());
+    Map<VirtualFile, ?> ranks = ErlangModuleIndex.getFileRanks(getProject());
+
+    VirtualFile libRoot = outside.getParent();
+    PsiTestUtil.addSourceRoot(getModule(), libRoot);
+    try {
+      assertNotSame(ranks, ErlangModuleIndex.getFileRanks(getProject()));
+      assertOrderedEquals(getFiles(), outside, deeper.getVirtualFile());
+    }
+    finally {
+      PsiTestUtil.removeSourceRoot(getModule(), libRoot);
+    }
+  }
+
+  @NotNull
+  private List<VirtualFile> getFiles() {
+    return ErlangModuleIndex.getVirtualFilesByName(getProject(), "dup", GlobalSearchScope.allScope(getProject()));
+  }
+
+  private void setText(@NotNull PsiFile file, @NotNull String text) {
+    PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+    Document document = documentManager.getDocument(file);
+    assertNotNull(document);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      document.setText(text);
+      documentManager.commitDocument(document);
+    });
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.index;
+
+import com.intellij.psi.PsiFile;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+
+public class ErlangTypeMapsFieldIndexTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  public void testMacroWithArguments() {
+    assertOrderedEquals(ErlangTypeMapsFieldIndex.getMapTypeMacroses("-define(X_t(A), #{field => A, other => [A]})."), "X_t");
+  }
+
+  public void testMacroWithoutArguments() {
+    assertOrderedEquals(ErlangTypeMapsFieldIndex.getMapTypeMacroses("-define(user_t, #{name => undefined})."), "user_t");
+  }
+
+  public void testMacroWithNestedArguments() {
+    assertOrderedEquals(ErlangTypeMapsFieldIndex.getMapTypeMacroses("-define(X_t(A, B), #{a => {A, B}})."), "X_t");
+  }
+
+  public void testNotMapTypeMacroses() {
+    assertEmpty(ErlangTypeMapsFieldIndex.getMapTypeMacroses("-define(X(A), #{a => A}).\n" +
+                                                            "-define(X_t(A), {A, #{}}).\n" +
+                                                            "-define(Y_t, #rec{}).\n" +
+                                                            "foo() -> ?X_t(#{}).\n"));
+  }
+
+  public void testSeveralMacroses() {
+    assertOrderedEquals(ErlangTypeMapsFieldIndex.getMapTypeMacroses("-define(X_t(A), #{a => A}).\n" +
+                                                                    "-define(NOT_A_MAP, 1).\n" +
+                                                                    "-define(Y_t, #{}).\n"),
+                        "X_t", "Y_t");
+  }
+
+  public void testContainingFile() {
+    PsiFile header = myFixture.addFileToProject("maps.hrl", "-define(X_t(A), #{a => A}).");
+    myFixture.addFileToProject("other.hrl", "-define(Y_t(A), {A}).");
+
+    assertEquals(header, ErlangTypeMapsFieldIndex.getContainFile(getProject(), "X_value"));
+    assertNull(ErlangTypeMapsFieldIndex.getContainFile(getProject(), "Y_value"));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.intellij.erlang.navigation;
+
+import com.intellij.codeInsight.daemon.GutterMark;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.searches.DefinitionsScopedSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.psi.ErlangCallbackSpec;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.ErlangFunction;
+import org.intellij.erlang.psi.ErlangModule;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+
+public class ErlangGotoImplementationTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  @Override
+  protected String getTestDataPath() {
+    return "testData/navigation/goto_implementation/";
+  }
+
+  @Override
+  protected boolean isWriteActionRequired() {
+    return false;
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myFixture.configureByFiles("behaviour.erl", "impl1.erl", "impl2.erl", "other.erl");
+  }
+
+  public void testBehaviourModule() {
+    ErlangModule module = ((ErlangFile) myFixture.getFile()).getModule();
+    assertNotNull(module);
+    assertSameElements(getImplementationFileNames(module), "impl1.erl", "impl2.erl");
+  }
+
+  public void testCallbackSpec() {
+    assertSameElements(getImplementationFileNames(getCallbackSpec("init")), "impl1.erl", "impl2.erl");
+  }
+
+  public void testCallbackSpecArityMismatch() {
+    assertSameElements(getImplementationFileNames(getCallbackSpec("handle")), "impl1.erl");
+  }
+
+  public void testNotImplementedCallbackSpec() {
+    assertEmpty(getImplementationFileNames(getCallbackSpec("terminate")));
+  }
+
+  public void testImplementedMarkers() {
+    assertSameElements(getGutterTooltips(), "Has implementations", "Has implementations");
+  }
+
+  public void testImplementingMarkers() {
+    myFixture.configureFromTempProjectFile("impl2.erl");
+    assertSameElements(getGutterTooltips(), "Implements callback 'init/1'");
+  }
+
+  @NotNull
+  private static List<String> getImplementationFileNames(@NotNull PsiElement element) {
+    Collection<PsiElement> implementations = DefinitionsScopedSearch.search(element).findAll();
+    for (PsiElement implementation : implementations) {
+      assertTrue(implementation instanceof ErlangModule || implementation instanceof ErlangFunction);
+    }
+    return ContainerUtil.map(implementations, implementation -> implementation.getContainingFile().getName());
+  }
+
+  @NotNull
+  private ErlangCallbackSpec getCallbackSpec(@NotNull String name) {
+    Collection<ErlangCallbackSpec> callbackSpecs = PsiTreeUtil.findChildrenOfType(myFixture.getFile(), ErlangCallbackSpec.class);
+    ErlangCallbackSpec callbackSpec = ContainerUtil.find(callbackSpecs, spec -> name.equals(ErlangPsiImplUtil.getCallbackSpecName(spec)));
+    assertNotNull(callbackSpec);
+    return callbackSpec;
+  }
+
+  @NotNull
+  private List<String> getGutterTooltips() {
+    return ContainerUtil.mapNotNull(myFixture.findAllGutters(), GutterMark::getTooltipText);
+  }
+}
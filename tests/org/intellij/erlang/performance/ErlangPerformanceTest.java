@@ -17,13 +17,30 @@
 package org.intellij.erlang.performance;
 
 import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
 import com.intellij.testFramework.LightProjectDescriptor;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.ErlangLanguage;
 import org.intellij.erlang.highlighting.ErlangHighlightingTestBase;
+import org.intellij.erlang.index.ErlangAtomIndex;
+import org.intellij.erlang.index.ErlangTypeMapsFieldIndex;
+import org.intellij.erlang.psi.*;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
 import org.intellij.erlang.sdk.ErlangSdkRelease;
 import org.intellij.erlang.sdk.ErlangSdkType;
 import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class ErlangPerformanceTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
   @Override
@@ -61,4 +78,83 @@ public class ErlangPerformanceTest extends ErlangLightPlatformCodeInsightFixture
   }
 
   public void testDialyzerDataflow() { doTest(5000); }
+
+  public void testAtomIndexing() throws IOException {
+    String text = FileUtil.loadFile(new File(getTestDataPath() + "DialyzerDataflow.erl"));
+    Set<String> atoms = ErlangAtomIndex.getStandaloneAtoms(text, false);
+    assertContainsElements(atoms, "no_arg");
+    assertDoesntContain(atoms, "get_warnings", "state");
+    assertSameElements(atoms, getStandaloneAtomsFromPsi(text));
+
+    long psiTime = measure(() -> {
+      getStandaloneAtomsFromPsi(text);
+      getMapTypeMacrosesFromPsi(text);
+    });
+    long lexerTime = measure(() -> {
+      ErlangAtomIndex.getStandaloneAtoms(text, false);
+      ErlangTypeMapsFieldIndex.getMapTypeMacroses(text);
+    });
+    assertTrue("lexer indexing took " + lexerTime + "ns, PSI indexing took " + psiTime + "ns", lexerTime < psiTime);
+
+    PlatformTestUtil.startPerformanceTest("erlang atom indexing is slow", 100, () -> {
+      ErlangAtomIndex.getStandaloneAtoms(text, false);
+      ErlangTypeMapsFieldIndex.getMapTypeMacroses(text);
+    }).attempts(100).usesAllCPUCores().assertTiming();
+  }
+
+  /**
+   * @return the best of several runs after a warm-up, in nanoseconds.
+   */
+  private static long measure(@NotNull Runnable runnable) {
+    for (int i = 0; i < 5; i++) {
+      runnable.run();
+    }
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < 20; i++) {
+      long start = System.nanoTime();
+      runnable.run();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  /**
+   * The way atoms were indexed before the index switched to lexer tokens.
+   */
+  @NotNull
+  private Set<String> getStandaloneAtomsFromPsi(@NotNull String text) {
+    Set<String> result = new HashSet<>();
+    createFile(text).accept(new ErlangRecursiveVisitor() {
+      @Override
+      public void visitQAtom(@NotNull ErlangQAtom o) {
+        if (ErlangPsiImplUtil.standaloneAtom(o)) result.add(o.getText());
+      }
+    });
+    return result;
+  }
+
+  /**
+   * The way map type macroses were indexed before the index switched to lexer tokens.
+   */
+  @NotNull
+  private List<String> getMapTypeMacrosesFromPsi(@NotNull String text) {
+    List<String> result = new ArrayList<>();
+    createFile(text).accept(new ErlangRecursiveVisitor() {
+      @Override
+      public void visitMacrosDefinition(@NotNull ErlangMacrosDefinition o) {
+        ErlangMacrosName macrosName = o.getMacrosName();
+        ErlangMacrosBody macrosBody = o.getMacrosBody();
+        if (macrosName != null && macrosName.getText().endsWith("_t") && macrosBody != null &&
+            ContainerUtil.getFirstItem(macrosBody.getExpressionList()) instanceof ErlangMapExpression) {
+          result.add(macrosName.getText());
+        }
+      }
+    });
+    return result;
+  }
+
+  @NotNull
+  private PsiFile createFile(@NotNull String text) {
+    return PsiFileFactory.getInstance(getProject()).createFileFromText("a.erl", ErlangLanguage.INSTANCE, text);
+  }
 }
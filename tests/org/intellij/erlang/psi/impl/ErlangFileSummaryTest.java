@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.psi.impl;
+
+import org.intellij.erlang.psi.ErlangFunction;
+import org.intellij.erlang.psi.ErlangMacrosDefinition;
+import org.intellij.erlang.psi.ErlangRecordDefinition;
+import org.intellij.erlang.psi.ErlangTypeDefinition;
+import org.intellij.erlang.stubs.ErlangFileStub;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+public class ErlangFileSummaryTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  public void testStubSummaryMatchesTreeSummary() {
+    ErlangFileImpl file = addFile("-module(test).\n" +
+                                  "-behaviour(gen_server).\n" +
+                                  "-export([foo/1, bar/0]).\n" +
+                                  "-include(\"a.hrl\").\n" +
+                                  "-include_lib(\"kernel/include/file.hrl\").\n" +
+                                  "-record(rec, {a}).\n" +
+                                  "-define(MACRO, 1).\n" +
+                                  "-type t() :: atom().\n" +
+                                  "-callback cb(term()) -> ok.\n" +
+                                  "-optional_callbacks([cb/1]).\n" +
+                                  "-spec foo(integer()) -> ok.\n" +
+                                  "foo(_) -> ok.\n" +
+                                  "bar() -> ok.\n" +
+                                  "baz() -> ok.");
+    ErlangFileSummary[] summaries = buildSummaries(file);
+    assertSameDeclarations(summaries[0], summaries[1]);
+
+    ErlangFileSummary stubSummary = summaries[0];
+    assertNotNull(stubSummary.getModule());
+    assertSize(3, stubSummary.getFunctions());
+    assertSize(2, stubSummary.getExportedFunctions());
+    assertSize(1, stubSummary.getRecords());
+    assertSize(1, stubSummary.getMacroses());
+    assertSize(1, stubSummary.getTypes());
+    assertSize(1, stubSummary.getIncludes());
+    assertSize(1, stubSummary.getIncludeLibs());
+    assertSize(1, stubSummary.getBehaviours());
+    assertSize(1, stubSummary.getOptionalCallbacks());
+    assertSize(1, stubSummary.getSpecifications());
+    assertSameElements(stubSummary.getCallbackMap().keySet(), "cb/1");
+  }
+
+  public void testDuplicateNames() {
+    ErlangFileImpl file = addFile("-module(test).\n" +
+                                  "-export([foo/1]).\n" +
+                                  "-record(rec, {a}).\n" +
+                                  "-record(rec, {b}).\n" +
+                                  "-define(MACRO, 1).\n" +
+                                  "-define(MACRO(X), X).\n" +
+                                  "-type t() :: atom().\n" +
+                                  "-type t() :: integer().\n" +
+                                  "-callback cb(term()) -> ok.\n" +
+                                  "-callback cb(atom()) -> error.\n" +
+                                  "foo(1) -> ok.\n" +
+                                  "foo(_, _) -> ok.\n" +
+                                  "foo(2) -> error.");
+    ErlangFileSummary[] summaries = buildSummaries(file);
+    assertSameDeclarations(summaries[0], summaries[1]);
+
+    for (ErlangFileSummary summary : summaries) {
+      assertSize(3, summary.getFunctionsByName("foo"));
+      assertSame(summary.getFunctions().get(0), summary.getFunction("foo", 1));
+      assertSameElements(summary.getExportedFunctions(), summary.getFunctions().get(0), summary.getFunctions().get(2));
+      assertSize(2, summary.getRecords());
+      assertSame(summary.getRecords().get(0), summary.getRecord("rec"));
+      assertSize(2, summary.getMacroses());
+      assertSame(summary.getMacroses().get(0), summary.getMacros("MACRO"));
+      assertSize(2, summary.getTypes());
+      assertSame(summary.getTypes().get(0), summary.getType("t"));
+      assertSize(1, summary.getCallbackMap());
+    }
+  }
+
+  public void testExportAll() {
+    ErlangFileImpl file = addFile("-module(test).\n" +
+                                  "-compile(export_all).\n" +
+                                  "foo() -> ok.\n" +
+                                  "bar() -> ok.");
+    ErlangFileSummary[] summaries = buildSummaries(file);
+    assertSameDeclarations(summaries[0], summaries[1]);
+    assertTrue(summaries[0].isExportAll());
+    assertSize(2, summaries[0].getExportedFunctions());
+  }
+
+  @NotNull
+  private ErlangFileImpl addFile(@NotNull String text) {
+    return (ErlangFileImpl) myFixture.addFileToProject("test.erl", text);
+  }
+
+  /**
+   * @return a summary built from the stub, before the tree is loaded, followed by one built from the tree.
+   */
+  @NotNull
+  private static ErlangFileSummary[] buildSummaries(@NotNull ErlangFileImpl file) {
+    ErlangFileStub stub = file.getStub();
+    assertNotNull(stub);
+    ErlangFileSummary stubSummary = ErlangFileSummary.fromStub(stub);
+    assertTrue(stubSummary.isStubBased());
+
+    assertNotNull(file.getNode());
+    ErlangFileSummary treeSummary = ErlangFileSummary.fromTree(file, false);
+    assertFalse(treeSummary.isStubBased());
+    return new ErlangFileSummary[]{stubSummary, treeSummary};
+  }
+
+  private static void assertSameDeclarations(@NotNull ErlangFileSummary stubSummary, @NotNull ErlangFileSummary treeSummary) {
+    assertSame(treeSummary.getModule(), stubSummary.getModule());
+    assertOrderedEquals(stubSummary.getFunctions(), treeSummary.getFunctions());
+    assertOrderedEquals(stubSummary.getExportedFunctions(), treeSummary.getExportedFunctions());
+    assertOrderedEquals(stubSummary.getRecords(), treeSummary.getRecords());
+    assertOrderedEquals(stubSummary.getMacroses(), treeSummary.getMacroses());
+    assertOrderedEquals(stubSummary.getTypes(), treeSummary.getTypes());
+    assertOrderedEquals(stubSummary.getIncludes(), treeSummary.getIncludes());
+    assertOrderedEquals(stubSummary.getIncludeLibs(), treeSummary.getIncludeLibs());
+    assertOrderedEquals(stubSummary.getBehaviours(), treeSummary.getBehaviours());
+    assertOrderedEquals(stubSummary.getOptionalCallbacks(), treeSummary.getOptionalCallbacks());
+    assertOrderedEquals(stubSummary.getSpecifications(), treeSummary.getSpecifications());
+    assertEquals(treeSummary.getCallbackMap(), stubSummary.getCallbackMap());
+    assertEquals(treeSummary.isExportAll(), stubSummary.isExportAll());
+
+    for (ErlangFunction function : treeSummary.getFunctions()) {
+      String name = function.getName();
+      assertOrderedEquals(stubSummary.getFunctionsByName(name), treeSummary.getFunctionsByName(name));
+      assertSame(treeSummary.getFunction(name, function.getArity()), stubSummary.getFunction(name, function.getArity()));
+    }
+    for (ErlangRecordDefinition record : treeSummary.getRecords()) {
+      assertSame(treeSummary.getRecord(record.getName()), stubSummary.getRecord(record.getName()));
+    }
+    for (ErlangTypeDefinition type : treeSummary.getTypes()) {
+      assertSame(treeSummary.getType(type.getName()), stubSummary.getType(type.getName()));
+    }
+    for (ErlangMacrosDefinition macros : treeSummary.getMacroses()) {
+      String name = ErlangPsiImplUtil.getName(macros);
+      assertSame(treeSummary.getMacros(name), stubSummary.getMacros(name));
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.quickfixes;
+
+import org.intellij.erlang.inspection.ErlangUnresolvedMacrosInspection;
+import org.intellij.erlang.inspection.ErlangUnresolvedRecordInspection;
+
+public class ErlangIncludeHeaderFixTest extends ErlangQuickFixTestBase {
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    //noinspection unchecked
+    myFixture.enableInspections(ErlangUnresolvedRecordInspection.class, ErlangUnresolvedMacrosInspection.class);
+    myFixture.addFileToProject("header.hrl", "-record(point, {x, y}).\n-define(MAX_LEVEL, 10).\n-define(SCALE(X), X * 10).");
+    myFixture.addFileToProject("other.hrl", "-define(MIN_LEVEL, 1).");
+  }
+
+  @Override
+  protected String getTestDataPath() {
+    return "testData/quickfixes/include_header/";
+  }
+
+  private void doIncludeHeaderTest() { doTest("Include 'header.hrl'"); }
+
+  public void testRecord()             { doIncludeHeaderTest(); }
+  public void testMacro()              { doIncludeHeaderTest(); }
+  public void testNoModule()           { doIncludeHeaderTest(); }
+  public void testMacroWithArguments() { doIncludeHeaderTest(); }
+  public void testMacroCalledWithArguments() { doIncludeHeaderTest(); }
+
+  public void testMacroArityMismatch() {
+    myFixture.configureByFile(getTestName(true) + ".erl");
+    assertNoIntentionsAvailable("Include 'header.hrl'");
+  }
+}
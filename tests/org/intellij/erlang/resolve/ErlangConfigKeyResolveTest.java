@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.resolve;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.intellij.erlang.index.ErlangConfigKeyIndex;
+import org.intellij.erlang.psi.ErlangQAtom;
+import org.intellij.erlang.psi.ErlangTupleExpression;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+public class ErlangConfigKeyResolveTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  private static final String CONFIG_TEXT =
+    "{sword, 10}.\n" +
+    "{ shield , 20}.\n" +
+    "{{level, 1}, 100}.\n";
+
+  public void testConfigFileFound() {
+    PsiFile config = myFixture.addFileToProject("item.config", CONFIG_TEXT);
+    GlobalSearchScope scope = GlobalSearchScope.projectScope(getProject());
+    assertEquals(config, ErlangConfigKeyIndex.getConfigFile(getProject(), "item", scope));
+    assertEquals(config, ErlangConfigKeyIndex.getConfigFile(getProject(), "data_item", scope));
+    assertNull(ErlangConfigKeyIndex.getConfigFile(getProject(), "weapon", scope));
+  }
+
+  public void testKeysIndexed() {
+    PsiFile config = myFixture.addFileToProject("item.config", CONFIG_TEXT);
+    assertTrue(ErlangConfigKeyIndex.hasConfigKey(config, "sword"));
+    assertTrue(ErlangConfigKeyIndex.hasConfigKey(config, "shield"));
+    assertTrue(ErlangConfigKeyIndex.hasConfigKey(config, "{level, 1}"));
+    assertFalse(ErlangConfigKeyIndex.hasConfigKey(config, "bow"));
+  }
+
+  public void testAtomKeyResolve() {
+    myFixture.addFileToProject("item.config", CONFIG_TEXT);
+    PsiElement resolved = doResolve("foo() -> data_item:get(shi<caret>eld).");
+    assertInstanceOf(resolved, ErlangQAtom.class);
+    assertEquals("shield", resolved.getText());
+    assertEquals("item.config", resolved.getContainingFile().getName());
+  }
+
+  public void testTupleKeyResolve() {
+    myFixture.addFileToProject("item.config", CONFIG_TEXT);
+    PsiElement resolved = doResolve("foo(Lvl) -> data_item:get({le<caret>vel, Lvl}).");
+    assertInstanceOf(resolved, ErlangTupleExpression.class);
+    assertEquals("{level, 1}", resolved.getText());
+  }
+
+  @NotNull
+  private PsiElement doResolve(@NotNull String moduleText) {
+    myFixture.configureByText("test.erl", moduleText);
+    PsiReference reference = getElementAtCaret(ErlangQAtom.class).getReference();
+    PsiElement resolved = reference != null ? reference.resolve() : null;
+    assertNotNull(resolved);
+    return resolved;
+  }
+}
@@ -58,6 +58,9 @@ public class ErlangFunctionResolutionTest extends ErlangLightPlatformCodeInsight
   public void testPreferImportFromUserModule() { doFunctionCallTest("test.erl", "incl.erl"); }
   public void testPreferLocalFunction()        { doFunctionCallTest("test.erl", "test.erl", "incl.erl"); }
   public void testPreferFirstImport()          { doFunctionCallTest("test.erl", "incl.erl", "another_incl.erl"); }
+  public void testImportFromInclude()          { doFunctionCallTest("test.erl", "incl.erl", "imports.hrl"); }
+  public void testImportFromTransitiveInclude() { doFunctionCallTest("test.erl", "incl.erl", "imports.hrl", "transitive_imports.hrl"); }
+  public void testUnresolvedImportFallsBackToInclude() { doFunctionCallTest("test.erl", "incl.erl", "imports.hrl"); }
 
   public void testGetArityFromParameter()      { doParameterTest("test.erl", "test.erl", "bar", 1); }
   public void testGetModuleFromParameter()     { doParameterTest("test.erl", "module.erl", "bar", 1); }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.resolve;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import org.intellij.erlang.psi.ErlangFile;
+import org.intellij.erlang.psi.impl.ErlangIncludeGraph;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+public class ErlangIncludeGraphTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  public void testTransitiveClosure() {
+    PsiFile a = myFixture.addFileToProject("a.hrl", "-include(\"b.hrl\").");
+    PsiFile b = myFixture.addFileToProject("b.hrl", "-include(\"c.hrl\").");
+    PsiFile c = myFixture.addFileToProject("c.hrl", "-define(C, 1).");
+    myFixture.addFileToProject("unused.hrl", "-define(UNUSED, 1).");
+    ErlangFile module = addModule("-module(test).\n-include(\"a.hrl\").");
+
+    assertOrderedEquals(getGraph().getDirectlyIncludedFiles(module), a);
+    assertOrderedEquals(getGraph().getIncludedFiles(module), a, b, c);
+  }
+
+  public void testCyclicIncludes() {
+    PsiFile a = myFixture.addFileToProject("a.hrl", "-include(\"b.hrl\").");
+    PsiFile b = myFixture.addFileToProject("b.hrl", "-include(\"a.hrl\").");
+    ErlangFile module = addModule("-module(test).\n-include(\"a.hrl\").");
+
+    assertOrderedEquals(getGraph().getIncludedFiles(module), a, b);
+  }
+
+  public void testHeaderChangeInvalidatesClosure() {
+    PsiFile a = myFixture.addFileToProject("a.hrl", "-define(A, 1).");
+    PsiFile b = myFixture.addFileToProject("b.hrl", "-define(B, 1).");
+    ErlangFile module = addModule("-module(test).\n-include(\"a.hrl\").");
+    assertOrderedEquals(getGraph().getIncludedFiles(module), a);
+
+    setText(a, "-include(\"b.hrl\").");
+    assertOrderedEquals(getGraph().getIncludedFiles(module), a, b);
+
+    setText(a, "-define(A, 2).");
+    assertOrderedEquals(getGraph().getIncludedFiles(module), a);
+  }
+
+  public void testUnrelatedHeaderChangeKeepsClosure() {
+    myFixture.addFileToProject("a.hrl", "-define(A, 1).");
+    PsiFile unrelated = myFixture.addFileToProject("unrelated.hrl", "-define(B, 1).");
+    ErlangFile module = addModule("-module(test).\n-include(\"a.hrl\").");
+    Collection<ErlangFile> includedFiles = getGraph().getIncludedFiles(module);
+
+    setText(unrelated, "-define(B, 2).");
+    assertSame(includedFiles, getGraph().getIncludedFiles(module));
+  }
+
+  public void testIncludingFiles() {
+    ErlangFile a = (ErlangFile) myFixture.addFileToProject("a.hrl", "-include(\"b.hrl\").");
+    ErlangFile b = (ErlangFile) myFixture.addFileToProject("b.hrl", "-define(B, 1).");
+    PsiFile other = myFixture.addFileToProject("other/b.hrl", "-define(B, 2).");
+    myFixture.addFileToProject("other/c.erl", "-module(c).\n-include(\"b.hrl\").");
+    ErlangFile module = addModule("-module(test).\n-include(\"a.hrl\").");
+
+    assertOrderedEquals(getGraph().getDirectlyIncludingFiles(b), a);
+    assertSameElements(getGraph().getIncludingFiles(b), a, module);
+    assertEmpty(getGraph().getIncludingFiles(module));
+    assertSize(1, getGraph().getIncludingFiles((ErlangFile) other));
+  }
+
+  public void testIncludingFilesFollowChanges() {
+    ErlangFile a = (ErlangFile) myFixture.addFileToProject("a.hrl", "-define(A, 1).");
+    PsiFile b = myFixture.addFileToProject("b.hrl", "-define(B, 1).");
+    ErlangFile module = addModule("-module(test).\n-include(\"a.hrl\").");
+    assertOrderedEquals(getGraph().getIncludingFiles(a), module);
+
+    setText(b, "-include(\"a.hrl\").");
+    assertSameElements(getGraph().getIncludingFiles(a), module, b);
+
+    setText(module, "-module(test).");
+    assertOrderedEquals(getGraph().getIncludingFiles(a), b);
+  }
+
+  @NotNull
+  private ErlangFile addModule(@NotNull String text) {
+    return (ErlangFile) myFixture.addFileToProject("test.erl", text);
+  }
+
+  @NotNull
+  private ErlangIncludeGraph getGraph() {
+    return ErlangIncludeGraph.getInstance(getProject());
+  }
+
+  private void setText(@NotNull PsiFile file, @NotNull String text) {
+    PsiDocumentManager documentManager = PsiDocumentManager.getInstance(getProject());
+    Document document = documentManager.getDocument(file);
+    assertNotNull(document);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      document.setText(text);
+      documentManager.commitDocument(document);
+    });
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.resolve;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.psi.ErlangQVar;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+public class ErlangVariableResolveTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  public void testArgument()                   { doTest("foo(A) -> <caret>A.", 0); }
+  public void testFirstBinding()               { doTest("foo() -> A = 1, A = 2, <caret>A.", 0); }
+  public void testFunArgumentShadows()         { doTest("foo(A) -> fun(A) -> <caret>A end.", 1); }
+  public void testOuterVariableInFun()         { doTest("foo(A) -> fun() -> <caret>A end.", 0); }
+  public void testFunVariableNotVisibleAfter() { doTest("foo() -> fun() -> B = 1, B end, <caret>B.", -1); }
+  public void testLcGenerator()                { doTest("foo(L) -> [<caret>X || X <- L].", 1); }
+  public void testLcVariableNotVisibleAfter()  { doTest("foo(L) -> [X || X <- L], <caret>X.", -1); }
+  public void testDifferentCaseClauses()       { doTest("foo(X) -> case X of 1 -> Y = 1; _ -> <caret>Y end.", -1); }
+  public void testFunctionTypeArgument()       { doTest("-spec foo(fun((T) -> ok)) -> ok when <caret>T :: atom().", 0); }
+
+  /**
+   * @param expectedOccurrence index of the variable occurrence the reference at caret resolves to, or -1 if it's unresolved.
+   */
+  private void doTest(@NotNull String text, int expectedOccurrence) {
+    myFixture.configureByText("a.erl", text);
+    int offset = myFixture.getCaretOffset();
+    ErlangQVar var = PsiTreeUtil.getParentOfType(myFixture.getFile().findElementAt(offset), ErlangQVar.class);
+    assertNotNull(var);
+    PsiReference reference = var.getReference();
+    PsiElement resolved = reference != null ? reference.resolve() : null;
+    if (expectedOccurrence < 0) {
+      assertNull(resolved);
+      return;
+    }
+    List<ErlangQVar> occurrences = ContainerUtil.filter(PsiTreeUtil.findChildrenOfType(myFixture.getFile(), ErlangQVar.class),
+                                                        v -> v.getName().equals(var.getName()));
+    assertEquals(occurrences.get(expectedOccurrence), resolved);
+  }
+}
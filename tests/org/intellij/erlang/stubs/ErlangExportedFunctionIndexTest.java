@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.stubs;
+
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.containers.ContainerUtil;
+import org.intellij.erlang.psi.ErlangFunction;
+import org.intellij.erlang.psi.ErlangFunctionCallExpression;
+import org.intellij.erlang.psi.impl.ErlangPsiImplUtil;
+import org.intellij.erlang.stubs.index.ErlangExportedFunctionIndex;
+import org.intellij.erlang.stubs.index.ErlangModuleExportsIndex;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+
+public class ErlangExportedFunctionIndexTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myFixture.addFileToProject("explicit.erl", "-module(explicit).\n-export([pub/0, pub/1]).\n" +
+                                               "pub() -> ok.\npub(A) -> A.\npriv() -> ok.");
+    myFixture.addFileToProject("all.erl", "-module(all).\n-compile(export_all).\n" +
+                                          "pub() -> ok.\nother() -> ok.");
+    myFixture.addFileToProject("header.hrl", "-export([pub/0]).\npub() -> ok.");
+  }
+
+  public void testExportedFunctionsByName() {
+    assertSameElements(getPresentations(ErlangExportedFunctionIndex.getFunctions(getProject(), "pub", getScope())),
+                       "explicit:pub/0", "explicit:pub/1", "all:pub/0");
+    assertSameElements(getPresentations(ErlangExportedFunctionIndex.getFunctions(getProject(), "other", getScope())),
+                       "all:other/0");
+    assertEmpty(ErlangExportedFunctionIndex.getFunctions(getProject(), "priv", getScope()));
+  }
+
+  public void testExportedFunctionsByModule() {
+    Collection<String> moduleNames = ErlangModuleExportsIndex.getModuleNames(getProject());
+    assertContainsElements(moduleNames, "explicit", "all");
+    assertDoesntContain(moduleNames, "header");
+    assertSameElements(getPresentations(ErlangModuleExportsIndex.getExportedFunctions(getProject(), "explicit", getScope())),
+                       "explicit:pub/0", "explicit:pub/1");
+    assertSameElements(getPresentations(ErlangModuleExportsIndex.getExportedFunctions(getProject(), "all", getScope())),
+                       "all:pub/0", "all:other/0");
+  }
+
+  public void testExternalCallPrefersFirstRankedModuleFile() {
+    myFixture.addFileToProject("dup.erl", "-module(dup).\nfoo() -> ok.");
+    myFixture.addFileToProject("deeper/dir/dup.erl", "-module(dup).\n-export([foo/0]).\nfoo() -> ok.");
+    myFixture.configureByText("a.erl", "bar() -> dup:fo<caret>o().");
+
+    ErlangFunctionCallExpression call = getElementAtCaret(ErlangFunctionCallExpression.class);
+    PsiReference reference = call.getReference();
+    assertNotNull(reference);
+    ErlangFunction function = (ErlangFunction) reference.resolve();
+    assertNotNull(function);
+    assertEquals("/src/dup.erl", function.getContainingFile().getVirtualFile().getPath());
+  }
+
+  @NotNull
+  private GlobalSearchScope getScope() {
+    return GlobalSearchScope.allScope(getProject());
+  }
+
+  @NotNull
+  private static List<String> getPresentations(@NotNull Collection<ErlangFunction> functions) {
+    return ContainerUtil.map(functions, function ->
+      function.getContainingFile().getVirtualFile().getNameWithoutExtension() + ":" +
+      ErlangPsiImplUtil.createFunctionPresentation(function));
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2020 Sergey Ignatov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.intellij.erlang.stubs;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiManagerImpl;
+import com.intellij.psi.stubs.SerializationManagerEx;
+import com.intellij.psi.stubs.SerializerNotFoundException;
+import com.intellij.psi.stubs.Stub;
+import com.intellij.psi.stubs.StubElement;
+import org.intellij.erlang.inspection.ErlangUnresolvedRecordFieldInspection;
+import org.intellij.erlang.stubs.types.ErlangFileElementType;
+import org.intellij.erlang.utils.ErlangLightPlatformCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ErlangStubsTest extends ErlangLightPlatformCodeInsightFixtureTestCase {
+  public void testRecordFieldNames() throws SerializerNotFoundException {
+    Stub root = buildAndRestore("-record(rec, {plain, with_default = 1, typed :: atom(), ?MACRO, ?MACRO_FIELD = 2}).\n" +
+                                "-record(empty, {}).");
+    Map<String, ErlangRecordDefinitionStub> records = new HashMap<>();
+    for (Stub child : root.getChildrenStubs()) {
+      if (child instanceof ErlangRecordDefinitionStub) {
+        ErlangRecordDefinitionStub record = (ErlangRecordDefinitionStub) child;
+        records.put(record.getName(), record);
+      }
+    }
+    assertSameElements(records.keySet(), "rec", "empty");
+    assertEquals(Arrays.asList("plain", "with_default", "typed"), records.get("rec").getFieldNames());
+    assertEquals(Collections.emptyList(), records.get("empty").getFieldNames());
+  }
+
+  public void testMacrosArity() throws SerializerNotFoundException {
+    Stub root = buildAndRestore("-define(PLAIN, 1).\n" +
+                                "-define(EMPTY(), 2).\n" +
+                                "-define(PAIR(A, B), {A, B}).");
+    Map<String, Integer> arities = new HashMap<>();
+    for (Stub child : root.getChildrenStubs()) {
+      if (child instanceof ErlangMacrosDefinitionStub) {
+        ErlangMacrosDefinitionStub macros = (ErlangMacrosDefinitionStub) child;
+        arities.put(macros.getName(), macros.getArity());
+      }
+    }
+    assertEquals(3, arities.size());
+    assertEquals(-1, arities.get("PLAIN").intValue());
+    assertEquals(0, arities.get("EMPTY").intValue());
+    assertEquals(2, arities.get("PAIR").intValue());
+  }
+
+  public void testKnownRecordFieldDoesNotLoadHeaderTree() {
+    //noinspection unchecked
+    myFixture.enableInspections(ErlangUnresolvedRecordFieldInspection.class);
+    myFixture.addFileToProject("rec.hrl", "-record(rec, {known, other = 1}).");
+    ((PsiManagerImpl) PsiManager.getInstance(getProject()))
+      .setAssertOnFileLoadingFilter(file -> "rec.hrl".equals(file.getName()), getTestRootDisposable());
+    myFixture.configureByText("a.erl",
+                              "-include(\"rec.hrl\").\n" +
+                              "foo(R) -> R#rec.known, R#rec{other = 2}.");
+    myFixture.checkHighlighting();
+  }
+
+  @NotNull
+  private Stub buildAndRestore(@NotNull String text) throws SerializerNotFoundException {
+    PsiFile file = myFixture.configureByText("a.hrl", text);
+    StubElement<?> stub = ErlangFileElementType.INSTANCE.getBuilder().buildStubTree(file);
+    SerializationManagerEx serializationManager = SerializationManagerEx.getInstanceEx();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializationManager.serialize(stub, out);
+    return serializationManager.deserialize(new ByteArrayInputStream(out.toByteArray()));
+  }
+}